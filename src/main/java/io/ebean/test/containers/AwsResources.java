@@ -0,0 +1,333 @@
+package io.ebean.test.containers;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesRequest;
+import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
+import software.amazon.awssdk.services.kinesis.model.ListStreamsRequest;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
+import software.amazon.awssdk.services.kms.model.AliasListEntry;
+import software.amazon.awssdk.services.kms.model.ListAliasesRequest;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.Bucket;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.ListTopicsRequest;
+import software.amazon.awssdk.services.sns.model.Topic;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ListQueuesRequest;
+
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The AWS resources (queues, topics, buckets, tables, KMS keys and Kinesis streams) to
+ * create when a Localstack or Floci container has started.
+ * <p>
+ * The resources are created concurrently using the async SDK v2 clients. Resources that
+ * already exist are skipped such that a container that is already running is not changed.
+ * The time taken to create each resource is added to the {@link StartupReport} as a phase
+ * named by service and resource, for example <code>sqs:orders</code>.
+ *
+ * <pre>{@code
+ *
+ *     Localstack2Container container = Localstack2Container.builder("4.0.3")
+ *       .services("dynamodb,sqs,sns")
+ *       .resources(new AwsResources()
+ *         .queue("orders", "payments")
+ *         .topic("events")
+ *         .table("customer", "id"))
+ *       .build();
+ *
+ * }</pre>
+ * <p>
+ * The resources can also be specified via properties with comma delimited values, for
+ * example <code>localstack.queues=orders,payments</code>, <code>localstack.topics</code>,
+ * <code>localstack.buckets</code>, <code>localstack.kmsKeys</code>,
+ * <code>localstack.tables=customer:id,order:customerId:orderId</code> and
+ * <code>localstack.streams=clicks:2</code> (<code>floci.</code> prefix for Floci).
+ */
+public final class AwsResources {
+
+  private static final System.Logger log = Commands.log;
+
+  /**
+   * Maximum time to wait for all the resources to be created.
+   */
+  private static final long TIMEOUT_SECONDS = Long.getLong("ebean.test.containers.aws.resourceTimeoutSeconds", 120);
+
+  private final Set<String> queues = new LinkedHashSet<>();
+  private final Set<String> topics = new LinkedHashSet<>();
+  private final Set<String> buckets = new LinkedHashSet<>();
+  private final Set<String> kmsKeys = new LinkedHashSet<>();
+  private final Map<String, Table> tables = new LinkedHashMap<>();
+  private final Map<String, Integer> streams = new LinkedHashMap<>();
+
+  /**
+   * A DynamoDB table with string hash key and optional string range key.
+   */
+  private static final class Table {
+
+    final String name;
+    final String hashKey;
+    final String rangeKey;
+
+    Table(String name, String hashKey, String rangeKey) {
+      this.name = name;
+      this.hashKey = hashKey;
+      this.rangeKey = rangeKey;
+    }
+  }
+
+  /**
+   * Add SQS queues.
+   */
+  public AwsResources queue(String... names) {
+    queues.addAll(Arrays.asList(names));
+    return this;
+  }
+
+  /**
+   * Add SNS topics.
+   */
+  public AwsResources topic(String... names) {
+    topics.addAll(Arrays.asList(names));
+    return this;
+  }
+
+  /**
+   * Add S3 buckets.
+   */
+  public AwsResources bucket(String... names) {
+    buckets.addAll(Arrays.asList(names));
+    return this;
+  }
+
+  /**
+   * Add KMS keys with the given aliases (with or without the <code>alias/</code> prefix).
+   */
+  public AwsResources kmsKey(String... aliases) {
+    for (String alias : aliases) {
+      kmsKeys.add(alias.startsWith("alias/") ? alias.substring(6) : alias);
+    }
+    return this;
+  }
+
+  /**
+   * Add a DynamoDB table with a string hash key.
+   */
+  public AwsResources table(String name, String hashKey) {
+    return table(name, hashKey, null);
+  }
+
+  /**
+   * Add a DynamoDB table with a string hash key and string range key.
+   */
+  public AwsResources table(String name, String hashKey, String rangeKey) {
+    tables.put(name, new Table(name, hashKey, rangeKey));
+    return this;
+  }
+
+  /**
+   * Add a Kinesis stream with the given number of shards.
+   */
+  public AwsResources stream(String name, int shardCount) {
+    streams.put(name, shardCount);
+    return this;
+  }
+
+  /**
+   * Add all the resources of the other spec.
+   */
+  void addAll(AwsResources other) {
+    queues.addAll(other.queues);
+    topics.addAll(other.topics);
+    buckets.addAll(other.buckets);
+    kmsKeys.addAll(other.kmsKeys);
+    tables.putAll(other.tables);
+    streams.putAll(other.streams);
+  }
+
+  /**
+   * Read the resources from properties (comma delimited names).
+   * <p>
+   * Tables are specified as <code>name:hashKey</code> or <code>name:hashKey:rangeKey</code>
+   * and streams as <code>name</code> or <code>name:shardCount</code>.
+   */
+  void parse(String queues, String topics, String buckets, String tables, String kmsKeys, String streams) {
+    this.queues.addAll(TrimSplit.split(queues));
+    this.topics.addAll(TrimSplit.split(topics));
+    this.buckets.addAll(TrimSplit.split(buckets));
+    kmsKey(TrimSplit.split(kmsKeys).toArray(new String[0]));
+    for (String entry : TrimSplit.split(tables)) {
+      String[] parts = entry.split(":");
+      if (parts.length < 2) {
+        throw new IllegalArgumentException("Expected table as name:hashKey or name:hashKey:rangeKey but got " + entry);
+      }
+      table(parts[0].trim(), parts[1].trim(), parts.length > 2 ? parts[2].trim() : null);
+    }
+    for (String entry : TrimSplit.split(streams)) {
+      String[] parts = entry.split(":");
+      stream(parts[0].trim(), parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+    }
+  }
+
+  /**
+   * Return true if no resources are specified.
+   */
+  boolean isEmpty() {
+    return queues.isEmpty() && topics.isEmpty() && buckets.isEmpty() && kmsKeys.isEmpty() && tables.isEmpty() && streams.isEmpty();
+  }
+
+  /**
+   * Create the resources that do not exist, waiting for them all to complete.
+   */
+  void apply(AwsSDKv2 sdk, StartupReport report) {
+    List<CompletableFuture<?>> futures = new ArrayList<>();
+    if (!queues.isEmpty()) {
+      futures.add(createQueues(sdk.sqsAsyncClient(), report));
+    }
+    if (!topics.isEmpty()) {
+      futures.add(createTopics(sdk.snsAsyncClient(), report));
+    }
+    if (!buckets.isEmpty()) {
+      futures.add(createBuckets(sdk.s3AsyncClient(), sdk.region().id(), report));
+    }
+    if (!kmsKeys.isEmpty()) {
+      futures.add(createKmsKeys(sdk.kmsAsyncClient(), report));
+    }
+    if (!tables.isEmpty()) {
+      futures.add(createTables(sdk.dynamoDBAsyncClient(), report));
+    }
+    if (!streams.isEmpty()) {
+      futures.add(createStreams(sdk.kinesisAsyncClient(), report));
+    }
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted creating AWS resources", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to create AWS resources", e.getCause());
+    } catch (TimeoutException e) {
+      throw new IllegalStateException("Timed out after " + TIMEOUT_SECONDS + "s creating AWS resources", e);
+    }
+  }
+
+  private CompletableFuture<Void> createQueues(SqsAsyncClient client, StartupReport report) {
+    Set<String> existing = ConcurrentHashMap.newKeySet();
+    return client.listQueuesPaginator(ListQueuesRequest.builder().build())
+      .subscribe(response -> response.queueUrls().forEach(url -> existing.add(url.substring(url.lastIndexOf('/') + 1))))
+      .thenCompose(v -> createMissing(report, "sqs", queues, existing, name ->
+        client.createQueue(b -> b.queueName(name))));
+  }
+
+  private CompletableFuture<Void> createTopics(SnsAsyncClient client, StartupReport report) {
+    Set<String> existing = ConcurrentHashMap.newKeySet();
+    return client.listTopicsPaginator(ListTopicsRequest.builder().build())
+      .subscribe(response -> {
+        for (Topic topic : response.topics()) {
+          existing.add(topic.topicArn().substring(topic.topicArn().lastIndexOf(':') + 1));
+        }
+      })
+      .thenCompose(v -> createMissing(report, "sns", topics, existing, name ->
+        client.createTopic(b -> b.name(name))));
+  }
+
+  private CompletableFuture<Void> createBuckets(S3AsyncClient client, String region, StartupReport report) {
+    return client.listBuckets()
+      .thenCompose(response -> {
+        Set<String> existing = new LinkedHashSet<>();
+        for (Bucket bucket : response.buckets()) {
+          existing.add(bucket.name());
+        }
+        return createMissing(report, "s3", buckets, existing, name -> client.createBucket(b -> {
+          b.bucket(name);
+          if (!"us-east-1".equals(region)) {
+            b.createBucketConfiguration(c -> c.locationConstraint(region));
+          }
+        }));
+      });
+  }
+
+  private CompletableFuture<Void> createKmsKeys(KmsAsyncClient client, StartupReport report) {
+    Set<String> existing = ConcurrentHashMap.newKeySet();
+    return client.listAliasesPaginator(ListAliasesRequest.builder().build())
+      .subscribe(response -> {
+        for (AliasListEntry alias : response.aliases()) {
+          existing.add(alias.aliasName().substring(6));
+        }
+      })
+      .thenCompose(v -> createMissing(report, "kms", kmsKeys, existing, name ->
+        client.createKey(b -> b.description(name))
+          .thenCompose(key -> client.createAlias(b -> b.aliasName("alias/" + name).targetKeyId(key.keyMetadata().keyId())))));
+  }
+
+  private CompletableFuture<Void> createTables(DynamoDbAsyncClient client, StartupReport report) {
+    Set<String> existing = ConcurrentHashMap.newKeySet();
+    return client.listTablesPaginator(ListTablesRequest.builder().build())
+      .subscribe(response -> existing.addAll(response.tableNames()))
+      .thenCompose(v -> createMissing(report, "dynamodb", tables.keySet(), existing, name ->
+        client.createTable(tableRequest(tables.get(name)))
+          .thenCompose(r -> client.waiter().waitUntilTableExists(w -> w.tableName(name)))));
+  }
+
+  private static CreateTableRequest tableRequest(Table table) {
+    return DynamoDBSeeder.tableRequest(table.name, table.hashKey, table.rangeKey);
+  }
+
+  private CompletableFuture<Void> createStreams(KinesisAsyncClient client, StartupReport report) {
+    Set<String> existing = ConcurrentHashMap.newKeySet();
+    return client.listStreamsPaginator(ListStreamsRequest.builder().build())
+      .subscribe(response -> existing.addAll(response.streamNames()))
+      .thenCompose(v -> createMissing(report, "kinesis", streams.keySet(), existing, name ->
+        client.createStream(b -> b.streamName(name).shardCount(streams.get(name)))
+          .thenCompose(r -> client.waiter().waitUntilStreamExists(w -> w.streamName(name)))));
+  }
+
+  /**
+   * Create the resources that do not already exist concurrently, timing each one.
+   */
+  private static CompletableFuture<Void> createMissing(StartupReport report, String service, Collection<String> names, Set<String> existing,
+                                                       Function<String, CompletableFuture<?>> create) {
+    List<CompletableFuture<?>> futures = new ArrayList<>();
+    for (String name : names) {
+      if (existing.contains(name)) {
+        log.log(Level.DEBUG, "{0} {1} already exists", service, name);
+      } else {
+        futures.add(timed(report, service + ":" + name, () -> create.apply(name)));
+      }
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+  }
+
+  private static CompletableFuture<?> timed(StartupReport report, String name, Supplier<CompletableFuture<?>> action) {
+    StartupReport.Phase phase = report.begin(name);
+    CompletableFuture<?> future;
+    try {
+      future = action.get();
+    } catch (RuntimeException e) {
+      report.end(phase);
+      throw e;
+    }
+    return future.whenComplete((result, e) -> {
+      report.end(phase);
+      if (e == null) {
+        log.log(Level.DEBUG, "created {0} in {1}ms", name, phase.millis());
+      }
+    });
+  }
+}
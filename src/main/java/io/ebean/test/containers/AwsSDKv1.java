@@ -9,6 +9,9 @@ import com.amazonaws.services.sqs.AmazonSQS;
 /**
  * AWS SDK v1 compatible helper API to provide clients like
  * AmazonDynamoDB, AmazonSNS, AmazonSQS, AmazonKinesis.
+ * <p>
+ * The clients are created once per container and share connection pools. They are
+ * closed when the container is stopped and so should not be closed by the caller.
  *
  * @see Localstack2Container#sdk2()
  */
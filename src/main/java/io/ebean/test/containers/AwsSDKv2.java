@@ -3,12 +3,17 @@ package io.ebean.test.containers;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
 import software.amazon.awssdk.services.kinesis.KinesisClient;
 import software.amazon.awssdk.services.kms.KmsAsyncClient;
 import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
 import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
 import java.net.URI;
@@ -16,6 +21,9 @@ import java.net.URI;
 /**
  * AWS SDK v1 compatible helper API to provide clients like
  * DynamoDbClient, SnsClient, SqsClient, KinesisClient.
+ * <p>
+ * The clients are created once per container and share connection pools. They are
+ * closed when the container is stopped and so should not be closed by the caller.
  *
  * @see Localstack2Container#sdk1()
  */
@@ -65,6 +73,31 @@ public interface AwsSDKv2 {
    */
   KmsAsyncClient kmsAsyncClient();
 
+  /**
+   * Return the DynamoDbAsyncClient (V2 SDK) for this container.
+   */
+  DynamoDbAsyncClient dynamoDBAsyncClient();
+
+  /**
+   * Return the KinesisAsyncClient (V2 SDK) for this container.
+   */
+  KinesisAsyncClient kinesisAsyncClient();
+
+  /**
+   * Return the SnsAsyncClient (V2 SDK) for this container.
+   */
+  SnsAsyncClient snsAsyncClient();
+
+  /**
+   * Return the SqsAsyncClient (V2 SDK) for this container.
+   */
+  SqsAsyncClient sqsAsyncClient();
+
+  /**
+   * Return the S3AsyncClient (V2 SDK) for this container.
+   */
+  S3AsyncClient s3AsyncClient();
+
   /**
    * Return SDK 2 Region.
    */
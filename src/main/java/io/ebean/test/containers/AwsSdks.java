@@ -0,0 +1,55 @@
+package io.ebean.test.containers;
+
+import java.net.URI;
+
+/**
+ * The AWS SDK helpers of a container.
+ * <p>
+ * The helpers and their clients are created once and shared, and closed when the container
+ * is stopped. A helper is recreated if the endpoint changes (e.g. a new random port).
+ */
+final class AwsSdks {
+
+  private LocalstackSdkV1 sdk1;
+  private LocalstackSdkV2 sdk2;
+
+  /**
+   * Return the SDK v1 helper for the region and endpoint.
+   */
+  synchronized AwsSDKv1 sdk1(String awsRegion, String endpointUrl) {
+    if (sdk1 == null || !sdk1.endpointUri().equals(endpointUrl)) {
+      if (sdk1 != null) {
+        sdk1.close();
+      }
+      sdk1 = new LocalstackSdkV1(awsRegion, endpointUrl);
+    }
+    return sdk1;
+  }
+
+  /**
+   * Return the SDK v2 helper for the region and endpoint.
+   */
+  synchronized AwsSDKv2 sdk2(String awsRegion, URI endpoint) {
+    if (sdk2 == null || !sdk2.endpoint().equals(endpoint)) {
+      if (sdk2 != null) {
+        sdk2.close();
+      }
+      sdk2 = new LocalstackSdkV2(awsRegion, endpoint);
+    }
+    return sdk2;
+  }
+
+  /**
+   * Close the clients of the helpers.
+   */
+  synchronized void close() {
+    if (sdk1 != null) {
+      sdk1.close();
+      sdk1 = null;
+    }
+    if (sdk2 != null) {
+      sdk2.close();
+      sdk2 = null;
+    }
+  }
+}
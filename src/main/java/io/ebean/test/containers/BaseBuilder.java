@@ -2,12 +2,14 @@ package io.ebean.test.containers;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Properties;
 
 /**
  * Configuration for an DBMS like Postgres, MySql, Oracle, SQLServer
  */
-abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements ContainerBuilder<C, SELF> {
+abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements ContainerBuilder<C, SELF>, Cloneable {
 
   /**
    * The database platform.
@@ -56,6 +58,11 @@ abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements Cont
    */
   protected String image;
 
+  /**
+   * Images to pull instead when pulling the image fails (via other mirrors and then without a mirror).
+   */
+  protected List<String> imageFallbacks = List.of();
+
   /**
    * The mode used when starting (create, dropCreate, container [only]).
    */
@@ -74,6 +81,31 @@ abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements Cont
    */
   protected int maxReadyAttempts = 300;
 
+  /**
+   * Policy used when waiting for the container to be ready.
+   */
+  protected ReadinessPolicy readinessPolicy = ReadinessPolicy.defaultPolicy();
+
+  /**
+   * Number of idle containers to pool when using a random port.
+   */
+  protected int poolSize;
+
+  /**
+   * Time after which idle pooled containers are stopped.
+   */
+  protected Duration poolTtl = Duration.ofMinutes(30);
+
+  /**
+   * Wait for the docker HEALTHCHECK to report healthy via docker events.
+   */
+  protected boolean healthCheck;
+
+  /**
+   * The health check command (defaults to the platform command).
+   */
+  protected String healthCmd;
+
   /**
    * Docker command.
    */
@@ -106,6 +138,18 @@ abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements Cont
     return (SELF) this;
   }
 
+  /**
+   * Return a copy of this builder (used to build the containers of a pool).
+   */
+  @SuppressWarnings("unchecked")
+  SELF copy() {
+    try {
+      return (SELF) clone();
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   @Override
   public SELF startMode(StartMode startMode) {
     this.startMode = startMode;
@@ -133,7 +177,9 @@ abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements Cont
       // CI build, maybe use the mirror to obtain container images
       mirror = mirrorProperty(properties);
       if (mirror != null && !mirror.isBlank()) {
-        image = imageWithMirror(mirror, image);
+        List<String> images = RegistryMirrors.images(TrimSplit.split(mirror), image);
+        image = images.get(0);
+        imageFallbacks = List.copyOf(images.subList(1, images.size()));
       }
     }
     host = prop(properties, "host", host);
@@ -154,6 +200,28 @@ abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements Cont
         // ignore error
       }
     }
+    String deadline = prop(properties, "readyDeadlineMillis", null);
+    if (deadline != null) {
+      try {
+        this.readinessPolicy = ReadinessPolicy.builder().deadline(Duration.ofMillis(Long.parseLong(deadline))).build();
+      } catch (NumberFormatException e) {
+        // ignore error
+      }
+    }
+    poolSize = prop(properties, "poolSize", poolSize);
+    String ttl = prop(properties, "poolTtlSeconds", null);
+    if (ttl != null) {
+      try {
+        this.poolTtl = Duration.ofSeconds(Long.parseLong(ttl));
+      } catch (NumberFormatException e) {
+        // ignore error
+      }
+    }
+    healthCheck = Boolean.parseBoolean(prop(properties, "healthCheck", Boolean.toString(healthCheck)));
+    healthCmd = prop(properties, "healthCmd", healthCmd);
+    if (healthCmd != null) {
+      healthCheck = true;
+    }
     extraProperties(properties);
     return self();
   }
@@ -226,7 +294,9 @@ abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements Cont
   /**
    * Set a container mirror for images to use with CI builds.
    * <p>
-   * For example "my.ecr/mirror".
+   * For example "my.ecr/mirror". This can be a comma separated list of mirrors in which case
+   * the fastest mirror that responds is used with the other mirrors and then the image without
+   * a mirror as fallbacks when pulling the image fails.
    * <p>
    * The mirror is not used when deemed to be running locally. Typically determined
    * via a <code>~/.ebean/ignore-docker-shutdown</code> file or alternative marker
@@ -309,6 +379,52 @@ abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements Cont
     return self();
   }
 
+  /**
+   * Set the policy used when waiting for the container to be ready.
+   */
+  @Override
+  public SELF readinessPolicy(ReadinessPolicy readinessPolicy) {
+    this.readinessPolicy = readinessPolicy;
+    return self();
+  }
+
+  /**
+   * Set the number of idle containers to pool when using a random port.
+   */
+  @Override
+  public SELF pool(int poolSize) {
+    this.poolSize = poolSize;
+    return self();
+  }
+
+  /**
+   * Set the time after which idle pooled containers are stopped.
+   */
+  @Override
+  public SELF poolTtl(Duration poolTtl) {
+    this.poolTtl = poolTtl;
+    return self();
+  }
+
+  /**
+   * Set true to wait for the docker HEALTHCHECK to report healthy.
+   */
+  @Override
+  public SELF healthCheck(boolean healthCheck) {
+    this.healthCheck = healthCheck;
+    return self();
+  }
+
+  /**
+   * Set the health check command run in the container (implies healthCheck).
+   */
+  @Override
+  public SELF healthCmd(String healthCmd) {
+    this.healthCmd = healthCmd;
+    this.healthCheck = true;
+    return self();
+  }
+
   /**
    * Set the docker command to use (defaults to 'docker').
    */
@@ -478,6 +594,31 @@ abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements Cont
       return maxReadyAttempts;
     }
 
+    @Override
+    public ReadinessPolicy readinessPolicy() {
+      return readinessPolicy;
+    }
+
+    @Override
+    public int poolSize() {
+      return poolSize;
+    }
+
+    @Override
+    public Duration poolTtl() {
+      return poolTtl;
+    }
+
+    @Override
+    public boolean healthCheck() {
+      return healthCheck;
+    }
+
+    @Override
+    public String healthCmd() {
+      return healthCmd;
+    }
+
     @Override
     public String getDocker() {
       return docker;
@@ -498,5 +639,20 @@ abstract class BaseBuilder<C, SELF extends BaseBuilder<C, SELF>> implements Cont
       return image;
     }
 
+    @Override
+    public void setImage(String pulledImage) {
+      image = pulledImage;
+    }
+
+    @Override
+    public List<String> imageFallbacks() {
+      return imageFallbacks;
+    }
+
+    @Override
+    public String mirror() {
+      return mirror;
+    }
+
   }
 }
@@ -12,12 +12,20 @@ import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 abstract class BaseContainer<C extends Container<C>> implements Container<C> {
 
   static final System.Logger log = Commands.log;
 
+  /**
+   * Interval of the docker HEALTHCHECK (run by the docker daemon in the container).
+   */
+  private static final String HEALTH_INTERVAL = System.getProperty("ebean.test.containers.healthInterval", "500ms");
+
   protected final BaseBuilder<?, ?> buildConfig;
   protected InternalConfig config;
   protected final Commands commands;
@@ -26,11 +34,18 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
   protected boolean usingContainerId;
   protected boolean usingRandomPort;
   protected boolean removeOnExit;
+  private final Map<String, LogFollower> logFollowers = new ConcurrentHashMap<>();
+  protected StartupReport startupReport;
+  ContainerLease lease;
+  private ContainerPool pool;
+  private List<String> poolLabels;
+  private boolean runNotReady;
 
   BaseContainer(BaseBuilder<?, ?> buildConfig) {
     this.buildConfig = buildConfig;
     this.commands = new Commands(buildConfig.docker);
     this.config = buildConfig.internalConfig();
+    this.startupReport = new StartupReport(config.platform(), config.containerName());
   }
 
   /**
@@ -45,8 +60,99 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
 
   @Override
   public boolean startMaybe() {
+    return startMaybe(this::startWithConnectivity);
+  }
+
+  /**
+   * Start the container timing the phases of the start into the startup report.
+   */
+  boolean startMaybe(BooleanSupplier start) {
     setDefaultContainerName();
-    return shutdownHook(logStarted(startWithConnectivity()));
+    startupReport = new StartupReport(config.platform(), config.containerName());
+    boolean started = false;
+    try {
+      started = shutdownHook(logStarted(coordinatedStart(start)));
+      return started;
+    } finally {
+      closeLogFollowers();
+      startupReport.finish(config.containerName(), started);
+    }
+  }
+
+  @Override
+  public StartupReport startupReport() {
+    return startupReport;
+  }
+
+  /**
+   * Run the action as a timed phase of the startup.
+   */
+  <T> T phase(String name, Supplier<T> action) {
+    return startupReport.time(name, action);
+  }
+
+  /**
+   * Run the action as a timed phase of the startup.
+   */
+  void phase(String name, Runnable action) {
+    startupReport.time(name, action);
+  }
+
+  /**
+   * Start holding the provisioning lock such that across JVMs only one provisions the
+   * container (or for database containers the database) at a time.
+   * <p>
+   * Running the container and waiting for it to be ready is done holding the container
+   * lock (see {@link #startIfNeeded()}) such that others wait and then find the container
+   * running. When the container is stopped on shutdown a lease is taken such that it is only
+   * stopped when the last JVM using it shuts down.
+   */
+  protected boolean coordinatedStart(BooleanSupplier start) {
+    if (!coordinated()) {
+      return start.getAsBoolean();
+    }
+    return ContainerLease.withLock(provisionLockKey(), start::getAsBoolean);
+  }
+
+  /**
+   * Return true if the start is coordinated across JVMs via the container lock.
+   */
+  private boolean coordinated() {
+    return hasContainerName() && poolLabels == null;
+  }
+
+  /**
+   * Return the key of the lock held while provisioning the container.
+   */
+  String provisionLockKey() {
+    return config.containerName();
+  }
+
+  /**
+   * Return true if the container is already running taking a lease on it when it is.
+   * <p>
+   * Used when a running container is detected without {@link #startIfNeeded()} such that the
+   * lease is taken holding the container lock (as another JVM may be stopping it) and the
+   * container is only stopped when the last JVM using it shuts down.
+   */
+  boolean leaseIfRunning(BooleanSupplier running) {
+    if (!coordinated() || !stopOnShutdown()) {
+      return running.getAsBoolean();
+    }
+    String containerName = config.containerName();
+    return ContainerLease.withLock(containerName, () -> {
+      if (!running.getAsBoolean()) {
+        return false;
+      }
+      if (lease == null) {
+        lease = ContainerLease.acquire(containerName);
+      }
+      return true;
+    });
+  }
+
+  private boolean stopOnShutdown() {
+    return shutdownMode == StopMode.Stop || shutdownMode == StopMode.Remove;
   }
 
   @Override
@@ -89,41 +195,30 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
     return commands.isRunning(config.containerName());
   }
 
-  private static final AtomicInteger hookCounter = new AtomicInteger();
-
-  private class Hook extends Thread {
-
-    private final StopMode mode;
-
-    Hook(StopMode mode) {
-      super("shutdown" + hookCounter.getAndIncrement());
-      this.mode = mode;
-    }
-
-    @Override
-    public void run() {
-      String ignoreFile = SkipShutdown.isSkip() ? "" : ", No marker file: " + SkipShutdown.ignoreMarkerFile();
-      if (StopMode.Remove == mode) {
-        log.log(Level.INFO, "Stop remove container {0}{1}", config.containerName(), ignoreFile);
-        stopRemove();
-      } else {
-        log.log(Level.INFO, "Stop container {0}{1}", config.containerName(), ignoreFile);
-        stopIfRunning();
-      }
+  /**
+   * Register to stop the container with the given mode on JVM shutdown.
+   * <p>
+   * All the containers are stopped by a single shutdown hook (see {@link ShutdownCoordinator}).
+   */
+  public void registerShutdownHook() {
+    if (stopOnShutdown()) {
+      ShutdownCoordinator.register(shutdownRegistration());
     }
   }
 
   /**
-   * Register a JVM Shutdown hook to stop the container with the given mode.
+   * Return the registration used to stop this container on shutdown.
+   * <p>
+   * Containers run with <code>--rm</code> (random port) are discarded when stopped so they are
+   * removed via <code>docker rm -f</code> rather than waiting for the stop grace period.
    */
-  public void registerShutdownHook() {
-    if (shutdownMode == StopMode.Stop || shutdownMode == StopMode.Remove) {
-      Runtime.getRuntime().addShutdownHook(new Hook(shutdownMode));
-    }
+  ShutdownCoordinator.Registration shutdownRegistration() {
+    StopMode mode = removeOnExit ? StopMode.Remove : shutdownMode;
+    return new ShutdownCoordinator.Registration(config.containerName(), config.docker(), commands, mode, lease, null);
   }
 
   protected boolean shutdownHook(boolean started) {
-    if (StopMode.None != config.shutdownMode()) {
+    if (StopMode.None != config.shutdownMode() && poolLabels == null) {
       registerShutdownHook();
     }
     return started;
@@ -141,25 +236,149 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
   /**
    * Start the container checking if it is already running.
    * Return true if the container is already running.
+   * <p>
+   * When coordinated this holds the container lock while running the container and
+   * waiting for it to be ready.
    */
   boolean startIfNeeded() {
+    runNotReady = false;
+    if (!coordinated()) {
+      return runIfNeeded();
+    }
+    String containerName = config.containerName();
+    return ContainerLease.withLock(containerName, () -> {
+      boolean running = runIfNeeded();
+      if (!running && !waitForRunReady()) {
+        // the waits that follow fail fast rather than waiting again
+        runNotReady = true;
+      }
+      if (lease == null && stopOnShutdown()) {
+        lease = ContainerLease.acquire(containerName);
+      }
+      return running;
+    });
+  }
+
+  /**
+   * Wait for the container that was run (or started) to be ready before it is provisioned.
+   */
+  boolean waitForRunReady() {
+    return waitForConnectivity();
+  }
+
+  private boolean runIfNeeded() {
+    closeLogFollowers();
     boolean hasContainerName = hasContainerName();
-    if (hasContainerName && commands.isRunning(config.containerName())) {
+    if (hasContainerName && phase("checkRunning", () -> commands.isRunning(config.containerName()))) {
       checkPort(true);
       logRunning();
       return true;
     }
     if (hasContainerName && commands.isRegistered(config.containerName())) {
       checkPort(false);
-      startContainer();
+      phase("start", this::startContainer);
       logStart();
+    } else if (!hasContainerName && claimPooled()) {
+      logClaimed();
     } else {
-      runContainer();
+      awaitPull();
+      // includes pulling the image when not present locally
+      phase("run", this::runContainer);
       logRun();
     }
     return false;
   }
 
+  /**
+   * Wait for a background pull of the image such that the pull is not part of the run and readiness.
+   */
+  private void awaitPull() {
+    ImagePrefetcher.Pull pull = ImagePrefetcher.pending(config.image());
+    if (pull == null && !config.imageFallbacks().isEmpty()) {
+      // pull rather than docker run such that the fallbacks are used when the pull fails
+      pull = phase("imageCheck", () -> ImagePrefetcher.pull(config.image(), config.imageFallbacks(), commands));
+    }
+    if (pull != null && pull.isDone() && !pull.report()) {
+      // pulled for an earlier start so the image is local, use the image that was pulled
+      if (pull.pulled() != null) {
+        config.setImage(pull.pulled());
+      }
+    } else if (pull != null && phase("pull", pull::await)) {
+      pull.report();
+      config.setImage(pull.pulled());
+      startupReport.pulled(pull.bytes(), pull.millis());
+    }
+    startupReport.image(config.image(), RegistryMirrors.mirrorOf(config.mirror(), config.image()));
+  }
+
+  /**
+   * Start this container as an entry of a pool (not stopped on JVM shutdown).
+   */
+  boolean startPoolEntry(String containerName, List<String> labels) {
+    config.setContainerId(containerName);
+    poolLabels = labels;
+    return startMaybe();
+  }
+
+  /**
+   * Return the pool to claim containers from or null when not using a pool.
+   */
+  private ContainerPool pool() {
+    if (pool == null && poolLabels == null && config.randomPort() && config.poolSize() > 0) {
+      // copy the builder before the assigned port is set on it
+      BaseBuilder<?, ?> template = buildConfig.copy();
+      String key = ContainerPool.key(config.platform(), config.version(), poolChecksum());
+      pool = ContainerPool.of(key, config.poolSize(), config.poolTtl(), commands, () -> (BaseContainer<?>) template.copy().build());
+    }
+    return pool;
+  }
+
+  /**
+   * Return the checksum of the configuration that pooled containers must match.
+   * <p>
+   * This is derived from the configuration rather than the run args as building those
+   * sets state used to run this container.
+   */
+  String poolChecksum() {
+    Checksum checksum = new Checksum()
+      .add(config.platform())
+      .add(config.getImage())
+      .add(config.docker())
+      .add(String.valueOf(config.getInternalPort()))
+      .add(String.valueOf(config.getAdminInternalPort()))
+      .add(config.healthCheck() ? healthCmd() : null);
+    addPoolInputs(checksum);
+    return checksum.hex();
+  }
+
+  /**
+   * Add platform specific options of the run args to the pool checksum.
+   */
+  void addPoolInputs(Checksum checksum) {
+    // none by default
+  }
+
+  /**
+   * Claim an idle container from the pool returning false when there is none.
+   */
+  private boolean claimPooled() {
+    ContainerPool pool = pool();
+    if (pool == null) {
+      return false;
+    }
+    String claimed = phase("poolClaim", pool::claim);
+    pool.refill();
+    if (claimed == null) {
+      return false;
+    }
+    usingRandomPort = true;
+    usingContainerId = true;
+    removeOnExit = true;
+    config.setContainerId(claimed);
+    obtainPort();
+    return true;
+  }
+
   void startContainer() {
     commands.start(config.containerName());
   }
@@ -179,7 +398,19 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
   }
 
   void runContainer() {
-    ProcessResult result = ProcessHandler.process(runProcess());
+    ProcessResult result;
+    try {
+      result = ProcessHandler.process(runProcess());
+    } catch (CommandException e) {
+      commands.invalidateSnapshot();
+      if (hasContainerName() && e.getMessage().contains("is already in use")) {
+        // another test JVM (e.g. parallel fork) ran the same container concurrently
+        log.log(Level.INFO, "Container {0} was started by another process", config.containerName());
+        return;
+      }
+      throw e;
+    }
+    commands.invalidateSnapshot();
     if (log.isLoggable(Level.DEBUG)) {
       log.log(Level.DEBUG, "run output {0}", result.getOutLines());
     }
@@ -216,7 +447,27 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
   }
 
   boolean logsContain(String containerName, String match, String clearMatch) {
-    return commands.logsContain(containerName, match, clearMatch);
+    String key = containerName + ':' + match + ':' + clearMatch;
+    LogFollower follower = logFollowers.compute(key, (k, existing) -> {
+      if (existing == null || existing.isEnded() && !existing.isMatched()) {
+        // follow from the start of the logs (again if the prior log stream ended)
+        return commands.followLogs(containerName, match, clearMatch);
+      }
+      return existing;
+    });
+    if (follower.isMatched()) {
+      follower.close();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Stop following logs used for readiness checks.
+   */
+  void closeLogFollowers() {
+    logFollowers.values().forEach(LogFollower::close);
+    logFollowers.clear();
   }
 
   /**
@@ -228,27 +479,70 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
 
   abstract boolean checkConnectivity();
 
+  /**
+   * Return true if the container was run but did not become ready.
+   */
+  boolean runNotReady() {
+    return runNotReady;
+  }
+
   /**
    * Return true when we can make IP connections to the database (JDBC).
    */
   boolean waitForConnectivity() {
-    log.log(Level.DEBUG, "waitForConnectivity {0} max attempts:{1} ... ", config.containerName(), waitForConnectivityAttempts);
-    for (int i = 0; i < waitForConnectivityAttempts; i++) {
-      if (checkConnectivity()) {
-        return true;
-      }
-      try {
-        int sleep = (i < 10) ? 10 : (i < 20) ? 20 : 200;
-        Thread.sleep(sleep);
-        if (i > 200 && i % 100 == 0) {
-          log.log(Level.INFO, "waitForConnectivity {0} attempts {1} of {2} ... ", config.containerName(), i, waitForConnectivityAttempts);
-        }
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
+    if (runNotReady) {
+      return false;
+    }
+    // without an explicit deadline use one approximating the attempts
+    long deadlineMillis = waitForConnectivityAttempts * 200L;
+    if (config.healthCheck()) {
+      long healthDeadline = config.readinessPolicy().deadlineMillis() > 0 ? config.readinessPolicy().deadlineMillis() : deadlineMillis;
+      Boolean healthy = phase("healthy", () -> awaitHealthy(healthDeadline));
+      if (Boolean.FALSE.equals(healthy)) {
         return false;
       }
+      // then confirm connectivity from the host which is expected to succeed on the first probe
     }
-    return false;
+    return phase("connectivity", () -> config.readinessPolicy().await(config.containerName(), readinessKey("connectivity"), deadlineMillis, this::checkConnectivity));
+  }
+
+  /**
+   * Block on the docker events for the HEALTHCHECK to report healthy.
+   * <p>
+   * Returns null when the container has no health check such that readiness falls back to polling.
+   */
+  Boolean awaitHealthy(long deadlineMillis) {
+    String containerName = config.containerName();
+    try (HealthWatcher watcher = commands.watchHealth(containerName)) {
+      // subscribed before reading the status such that a transition in between is not missed
+      String status = commands.healthStatus(containerName);
+      if (status == null) {
+        log.log(Level.DEBUG, "Container {0} has no health check, polling for readiness", containerName);
+        return null;
+      }
+      return "healthy".equals(status) || watcher.await(deadlineMillis);
+    }
+  }
+
+  /**
+   * Return the command used for the docker HEALTHCHECK or null to use the HEALTHCHECK of the image.
+   */
+  String healthCmd() {
+    return config.healthCmd() != null ? config.healthCmd() : defaultHealthCmd();
+  }
+
+  /**
+   * Return the platform health check command (run in the container) or null if there is none.
+   */
+  String defaultHealthCmd() {
+    return null;
+  }
+
+  /**
+   * Return the key used to record the ready time for the given check.
+   */
+  String readinessKey(String check) {
+    return config.platform() + "-" + config.version() + "." + check;
   }
 
   /**
@@ -298,6 +592,14 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
       removeOnExit = true;
       args.add("--rm");
     }
+    if (poolLabels != null) {
+      removeOnExit = true;
+      args.add("--rm");
+      for (String label : poolLabels) {
+        args.add("--label");
+        args.add(label);
+      }
+    }
     if (usingRandomPort) {
       args.add("-p");
       args.add(String.valueOf(config.getInternalPort()));
@@ -305,6 +607,13 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
       args.add("-p");
       args.add(config.getPort() + ":" + config.getInternalPort());
     }
+    String healthCmd = config.healthCheck() ? healthCmd() : null;
+    if (healthCmd != null) {
+      args.add("--health-cmd");
+      args.add(healthCmd);
+      args.add("--health-interval");
+      args.add(HEALTH_INTERVAL);
+    }
     return args;
   }
 
@@ -339,6 +648,13 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
     return usingContainerId ? config.image() : config.containerName();
   }
 
+  /**
+   * Log that we claimed a container from the pool.
+   */
+  void logClaimed() {
+    log.log(Level.INFO, "Claimed pooled container {0} with host:{1} port:{2,number,#}", config.containerName(), config.getHost(), config.getPort());
+  }
+
   /**
    * Log that we are about to start a container.
    */
@@ -374,9 +690,14 @@ abstract class BaseContainer<C extends Container<C>> implements Container<C> {
 
   /**
    * Return http GET content given the url.
+   * <p>
+   * The connect and read timeouts are the probe timeout of the readiness policy.
    */
   protected String readUrlContent(String url) throws IOException {
     URLConnection yc = new URL(url).openConnection();
+    int timeout = (int) Math.min(Integer.MAX_VALUE, config.readinessPolicy().probeTimeoutMillis());
+    yc.setConnectTimeout(timeout);
+    yc.setReadTimeout(timeout);
     StringBuilder sb = new StringBuilder(300);
     try (BufferedReader in = new BufferedReader(new InputStreamReader(yc.getInputStream(), StandardCharsets.UTF_8))) {
       String inputLine;
@@ -75,6 +75,38 @@ abstract class BaseDbBuilder<C, SELF extends BaseDbBuilder<C, SELF>> extends Bas
    */
   boolean fastStartMode = true;
 
+  /**
+   * If true create the database from a template database (Postgres only).
+   */
+  boolean useTemplate;
+
+  /**
+   * If true run from a snapshot image of the provisioned database (Oracle, SqlServer).
+   */
+  boolean snapshot;
+
+  /**
+   * The server settings profile (durability off with TEST_FAST).
+   */
+  PerformanceProfile performanceProfile = PerformanceProfile.DEFAULT;
+
+  /**
+   * If true use a database and user per test worker (Surefire fork or Gradle test worker).
+   */
+  boolean shardMode;
+
+  /**
+   * Explicit shard id used to suffix the database and user.
+   */
+  String shardId;
+
+  /**
+   * The resolved shard id (null when not sharding).
+   */
+  private String resolvedShardId;
+  private String baseDbName;
+  private boolean shardApplied;
+
   /**
    * The character set to use.
    */
@@ -106,6 +138,11 @@ abstract class BaseDbBuilder<C, SELF extends BaseDbBuilder<C, SELF>> extends Bas
     collation = prop(properties, "collation", collation);
     inMemory = Boolean.parseBoolean(prop(properties, "inMemory", Boolean.toString(inMemory)));
     fastStartMode = Boolean.parseBoolean(prop(properties, "fastStartMode", Boolean.toString(fastStartMode)));
+    useTemplate = Boolean.parseBoolean(prop(properties, "useTemplate", Boolean.toString(useTemplate)));
+    snapshot = Boolean.parseBoolean(prop(properties, "snapshot", Boolean.toString(snapshot)));
+    performanceProfile = PerformanceProfile.of(prop(properties, "performanceProfile", performanceProfile.name()));
+    shardMode = Boolean.parseBoolean(prop(properties, "shardMode", Boolean.toString(shardMode)));
+    shardId = prop(properties, "shardId", shardId);
 
     tmpfs = prop(properties, "tmpfs", tmpfs);
     dbName = prop(properties, "dbName", dbName);
@@ -160,6 +197,73 @@ abstract class BaseDbBuilder<C, SELF extends BaseDbBuilder<C, SELF>> extends Bas
     return self();
   }
 
+  /**
+   * Set to true to create the database from a <code>{dbName}_template</code> database (Postgres only).
+   * <p>
+   * The template database is created once with the extensions, initSqlFile and seedSqlFile applied
+   * and the database is then created via <code>create database {dbName} template {dbName}_template</code>
+   * which is much faster than running the init and seed scripts. The template is rebuilt when
+   * the extensions, owner or content of the init and seed sql files change.
+   */
+  @Override
+  public SELF useTemplate(boolean useTemplate) {
+    this.useTemplate = useTemplate;
+    return self();
+  }
+
+  /**
+   * Set to true to snapshot the provisioned database container as a local image and run
+   * from that image subsequently (Oracle, SqlServer with StartMode Create).
+   * <p>
+   * After the database, user, init and seed sql are created the container is committed as
+   * <code>ebean-snapshot/{platform}:{hash}</code> where the hash is of the image, database,
+   * users, extensions and content of the init and seed sql files. A container run later with
+   * the same configuration starts from the snapshot and skips creating the database. Use
+   * {@link ContainerSnapshots} to list and prune the snapshot images.
+   * <p>
+   * This is ignored for the other platforms. DB2 and Hana hold their data in volumes
+   * (Hana in the mounts directory) which <code>docker commit</code> does not include.
+   */
+  @Override
+  public SELF snapshot(boolean snapshot) {
+    this.snapshot = snapshot;
+    return self();
+  }
+
+  /**
+   * Set the performance profile. With {@link PerformanceProfile#TEST_FAST} the database server runs
+   * with durability off (Postgres, MySql, MariaDB, ClickHouse, SqlServer).
+   */
+  @Override
+  public SELF performanceProfile(PerformanceProfile performanceProfile) {
+    this.performanceProfile = performanceProfile;
+    return self();
+  }
+
+  /**
+   * Set to true to use a database and user per test worker such that parallel test JVMs
+   * (Surefire forkCount &gt; 1 or Gradle maxParallelForks &gt; 1) can share the same container.
+   * <p>
+   * The shard id is taken from system property <code>ebean.test.shardId</code>,
+   * <code>surefire.forkNumber</code> or <code>org.gradle.test.worker</code> and is used to
+   * suffix the database name and user (and extra databases) like <code>my_app_3</code>.
+   * When none of these are set (a single test JVM) the database name is used as is.
+   */
+  @Override
+  public SELF shardMode(boolean shardMode) {
+    this.shardMode = shardMode;
+    return self();
+  }
+
+  /**
+   * Set an explicit shard id used to suffix the database name and user.
+   */
+  @Override
+  public SELF shardId(String shardId) {
+    this.shardId = shardId;
+    return self();
+  }
+
   /**
    * Set the DB name - e.g. my_app1, my_app2, my_app3 etc. Defaults to test_db.
    * <p>
@@ -237,6 +341,10 @@ abstract class BaseDbBuilder<C, SELF extends BaseDbBuilder<C, SELF>> extends Bas
 
   /**
    * Set the SQL file to execute after creating the database.
+   * <p>
+   * With Postgres the database is recreated when the extensions or content of the init or seed
+   * sql change (detected via a checksum stored as the database comment). The other platforms only
+   * run the init and seed sql when the database is created.
    */
   @Override
   public SELF initSqlFile(String initSqlFile) {
@@ -356,9 +464,47 @@ abstract class BaseDbBuilder<C, SELF extends BaseDbBuilder<C, SELF>> extends Bas
 
   @Override
   protected InternalConfigDb internalConfig() {
+    applyShard();
     return new InnerConfig();
   }
 
+  /**
+   * Suffix the database name and user with the shard id (once).
+   */
+  private void applyShard() {
+    if (shardApplied) {
+      return;
+    }
+    shardApplied = true;
+    baseDbName = dbName;
+    resolvedShardId = resolveShardId(shardId, shardMode);
+    if (resolvedShardId != null) {
+      String suffix = "_" + resolvedShardId;
+      username = deriveUsername() + suffix;
+      dbName = dbName + suffix;
+      extra.shard(suffix);
+      extra2.shard(suffix);
+    }
+  }
+
+  /**
+   * Return the shard id to use or null when not sharding.
+   */
+  static String resolveShardId(String shardId, boolean shardMode) {
+    String id = shardId;
+    if (id == null) {
+      id = System.getProperty("ebean.test.shardId");
+    }
+    if (id == null && shardMode) {
+      id = System.getProperty("surefire.forkNumber", System.getProperty("org.gradle.test.worker"));
+    }
+    if (id == null || id.trim().isEmpty()) {
+      return null;
+    }
+    // only characters valid in database and user names
+    return id.trim().toLowerCase().replaceAll("[^a-z0-9_]", "_");
+  }
+
   private class InnerConfig extends BaseBuilder<?, ?>.Inner implements InternalConfigDb {
 
     /**
@@ -485,6 +631,31 @@ abstract class BaseDbBuilder<C, SELF extends BaseDbBuilder<C, SELF>> extends Bas
       return fastStartMode;
     }
 
+    @Override
+    public boolean isUseTemplate() {
+      return useTemplate;
+    }
+
+    @Override
+    public boolean isSnapshot() {
+      return snapshot;
+    }
+
+    @Override
+    public PerformanceProfile getPerformanceProfile() {
+      return performanceProfile;
+    }
+
+    @Override
+    public String getShardId() {
+      return resolvedShardId;
+    }
+
+    @Override
+    public String getBaseDbName() {
+      return baseDbName;
+    }
+
     @Override
     public String getCharacterSet() {
       return characterSet;
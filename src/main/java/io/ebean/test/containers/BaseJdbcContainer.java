@@ -1,7 +1,17 @@
 package io.ebean.test.containers;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
 
+import static java.lang.System.Logger.Level.ERROR;
+import static java.lang.System.Logger.Level.INFO;
 import static java.lang.System.Logger.Level.WARNING;
 
 abstract class BaseJdbcContainer<C extends BaseJdbcContainer<C>> extends DbContainer<C> {
@@ -11,6 +21,14 @@ abstract class BaseJdbcContainer<C extends BaseJdbcContainer<C>> extends DbConta
     this.checkConnectivityUsingAdmin = true;
   }
 
+  private String snapshotImage;
+  private boolean restoredSnapshot;
+
+  /**
+   * Set by the platform when it created the database or user such that the init and seed sql are run.
+   */
+  boolean databaseCreated;
+
   abstract void createDatabase();
 
   abstract void dropCreateDatabase();
@@ -20,21 +38,122 @@ abstract class BaseJdbcContainer<C extends BaseJdbcContainer<C>> extends DbConta
     if (!startContainerWithWait()) {
       return false;
     }
-    createDatabase();
+    if (restoredSnapshot && phase("checkSnapshot", () -> checkConnectivity(false))) {
+      log.log(INFO, "Container {0} run from snapshot {1}", config.containerName(), snapshotImage);
+      return true;
+    }
+    phase("createDatabase", this::createDatabase);
+    runInitSql();
+    if (snapshotImage != null && !restoredSnapshot) {
+      phase("snapshot", this::commitSnapshot);
+    }
     return true;
   }
 
+  /**
+   * Run the init and seed sql for the database when it was created (platforms other than Postgres).
+   */
+  private void runInitSql() {
+    if (!databaseCreated) {
+      return;
+    }
+    databaseCreated = false;
+    if (defined(dbConfig.getInitSqlFile())) {
+      phase("initSql", () -> runDbSqlFile(dbConfig.getDbName(), dbConfig.getUsername(), dbConfig.getInitSqlFile()));
+    }
+    if (defined(dbConfig.getSeedSqlFile())) {
+      phase("seedSql", () -> runDbSqlFile(dbConfig.getDbName(), dbConfig.getUsername(), dbConfig.getSeedSqlFile()));
+    }
+  }
+
+  /**
+   * Run the sql file over JDBC as the given user streaming and batching the statements.
+   */
+  @Override
+  void runSqlFile(File file, String dbUser, String dbName) {
+    SqlScriptRunner runner = new SqlScriptRunner(file.getName(), 100);
+    try (Connection connection = sqlFileConnection(dbName, dbUser);
+         SqlScriptReader script = sqlScript(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+      runner.run(connection, script);
+    } catch (SQLException | IOException e) {
+      log.log(ERROR, "Error executing sql file " + file, e);
+    }
+  }
+
+  /**
+   * Return the reader of sql scripts for this platform.
+   */
+  SqlScriptReader sqlScript(Reader reader) {
+    return new SqlScriptReader(reader, false, false);
+  }
+
+  /**
+   * Return a connection to the database as the user (the owner of the objects the sql file creates).
+   */
+  Connection sqlFileConnection(String dbName, String dbUser) throws SQLException {
+    if (dbName.equals(dbConfig.getDbName()) && dbUser.equals(dbConfig.getUsername())) {
+      return dbConfig.createConnection();
+    }
+    Properties props = new Properties();
+    props.put("user", dbUser);
+    props.put("password", passwordFor(dbUser));
+    return DriverManager.getConnection(config.jdbcUrl(dbName), props);
+  }
+
+  private String passwordFor(String dbUser) {
+    if (dbUser.equals(dbConfig.extra().userWithDefaults(dbConfig.getUsername()))) {
+      return dbConfig.extra().passwordWithDefault(dbConfig.getPassword());
+    }
+    if (dbUser.equals(dbConfig.extra2().userWithDefaults(dbConfig.getUsername()))) {
+      return dbConfig.extra2().passwordWithDefault(dbConfig.getPassword());
+    }
+    return dbConfig.getPassword();
+  }
+
+  /**
+   * Return true if the platform runs the container via {@link #runImage()} supporting snapshots.
+   */
+  boolean snapshotSupported() {
+    return false;
+  }
+
+  /**
+   * Return the image to run which is the snapshot image when one exists for this configuration.
+   */
+  String runImage() {
+    return restoredSnapshot ? snapshotImage : config.getImage();
+  }
+
+  @Override
+  void runContainer() {
+    if (dbConfig.isSnapshot() && snapshotSupported() && config.getStartMode() == StartMode.Create) {
+      snapshotImage = ContainerSnapshots.imageName(config.platform(), snapshotChecksum());
+      restoredSnapshot = commands.imageExists(snapshotImage);
+    }
+    super.runContainer();
+  }
+
+  private void commitSnapshot() {
+    try {
+      commands.commitSnapshot(config.containerName(), snapshotImage, snapshotChecksum());
+      log.log(INFO, "Created snapshot {0} of container {1}", snapshotImage, config.containerName());
+    } catch (CommandException e) {
+      log.log(WARNING, "Failed to create snapshot " + snapshotImage + " " + e.getMessage());
+    }
+  }
+
   @Override
   public boolean startWithDropCreate() {
     if (!startContainerWithWait()) {
       return false;
     }
-    dropCreateDatabase();
+    phase("dropCreateDatabase", this::dropCreateDatabase);
+    runInitSql();
     return true;
   }
 
   private boolean startContainerWithWait() {
-    if (checkAlreadyRunning()) {
+    if (phase("checkAlreadyRunning", () -> leaseIfRunning(this::checkAlreadyRunning))) {
       return true;
     }
     startIfNeeded();
@@ -57,6 +176,11 @@ abstract class BaseJdbcContainer<C extends BaseJdbcContainer<C>> extends DbConta
     }
   }
 
+  @Override
+  boolean waitForRunReady() {
+    return waitForConnectivity();
+  }
+
   @Override
   public boolean waitForDatabaseReady() {
     // Just rely on waitForConnectivity() instead
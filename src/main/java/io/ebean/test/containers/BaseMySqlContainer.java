@@ -1,5 +1,6 @@
 package io.ebean.test.containers;
 
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -65,6 +66,7 @@ abstract class BaseMySqlContainer<C extends BaseMySqlContainer<C>> extends BaseJ
     if (!databaseExists(connection, dbConfig.getDbName())) {
       createDatabase(connection, dbConfig.getDbName());
       createExtraDatabases(connection);
+      databaseCreated = true;
       if (!dbConfig.version().startsWith("5")) {
         setLogBinTrustFunction(connection);
       }
@@ -93,9 +95,32 @@ abstract class BaseMySqlContainer<C extends BaseMySqlContainer<C>> extends BaseJ
     return sqlHasRow(connection, "select User from user where User = '" + dbUser + "'");
   }
 
+  @Override
+  List<String> resetDataSql(Connection connection) throws SQLException {
+    List<String> tables = resetTables(sqlRows(connection, "select concat('`', table_name, '`'), table_name" +
+      " from information_schema.tables where table_schema = database() and table_type = 'BASE TABLE'"), 1);
+    if (tables.isEmpty()) {
+      return List.of();
+    }
+    List<String> sql = new ArrayList<>(tables.size() + 2);
+    sql.add("set foreign_key_checks = 0");
+    for (String table : tables) {
+      sql.add("truncate table " + table);
+    }
+    sql.add("set foreign_key_checks = 1");
+    return sql;
+  }
+
+  @Override
+  SqlScriptReader sqlScript(Reader reader) {
+    return new SqlScriptReader(reader, false, true);
+  }
+
   @Override
   protected ProcessBuilder runProcess() {
     List<String> args = dockerRun();
+    final boolean testFast = testFast();
+    final boolean tmpfs = addTmpfs(args, dbConfig.isInMemory() || testFast);
     if (defined(dbConfig.getAdminPassword())) {
       args.add("-e");
       args.add("MYSQL_ROOT_PASSWORD=" + dbConfig.getAdminPassword());
@@ -122,6 +147,16 @@ abstract class BaseMySqlContainer<C extends BaseMySqlContainer<C>> extends BaseJ
       args.add("--default-authentication-plugin=mysql_native_password");
       args.add("--skip-log-bin");
     }
+    if (testFast) {
+      // tests do not need crash safety
+      args.add("--innodb-flush-log-at-trx-commit=0");
+      args.add("--innodb-doublewrite=OFF");
+      args.add("--sync-binlog=0");
+    }
+    if (tmpfs) {
+      // tmpfs does not support O_DIRECT
+      args.add("--innodb-flush-method=fsync");
+    }
     return createProcessBuilder(args);
   }
 
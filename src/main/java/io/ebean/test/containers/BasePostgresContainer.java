@@ -1,5 +1,12 @@
 package io.ebean.test.containers;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -12,6 +19,9 @@ import java.util.List;
  */
 abstract class BasePostgresContainer<C extends BasePostgresContainer<C>> extends BaseJdbcContainer<C> {
 
+  private static final String TEMPLATE_COMMENT = "ebean-test-containers template ";
+  private static final String DATABASE_COMMENT = "ebean-test-containers database ";
+
   BasePostgresContainer(BaseDbBuilder<?, ?> config) {
     super(config);
   }
@@ -28,21 +38,115 @@ abstract class BasePostgresContainer<C extends BasePostgresContainer<C>> extends
 
   private void createRoleAndDatabase(boolean withDrop) {
     try (Connection connection = config.createAdminConnection()) {
+      if (dbConfig.isUseTemplate()) {
+        createRoleAndDatabaseFromTemplate(connection, withDrop);
+        return;
+      }
       if (withDrop) {
         dropDatabaseIfExists(connection, dbConfig.getDbName());
         dropRoleIfExists(connection, dbConfig.getUsername());
       }
-      if (databaseNotExists(connection, dbConfig.getDbName())) {
-        createRole(connection);
-        createDatabase(connection);
-        createExtraDb(connection, withDrop, dbConfig.extra());
-        createExtraDb(connection, withDrop, dbConfig.extra2());
-      }
+      createRole(connection);
+      createDatabase(connection);
+      createExtraDb(connection, withDrop, dbConfig.extra());
+      createExtraDb(connection, withDrop, dbConfig.extra2());
     } catch (SQLException e) {
       throw new RuntimeException("Error when creating database and role", e);
     }
   }
 
+  /**
+   * Create the database from the template database (rebuilding the template if its inputs have changed).
+   */
+  private void createRoleAndDatabaseFromTemplate(Connection connection, boolean withDrop) {
+    final String dbName = dbConfig.getDbName();
+    createRole(connection);
+    boolean templateRebuilt = createTemplateIfChanged(connection);
+    if (withDrop || templateRebuilt) {
+      dropDatabaseIfExists(connection, dbName);
+    }
+    if (databaseNotExists(connection, dbName)) {
+      createDatabaseFromTemplate(connection, dbName);
+      createExtraDb(connection, withDrop, dbConfig.extra());
+      createExtraDb(connection, withDrop, dbConfig.extra2());
+    }
+  }
+
+  /**
+   * Create a database from the template database dropping it first if it exists.
+   * <p>
+   * This is expected to be used with {@code useTemplate(true)} to give a test class or test run its own
+   * database (initialised with the extensions, init and seed sql of the template) in milliseconds.
+   *
+   * @param dbName The name of the database to create
+   * @return The JDBC url for the created database
+   */
+  public String createDatabaseFromTemplate(String dbName) {
+    sqlProcess(connection -> {
+      createTemplateIfChanged(connection);
+      dropDatabaseIfExists(connection, dbName);
+      createDatabaseFromTemplate(connection, dbName);
+    });
+    return dbConfig.jdbcUrl(dbName);
+  }
+
+  private void createDatabaseFromTemplate(Connection connection, String dbName) {
+    sqlRun(connection, "create database " + dbName + " with template " + templateName() + " owner " + dbConfig.getUsername());
+  }
+
+  private String templateName() {
+    return dbConfig.getDbName() + "_template";
+  }
+
+  /**
+   * Create the template database if it does not exist or the checksum of its inputs has changed.
+   *
+   * @return True if the template database was created
+   */
+  private boolean createTemplateIfChanged(Connection connection) {
+    final String template = templateName();
+    final String comment = TEMPLATE_COMMENT + templateChecksum();
+    if (sqlHasRow(connection, "select 1 from pg_database where datname = '" + template + "' and shobj_description(oid, 'pg_database') = '" + comment + "'")) {
+      log.log(Level.DEBUG, "template database {0} is up to date", template);
+      return false;
+    }
+    log.log(Level.INFO, "Creating template database {0}", template);
+    phase("template", () -> createTemplate(connection, template, comment));
+    return true;
+  }
+
+  private void createTemplate(Connection connection, String template, String comment) {
+    if (!databaseNotExists(connection, template)) {
+      sqlRun(connection, "alter database " + template + " is_template false");
+      sqlRun(connection, "drop database " + template);
+    }
+    createDatabaseWithOwner(connection, template, dbConfig.getUsername());
+    addExtensions(dbConfig.getExtensions(), dbConfig.jdbcUrl(template));
+    createDatabaseInitSql(template, dbConfig.getUsername(), dbConfig.getInitSqlFile(), dbConfig.getSeedSqlFile());
+    sqlRun(connection, "alter database " + template + " is_template true");
+    // set the checksum last such that a partially created template is rebuilt
+    sqlRun(connection, "comment on database " + template + " is '" + comment + "'");
+  }
+
+  /**
+   * Return the checksum of the template inputs (owner, extensions, init and seed sql).
+   */
+  String templateChecksum() {
+    return databaseChecksum(dbConfig.getUsername(), dbConfig.getExtensions(), dbConfig.getInitSqlFile(), dbConfig.getSeedSqlFile());
+  }
+
+  /**
+   * Return the checksum of the inputs used to provision a database (owner, extensions, init and seed sql).
+   */
+  String databaseChecksum(String owner, String extensions, String initSql, String seedSql) {
+    return new Checksum()
+      .add(owner)
+      .add(extensions)
+      .add(sqlFile(initSql))
+      .add(sqlFile(seedSql))
+      .hex();
+  }
+
   private void dropRoleIfExists(Connection connection, String username) {
     if (defined(username)) {
       sqlRun(connection, "drop role if exists " + username);
@@ -67,22 +171,45 @@ abstract class BasePostgresContainer<C extends BasePostgresContainer<C>> extends
         dropRoleIfExists(connection, extraUser);
       }
       createRole(connection, extraUser, extra.passwordWithDefault(dbConfig.getPassword()));
-      if (databaseNotExists(connection, extraDb)) {
-        createExtraDatabase(connection, extraDb, extraUser, extra);
-      }
+      createDatabaseIfChanged(connection, extraDb, extraUser, extra.extensions(), extra.initSqlFile(), extra.seedSqlFile());
     }
   }
 
   private void createDatabase(Connection connection) {
-    createDatabaseWithOwner(connection, dbConfig.getDbName(), dbConfig.getUsername());
-    addExtensions(dbConfig.getExtensions(), dbConfig.jdbcUrl());
-    createDatabaseInitSql(dbConfig.getDbName(), dbConfig.getUsername(),  dbConfig.getInitSqlFile(), dbConfig.getSeedSqlFile());
+    createDatabaseIfChanged(connection, dbConfig.getDbName(), dbConfig.getUsername(), dbConfig.getExtensions(), dbConfig.getInitSqlFile(), dbConfig.getSeedSqlFile());
   }
 
-  private void createExtraDatabase(Connection connection, String dbName, String username, ExtraAttributes attrs) {
-    createDatabaseWithOwner(connection, dbName, username);
-    addExtensions(attrs.extensions(), dbConfig.jdbcUrl(dbName));
-    createDatabaseInitSql(dbName, username,  attrs);
+  /**
+   * Create the database unless it exists with the same checksum of extensions, init and seed sql.
+   * <p>
+   * The checksum is stored as the database comment. A database provisioned with a different checksum
+   * is dropped and created again. An existing database without a checksum (created by an earlier
+   * version) is kept and the checksum recorded.
+   */
+  private void createDatabaseIfChanged(Connection connection, String dbName, String owner, String extensions, String initSql, String seedSql) {
+    if (!defined(dbName) || !defined(owner)) {
+      return;
+    }
+    final String comment = DATABASE_COMMENT + databaseChecksum(owner, extensions, initSql, seedSql);
+    if (!databaseNotExists(connection, dbName)) {
+      String select = "select 1 from pg_database where datname = '" + dbName + "' and shobj_description(oid, 'pg_database') ";
+      if (sqlHasRow(connection, select + "= '" + comment + "'")) {
+        log.log(Level.DEBUG, "database {0} is up to date", dbName);
+        return;
+      }
+      if (!sqlHasRow(connection, select + "like '" + DATABASE_COMMENT + "%'")) {
+        log.log(Level.DEBUG, "recording checksum of existing database {0}", dbName);
+        sqlRun(connection, "comment on database " + dbName + " is '" + comment + "'");
+        return;
+      }
+      log.log(Level.INFO, "Recreating database {0} as its extensions, init or seed sql changed", dbName);
+      dropDatabaseIfExists(connection, dbName);
+    }
+    createDatabaseWithOwner(connection, dbName, owner);
+    addExtensions(extensions, dbName.equals(dbConfig.getDbName()) ? dbConfig.jdbcUrl() : dbConfig.jdbcUrl(dbName));
+    createDatabaseInitSql(dbName, owner, initSql, seedSql);
+    // set the checksum last such that a partially created database is recreated
+    sqlRun(connection, "comment on database " + dbName + " is '" + comment + "'");
   }
 
   private void createRole(Connection connection) {
@@ -108,16 +235,12 @@ abstract class BasePostgresContainer<C extends BasePostgresContainer<C>> extends
     }
   }
 
-  private void createDatabaseInitSql(String extraDb, String extraUser, ExtraAttributes attrs) {
-    createDatabaseInitSql(extraDb, extraUser, attrs.initSqlFile(), attrs.seedSqlFile());
-  }
-
   private void createDatabaseInitSql(String dbName, String owner, String initSql, String seedSql) {
     if (defined(initSql)) {
-      runDbSqlFile(dbName, owner, initSql);
+      phase("initSql", () -> runDbSqlFile(dbName, owner, initSql));
     }
     if (defined(seedSql)) {
-      runDbSqlFile(dbName, owner, seedSql);
+      phase("seedSql", () -> runDbSqlFile(dbName, owner, seedSql));
     }
   }
 
@@ -127,13 +250,53 @@ abstract class BasePostgresContainer<C extends BasePostgresContainer<C>> extends
     }
     final List<String> extensions = parseExtensions(dbExtensions);
     if (!extensions.isEmpty()) {
-      try (Connection connection = dbConfig.createAdminConnection(jdbcUrl)) {
-        for (String extension : extensions) {
-          sqlRun(connection, "create extension if not exists \"" + extension + "\"");
+      phase("extensions", () -> createExtensions(extensions, jdbcUrl));
+    }
+  }
+
+  private void createExtensions(List<String> extensions, String jdbcUrl) {
+    try (Connection connection = dbConfig.createAdminConnection(jdbcUrl)) {
+      for (String extension : extensions) {
+        sqlRun(connection, "create extension if not exists \"" + extension + "\"");
+      }
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  List<String> resetDataSql(Connection connection) throws SQLException {
+    List<String> tables = resetTables(sqlRows(connection, "select quote_ident(schemaname) || '.' || quote_ident(tablename), tablename" +
+      " from pg_tables where schemaname = any(current_schemas(false))"), 1);
+    if (tables.isEmpty()) {
+      return List.of();
+    }
+    return List.of("truncate table " + String.join(", ", tables) + " restart identity cascade");
+  }
+
+  /**
+   * Run the sql file over JDBC unless it uses psql meta-commands (like <code>\copy</code>) requiring psql.
+   */
+  @Override
+  void runSqlFile(File file, String dbUser, String dbName) {
+    if (containsPsqlCommands(file)) {
+      runSqlFileInContainer(file, dbUser, dbName);
+    } else {
+      super.runSqlFile(file, dbUser, dbName);
+    }
+  }
+
+  static boolean containsPsqlCommands(File file) {
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith("\\")) {
+          return true;
         }
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
       }
+      return false;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
 
@@ -168,18 +331,37 @@ abstract class BasePostgresContainer<C extends BasePostgresContainer<C>> extends
     return args;
   }
 
+  @Override
+  String defaultHealthCmd() {
+    // via tcp such that the temporary server used during initialisation is not reported ready
+    return "pg_isready -q -h 127.0.0.1";
+  }
+
   @Override
   protected ProcessBuilder runProcess() {
     List<String> args = dockerRun();
-    if (dbConfig.isInMemory() && dbConfig.getTmpfs() != null) {
-      args.add("--tmpfs");
-      args.add(dbConfig.getTmpfs());
+    addTmpfs(args, dbConfig.isInMemory());
+    final boolean testFast = testFast();
+    if (testFast) {
+      args.add("--shm-size=256m");
     }
     if (!dbConfig.getAdminPassword().isEmpty()) {
       args.add("-e");
       args.add("POSTGRES_PASSWORD=" + dbConfig.getAdminPassword());
     }
     args.add(config.getImage());
+    if (testFast) {
+      // tests do not need crash safety
+      serverSetting(args, "fsync=off");
+      serverSetting(args, "synchronous_commit=off");
+      serverSetting(args, "full_page_writes=off");
+      serverSetting(args, "shared_buffers=256MB");
+    }
     return createProcessBuilder(args);
   }
+
+  private static void serverSetting(List<String> args, String setting) {
+    args.add("-c");
+    args.add(setting);
+  }
 }
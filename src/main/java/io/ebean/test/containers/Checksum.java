@@ -0,0 +1,68 @@
+package io.ebean.test.containers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 checksum of the inputs used to create a database (extensions, init and seed sql).
+ */
+final class Checksum {
+
+  private final MessageDigest digest;
+
+  Checksum() {
+    try {
+      this.digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Add a value (null treated as empty).
+   */
+  Checksum add(String value) {
+    if (value != null) {
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+    // separator such that ("ab","c") differs from ("a","bc")
+    digest.update((byte) 0);
+    return this;
+  }
+
+  /**
+   * Add the content of the file (null treated as empty) streaming it through the digest.
+   */
+  Checksum add(File file) {
+    if (file != null) {
+      byte[] buffer = new byte[8192];
+      try (InputStream in = Files.newInputStream(file.toPath())) {
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+          digest.update(buffer, 0, count);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    digest.update((byte) 0);
+    return this;
+  }
+
+  /**
+   * Return the checksum in hex.
+   */
+  String hex() {
+    StringBuilder sb = new StringBuilder(64);
+    for (byte b : digest.digest()) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+}
@@ -31,6 +31,7 @@ public class ClickHouseContainer extends BaseJdbcContainer<ClickHouseContainer>
     private Builder(String version) {
       super("clickhouse", 8123, 8123, version);
       this.image = "clickhouse/clickhouse-server:" + version;
+      this.tmpfs = "/var/lib/clickhouse:rw";
       this.username = "default";
       this.password = "test";
       this.adminUsername = "default";
@@ -139,6 +140,7 @@ public class ClickHouseContainer extends BaseJdbcContainer<ClickHouseContainer>
     args.add(config.containerName());
     args.add("--ulimit");
     args.add("nofile=262144:262144");
+    addTmpfs(args, dbConfig.isInMemory() || testFast());
 
     args.add("-e");
     args.add("CLICKHOUSE_PASSWORD=" + dbConfig.getAdminPassword());
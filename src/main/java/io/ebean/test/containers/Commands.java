@@ -1,22 +1,39 @@
 package io.ebean.test.containers;
 
 import io.avaje.applog.AppLog;
-import io.ebean.test.containers.process.ProcessHandler;
-import io.ebean.test.containers.process.ProcessResult;
 
 import java.lang.System.Logger.Level;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Common Docker container commands.
+ * <p>
+ * Commands are executed via a {@link DockerClient} which by default uses the
+ * Docker Engine API when available and otherwise the docker CLI.
+ * <p>
+ * Checks for running or registered containers and their ports use a
+ * {@link ContainerStateSnapshot} that is shared across all the containers for
+ * a short time (default 2 seconds, system property
+ * <code>ebean.test.containers.snapshotTtlMillis</code>) such that starting N
+ * containers performs a single container listing rather than N. The snapshot
+ * is invalidated when containers are started, stopped or removed.
  */
 public class Commands {
 
   static final System.Logger log = AppLog.getLogger("io.ebean.test.containers");
 
-  private final String docker;
+  private static final long SNAPSHOT_TTL_MILLIS = Long.getLong("ebean.test.containers.snapshotTtlMillis", 2000);
+
+  /**
+   * Snapshot shared by all Commands using the same docker client.
+   */
+  private static final Map<String, ContainerStateSnapshot> snapshots = new ConcurrentHashMap<>();
+
+  private final DockerClient client;
 
   /**
    * Create with 'docker' as the command.
@@ -29,7 +46,34 @@ public class Commands {
    * Construct with explicit docker command.
    */
   public Commands(String docker) {
-    this.docker = docker;
+    this(DockerClient.of(docker));
+  }
+
+  /**
+   * Construct with explicit docker client.
+   */
+  public Commands(DockerClient client) {
+    this.client = client;
+  }
+
+  /**
+   * Return the snapshot of all the containers using a cached snapshot if it has not expired.
+   */
+  public ContainerStateSnapshot snapshot() {
+    return snapshots.compute(client.toString(), (key, snapshot) -> {
+      if (snapshot == null || snapshot.expired(SNAPSHOT_TTL_MILLIS)) {
+        log.log(Level.TRACE, "refresh container snapshot");
+        return client.snapshot();
+      }
+      return snapshot;
+    });
+  }
+
+  /**
+   * Invalidate the cached snapshot such that the next check obtains the current state.
+   */
+  public void invalidateSnapshot() {
+    snapshots.remove(client.toString());
   }
 
   /**
@@ -55,7 +99,11 @@ public class Commands {
    */
   public void remove(String containerName) {
     log.log(Level.DEBUG, "remove {0}", containerName);
-    ProcessHandler.command(docker, "rm", "-f", "--volumes", containerName);
+    try {
+      client.remove(List.of(containerName));
+    } finally {
+      invalidateSnapshot();
+    }
   }
 
   /**
@@ -63,7 +111,11 @@ public class Commands {
    */
   public void start(String containerName) {
     log.log(Level.DEBUG, "start {0}", containerName);
-    ProcessHandler.command(docker, "start", containerName);
+    try {
+      client.start(containerName);
+    } finally {
+      invalidateSnapshot();
+    }
   }
 
   /**
@@ -72,58 +124,110 @@ public class Commands {
   public void stop(String containerName) {
     log.log(Level.DEBUG, "stop {0}", containerName);
     try {
-      ProcessHandler.command(docker, "stop", containerName);
+      client.stop(List.of(containerName));
     } catch (CommandException e) {
       if (e.getMessage().contains("No such container")) {
         log.log(Level.TRACE, "container not running {0}", containerName);
       } else {
         log.log(Level.INFO, "Error stopping container - " + e.getMessage());
       }
+    } finally {
+      invalidateSnapshot();
     }
   }
 
   public void removeContainers(String... containerNames) {
     log.log(Level.DEBUG, "remove {0}", Arrays.toString(containerNames));
     try {
-      var args = new ArrayList<String>();
-      args.add("-f");
-      args.add("--volumes");
-      args.addAll(Arrays.asList(containerNames));
-      dockerCmd("rm", args);
+      client.remove(Arrays.asList(containerNames));
     } catch (CommandException e) {
       log.log(Level.DEBUG, "removing containers that don't exist " + e.getMessage());
+    } finally {
+      invalidateSnapshot();
     }
   }
 
   public void stopContainers(String... containerNames) {
-    log.log(Level.DEBUG, "stop {0}", Arrays.toString(containerNames));
+    stopContainers(-1, Arrays.asList(containerNames));
+  }
+
+  /**
+   * Stop the containers using the given grace period in seconds (-1 for the docker default).
+   */
+  public void stopContainers(int timeSeconds, List<String> containerNames) {
+    log.log(Level.DEBUG, "stop {0} time:{1}", containerNames, timeSeconds);
     try {
-      dockerCmd("stop", Arrays.asList(containerNames));
+      client.stop(containerNames, timeSeconds);
     } catch (CommandException e) {
       log.log(Level.DEBUG, "stopping containers that don't exist " + e.getMessage());
+    } finally {
+      invalidateSnapshot();
+    }
+  }
+
+  /**
+   * Rename the container returning false when the container does not exist or the new name is in use.
+   * <p>
+   * Renaming is atomic such that when multiple processes rename the same container only one succeeds.
+   */
+  public boolean rename(String containerName, String newName) {
+    log.log(Level.TRACE, "rename {0} to {1}", containerName, newName);
+    try {
+      return client.rename(containerName, newName);
+    } finally {
+      invalidateSnapshot();
     }
   }
 
-  private void dockerCmd(String first, List<String> args) {
-    final List<String> cmd = new ArrayList<>();
-    cmd.add(docker);
-    cmd.add(first);
-    cmd.addAll(args);
-    ProcessHandler.command(cmd);
+  /**
+   * Return the running containers with the label (<code>name=value</code>) mapped to the value of their valueLabel.
+   */
+  public Map<String, String> runningWithLabel(String label, String valueLabel) {
+    return client.runningWithLabel(label, valueLabel);
+  }
+
+  /**
+   * Return true if the image exists locally.
+   */
+  public boolean imageExists(String image) {
+    return client.imageExists(image);
+  }
+
+  /**
+   * Return the repository:tag of all the local images.
+   */
+  public Set<String> images() {
+    return client.images();
+  }
+
+  /**
+   * Pull the image returning the number of bytes pulled.
+   */
+  public long pull(String image) {
+    log.log(Level.DEBUG, "pull {0}", image);
+    return client.pull(image);
+  }
+
+  /**
+   * Commit the container as a snapshot image.
+   */
+  public void commitSnapshot(String containerName, String image, String checksum) {
+    log.log(Level.DEBUG, "commit {0} as {1}", containerName, image);
+    client.commit(containerName, image, ContainerSnapshots.LABEL, checksum);
   }
 
   /**
    * Return true if the container is running.
    */
   public boolean isRunning(String containerName) {
-    return running().contains(containerName);
+    return snapshot().isRunning(containerName);
   }
 
   /**
    * Return true if the container is registered (exists and maybe running or not).
    */
   public boolean isRegistered(String containerName) {
-    return registered().contains(containerName);
+    return snapshot().isRegistered(containerName);
   }
 
   /**
@@ -156,7 +260,7 @@ public class Commands {
    * Return true if the logs of the container contain the match text.
    */
   public boolean logsContain(String containerName, String match) {
-    return logsContain(containerName, match, null);
+    return client.logsContain(containerName, match);
   }
 
   public boolean logsContain(String containerName, String match, String clearMatch) {
@@ -165,64 +269,70 @@ public class Commands {
   }
 
   /**
-   * Return true if the logs of the container contain the match text.
+   * Follow the logs of the container scanning each line once for the match text.
+   * <p>
+   * This uses a single long-lived log stream rather than re-reading the full logs
+   * on each poll and is expected to be closed when no longer needed.
+   *
+   * @param containerName The container to follow the logs of
+   * @param match         The text to match (typically indicating the container is ready)
+   * @param clearMatch    Optional text that clears a prior match
    */
-  public List<String> logsWithMatch(String containerName, String match, String clearMatch) {
-    ProcessResult result = ProcessHandler.matchCommand(match, clearMatch, docker, "logs", containerName);
-    return result.getOutLines();
+  public LogFollower followLogs(String containerName, String match, String clearMatch) {
+    return followLogs(containerName, match, clearMatch, 0);
   }
 
   /**
-   * Return true if the logs of the container contain the match text.
+   * Follow the logs of the container from the given time (Unix timestamp seconds with 0 meaning all logs).
    */
-  public List<String> logs(String containerName) {
-    ProcessResult result = ProcessHandler.command(docker, "logs", containerName);
-    return result.getOutLines();
+  public LogFollower followLogs(String containerName, String match, String clearMatch, long since) {
+    return new LogFollower(containerName, match, clearMatch).follow(client, since);
+  }
+
+  /**
+   * Follow the docker events of the container waiting for the HEALTHCHECK to report healthy.
+   */
+  HealthWatcher watchHealth(String containerName) {
+    return new HealthWatcher(containerName).watch(client);
+  }
+
+  /**
+   * Return the health status of the container or null when it has no health check.
+   */
+  public String healthStatus(String containerName) {
+    return client.healthStatus(containerName);
   }
 
   /**
-   * Return the list of containers currently running.
+   * Return true if the logs of the container contain the match text.
    */
-  private List<String> running() {
-    ProcessResult result = ProcessHandler.command(docker, "ps", "--format", "{{.Names}}");
-    return result.getOutLines();
+  public List<String> logsWithMatch(String containerName, String match, String clearMatch) {
+    return client.logsWithMatch(containerName, match, clearMatch);
   }
 
   /**
-   * Return the list of containers which maybe running or not.
+   * Return true if the logs of the container contain the match text.
    */
-  private List<String> registered() {
-    ProcessResult result = ProcessHandler.command(docker, "ps", "-a", "--format", "{{.Names}}");
-    return result.getOutLines();
+  public List<String> logs(String containerName) {
+    return client.logs(containerName, 0);
   }
 
   /**
    * Return the ports output as lines.
    */
   public List<String> ports(String containerName) {
-    ProcessResult result = ProcessHandler.command(docker, "port", containerName);
-    return result.getOutLines();
+    ContainerStateSnapshot.Entry entry = snapshot().entry(containerName);
+    if (entry != null && entry.isRunning() && !entry.ports().isEmpty()) {
+      return entry.ports();
+    }
+    return client.ports(containerName);
   }
 
   /**
    * Check if the port matches the existing port bindings and if not return the existing port bindings.
    */
   public String registeredPortMatch(String containerName, int matchPort) {
-    ProcessResult result = ProcessHandler.command(docker, "container", "inspect", containerName, "--format={{json .HostConfig.PortBindings}}");
-    List<String> outLines = result.getOutLines();
-    for (String outLine : outLines) {
-      if (outLine.startsWith("map")) {
-        if (outLine.contains("\"HostPort\":\"" + matchPort + "\"}")) {
-          // port matching all good
-          return null;
-        } else {
-          // mismatch - return all the PortBindings to include in exception message
-          return outLine;
-        }
-      }
-    }
-    // container doesn't exist
-    return null;
+    return client.registeredPortMatch(containerName, matchPort);
   }
 
   /**
@@ -253,13 +363,7 @@ public class Commands {
    * </p>
    */
   public List<String> logs(String containerName, int tail) {
-    ProcessResult result;
-    if (tail > 0) {
-      result = ProcessHandler.command(docker, "logs", "--tail", Integer.toString(tail), containerName);
-    } else {
-      result = ProcessHandler.command(docker, "logs", containerName);
-    }
-    return result.getOutLines();
+    return client.logs(containerName, tail);
   }
 
 }
@@ -49,4 +49,13 @@ public interface Container<C extends Container<C>> {
    * and, we need to know what that port was.
    */
   int port();
+
+  /**
+   * Return the timing of the phases of the last start (run, readiness, create database etc).
+   * <p>
+   * By default this is an empty report for containers that do not time their start.
+   */
+  default StartupReport startupReport() {
+    return new StartupReport(config().platform(), config().containerName());
+  }
 }
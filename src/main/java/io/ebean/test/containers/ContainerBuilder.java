@@ -1,5 +1,6 @@
 package io.ebean.test.containers;
 
+import java.time.Duration;
 import java.util.Properties;
 
 /**
@@ -25,7 +26,9 @@ public interface ContainerBuilder<C, SELF extends ContainerBuilder<C, SELF>> {
   /**
    * Set a container mirror for images to use with CI builds.
    * <p>
-   * For example "my.ecr/mirror".
+   * For example "my.ecr/mirror". This can be a comma separated list of mirrors in which case
+   * the fastest mirror that responds is used with the other mirrors and then the image without
+   * a mirror as fallbacks when pulling the image fails.
    * <p>
    * The mirror is not used when deemed to be running locally. Typically determined
    * via a <code>~/.ebean/ignore-docker-shutdown</code> file or alternative marker
@@ -68,6 +71,39 @@ public interface ContainerBuilder<C, SELF extends ContainerBuilder<C, SELF>> {
    */
   SELF maxReadyAttempts(int maxReadyAttempts);
 
+  /**
+   * Set the policy (deadline, backoff, probe timeout) used when waiting for the container to be ready.
+   */
+  SELF readinessPolicy(ReadinessPolicy readinessPolicy);
+
+  /**
+   * Set the number of idle and ready containers to keep when using a random port (port 0).
+   * <p>
+   * Starting then claims an idle container from the pool rather than running a new one
+   * and the pool is refilled in the background. Defaults to 0 meaning no pool.
+   */
+  SELF pool(int poolSize);
+
+  /**
+   * Set the time after which idle pooled containers are stopped. Defaults to 30 minutes.
+   */
+  SELF poolTtl(Duration poolTtl);
+
+  /**
+   * Set true to run the container with a docker HEALTHCHECK and wait for it to report healthy.
+   * <p>
+   * The start then blocks on the <code>health_status: healthy</code> event of the docker events
+   * stream rather than polling. The platform health command is used (for example
+   * <code>pg_isready</code>, <code>mysqladmin ping</code> or <code>redis-cli ping</code>) or the
+   * HEALTHCHECK defined by the image. Containers without a health check fall back to polling.
+   */
+  SELF healthCheck(boolean healthCheck);
+
+  /**
+   * Set the health check command run in the container (implies healthCheck true).
+   */
+  SELF healthCmd(String healthCmd);
+
   /**
    * Set the docker executable to use. Defaults to docker.
    */
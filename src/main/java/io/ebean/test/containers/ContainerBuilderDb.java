@@ -59,6 +59,10 @@ public interface ContainerBuilderDb<C, SELF extends ContainerBuilderDb<C, SELF>>
 
   /**
    * Set the init sql file to execute.
+   * <p>
+   * With Postgres a database whose extensions, init or seed sql changed is recreated. The other
+   * platforms only run the init and seed sql when the database is created so use
+   * {@link StartMode#DropCreate} to apply changes to an existing database.
    */
   SELF initSqlFile(String initSqlFile);
 
@@ -117,4 +121,31 @@ public interface ContainerBuilderDb<C, SELF extends ContainerBuilderDb<C, SELF>>
    */
   SELF fastStartMode(boolean fastStartMode);
 
+  /**
+   * Set to true to create the database from a template database (Postgres only).
+   */
+  SELF useTemplate(boolean useTemplate);
+
+  /**
+   * Set to true to run from a snapshot image of the provisioned database (Oracle, SqlServer).
+   * <p>
+   * This is ignored for the other platforms (Hana and DB2 hold their data in volumes).
+   */
+  SELF snapshot(boolean snapshot);
+
+  /**
+   * Set the performance profile, TEST_FAST to run the database server with durability off.
+   */
+  SELF performanceProfile(PerformanceProfile performanceProfile);
+
+  /**
+   * Set to true to use a database and user per test worker (Surefire fork or Gradle test worker).
+   */
+  SELF shardMode(boolean shardMode);
+
+  /**
+   * Set an explicit shard id used to suffix the database name and user.
+   */
+  SELF shardId(String shardId);
+
 }
@@ -1,16 +1,36 @@
 package io.ebean.test.containers;
 
+import java.lang.System.Logger.Level;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+import static io.ebean.test.containers.Commands.log;
+
 /**
  * Creates containers from properties with the ability to start and stop them.
+ * <p>
+ * Containers can be started sequentially via {@link #startContainers()} or in
+ * parallel via {@link #startContainersParallel()}. When starting in parallel a
+ * container can depend on other containers via {@link #dependsOn(String, String...)}
+ * or a property like <code>postgres.dependsOn=localstack</code> in which case it
+ * is only started after the containers it depends on have started.
  */
 public class ContainerFactory {
 
+  private static final AtomicInteger threadCounter = new AtomicInteger();
+
   private final Properties properties;
-  private final List<Container> containers = new ArrayList<>();
+  private final List<Container<?>> containers = new ArrayList<>();
   private final Set<String> runWith = new HashSet<>();
+  private final Map<String, Set<String>> dependsOn = new HashMap<>();
 
   private static String defaultRunWith() {
     String runWith = System.getenv("DOCKER_RUN_WITH");
@@ -109,6 +129,42 @@ public class ContainerFactory {
     if (mongoVersion != null) {
       containers.add(MongoContainer.builder(mongoVersion).properties(properties).build());
     }
+    for (Container<?> container : containers) {
+      initDependsOn(container.config().platform());
+    }
+  }
+
+  private void initDependsOn(String platform) {
+    String value = properties.getProperty(platform + ".dependsOn");
+    if (value != null) {
+      dependsOn(platform, TrimSplit.split(value).toArray(new String[0]));
+    }
+  }
+
+  /**
+   * Add a container (for example Localstack) such that it is started and stopped with the other containers.
+   */
+  public ContainerFactory add(Container<?> container) {
+    containers.add(container);
+    initDependsOn(container.config().platform());
+    return this;
+  }
+
+  /**
+   * Declare that the container for the given platform depends on the containers of the other platforms.
+   * <p>
+   * When starting in parallel the container is only started after the containers it depends on have
+   * started. Dependencies on platforms that are not part of this factory are ignored.
+   *
+   * @param platform  The platform of the dependent container (e.g. postgres)
+   * @param platforms The platforms it depends on (e.g. localstack)
+   */
+  public ContainerFactory dependsOn(String platform, String... platforms) {
+    Set<String> set = dependsOn.computeIfAbsent(platform.toLowerCase(), k -> new LinkedHashSet<>());
+    for (String other : platforms) {
+      set.add(other.trim().toLowerCase());
+    }
+    return this;
   }
 
   /**
@@ -127,6 +183,19 @@ public class ContainerFactory {
     return properties.getProperty(prefix + ".version");
   }
 
+  /**
+   * Start pulling the images of the containers that are missing locally in the background.
+   * <p>
+   * This is done when starting the containers and can be called earlier such that the pulls
+   * overlap with other test setup. Use <code>ebean.test.containers.prefetch=false</code> to
+   * have <code>docker run</code> pull missing images instead.
+   */
+  public void prefetchImages() {
+    if (ImagePrefetcher.enabled(properties)) {
+      ImagePrefetcher.prefetch(containers);
+    }
+  }
+
   /**
    * Start all the containers.
    */
@@ -138,7 +207,8 @@ public class ContainerFactory {
    * Start all the containers with a consumer for logging start descriptions.
    */
   public void startContainers(Consumer<String> logging) {
-    for (Container container : containers) {
+    prefetchImages();
+    for (Container<?> container : containers) {
       if (logging != null) {
         logging.accept(container.config().startDescription());
       }
@@ -146,6 +216,180 @@ public class ContainerFactory {
     }
   }
 
+  /**
+   * Start all the containers in parallel returning the combined result.
+   */
+  public StartResult startContainersParallel() {
+    return startContainersParallel(null);
+  }
+
+  /**
+   * Start all the containers in parallel with a consumer for logging start descriptions.
+   * <p>
+   * Each container is started on its own thread (after the containers it depends on have started)
+   * such that the total startup time is close to that of the slowest container rather than the sum
+   * of all of them. The first container that fails to start cancels the remaining starts.
+   *
+   * @return The combined result with the timings for each container
+   */
+  public StartResult startContainersParallel(Consumer<String> logging) {
+    final List<Container<?>> ordered = startOrder();
+    final long start = System.currentTimeMillis();
+    if (ordered.isEmpty()) {
+      return new StartResult(List.of(), 0);
+    }
+    prefetchImages();
+    if (logging != null) {
+      for (Container<?> container : ordered) {
+        logging.accept(container.config().startDescription());
+      }
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(ordered.size(), runnable -> {
+      Thread thread = new Thread(runnable, "container-start-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    final Map<Container<?>, CompletableFuture<StartResult.Timing>> results = new IdentityHashMap<>();
+    for (Container<?> container : ordered) {
+      results.put(container, new CompletableFuture<>());
+    }
+    final List<Future<?>> tasks = new ArrayList<>();
+    final AtomicBoolean failed = new AtomicBoolean();
+    final Runnable cancelOthers = () -> {
+      synchronized (tasks) {
+        if (failed.compareAndSet(false, true)) {
+          tasks.forEach(task -> task.cancel(true));
+          results.forEach((container, result) -> result.complete(cancelled(container.config())));
+        }
+      }
+    };
+    try {
+      for (Container<?> container : ordered) {
+        List<CompletableFuture<StartResult.Timing>> dependencies = new ArrayList<>();
+        for (String platform : dependencies(container.config().platform())) {
+          for (Container<?> other : containers(platform)) {
+            dependencies.add(results.get(other));
+          }
+        }
+        CompletableFuture<StartResult.Timing> result = results.get(container);
+        synchronized (tasks) {
+          if (failed.get()) {
+            result.complete(cancelled(container.config()));
+          } else {
+            tasks.add(executor.submit(() -> startContainer(container, dependencies, result, cancelOthers)));
+          }
+        }
+      }
+      List<StartResult.Timing> timings = new ArrayList<>();
+      for (Container<?> container : containers) {
+        timings.add(results.get(container).join());
+      }
+      StartResult startResult = new StartResult(timings, System.currentTimeMillis() - start);
+      log.log(Level.DEBUG, "parallel start {0}", startResult);
+      return startResult;
+    } finally {
+      executor.shutdownNow();
+      awaitTermination(executor);
+    }
+  }
+
+  private static void startContainer(Container<?> container, List<CompletableFuture<StartResult.Timing>> dependencies,
+                                     CompletableFuture<StartResult.Timing> result, Runnable cancelOthers) {
+    final ContainerConfig config = container.config();
+    final long waitStart = System.currentTimeMillis();
+    long startAt = waitStart;
+    try {
+      for (CompletableFuture<StartResult.Timing> dependency : dependencies) {
+        if (dependency.get().state() != StartResult.State.STARTED) {
+          result.complete(timing(config, StartResult.State.CANCELLED, waitStart, waitStart, null));
+          return;
+        }
+      }
+      startAt = System.currentTimeMillis();
+      if (container.startMaybe()) {
+        result.complete(timing(config, StartResult.State.STARTED, waitStart, startAt, null));
+      } else if (Thread.currentThread().isInterrupted()) {
+        result.complete(timing(config, StartResult.State.CANCELLED, waitStart, startAt, null));
+      } else {
+        result.complete(timing(config, StartResult.State.FAILED, waitStart, startAt, null));
+        cancelOthers.run();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.complete(timing(config, StartResult.State.CANCELLED, waitStart, startAt, null));
+    } catch (ExecutionException e) {
+      result.complete(timing(config, StartResult.State.CANCELLED, waitStart, startAt, null));
+    } catch (Throwable e) {
+      log.log(Level.ERROR, "Failed to start container " + config.containerName(), e);
+      result.complete(timing(config, StartResult.State.FAILED, waitStart, startAt, e));
+      cancelOthers.run();
+    }
+  }
+
+  private static StartResult.Timing timing(ContainerConfig config, StartResult.State state, long waitStart, long startAt, Throwable error) {
+    long now = System.currentTimeMillis();
+    return new StartResult.Timing(config.platform(), config.containerName(), state, startAt - waitStart, now - startAt, error);
+  }
+
+  private static StartResult.Timing cancelled(ContainerConfig config) {
+    return new StartResult.Timing(config.platform(), config.containerName(), StartResult.State.CANCELLED, 0, 0, null);
+  }
+
+  private static void awaitTermination(ExecutorService executor) {
+    try {
+      if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+        log.log(Level.WARNING, "Timeout waiting for cancelled container starts to complete");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Return the dependencies of the given platform that are containers of this factory.
+   */
+  private Set<String> dependencies(String platform) {
+    Set<String> platforms = new LinkedHashSet<>();
+    for (String other : dependsOn.getOrDefault(platform.toLowerCase(), Set.of())) {
+      if (container(other) != null) {
+        platforms.add(other);
+      } else {
+        log.log(Level.DEBUG, "Ignoring dependency of {0} on {1} which is not a container of this factory", platform, other);
+      }
+    }
+    return platforms;
+  }
+
+  /**
+   * Return the containers ordered such that dependencies are before the containers that depend on them.
+   */
+  List<Container<?>> startOrder() {
+    List<Container<?>> ordered = new ArrayList<>();
+    Set<Container<?>> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Container<?> container : containers) {
+      visit(container, ordered, visited, new LinkedHashSet<>());
+    }
+    return ordered;
+  }
+
+  private void visit(Container<?> container, List<Container<?>> ordered, Set<Container<?>> visited, Set<String> path) {
+    if (visited.contains(container)) {
+      return;
+    }
+    String platform = container.config().platform().toLowerCase();
+    if (!path.add(platform)) {
+      throw new IllegalStateException("Circular container dependencies " + path + " -> " + platform);
+    }
+    for (String other : dependencies(platform)) {
+      for (Container<?> dependency : containers(other)) {
+        visit(dependency, ordered, visited, path);
+      }
+    }
+    path.remove(platform);
+    visited.add(container);
+    ordered.add(container);
+  }
+
   /**
    * Stop all containers using the stopMode which defaults to also removing the containers.
    */
@@ -157,7 +401,7 @@ public class ContainerFactory {
    * Stop all the containers with a consumer for logging stop descriptions.
    */
   public void stopContainers(Consumer<String> logging) {
-    for (Container container : containers) {
+    for (Container<?> container : containers) {
       if (logging != null) {
         logging.accept(container.config().stopDescription());
       }
@@ -176,7 +420,7 @@ public class ContainerFactory {
    * Stop all the containers (without remove) with a consumer for logging stop descriptions.
    */
   public void stopOnly(Consumer<String> logging) {
-    for (Container container : containers) {
+    for (Container<?> container : containers) {
       if (logging != null) {
         logging.accept(container.config().stopDescription());
       }
@@ -188,15 +432,15 @@ public class ContainerFactory {
    * Return the config for a given platform.
    */
   public ContainerConfig config(String platform) {
-    Container container = container(platform);
+    Container<?> container = container(platform);
     return (container == null) ? null : container.config();
   }
 
   /**
    * Return the container for a given platform.
    */
-  public Container container(String platform) {
-    for (Container container : containers) {
+  public Container<?> container(String platform) {
+    for (Container<?> container : containers) {
       ContainerConfig config = container.config();
       if (config.platform().equalsIgnoreCase(platform)) {
         return container;
@@ -204,4 +448,17 @@ public class ContainerFactory {
     }
     return null;
   }
+
+  /**
+   * Return all the containers for a given platform.
+   */
+  private List<Container<?>> containers(String platform) {
+    List<Container<?>> list = new ArrayList<>();
+    for (Container<?> container : containers) {
+      if (container.config().platform().equalsIgnoreCase(platform)) {
+        list.add(container);
+      }
+    }
+    return list;
+  }
 }
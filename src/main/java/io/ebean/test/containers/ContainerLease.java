@@ -0,0 +1,189 @@
+package io.ebean.test.containers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger.Level;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Coordinates starting and stopping a container across JVMs (e.g. parallel Maven modules or test forks).
+ * <p>
+ * Starting a container is done holding an exclusive file lock on <code>~/.ebean/containers/{name}.lock</code>
+ * such that the first JVM starts and provisions the container and other JVMs wait and then take the fast
+ * path (container running and database already created).
+ * <p>
+ * A JVM that will stop the container on shutdown takes a lease recorded in <code>{name}.leases</code>.
+ * On shutdown the lease is released and the container is only stopped when no other (live) JVM holds a lease.
+ * <p>
+ * The directory can be set via system property <code>ebean.test.containers.lockDir</code>.
+ */
+final class ContainerLease {
+
+  private static final System.Logger log = Commands.log;
+
+  private static final Map<String, ReentrantLock> jvmLocks = new ConcurrentHashMap<>();
+  private static final AtomicInteger tokenCounter = new AtomicInteger();
+
+  private final Path leaseFile;
+  private final String entry;
+
+  private ContainerLease(Path leaseFile, String entry) {
+    this.leaseFile = leaseFile;
+    this.entry = entry;
+  }
+
+  /**
+   * Return the directory holding the lock and lease files.
+   */
+  static Path lockDir() {
+    String dir = System.getProperty("ebean.test.containers.lockDir", "~/.ebean/containers");
+    if (dir.startsWith("~/")) {
+      return new File(System.getProperty("user.home"), dir.substring(2)).toPath();
+    }
+    return new File(dir).toPath();
+  }
+
+  /**
+   * Run the action holding the lock for the given container (across JVMs).
+   * <p>
+   * This is reentrant for the current thread. If the lock file can not be used the
+   * action is run holding only the JVM lock.
+   */
+  static <T> T withLock(String containerName, Supplier<T> action) {
+    ReentrantLock jvmLock = jvmLocks.computeIfAbsent(containerName, name -> new ReentrantLock());
+    if (jvmLock.isHeldByCurrentThread()) {
+      return action.get();
+    }
+    jvmLock.lock();
+    try {
+      FileChannel channel = openLockFile(containerName);
+      if (channel == null) {
+        return action.get();
+      }
+      try (channel) {
+        long start = System.currentTimeMillis();
+        try (FileLock ignored = channel.lock()) {
+          long waitMillis = System.currentTimeMillis() - start;
+          if (waitMillis > 100) {
+            log.log(Level.DEBUG, "Waited {0}ms for container lock {1}", waitMillis, containerName);
+          }
+          return action.get();
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    } finally {
+      jvmLock.unlock();
+    }
+  }
+
+  /**
+   * Run the action holding the locks for all the given containers.
+   * <p>
+   * The locks are obtained in name order to avoid deadlock.
+   */
+  static <T> T withLocks(Collection<String> containerNames, Supplier<T> action) {
+    List<String> names = new ArrayList<>(new TreeSet<>(containerNames));
+    return withLocks(names, 0, action);
+  }
+
+  private static <T> T withLocks(List<String> names, int index, Supplier<T> action) {
+    if (index >= names.size()) {
+      return action.get();
+    }
+    return withLock(names.get(index), () -> withLocks(names, index + 1, action));
+  }
+
+  private static FileChannel openLockFile(String containerName) {
+    try {
+      Path dir = lockDir();
+      Files.createDirectories(dir);
+      return FileChannel.open(dir.resolve(containerName + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    } catch (IOException | UnsupportedOperationException e) {
+      log.log(Level.DEBUG, "Unable to use container lock file for " + containerName + " " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Take a lease on the container returning null if the lease file can not be used.
+   */
+  static ContainerLease acquire(String containerName) {
+    return withLock(containerName, () -> {
+      Path leaseFile = lockDir().resolve(containerName + ".leases");
+      String entry = ProcessHandle.current().pid() + " " + tokenCounter.incrementAndGet();
+      try {
+        List<String> entries = liveEntries(leaseFile);
+        entries.add(entry);
+        Files.write(leaseFile, entries, StandardCharsets.UTF_8);
+        log.log(Level.TRACE, "Acquired lease on {0} leases:{1}", containerName, entries.size());
+        return new ContainerLease(leaseFile, entry);
+      } catch (IOException e) {
+        log.log(Level.DEBUG, "Unable to use container lease file " + leaseFile + " " + e);
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Release the lease returning the number of other leases remaining.
+   * <p>
+   * This is expected to be called holding the container lock (such that stopping the
+   * container occurs before another JVM can start it).
+   */
+  int release() {
+    try {
+      List<String> entries = liveEntries(leaseFile);
+      entries.remove(entry);
+      if (entries.isEmpty()) {
+        Files.deleteIfExists(leaseFile);
+      } else {
+        Files.write(leaseFile, entries, StandardCharsets.UTF_8);
+      }
+      return entries.size();
+    } catch (IOException e) {
+      log.log(Level.DEBUG, "Unable to use container lease file " + leaseFile + " " + e);
+      return 0;
+    }
+  }
+
+  /**
+   * Read the lease entries removing entries of processes that are no longer alive.
+   */
+  private static List<String> liveEntries(Path leaseFile) throws IOException {
+    List<String> entries = new ArrayList<>();
+    if (Files.exists(leaseFile)) {
+      for (String line : Files.readAllLines(leaseFile, StandardCharsets.UTF_8)) {
+        String trimmed = line.trim();
+        if (!trimmed.isEmpty() && isAlive(trimmed)) {
+          entries.add(trimmed);
+        }
+      }
+    }
+    return entries;
+  }
+
+  private static boolean isAlive(String entry) {
+    try {
+      long pid = Long.parseLong(entry.split(" ")[0]);
+      return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package io.ebean.test.containers;
+
+import java.lang.System.Logger.Level;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Pool of idle and ready containers used with a random port (port 0).
+ * <p>
+ * Rather than running a new container and waiting for it to be ready, starting claims an idle
+ * container from the pool. The pool is refilled in the background.
+ * <p>
+ * Pooled containers are labelled with the pool key (platform, version and a checksum of the
+ * configuration) and are named with a suffix of <code>-fill</code> while starting,
+ * <code>-idle</code> when ready and <code>-used</code> when claimed. Claiming renames the idle
+ * container which docker does atomically such that across JVMs only one claims it.
+ * <p>
+ * Idle containers are not stopped on JVM shutdown such that later test JVMs can claim them.
+ * They are stopped (and removed) in the background by a claim or refill when they are older than
+ * the TTL. When no later JVM uses the pool, remove them via the pool label:
+ * <pre>{@code
+ *
+ *   docker rm -f $(docker ps -aq --filter label=io.ebean.test.pool)
+ *
+ * }</pre>
+ */
+final class ContainerPool {
+
+  static final System.Logger log = Commands.log;
+
+  static final String LABEL = "io.ebean.test.pool";
+  static final String CREATED_LABEL = "io.ebean.test.pool.created";
+
+  private static final String PREFIX = "ebean-pool-";
+  private static final String FILL = "-fill";
+  private static final String IDLE = "-idle";
+  private static final String USED = "-used";
+
+  private static final Map<String, ContainerPool> pools = new ConcurrentHashMap<>();
+
+  private static final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "ebean-pool-refill");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final String key;
+  private final int size;
+  private final long ttlMillis;
+  private final Commands commands;
+  private final Supplier<BaseContainer<?>> factory;
+  private final AtomicBoolean refillPending = new AtomicBoolean();
+
+  ContainerPool(String key, int size, Duration ttl, Commands commands, Supplier<BaseContainer<?>> factory) {
+    this.key = key;
+    this.size = size;
+    this.ttlMillis = ttl.toMillis();
+    this.commands = commands;
+    this.factory = factory;
+  }
+
+  /**
+   * Return the pool for the given key creating it if needed.
+   */
+  static ContainerPool of(String key, int size, Duration ttl, Commands commands, Supplier<BaseContainer<?>> factory) {
+    return pools.computeIfAbsent(key, k -> new ContainerPool(k, size, ttl, commands, factory));
+  }
+
+  /**
+   * Return the pool key for the platform, version and checksum of the configuration.
+   */
+  static String key(String platform, String version, String checksum) {
+    String name = platform + "-" + version;
+    return name.replaceAll("[^a-zA-Z0-9_.-]", "_") + "-" + checksum.substring(0, 12);
+  }
+
+  /**
+   * Return the pool key.
+   */
+  String key() {
+    return key;
+  }
+
+  /**
+   * Claim an idle container returning its (new) name or null if there is no idle container.
+   * <p>
+   * Expired containers are evicted in the background.
+   */
+  String claim() {
+    long now = System.currentTimeMillis();
+    List<String> expired = new ArrayList<>();
+    String claimed = null;
+    for (Map.Entry<String, String> entry : entries().entrySet()) {
+      String name = entry.getKey();
+      if (expired(entry.getValue(), now)) {
+        expired.add(name);
+      } else if (claimed == null && name.endsWith(IDLE)) {
+        String used = base(name) + USED;
+        if (commands.rename(name, used)) {
+          log.log(Level.DEBUG, "Claimed pooled container {0}", used);
+          claimed = used;
+        }
+        // otherwise claimed by another process
+      }
+    }
+    if (!expired.isEmpty()) {
+      refillExecutor.execute(() -> {
+        try {
+          expired.forEach(this::evict);
+        } catch (RuntimeException e) {
+          log.log(Level.WARNING, "Failed to evict expired containers of pool " + key, e);
+        }
+      });
+    }
+    return claimed;
+  }
+
+  /**
+   * Refill the pool in the background.
+   */
+  void refill() {
+    if (refillPending.compareAndSet(false, true)) {
+      refillExecutor.execute(() -> {
+        refillPending.set(false);
+        try {
+          // across JVMs only one refills the pool at a time
+          ContainerLease.withLock(PREFIX + key, this::fill);
+        } catch (RuntimeException e) {
+          log.log(Level.WARNING, "Failed to refill container pool " + key, e);
+        }
+      });
+    }
+  }
+
+  /**
+   * Evict expired containers and start containers such that the pool has size idle containers.
+   */
+  int fill() {
+    long now = System.currentTimeMillis();
+    int available = 0;
+    for (Map.Entry<String, String> entry : entries().entrySet()) {
+      String name = entry.getKey();
+      if (expired(entry.getValue(), now)) {
+        evict(name);
+      } else if (name.endsWith(IDLE) || name.endsWith(FILL)) {
+        available++;
+      }
+    }
+    int started = 0;
+    for (int i = available; i < size; i++) {
+      if (!fillOne()) {
+        break;
+      }
+      started++;
+    }
+    return started;
+  }
+
+  private boolean fillOne() {
+    String base = PREFIX + key + "-" + UUID.randomUUID().toString().substring(0, 8);
+    List<String> labels = new ArrayList<>();
+    labels.add(LABEL + "=" + key);
+    labels.add(CREATED_LABEL + "=" + System.currentTimeMillis());
+    try {
+      BaseContainer<?> container = factory.get();
+      if (container.startPoolEntry(base + FILL, labels) && commands.rename(base + FILL, base + IDLE)) {
+        log.log(Level.DEBUG, "Added pooled container {0}", base + IDLE);
+        return true;
+      }
+      log.log(Level.WARNING, "Failed to start pooled container {0}", base + FILL);
+    } catch (RuntimeException e) {
+      log.log(Level.WARNING, "Failed to start pooled container " + base + FILL, e);
+    }
+    commands.stop(base + FILL);
+    return false;
+  }
+
+  private void evict(String name) {
+    if (name.endsWith(IDLE)) {
+      // claim it first such that it is not stopped while being claimed by another process
+      String evicted = base(name) + USED;
+      if (commands.rename(name, evicted)) {
+        log.log(Level.DEBUG, "Evict pooled container {0}", name);
+        commands.stop(evicted);
+      }
+    } else if (name.endsWith(FILL)) {
+      log.log(Level.DEBUG, "Evict pooled container {0}", name);
+      commands.stop(name);
+    }
+  }
+
+  /**
+   * Return the running containers of this pool mapped to their created time.
+   */
+  private Map<String, String> entries() {
+    return commands.runningWithLabel(LABEL + "=" + key, CREATED_LABEL);
+  }
+
+  boolean expired(String created, long now) {
+    try {
+      return Long.parseLong(created) + ttlMillis < now;
+    } catch (NumberFormatException e) {
+      return true;
+    }
+  }
+
+  private static String base(String name) {
+    return name.substring(0, name.lastIndexOf('-'));
+  }
+}
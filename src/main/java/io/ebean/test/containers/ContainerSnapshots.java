@@ -0,0 +1,175 @@
+package io.ebean.test.containers;
+
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * List and prune the local snapshot images created via {@code snapshot(true)}.
+ * <p>
+ * A snapshot is a <code>docker commit</code> of a provisioned database container tagged as
+ * <code>ebean-snapshot/{platform}:{hash}</code> where the hash is of the container configuration
+ * and init/seed sql. Snapshots of configurations that have since changed are no longer used and
+ * can be pruned.
+ *
+ * <pre>{@code
+ *
+ *   ContainerSnapshots snapshots = ContainerSnapshots.of("docker");
+ *   snapshots.list().forEach(System.out::println);
+ *   snapshots.prune("oracle");
+ *
+ * }</pre>
+ * <p>
+ * Also usable from the command line via the main method with arguments <code>list [platform]</code>
+ * or <code>prune [platform]</code>.
+ */
+public final class ContainerSnapshots {
+
+  private static final System.Logger log = Commands.log;
+
+  /**
+   * The label added to snapshot images.
+   */
+  static final String LABEL = "io.ebean.test.snapshot";
+
+  /**
+   * The repository prefix of snapshot images.
+   */
+  static final String REPOSITORY = "ebean-snapshot/";
+
+  private final DockerClient client;
+
+  ContainerSnapshots(DockerClient client) {
+    this.client = client;
+  }
+
+  /**
+   * Return the snapshots using the given docker command.
+   */
+  public static ContainerSnapshots of(String docker) {
+    return new ContainerSnapshots(DockerClient.of(docker));
+  }
+
+  /**
+   * Return the snapshot image name for the given platform and checksum.
+   */
+  static String imageName(String platform, String checksum) {
+    return REPOSITORY + platform.toLowerCase() + ":" + checksum.substring(0, 16);
+  }
+
+  /**
+   * Return all the snapshot images.
+   */
+  public List<Snapshot> list() {
+    return list(null);
+  }
+
+  /**
+   * Return the snapshot images for the given platform (null for all platforms).
+   */
+  public List<Snapshot> list(String platform) {
+    List<Snapshot> snapshots = new ArrayList<>();
+    for (Snapshot snapshot : client.snapshotImages(LABEL)) {
+      if (platform == null || platform.equalsIgnoreCase(snapshot.platform())) {
+        snapshots.add(snapshot);
+      }
+    }
+    return snapshots;
+  }
+
+  /**
+   * Remove the snapshot images for the given platform (null for all platforms).
+   *
+   * @return The number of snapshot images removed
+   */
+  public int prune(String platform) {
+    int count = 0;
+    for (Snapshot snapshot : list(platform)) {
+      try {
+        client.removeImage(snapshot.image());
+        log.log(Level.INFO, "Removed snapshot image {0}", snapshot.image());
+        count++;
+      } catch (CommandException e) {
+        // for example, the image is used by a container
+        log.log(Level.WARNING, "Unable to remove snapshot image " + snapshot.image() + " " + e.getMessage());
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Remove the given snapshot image.
+   */
+  public void remove(String image) {
+    client.removeImage(image);
+  }
+
+  /**
+   * Command line to list or prune the snapshot images.
+   * <p>
+   * Arguments: <code>list [platform]</code> or <code>prune [platform]</code>.
+   */
+  public static void main(String[] args) {
+    String command = args.length > 0 ? args[0] : "list";
+    String platform = args.length > 1 ? args[1] : null;
+    ContainerSnapshots snapshots = ContainerSnapshots.of(System.getProperty("ebean.test.docker", "docker"));
+    if ("prune".equals(command)) {
+      System.out.println("Removed " + snapshots.prune(platform) + " snapshot images");
+    } else {
+      for (Snapshot snapshot : snapshots.list(platform)) {
+        System.out.println(snapshot);
+      }
+    }
+  }
+
+  /**
+   * A snapshot image.
+   */
+  public static final class Snapshot {
+
+    private final String image;
+    private final String created;
+    private final String size;
+
+    Snapshot(String image, String created, String size) {
+      this.image = image;
+      this.created = created;
+      this.size = size;
+    }
+
+    @Override
+    public String toString() {
+      return image + " created:" + created + " size:" + size;
+    }
+
+    /**
+     * Return the image name (repository and tag).
+     */
+    public String image() {
+      return image;
+    }
+
+    /**
+     * Return the platform the snapshot is for.
+     */
+    public String platform() {
+      int start = image.startsWith(REPOSITORY) ? REPOSITORY.length() : 0;
+      int colon = image.indexOf(':', start);
+      return colon == -1 ? image.substring(start) : image.substring(start, colon);
+    }
+
+    /**
+     * Return when the snapshot was created.
+     */
+    public String created() {
+      return created;
+    }
+
+    /**
+     * Return the size of the snapshot image.
+     */
+    public String size() {
+      return size;
+    }
+  }
+}
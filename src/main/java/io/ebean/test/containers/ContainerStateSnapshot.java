@@ -0,0 +1,190 @@
+package io.ebean.test.containers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of the state of all docker containers obtained from a single listing.
+ * <p>
+ * Containers can be looked up by name or by (full) container id.
+ */
+public final class ContainerStateSnapshot {
+
+  private final long createdAt;
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final List<Entry> entryList;
+
+  ContainerStateSnapshot(List<Entry> entryList) {
+    this(entryList, System.currentTimeMillis());
+  }
+
+  ContainerStateSnapshot(List<Entry> entryList, long createdAt) {
+    this.createdAt = createdAt;
+    this.entryList = Collections.unmodifiableList(entryList);
+    for (Entry entry : entryList) {
+      entries.put(entry.name, entry);
+      if (entry.id != null) {
+        entries.putIfAbsent(entry.id, entry);
+      }
+    }
+  }
+
+  /**
+   * Return true if this snapshot is older than the given time to live.
+   */
+  boolean expired(long ttlMillis) {
+    return System.currentTimeMillis() - createdAt > ttlMillis;
+  }
+
+  /**
+   * Return all the containers.
+   */
+  public Collection<Entry> entries() {
+    return entryList;
+  }
+
+  /**
+   * Return the container entry by name or id or null if it does not exist.
+   */
+  public Entry entry(String containerName) {
+    return entries.get(containerName);
+  }
+
+  /**
+   * Return true if the container is running.
+   */
+  public boolean isRunning(String containerName) {
+    Entry entry = entries.get(containerName);
+    return entry != null && entry.isRunning();
+  }
+
+  /**
+   * Return true if the container exists (running or not).
+   */
+  public boolean isRegistered(String containerName) {
+    return entries.containsKey(containerName);
+  }
+
+  /**
+   * Parse the output of <code>docker ps -a --no-trunc --format {{json .}}</code> (one JSON object per line).
+   */
+  static ContainerStateSnapshot parseCli(List<String> jsonLines) {
+    List<Entry> entries = new ArrayList<>();
+    for (String line : jsonLines) {
+      String trimmed = line.trim();
+      if (trimmed.startsWith("{")) {
+        Map<String, Object> json = Json.parseObject(trimmed);
+        String image = Json.string(json, "Image");
+        String id = Json.string(json, "ID");
+        String state = cliState(Json.string(json, "State"), Json.string(json, "Status"));
+        List<String> ports = cliPorts(Json.string(json, "Ports"));
+        for (String name : TrimSplit.split(Json.string(json, "Names"))) {
+          entries.add(new Entry(name, id, state, image, ports));
+        }
+      }
+    }
+    return new ContainerStateSnapshot(entries);
+  }
+
+  /**
+   * Return the state using Status for older docker versions without State.
+   */
+  private static String cliState(String state, String status) {
+    if (state != null && !state.isEmpty()) {
+      return state;
+    }
+    return status != null && status.startsWith("Up") ? "running" : "exited";
+  }
+
+  /**
+   * Convert the docker ps ports format of <code>0.0.0.0:6432->5432/tcp, :::6432->5432/tcp</code>
+   * to the docker port format of <code>5432/tcp -> 0.0.0.0:6432</code>.
+   */
+  static List<String> cliPorts(String ports) {
+    List<String> lines = new ArrayList<>();
+    for (String port : TrimSplit.split(ports)) {
+      int arrow = port.indexOf("->");
+      if (arrow > -1) {
+        String host = port.substring(0, arrow);
+        int lastColon = host.lastIndexOf(':');
+        if (lastColon > 0 && host.indexOf(':') < lastColon && host.charAt(0) != '[') {
+          // ipv6 like :::6432 formatted as [::]:6432
+          host = "[" + host.substring(0, lastColon) + "]" + host.substring(lastColon);
+        }
+        lines.add(port.substring(arrow + 2) + " -> " + host);
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * The state of a container.
+   */
+  public static final class Entry {
+
+    private final String name;
+    private final String id;
+    private final String state;
+    private final String image;
+    private final List<String> ports;
+
+    Entry(String name, String id, String state, String image, List<String> ports) {
+      this.name = name;
+      this.id = id;
+      this.state = state;
+      this.image = image;
+      this.ports = ports;
+    }
+
+    @Override
+    public String toString() {
+      return name + " " + state + " " + image + " " + ports;
+    }
+
+    /**
+     * Return the container name.
+     */
+    public String name() {
+      return name;
+    }
+
+    /**
+     * Return the container id.
+     */
+    public String id() {
+      return id;
+    }
+
+    /**
+     * Return the state like running, exited, created, paused.
+     */
+    public String state() {
+      return state;
+    }
+
+    /**
+     * Return true if the container is running.
+     */
+    public boolean isRunning() {
+      return "running".equalsIgnoreCase(state);
+    }
+
+    /**
+     * Return the image the container was created with.
+     */
+    public String image() {
+      return image;
+    }
+
+    /**
+     * Return the published ports in the docker port format like <code>5432/tcp -> 0.0.0.0:6432</code>.
+     */
+    public List<String> ports() {
+      return ports;
+    }
+  }
+}
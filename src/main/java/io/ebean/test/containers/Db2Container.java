@@ -3,10 +3,13 @@ package io.ebean.test.containers;
 import io.ebean.test.containers.process.ProcessHandler;
 import io.ebean.test.containers.process.ProcessResult;
 
+import java.io.Reader;
 import java.lang.System.Logger.Level;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Commands for controlling a DB2 docker container.
@@ -90,6 +93,8 @@ public class Db2Container extends BaseJdbcContainer<Db2Container> {
     }
   }
 
+  private static final Duration CHECK_TIMEOUT = Duration.ofSeconds(30);
+
   private final String createOptions;
   private final String configOptions;
 
@@ -105,13 +110,13 @@ public class Db2Container extends BaseJdbcContainer<Db2Container> {
     if (checkConnectivity(false)) {
       return; // container with DB & userName already running - do not recreate DB
     }
-    // #1 Do user management (as root)
-    try {
-      dockerSu("root", "useradd -g db2iadm1 " + dbConfig.getUsername());
-    } catch (CommandException e) {
-      log.log(Level.WARNING, "Failed to useradd" + e);
-    }
-    dockerSu("root", "echo \"" + dbConfig.getUsername() + ":" + dbConfig.getPassword() + "\" | chpasswd");
+    // #1 Do user management (as root) concurrently with creating the database
+    CompletableFuture<ProcessResult> userManagement = dockerSuAsync("root", "useradd -g db2iadm1 " + dbConfig.getUsername())
+      .exceptionally(e -> {
+        log.log(Level.WARNING, "Failed to useradd" + e);
+        return null;
+      })
+      .thenCompose(added -> dockerSuAsync("root", "echo \"" + dbConfig.getUsername() + ":" + dbConfig.getPassword() + "\" | chpasswd"));
 
     // #2 create database (with optional create options)
     String cmd = "db2 create database " + dbConfig.getDbName();
@@ -133,6 +138,8 @@ public class Db2Container extends BaseJdbcContainer<Db2Container> {
     // #5 set recommended values for database
     cmd = "/var/db2_setup/lib/set_rec_values.sh " + dbConfig.getDbName();
     dockerSu(cmd);
+    ProcessHandler.join(userManagement);
+    databaseCreated = true;
   }
 
   @Override
@@ -181,10 +188,34 @@ public class Db2Container extends BaseJdbcContainer<Db2Container> {
     return createProcessBuilder(args);
   }
 
+  @Override
+  SqlScriptReader sqlScript(Reader reader) {
+    return new SqlScriptReader(reader, true, false);
+  }
+
+  /**
+   * Not supported as the data is in the <code>/database</code> volume which is not part of a docker commit.
+   */
+  @Override
+  boolean snapshotSupported() {
+    return false;
+  }
+
   /**
    * Runs the given (linux) command inside the container as given user.
    */
   public List<String> dockerSu(String user, String cmd) {
+    return ProcessHandler.join(dockerSuAsync(user, cmd)).getOutLines();
+  }
+
+  /**
+   * Runs the given (linux) command inside the container as given user asynchronously.
+   */
+  public CompletableFuture<ProcessResult> dockerSuAsync(String user, String cmd) {
+    return ProcessHandler.processAsync(dockerSuProcess(user, cmd));
+  }
+
+  private ProcessBuilder dockerSuProcess(String user, String cmd) {
     List<String> args = new ArrayList<>();
     args.add(config.docker());
     args.add("exec");
@@ -195,9 +226,7 @@ public class Db2Container extends BaseJdbcContainer<Db2Container> {
     args.add(user);
     args.add("-c");
     args.add(cmd);
-    ProcessBuilder pb = createProcessBuilder(args);
-    ProcessResult pr = ProcessHandler.process(pb);
-    return pr.getOutLines();
+    return createProcessBuilder(args);
   }
 
   /**
@@ -214,7 +243,8 @@ public class Db2Container extends BaseJdbcContainer<Db2Container> {
   @Override
   boolean checkConnectivity() {
     try {
-      List<String> result = dockerSu("db2pd -");
+      // short deadline as the check is repeated until the instance is active
+      List<String> result = ProcessHandler.process(dockerSuProcess(dbConfig.getAdminUsername(), "db2pd -"), CHECK_TIMEOUT).getOutLines();
 
       for (String outLine : result) {
         if (outLine.contains("-- Active --")) {
@@ -10,14 +10,24 @@ import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.BooleanSupplier;
+import java.util.Set;
 import java.util.function.Consumer;
 
 abstract class DbContainer<C extends DbContainer<C>> extends BaseContainer<C> {
 
+  /**
+   * Migration history tables that resetData() leaves alone.
+   */
+  static final Set<String> RESET_EXCLUDE = Set.of("db_migration", "flyway_schema_history", "databasechangelog", "databasechangeloglock");
+
+  private static final Object LOGIN_TIMEOUT_LOCK = new Object();
+  private static int loginTimeoutChecks;
+  private static int previousLoginTimeout;
+
   final InternalConfigDb dbConfig;
   boolean checkConnectivityUsingAdmin;
   int conditionPauseMillis = 100;
+  private List<String> resetSql;
 
   DbContainer(BaseDbBuilder<?, ?> config) {
     super(config);
@@ -43,11 +53,20 @@ abstract class DbContainer<C extends DbContainer<C>> extends BaseContainer<C> {
 
   /**
    * Return the JDBC url to connect to this container.
+   * <p>
+   * When using shardMode this is the url of the database for this test worker.
    */
   public String jdbcUrl() {
     return config.jdbcUrl();
   }
 
+  /**
+   * Return the shard id the database name and user are suffixed with or null when not sharding.
+   */
+  public String shardId() {
+    return dbConfig.getShardId();
+  }
+
   /**
    * Create a connection to this database container.
    */
@@ -57,8 +76,7 @@ abstract class DbContainer<C extends DbContainer<C>> extends BaseContainer<C> {
 
   @Override
   public boolean startMaybe() {
-    setDefaultContainerName();
-    return shutdownHook(logStarted(startForMode()));
+    return startMaybe(this::startForMode);
   }
 
   /**
@@ -108,6 +126,80 @@ abstract class DbContainer<C extends DbContainer<C>> extends BaseContainer<C> {
     return true;
   }
 
+  /**
+   * Delete the data of all the tables of the database (other than migration history tables).
+   * <p>
+   * This is expected to be used between tests as a much faster alternative to
+   * <code>StartMode.DropCreate</code>. The tables and their foreign key order are read on the
+   * first call and the statements to delete the data are cached, so tables created after the
+   * first call are not included. The data is deleted in a single round trip where possible,
+   * for example <code>truncate ... restart identity cascade</code> on Postgres.
+   * <p>
+   * Supported for Postgres, MySql, MariaDB, SqlServer and Oracle.
+   */
+  public void resetData() {
+    try (Connection connection = config.createConnection()) {
+      if (resetSql == null) {
+        resetSql = resetDataSql(connection);
+        log.log(Level.DEBUG, "resetData sql {0}", resetSql);
+      }
+      if (resetSql.isEmpty()) {
+        return;
+      }
+      try (Statement statement = connection.createStatement()) {
+        if (resetSql.size() == 1) {
+          statement.execute(resetSql.get(0));
+        } else {
+          for (String sql : resetSql) {
+            statement.addBatch(sql);
+          }
+          statement.executeBatch();
+        }
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Failed to reset data for " + config.containerName(), e);
+    }
+  }
+
+  /**
+   * Return the statements that delete the data of all the tables.
+   */
+  List<String> resetDataSql(Connection connection) throws SQLException {
+    throw new IllegalStateException("resetData() is not supported for platform " + config.platform());
+  }
+
+  /**
+   * Return the rows of the query with the columns as strings.
+   */
+  List<String[]> sqlRows(Connection connection, String sql) throws SQLException {
+    log.log(Level.TRACE, "sqlRows: {0}", sql);
+    List<String[]> rows = new ArrayList<>();
+    try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+      int columns = resultSet.getMetaData().getColumnCount();
+      while (resultSet.next()) {
+        String[] row = new String[columns];
+        for (int i = 0; i < columns; i++) {
+          row[i] = resultSet.getString(i + 1);
+        }
+        rows.add(row);
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Return the tables from the rows (first column) excluding the migration history tables.
+   */
+  static List<String> resetTables(List<String[]> rows, int nameColumn) {
+    List<String> tables = new ArrayList<>(rows.size());
+    for (String[] row : rows) {
+      if (!RESET_EXCLUDE.contains(row[nameColumn].toLowerCase())) {
+        tables.add(row[0]);
+      }
+    }
+    return tables;
+  }
+
   /**
    * Return the Ebean SDK to obtain Ebean Database and Ebean DataSource builders
    * for the underlying container.
@@ -165,33 +257,31 @@ abstract class DbContainer<C extends DbContainer<C>> extends BaseContainer<C> {
   }
 
   /**
-   * Return true when the DB is ready for taking commands (like create database, user etc).
+   * The database is provisioned holding a lock per database such that JVMs using other
+   * databases in the same container are not blocked.
    */
-  public boolean waitForDatabaseReady() {
-    return conditionLoop(this::isDatabaseReady)
-      && conditionLoop(this::isDatabaseAdminReady);
+  @Override
+  String provisionLockKey() {
+    return config.containerName() + "." + dbConfig.getDbName();
   }
 
-  private boolean conditionLoop(BooleanSupplier condition) {
-    for (int i = 0; i < config.getMaxReadyAttempts(); i++) {
-      try {
-        if (condition.getAsBoolean()) {
-          return true;
-        }
-        pause();
-      } catch (CommandException e) {
-        pause();
-      }
-    }
-    return false;
+  @Override
+  boolean waitForRunReady() {
+    return waitForDatabaseReady();
   }
 
-  private void pause() {
-    try {
-      Thread.sleep(conditionPauseMillis);
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
+  /**
+   * Return true when the DB is ready for taking commands (like create database, user etc).
+   */
+  public boolean waitForDatabaseReady() {
+    if (runNotReady()) {
+      return false;
     }
+    // without an explicit deadline use one approximating the attempts
+    long deadlineMillis = (long) config.getMaxReadyAttempts() * conditionPauseMillis;
+    ReadinessPolicy policy = config.readinessPolicy();
+    return phase("databaseReady", () -> policy.await(config.containerName(), readinessKey("databaseReady"), deadlineMillis, this::isDatabaseReady)
+      && policy.await(config.containerName(), readinessKey("adminReady"), deadlineMillis, this::isDatabaseAdminReady));
   }
 
   /**
@@ -207,8 +297,12 @@ abstract class DbContainer<C extends DbContainer<C>> extends BaseContainer<C> {
   boolean checkConnectivity(boolean useAdmin) {
     try {
       log.log(Level.TRACE, "checkConnectivity on {0} ... ", config.containerName());
+      int timeoutSeconds = loginTimeoutSeconds();
+      beginLoginTimeout(timeoutSeconds);
       try (Connection connection = useAdmin ? config.createAdminConnection() : config.createConnectionNoSchema()) {
         log.log(Level.DEBUG, "connectivity confirmed for {0}", config.containerName());
+      } finally {
+        endLoginTimeout(timeoutSeconds);
       }
       return true;
     } catch (Throwable e) {
@@ -220,10 +314,128 @@ abstract class DbContainer<C extends DbContainer<C>> extends BaseContainer<C> {
     }
   }
 
+  /**
+   * Return the login timeout bounding the connect of the connectivity check (0 for none).
+   */
+  private int loginTimeoutSeconds() {
+    long probeTimeoutMillis = config.readinessPolicy().probeTimeoutMillis();
+    return probeTimeoutMillis <= 0 ? 0 : (int) Math.max(1, Math.min(Integer.MAX_VALUE, (probeTimeoutMillis + 999) / 1000));
+  }
+
+  /**
+   * Set the JDBC login timeout while connectivity checks are running unless the application set one.
+   * <p>
+   * The login timeout is JVM wide so it is only set while checks (possibly of several containers in
+   * parallel) are running and then restored to the previous value.
+   */
+  private static void beginLoginTimeout(int timeoutSeconds) {
+    if (timeoutSeconds <= 0) {
+      return;
+    }
+    synchronized (LOGIN_TIMEOUT_LOCK) {
+      if (loginTimeoutChecks++ == 0) {
+        previousLoginTimeout = DriverManager.getLoginTimeout();
+        if (previousLoginTimeout == 0) {
+          DriverManager.setLoginTimeout(timeoutSeconds);
+        }
+      }
+    }
+  }
+
+  private static void endLoginTimeout(int timeoutSeconds) {
+    if (timeoutSeconds <= 0) {
+      return;
+    }
+    synchronized (LOGIN_TIMEOUT_LOCK) {
+      if (--loginTimeoutChecks == 0 && previousLoginTimeout == 0) {
+        DriverManager.setLoginTimeout(0);
+      }
+    }
+  }
+
+  /**
+   * Return true when using the TEST_FAST performance profile (durability off).
+   */
+  boolean testFast() {
+    return dbConfig.getPerformanceProfile() == PerformanceProfile.TEST_FAST;
+  }
+
+  /**
+   * Add the tmpfs mount for the data directory when running in memory.
+   *
+   * @return True if tmpfs is used
+   */
+  boolean addTmpfs(List<String> args, boolean inMemory) {
+    if (inMemory && dbConfig.getTmpfs() != null) {
+      args.add("--tmpfs");
+      args.add(dbConfig.getTmpfs());
+      return true;
+    }
+    return false;
+  }
+
   boolean defined(String val) {
     return val != null && !val.trim().isEmpty();
   }
 
+  /**
+   * Return the sql file or null when not defined.
+   */
+  File sqlFile(String sqlFile) {
+    return defined(sqlFile) ? getResourceOrFile(sqlFile) : null;
+  }
+
+  /**
+   * Return the checksum of the inputs used to provision the database (image, database, users,
+   * extensions, init and seed sql) that identifies a snapshot image.
+   */
+  String snapshotChecksum() {
+    Checksum checksum = new Checksum()
+      .add(config.platform())
+      .add(config.getImage())
+      .add(dbConfig.getDbName())
+      .add(dbConfig.getUsername())
+      .add(dbConfig.getPassword())
+      .add(dbConfig.getAdminUsername())
+      .add(dbConfig.getAdminPassword())
+      .add(dbConfig.getSchema())
+      .add(dbConfig.getExtensions())
+      .add(dbConfig.getCollation())
+      .add(sqlFile(dbConfig.getInitSqlFile()))
+      .add(sqlFile(dbConfig.getSeedSqlFile()));
+    addSnapshotInputs(checksum, dbConfig.extra());
+    addSnapshotInputs(checksum, dbConfig.extra2());
+    addSnapshotInputs(checksum);
+    return checksum.hex();
+  }
+
+  @Override
+  void addPoolInputs(Checksum checksum) {
+    // pooled containers also need a matching database setup
+    checksum
+      .add(snapshotChecksum())
+      .add(dbConfig.getCharacterSet())
+      .add(String.valueOf(dbConfig.isInMemory()))
+      .add(String.valueOf(dbConfig.getPerformanceProfile()));
+  }
+
+  private void addSnapshotInputs(Checksum checksum, ExtraAttributes extra) {
+    checksum
+      .add(extra.dbName)
+      .add(extra.username)
+      .add(extra.password)
+      .add(extra.extensions)
+      .add(sqlFile(extra.initSqlFile))
+      .add(sqlFile(extra.seedSqlFile));
+  }
+
+  /**
+   * Add platform specific inputs used to provision the database to the snapshot checksum.
+   */
+  void addSnapshotInputs(Checksum checksum) {
+    // none by default
+  }
+
   void runDbSqlFile(String dbName, String dbUser, String sqlFile) {
     if (defined(sqlFile)) {
       File file = getResourceOrFile(sqlFile);
@@ -234,6 +446,13 @@ abstract class DbContainer<C extends DbContainer<C>> extends BaseContainer<C> {
   }
 
   void runSqlFile(File file, String dbUser, String dbName) {
+    runSqlFileInContainer(file, dbUser, dbName);
+  }
+
+  /**
+   * Copy the sql file into the container and execute it there.
+   */
+  void runSqlFileInContainer(File file, String dbUser, String dbName) {
     if (copyFileToContainer(file)) {
       String containerFilePath = "/tmp/" + file.getName();
       executeSqlFile(dbUser, dbName, containerFilePath);
@@ -314,9 +533,15 @@ abstract class DbContainer<C extends DbContainer<C>> extends BaseContainer<C> {
    * Execute looking for expected message in stdout.
    */
   boolean executeWithout(String errorMatch, ProcessBuilder pb, String errorMessage) {
-    List<String> outLines = ProcessHandler.process(pb).getOutLines();
-    if (stdoutContains(outLines, errorMatch)) {
-      log.log(Level.ERROR, errorMessage + " stdOut:" + outLines);
+    // only keep the error lines as the output can be large (e.g. psql running a seed file)
+    List<String> errorLines = new ArrayList<>();
+    ProcessHandler.processLines(pb, line -> {
+      if (line.contains(errorMatch)) {
+        errorLines.add(line);
+      }
+    });
+    if (!errorLines.isEmpty()) {
+      log.log(Level.ERROR, errorMessage + " stdOut:" + errorLines);
       return false;
     }
     return true;
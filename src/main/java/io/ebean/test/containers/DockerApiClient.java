@@ -0,0 +1,1179 @@
+package io.ebean.test.containers;
+
+import io.ebean.test.containers.process.ByteMatcher;
+import io.ebean.test.containers.process.ProcessResult;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger.Level;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * DockerClient that uses the Docker Engine API (HTTP/JSON) over the docker
+ * unix socket or a plain tcp DOCKER_HOST rather than forking the docker CLI.
+ * <p>
+ * Unix sockets require Java 16+ and otherwise the CLI client is used.
+ */
+final class DockerApiClient implements DockerClient {
+
+  private static final System.Logger log = Commands.log;
+
+  static final String CLIENT_PROPERTY = "ebean.test.containers.dockerClient";
+  private static final String DEFAULT_SOCKET = "/var/run/docker.sock";
+  private static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+  private static final int READ_TIMEOUT_MILLIS = 60_000;
+  private static final Executor STOP_EXECUTOR = runnable -> {
+    Thread thread = new Thread(runnable, "docker-stop");
+    thread.setDaemon(true);
+    thread.start();
+  };
+
+  private static final Map<String, Optional<DockerApiClient>> clients = new ConcurrentHashMap<>();
+
+  private final String unixSocket;
+  private final String host;
+  private final int port;
+
+  private DockerApiClient(String unixSocket, String host, int port) {
+    this.unixSocket = unixSocket;
+    this.host = host;
+    this.port = port;
+  }
+
+  /**
+   * Return a client using the unix socket at the given path.
+   */
+  static DockerApiClient unix(String path) {
+    return new DockerApiClient(path, null, 0);
+  }
+
+  /**
+   * Return a client using plain tcp to the given host and port.
+   */
+  static DockerApiClient tcp(String host, int port) {
+    return new DockerApiClient(null, host, port);
+  }
+
+  /**
+   * Return the API client to use by default or null when the CLI should be used.
+   */
+  static DockerClient defaultClient(String docker) {
+    String mode = System.getProperty(CLIENT_PROPERTY, "auto").trim().toLowerCase(Locale.ENGLISH);
+    if ("cli".equals(mode)) {
+      return null;
+    }
+    boolean explicit = "api".equals(mode);
+    if (!explicit && !isDockerCommand(docker)) {
+      // some other command like podman, use the CLI
+      return null;
+    }
+    String endpoint = endpoint(System.getenv("DOCKER_HOST"));
+    DockerApiClient client = endpoint == null ? null : clients.computeIfAbsent(endpoint, DockerApiClient::available).orElse(null);
+    if (client == null && explicit) {
+      throw new IllegalStateException("Docker Engine API not available at " + endpoint + " but " + CLIENT_PROPERTY + "=api");
+    }
+    return client;
+  }
+
+  static boolean isDockerCommand(String docker) {
+    return "docker".equals(new File(docker).getName());
+  }
+
+  /**
+   * Return the API endpoint given the DOCKER_HOST value or null if not supported.
+   */
+  static String endpoint(String dockerHost) {
+    if (dockerHost == null || dockerHost.isBlank()) {
+      if (new File(DEFAULT_SOCKET).exists()) {
+        return "unix://" + DEFAULT_SOCKET;
+      }
+      File desktopSocket = new File(System.getProperty("user.home"), ".docker/run/docker.sock");
+      return desktopSocket.exists() ? "unix://" + desktopSocket.getAbsolutePath() : null;
+    }
+    if (dockerHost.startsWith("unix://")) {
+      return dockerHost;
+    }
+    if (dockerHost.startsWith("tcp://") && System.getenv("DOCKER_TLS_VERIFY") == null) {
+      return dockerHost;
+    }
+    // npipe, ssh, or tls not supported, use the CLI
+    return null;
+  }
+
+  static DockerApiClient of(String endpoint) {
+    if (endpoint.startsWith("unix://")) {
+      return unix(endpoint.substring(7));
+    }
+    URI uri = URI.create(endpoint);
+    return tcp(uri.getHost(), uri.getPort() == -1 ? 2375 : uri.getPort());
+  }
+
+  private static Optional<DockerApiClient> available(String endpoint) {
+    DockerApiClient client = of(endpoint);
+    if (client.ping()) {
+      log.log(Level.DEBUG, "Using Docker Engine API at {0}", endpoint);
+      return Optional.of(client);
+    }
+    log.log(Level.DEBUG, "Docker Engine API not available at {0}, using docker CLI", endpoint);
+    return Optional.empty();
+  }
+
+  @Override
+  public String toString() {
+    return unixSocket != null ? "unix://" + unixSocket : "tcp://" + host + ":" + port;
+  }
+
+  /**
+   * Return true if the daemon responds to ping.
+   */
+  boolean ping() {
+    try {
+      Response response = request("GET", "/_ping");
+      return response.status == 200;
+    } catch (IOException | RuntimeException e) {
+      log.log(Level.TRACE, "Docker Engine API ping failed: {0}", e.getMessage());
+      return false;
+    }
+  }
+
+  @Override
+  public List<String> running() {
+    return containerNames("/containers/json");
+  }
+
+  @Override
+  public List<String> registered() {
+    return containerNames("/containers/json?all=1");
+  }
+
+  private List<String> containerNames(String path) {
+    List<String> names = new ArrayList<>();
+    for (Object entry : Json.parseArray(call("GET", path).text())) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> json = (Map<String, Object>) entry;
+      names.addAll(names(json));
+    }
+    return names;
+  }
+
+  private static List<String> names(Map<String, Object> container) {
+    List<Object> containerNames = Json.array(container, "Names");
+    if (containerNames == null) {
+      return Collections.emptyList();
+    }
+    List<String> names = new ArrayList<>();
+    for (Object name : containerNames) {
+      String trimmed = name.toString().substring(1);
+      if (trimmed.indexOf('/') == -1) {
+        // exclude legacy link aliases like /other/alias
+        names.add(trimmed);
+      }
+    }
+    return names;
+  }
+
+  @Override
+  public ContainerStateSnapshot snapshot() {
+    List<ContainerStateSnapshot.Entry> entries = new ArrayList<>();
+    for (Object container : Json.parseArray(call("GET", "/containers/json?all=1").text())) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> json = (Map<String, Object>) container;
+      String id = Json.string(json, "Id");
+      String state = Json.string(json, "State");
+      String image = Json.string(json, "Image");
+      List<String> ports = summaryPorts(Json.array(json, "Ports"));
+      for (String name : names(json)) {
+        entries.add(new ContainerStateSnapshot.Entry(name, id, state, image, ports));
+      }
+    }
+    return new ContainerStateSnapshot(entries);
+  }
+
+  /**
+   * Return the published ports from the container listing in docker port format.
+   */
+  private static List<String> summaryPorts(List<Object> ports) {
+    if (ports == null) {
+      return Collections.emptyList();
+    }
+    List<String> lines = new ArrayList<>();
+    for (Object port : ports) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> portMap = (Map<String, Object>) port;
+      String publicPort = Json.string(portMap, "PublicPort");
+      if (publicPort != null) {
+        String ip = Json.string(portMap, "IP");
+        if (ip != null && ip.contains(":")) {
+          ip = "[" + ip + "]";
+        }
+        lines.add(Json.string(portMap, "PrivatePort") + "/" + Json.string(portMap, "Type") + " -> " + ip + ":" + publicPort);
+      }
+    }
+    return lines;
+  }
+
+  @Override
+  public List<String> ports(String containerName) {
+    Map<String, Object> inspect = Json.parseObject(call("GET", containerPath(containerName, "/json")).text());
+    Map<String, Object> ports = Json.object(Json.object(inspect, "NetworkSettings"), "Ports");
+    if (ports == null) {
+      return Collections.emptyList();
+    }
+    List<String> lines = new ArrayList<>();
+    for (Map.Entry<String, Object> entry : ports.entrySet()) {
+      if (entry.getValue() instanceof List) {
+        for (Object binding : (List<?>) entry.getValue()) {
+          @SuppressWarnings("unchecked")
+          Map<String, Object> bindingMap = (Map<String, Object>) binding;
+          String hostIp = Json.string(bindingMap, "HostIp");
+          if (hostIp != null && hostIp.contains(":")) {
+            hostIp = "[" + hostIp + "]";
+          }
+          lines.add(entry.getKey() + " -> " + hostIp + ":" + Json.string(bindingMap, "HostPort"));
+        }
+      }
+    }
+    return lines;
+  }
+
+  @Override
+  public String registeredPortMatch(String containerName, int matchPort) {
+    Response response = send("GET", containerPath(containerName, "/json"));
+    if (response.status == 404) {
+      // container doesn't exist
+      return null;
+    }
+    checkSuccess(response);
+    Map<String, Object> portBindings = Json.object(Json.object(Json.parseObject(response.text()), "HostConfig"), "PortBindings");
+    if (portBindings == null) {
+      return null;
+    }
+    String matchValue = Integer.toString(matchPort);
+    List<String> bindings = new ArrayList<>();
+    for (Map.Entry<String, Object> entry : portBindings.entrySet()) {
+      if (entry.getValue() instanceof List) {
+        for (Object binding : (List<?>) entry.getValue()) {
+          @SuppressWarnings("unchecked")
+          String hostPort = Json.string((Map<String, Object>) binding, "HostPort");
+          if (matchValue.equals(hostPort)) {
+            // port matching all good
+            return null;
+          }
+          if (hostPort != null && !hostPort.isEmpty()) {
+            bindings.add(entry.getKey() + " -> " + hostPort);
+          }
+        }
+      }
+    }
+    // empty means only random ports bound
+    return bindings.isEmpty() ? null : String.join(", ", bindings);
+  }
+
+  @Override
+  public List<String> logs(String containerName, int tail) {
+    String tailValue = tail > 0 ? Integer.toString(tail) : "all";
+    Response response = call("GET", containerPath(containerName, "/logs?stdout=1&stderr=1&tail=" + tailValue));
+    return logLines(response.body, null, null);
+  }
+
+  @Override
+  public List<String> logsWithMatch(String containerName, String match, String clearMatch) {
+    Response response = call("GET", containerPath(containerName, "/logs?stdout=1&stderr=1"));
+    return logLines(response.body, match, clearMatch);
+  }
+
+  @Override
+  public boolean logsContain(String containerName, String match) {
+    Response response = call("GET", containerPath(containerName, "/logs?stdout=1&stderr=1"));
+    return logsContain(response.body, match);
+  }
+
+  @Override
+  public Closeable followLogs(String containerName, long since, Consumer<String> lines, Runnable onEnd) {
+    String path = containerPath(containerName, "/logs?stdout=1&stderr=1&follow=1" + (since > 0 ? "&since=" + since : ""));
+    return follow(path, "log-follow-" + containerName, in -> readLogLines(in, lines), onEnd);
+  }
+
+  @Override
+  public Closeable followEvents(String containerName, Consumer<String> actions, Runnable onEnd) {
+    String path = "/events?filters=" + encode("{\"container\":[\"" + containerName + "\"]}");
+    return follow(path, "event-follow-" + containerName, in -> readLogLines(in, line -> {
+      String action = eventAction(line);
+      if (action != null) {
+        actions.accept(action);
+      }
+    }), onEnd);
+  }
+
+  /**
+   * Return the action of the event JSON (for example <code>health_status: healthy</code>) or null.
+   */
+  static String eventAction(String eventJson) {
+    if (eventJson.isBlank()) {
+      return null;
+    }
+    Map<String, Object> event = Json.parseObject(eventJson);
+    String action = Json.string(event, "Action");
+    return action != null ? action : Json.string(event, "status");
+  }
+
+  private interface StreamReader {
+    void read(InputStream in) throws IOException;
+  }
+
+  private Closeable follow(String path, String threadName, StreamReader reader, Runnable onEnd) {
+    Connection connection = null;
+    try {
+      // no read timeout as there can be long periods without output
+      connection = connect(0);
+      writeRequest(connection, "GET", path);
+      InputStream in = new BufferedInputStream(connection.in);
+      Head head = Head.read(in);
+      if (head.status >= 300) {
+        throw failure(new Response(head.status, head.body(in).readAllBytes()));
+      }
+      Connection following = connection;
+      Thread thread = new Thread(() -> {
+        try {
+          reader.read(head.body(in));
+        } catch (IOException e) {
+          // connection closed
+        } finally {
+          closeQuietly(following);
+          onEnd.run();
+        }
+      }, threadName);
+      thread.setDaemon(true);
+      thread.start();
+      return following;
+    } catch (IOException e) {
+      closeQuietly(connection);
+      throw new IllegalStateException("Error calling Docker Engine API GET " + path + " at " + this, e);
+    } catch (RuntimeException e) {
+      closeQuietly(connection);
+      throw e;
+    }
+  }
+
+  @Override
+  public String healthStatus(String containerName) {
+    Response response = send("GET", containerPath(containerName, "/json"));
+    if (response.status == 404) {
+      return null;
+    }
+    checkSuccess(response);
+    return Json.string(Json.object(Json.object(Json.parseObject(response.text()), "State"), "Health"), "Status");
+  }
+
+  private static void closeQuietly(Connection connection) {
+    if (connection != null) {
+      try {
+        connection.close();
+      } catch (IOException e) {
+        log.log(Level.TRACE, "Error closing connection", e);
+      }
+    }
+  }
+
+  @Override
+  public void start(String containerName) {
+    Response response = send("POST", containerPath(containerName, "/start"));
+    if (response.status != 304) {
+      // 304 means already started
+      checkSuccess(response);
+    }
+  }
+
+  @Override
+  public void stop(List<String> containerNames, int timeSeconds) {
+    String suffix = timeSeconds < 0 ? "/stop" : "/stop?t=" + timeSeconds;
+    // stop concurrently like the docker CLI such that the grace periods overlap
+    List<CompletableFuture<Response>> responses = new ArrayList<>();
+    for (String containerName : containerNames) {
+      responses.add(CompletableFuture.supplyAsync(() -> send("POST", containerPath(containerName, suffix)), STOP_EXECUTOR));
+    }
+    CommandException error = null;
+    for (CompletableFuture<Response> future : responses) {
+      Response response = join(future);
+      if (response.status != 304 && response.status >= 300) {
+        error = failure(response);
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private static Response join(CompletableFuture<Response> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public void remove(List<String> containerNames) {
+    CommandException error = null;
+    for (String containerName : containerNames) {
+      Response response = send("DELETE", containerPath(containerName, "?force=1&v=1"));
+      if (response.status >= 300) {
+        error = failure(response);
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  @Override
+  public boolean rename(String containerName, String newName) {
+    Response response = send("POST", containerPath(containerName, "/rename?name=" + encode(newName)));
+    if (response.status == 404 || response.status == 409) {
+      // no such container or the new name is in use
+      return false;
+    }
+    checkSuccess(response);
+    return true;
+  }
+
+  @Override
+  public Map<String, String> runningWithLabel(String label, String valueLabel) {
+    String filters = "{\"label\":[\"" + label + "\"]}";
+    Map<String, String> containers = new LinkedHashMap<>();
+    for (Object entry : Json.parseArray(call("GET", "/containers/json?filters=" + encode(filters)).text())) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> json = (Map<String, Object>) entry;
+      List<String> names = names(json);
+      if (!names.isEmpty()) {
+        Map<String, Object> labels = Json.object(json, "Labels");
+        Object value = labels == null ? null : labels.get(valueLabel);
+        containers.put(names.get(0), value == null ? "" : value.toString());
+      }
+    }
+    return containers;
+  }
+
+  @Override
+  public boolean imageExists(String image) {
+    Response response = send("GET", imagePath(image, "/json"));
+    if (response.status == 404) {
+      return false;
+    }
+    checkSuccess(response);
+    return true;
+  }
+
+  @Override
+  public Set<String> images() {
+    Set<String> images = new LinkedHashSet<>();
+    for (Object entry : Json.parseArray(call("GET", "/images/json").text())) {
+      @SuppressWarnings("unchecked")
+      List<Object> repoTags = Json.array((Map<String, Object>) entry, "RepoTags");
+      if (repoTags != null) {
+        for (Object repoTag : repoTags) {
+          String image = String.valueOf(repoTag);
+          if (!image.contains("<none>")) {
+            images.add(image);
+          }
+        }
+      }
+    }
+    return images;
+  }
+
+  @Override
+  public long pull(String image) {
+    return pull(image, RegistryAuth.read());
+  }
+
+  /**
+   * Pull the image sending the registry credentials from the docker config.
+   * <p>
+   * Images of a registry with credentials held by a credential helper are pulled via the docker CLI.
+   */
+  long pull(String image, RegistryAuth auth) {
+    String registry = RegistryAuth.registry(image);
+    if (auth.credentialHelper(registry)) {
+      log.log(Level.DEBUG, "pull {0} via the docker CLI as the credentials of {1} are held by a credential helper", image, registry);
+      return new DockerCliClient("docker").pull(image);
+    }
+    String registryAuth = auth.header(registry);
+    if (registryAuth == null) {
+      log.log(Level.DEBUG, "pull {0} anonymously as there are no credentials for {1} in the docker config", image, registry);
+    }
+    String path;
+    int colon = image.lastIndexOf(':');
+    if (image.contains("@") || colon < image.lastIndexOf('/')) {
+      path = "/images/create?fromImage=" + encode(image);
+    } else {
+      path = "/images/create?fromImage=" + encode(image.substring(0, colon)) + "&tag=" + encode(image.substring(colon + 1));
+    }
+    Response response;
+    try (Connection connection = connect(0)) {
+      // no read timeout as extracting a large layer can take a while without progress output
+      writeRequest(connection, "POST", path, registryAuth);
+      response = Response.read(new BufferedInputStream(connection.in));
+    } catch (IOException e) {
+      throw new IllegalStateException("Error calling Docker Engine API POST " + path + " at " + this, e);
+    }
+    checkSuccess(response);
+    return pullBytes(response.text());
+  }
+
+  /**
+   * Return the bytes downloaded from the JSON progress lines of an image pull.
+   * <p>
+   * Throws CommandException when the progress contains an error (the pull failed after the 200 response).
+   */
+  static long pullBytes(String progress) {
+    Map<String, Long> layers = new LinkedHashMap<>();
+    for (String line : progress.split("\n")) {
+      if (line.isBlank()) {
+        continue;
+      }
+      Map<String, Object> json = Json.parseObject(line);
+      String error = Json.string(json, "error");
+      if (error != null) {
+        throw new CommandException("command failed: " + error, new ProcessResult(1, List.of(error)));
+      }
+      Map<String, Object> detail = Json.object(json, "progressDetail");
+      String id = Json.string(json, "id");
+      if (detail != null && id != null && "Downloading".equals(Json.string(json, "status"))) {
+        Object total = detail.get("total");
+        if (total instanceof Number) {
+          layers.put(id, ((Number) total).longValue());
+        }
+      }
+    }
+    long bytes = 0;
+    for (Long layer : layers.values()) {
+      bytes += layer;
+    }
+    return bytes;
+  }
+
+  @Override
+  public void commit(String containerName, String image, String label, String labelValue) {
+    int colon = image.lastIndexOf(':');
+    String repo = colon > image.lastIndexOf('/') ? image.substring(0, colon) : image;
+    String tag = colon > image.lastIndexOf('/') ? image.substring(colon + 1) : "latest";
+    call("POST", "/commit?container=" + encode(containerName)
+      + "&repo=" + encode(repo)
+      + "&tag=" + encode(tag)
+      + "&changes=" + encode("LABEL " + label + "=" + labelValue));
+  }
+
+  @Override
+  public List<ContainerSnapshots.Snapshot> snapshotImages(String label) {
+    String filters = "{\"label\":[\"" + label + "\"]}";
+    List<ContainerSnapshots.Snapshot> images = new ArrayList<>();
+    for (Object entry : Json.parseArray(call("GET", "/images/json?filters=" + encode(filters)).text())) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> json = (Map<String, Object>) entry;
+      List<Object> repoTags = Json.array(json, "RepoTags");
+      if (repoTags != null) {
+        Object created = json.get("Created");
+        Object size = json.get("Size");
+        for (Object repoTag : repoTags) {
+          images.add(new ContainerSnapshots.Snapshot(String.valueOf(repoTag), String.valueOf(created), String.valueOf(size)));
+        }
+      }
+    }
+    return images;
+  }
+
+  @Override
+  public void removeImage(String image) {
+    call("DELETE", imagePath(image, ""));
+  }
+
+  private static String imagePath(String image, String suffix) {
+    // the image name may contain slashes that are part of the path
+    return "/images/" + encode(image).replace("%2F", "/").replace("%3A", ":") + suffix;
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private static String containerPath(String containerName, String suffix) {
+    return "/containers/" + URLEncoder.encode(containerName, StandardCharsets.UTF_8) + suffix;
+  }
+
+  /**
+   * Return the log lines from the (possibly multiplexed) log stream applying match and clearMatch.
+   */
+  static List<String> logLines(byte[] body, String match, String clearMatch) {
+    List<String> lines = new ArrayList<>();
+    try {
+      readLogLines(new ByteArrayInputStream(body), line -> {
+        if (clearMatch != null && line.contains(clearMatch)) {
+          lines.clear();
+        } else if (match == null || line.contains(match)) {
+          lines.add(line);
+        }
+      });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return lines;
+  }
+
+  /**
+   * Read the log stream passing each line to the consumer.
+   * <p>
+   * The 8 byte stream headers are stripped when the container does not use a TTY.
+   */
+  static void readLogLines(InputStream in, Consumer<String> consumer) throws IOException {
+    InputStream buffered = new BufferedInputStream(in);
+    buffered.mark(8);
+    byte[] header = buffered.readNBytes(8);
+    buffered.reset();
+    LineBuffer lines = new LineBuffer(consumer);
+    if (isMultiplexed(header)) {
+      byte[] frameHeader;
+      while ((frameHeader = buffered.readNBytes(8)).length == 8) {
+        int size = ((frameHeader[4] & 0xFF) << 24) | ((frameHeader[5] & 0xFF) << 16) | ((frameHeader[6] & 0xFF) << 8) | (frameHeader[7] & 0xFF);
+        if (!lines.copy(buffered, size)) {
+          break;
+        }
+      }
+    } else {
+      lines.copy(buffered, Long.MAX_VALUE);
+    }
+    lines.flush();
+  }
+
+  /**
+   * Return true if the (possibly multiplexed) log stream contains the match scanning only the payload bytes.
+   */
+  static boolean logsContain(byte[] body, String match) {
+    ByteMatcher matcher = new ByteMatcher(match);
+    if (!isMultiplexed(body)) {
+      return matcher.update(body, 0, body.length);
+    }
+    int offset = 0;
+    while (offset + 8 <= body.length) {
+      int size = ((body[offset + 4] & 0xFF) << 24) | ((body[offset + 5] & 0xFF) << 16) | ((body[offset + 6] & 0xFF) << 8) | (body[offset + 7] & 0xFF);
+      int length = Math.min(size, body.length - offset - 8);
+      if (matcher.update(body, offset + 8, length)) {
+        return true;
+      }
+      offset += 8 + length;
+    }
+    return false;
+  }
+
+  private static boolean isMultiplexed(byte[] header) {
+    return header.length >= 8 && header[0] <= 2 && header[0] >= 0 && header[1] == 0 && header[2] == 0 && header[3] == 0;
+  }
+
+  /**
+   * Buffers bytes passing each complete line to the consumer.
+   */
+  private static final class LineBuffer {
+
+    private final Consumer<String> consumer;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private final byte[] buffer = new byte[8192];
+
+    LineBuffer(Consumer<String> consumer) {
+      this.consumer = consumer;
+    }
+
+    /**
+     * Copy up to length bytes from the stream returning false if the end of the stream was reached.
+     */
+    boolean copy(InputStream in, long length) throws IOException {
+      long remaining = length;
+      while (remaining > 0) {
+        int len = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (len == -1) {
+          return false;
+        }
+        int start = 0;
+        for (int i = 0; i < len; i++) {
+          if (buffer[i] == '\n') {
+            line.write(buffer, start, i - start);
+            emit();
+            start = i + 1;
+          }
+        }
+        line.write(buffer, start, len - start);
+        remaining -= len;
+      }
+      return true;
+    }
+
+    void flush() {
+      if (line.size() > 0) {
+        emit();
+      }
+    }
+
+    private void emit() {
+      byte[] content = line.toByteArray();
+      int end = content.length;
+      if (end > 0 && content[end - 1] == '\r') {
+        end--;
+      }
+      line.reset();
+      consumer.accept(new String(content, 0, end, StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Send the request throwing CommandException if not successful.
+   */
+  private Response call(String method, String path) {
+    Response response = send(method, path);
+    checkSuccess(response);
+    return response;
+  }
+
+  private Response send(String method, String path) {
+    try {
+      return request(method, path);
+    } catch (IOException e) {
+      throw new IllegalStateException("Error calling Docker Engine API " + method + " " + path + " at " + this, e);
+    }
+  }
+
+  private void checkSuccess(Response response) {
+    if (response.status >= 300) {
+      throw failure(response);
+    }
+  }
+
+  private static CommandException failure(Response response) {
+    String message = response.errorMessage();
+    return new CommandException("command failed: " + message, new ProcessResult(response.status, List.of(message)));
+  }
+
+  Response request(String method, String path) throws IOException {
+    try (Connection connection = connect(READ_TIMEOUT_MILLIS)) {
+      writeRequest(connection, method, path);
+      return Response.read(new BufferedInputStream(connection.in));
+    }
+  }
+
+  private static void writeRequest(Connection connection, String method, String path) throws IOException {
+    writeRequest(connection, method, path, null);
+  }
+
+  private static void writeRequest(Connection connection, String method, String path, String registryAuth) throws IOException {
+    String request = method + " " + path + " HTTP/1.1\r\n"
+      + "Host: docker\r\n"
+      + "User-Agent: ebean-test-containers\r\n"
+      + (registryAuth == null ? "" : "X-Registry-Auth: " + registryAuth + "\r\n")
+      + "Content-Length: 0\r\n"
+      + "Connection: close\r\n\r\n";
+    connection.out.write(request.getBytes(StandardCharsets.US_ASCII));
+    connection.out.flush();
+  }
+
+  private Connection connect(int readTimeoutMillis) throws IOException {
+    if (unixSocket != null) {
+      // socket timeouts do not apply to channels so the timeouts are applied via a selector
+      TimedChannel channel = openUnixChannel(unixSocket, readTimeoutMillis);
+      return new Connection(channel, channel.in, channel.out);
+    }
+    Socket socket = new Socket();
+    socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+    socket.setSoTimeout(readTimeoutMillis);
+    return new Connection(socket, socket.getInputStream(), socket.getOutputStream());
+  }
+
+  /**
+   * Open a unix domain socket channel using Java 16+ API via reflection (compiled for Java 11).
+   */
+  private static TimedChannel openUnixChannel(String path, int readTimeoutMillis) throws IOException {
+    SocketAddress address;
+    SocketChannel channel;
+    try {
+      Class<?> addressClass = Class.forName("java.net.UnixDomainSocketAddress");
+      address = (SocketAddress) addressClass.getMethod("of", String.class).invoke(null, path);
+      ProtocolFamily unix = StandardProtocolFamily.valueOf("UNIX");
+      channel = (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, unix);
+    } catch (ReflectiveOperationException | IllegalArgumentException e) {
+      throw new IOException("Unix domain sockets require Java 16+", e);
+    }
+    return TimedChannel.connect(channel, address, CONNECT_TIMEOUT_MILLIS, readTimeoutMillis);
+  }
+
+  /**
+   * Input and output streams over a non-blocking channel that apply connect and read timeouts
+   * using a selector (like the socket timeouts of a TCP socket). A read timeout of 0 means no timeout.
+   * <p>
+   * Closing wakes up a thread blocked reading (for example following logs or events).
+   */
+  static final class TimedChannel implements Closeable {
+
+    private final SocketChannel channel;
+    private final Selector selector;
+    private final int readTimeoutMillis;
+
+    final InputStream in = new InputStream() {
+      @Override
+      public int read() throws IOException {
+        byte[] one = new byte[1];
+        int len = read(one, 0, 1);
+        return len == -1 ? -1 : one[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] bytes, int off, int len) throws IOException {
+        if (len == 0) {
+          return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, off, len);
+        while (true) {
+          int count = channel.read(buffer);
+          if (count != 0) {
+            return count;
+          }
+          await(SelectionKey.OP_READ, readTimeoutMillis);
+        }
+      }
+    };
+
+    final OutputStream out = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] bytes, int off, int len) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, off, len);
+        while (buffer.hasRemaining()) {
+          if (channel.write(buffer) == 0) {
+            await(SelectionKey.OP_WRITE, readTimeoutMillis);
+          }
+        }
+      }
+    };
+
+    private TimedChannel(SocketChannel channel, Selector selector, int readTimeoutMillis) {
+      this.channel = channel;
+      this.selector = selector;
+      this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Connect the channel within the connect timeout.
+     */
+    static TimedChannel connect(SocketChannel channel, SocketAddress address, int connectTimeoutMillis, int readTimeoutMillis) throws IOException {
+      TimedChannel timed;
+      try {
+        timed = new TimedChannel(channel, Selector.open(), readTimeoutMillis);
+      } catch (IOException e) {
+        channel.close();
+        throw e;
+      }
+      try {
+        channel.configureBlocking(false);
+        if (!channel.connect(address)) {
+          while (!channel.finishConnect()) {
+            timed.await(SelectionKey.OP_CONNECT, connectTimeoutMillis);
+          }
+        }
+        return timed;
+      } catch (IOException e) {
+        timed.close();
+        throw e;
+      }
+    }
+
+    private void await(int operation, int timeoutMillis) throws IOException {
+      try {
+        channel.register(selector, operation);
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (selector.select(timeoutMillis == 0 ? 0 : Math.max(1, (deadline - System.nanoTime()) / 1_000_000)) == 0) {
+          if (!selector.isOpen() || !channel.isOpen()) {
+            throw new ClosedChannelException();
+          }
+          if (timeoutMillis > 0 && System.nanoTime() >= deadline) {
+            throw new SocketTimeoutException("Docker Engine API did not respond within " + timeoutMillis + "ms");
+          }
+        }
+        selector.selectedKeys().clear();
+      } catch (ClosedSelectorException e) {
+        throw new ClosedChannelException();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        selector.close();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+
+  private static final class Connection implements Closeable {
+
+    private final AutoCloseable resource;
+    private final InputStream in;
+    private final OutputStream out;
+
+    Connection(AutoCloseable resource, InputStream in, OutputStream out) {
+      this.resource = resource;
+      this.in = in;
+      this.out = out;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        resource.close();
+      } catch (IOException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IOException(e);
+      }
+    }
+  }
+
+  /**
+   * HTTP response with the body fully read.
+   */
+  static final class Response {
+
+    final int status;
+    final byte[] body;
+
+    Response(int status, byte[] body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    String text() {
+      return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Return the message from the JSON error body.
+     */
+    String errorMessage() {
+      String text = text().trim();
+      try {
+        String message = Json.string(Json.parseObject(text), "message");
+        if (message != null) {
+          return message;
+        }
+      } catch (IllegalArgumentException e) {
+        // not json, use the body
+      }
+      return "status:" + status + " " + text;
+    }
+
+    static Response read(InputStream in) throws IOException {
+      Head head = Head.read(in);
+      return new Response(head.status, head.body(in).readAllBytes());
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+      StringBuilder sb = new StringBuilder();
+      int ch;
+      while ((ch = in.read()) != -1) {
+        if (ch == '\n') {
+          int len = sb.length();
+          if (len > 0 && sb.charAt(len - 1) == '\r') {
+            sb.setLength(len - 1);
+          }
+          return sb.toString();
+        }
+        sb.append((char) ch);
+      }
+      return sb.length() == 0 ? null : sb.toString();
+    }
+  }
+
+  /**
+   * HTTP response status and headers with the body not yet read.
+   */
+  static final class Head {
+
+    final int status;
+    final long contentLength;
+    final boolean chunked;
+
+    private Head(int status, long contentLength, boolean chunked) {
+      this.status = status;
+      this.contentLength = contentLength;
+      this.chunked = chunked;
+    }
+
+    static Head read(InputStream in) throws IOException {
+      String statusLine = Response.readLine(in);
+      if (statusLine == null || !statusLine.startsWith("HTTP/")) {
+        throw new IOException("Invalid HTTP response [" + statusLine + "]");
+      }
+      int status = Integer.parseInt(statusLine.split(" ")[1]);
+      long contentLength = -1;
+      boolean chunked = false;
+      String header;
+      while ((header = Response.readLine(in)) != null && !header.isEmpty()) {
+        int colon = header.indexOf(':');
+        if (colon > 0) {
+          String name = header.substring(0, colon).trim().toLowerCase(Locale.ENGLISH);
+          String value = header.substring(colon + 1).trim();
+          if ("content-length".equals(name)) {
+            contentLength = Long.parseLong(value);
+          } else if ("transfer-encoding".equals(name) && value.toLowerCase(Locale.ENGLISH).contains("chunked")) {
+            chunked = true;
+          }
+        }
+      }
+      return new Head(status, contentLength, chunked);
+    }
+
+    /**
+     * Return the body as a stream (that is read as the content arrives).
+     */
+    InputStream body(InputStream in) {
+      if (chunked) {
+        return new ChunkedInputStream(in);
+      } else if (contentLength >= 0) {
+        return new LimitedInputStream(in, contentLength);
+      }
+      return in;
+    }
+  }
+
+  /**
+   * Stream of a chunked transfer encoded body.
+   */
+  private static final class ChunkedInputStream extends InputStream {
+
+    private final InputStream in;
+    private int remaining;
+    private boolean done;
+
+    ChunkedInputStream(InputStream in) {
+      this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (remaining == 0 && !nextChunk()) {
+        return -1;
+      }
+      int count = in.read(b, off, Math.min(len, remaining));
+      if (count == -1) {
+        throw new IOException("Unexpected end of HTTP response body");
+      }
+      remaining -= count;
+      if (remaining == 0) {
+        // CRLF after each chunk
+        Response.readLine(in);
+      }
+      return count;
+    }
+
+    private boolean nextChunk() throws IOException {
+      while (!done) {
+        String sizeLine = Response.readLine(in);
+        if (sizeLine == null) {
+          done = true;
+          break;
+        }
+        int semi = sizeLine.indexOf(';');
+        String hex = (semi > -1 ? sizeLine.substring(0, semi) : sizeLine).trim();
+        if (!hex.isEmpty()) {
+          remaining = Integer.parseInt(hex, 16);
+          if (remaining == 0) {
+            done = true;
+          }
+          return !done;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Stream of a body with a known content length.
+   */
+  private static final class LimitedInputStream extends InputStream {
+
+    private final InputStream in;
+    private long remaining;
+
+    LimitedInputStream(InputStream in, long length) {
+      this.in = in;
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int count = in.read(b, off, (int) Math.min(len, remaining));
+      if (count == -1) {
+        throw new IOException("Unexpected end of HTTP response body");
+      }
+      remaining -= count;
+      return count;
+    }
+  }
+}
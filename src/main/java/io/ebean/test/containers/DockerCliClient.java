@@ -0,0 +1,289 @@
+package io.ebean.test.containers;
+
+import io.ebean.test.containers.process.ProcessHandler;
+import io.ebean.test.containers.process.ProcessResult;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * DockerClient that forks the docker CLI for each command.
+ */
+final class DockerCliClient implements DockerClient {
+
+  private static final Duration QUERY_TIMEOUT = Duration.ofSeconds(Long.getLong("ebean.test.containers.queryTimeoutSeconds", 60));
+
+  private final String docker;
+
+  DockerCliClient(String docker) {
+    this.docker = docker;
+  }
+
+  @Override
+  public String toString() {
+    return "cli:" + docker;
+  }
+
+  @Override
+  public List<String> running() {
+    ProcessResult result = query(docker, "ps", "--format", "{{.Names}}");
+    return result.getOutLines();
+  }
+
+  @Override
+  public List<String> registered() {
+    ProcessResult result = query(docker, "ps", "-a", "--format", "{{.Names}}");
+    return result.getOutLines();
+  }
+
+  @Override
+  public ContainerStateSnapshot snapshot() {
+    ProcessResult result = query(docker, "ps", "-a", "--no-trunc", "--format", "{{json .}}");
+    return ContainerStateSnapshot.parseCli(result.getOutLines());
+  }
+
+  @Override
+  public List<String> ports(String containerName) {
+    ProcessResult result = query(docker, "port", containerName);
+    return result.getOutLines();
+  }
+
+  @Override
+  public String registeredPortMatch(String containerName, int matchPort) {
+    ProcessResult result = query(docker, "container", "inspect", containerName, "--format={{json .HostConfig.PortBindings}}");
+    List<String> outLines = result.getOutLines();
+    for (String outLine : outLines) {
+      if (outLine.startsWith("map")) {
+        if (outLine.contains("\"HostPort\":\"" + matchPort + "\"}")) {
+          // port matching all good
+          return null;
+        } else {
+          // mismatch - return all the PortBindings to include in exception message
+          return outLine;
+        }
+      }
+    }
+    // container doesn't exist
+    return null;
+  }
+
+  @Override
+  public List<String> logs(String containerName, int tail) {
+    ProcessResult result;
+    if (tail > 0) {
+      result = ProcessHandler.command(docker, "logs", "--tail", Integer.toString(tail), containerName);
+    } else {
+      result = ProcessHandler.command(docker, "logs", containerName);
+    }
+    return result.getOutLines();
+  }
+
+  @Override
+  public List<String> logsWithMatch(String containerName, String match, String clearMatch) {
+    ProcessResult result = ProcessHandler.matchCommand(match, clearMatch, docker, "logs", containerName);
+    return result.getOutLines();
+  }
+
+  @Override
+  public boolean logsContain(String containerName, String match) {
+    return ProcessHandler.processContains(new ProcessBuilder(docker, "logs", containerName), match);
+  }
+
+  @Override
+  public Closeable followLogs(String containerName, long since, Consumer<String> lines, Runnable onEnd) {
+    List<String> cmd = new ArrayList<>();
+    cmd.add(docker);
+    cmd.add("logs");
+    cmd.add("-f");
+    if (since > 0) {
+      cmd.add("--since");
+      cmd.add(Long.toString(since));
+    }
+    cmd.add(containerName);
+    return follow(cmd, "log-follow-" + containerName, lines, onEnd);
+  }
+
+  @Override
+  public Closeable followEvents(String containerName, Consumer<String> actions, Runnable onEnd) {
+    List<String> cmd = List.of(docker, "events", "--filter", "container=" + containerName, "--format", "{{.Action}}");
+    return follow(cmd, "event-follow-" + containerName, actions, onEnd);
+  }
+
+  private static Closeable follow(List<String> cmd, String threadName, Consumer<String> lines, Runnable onEnd) {
+    Process process;
+    try {
+      process = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    Thread thread = new Thread(() -> {
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          lines.accept(line);
+        }
+      } catch (IOException e) {
+        // process destroyed
+      } finally {
+        destroy(process);
+        onEnd.run();
+      }
+    }, threadName);
+    thread.setDaemon(true);
+    thread.start();
+    return () -> destroy(process);
+  }
+
+  @Override
+  public String healthStatus(String containerName) {
+    try {
+      ProcessResult result = query(docker, "container", "inspect", containerName, "--format={{if .State.Health}}{{.State.Health.Status}}{{end}}");
+      List<String> lines = result.getOutLines();
+      String status = lines.isEmpty() ? "" : lines.get(0).trim();
+      return status.isEmpty() ? null : status;
+    } catch (CommandException e) {
+      return null;
+    }
+  }
+
+  private static void destroy(Process process) {
+    process.descendants().forEach(ProcessHandle::destroy);
+    process.destroy();
+  }
+
+  @Override
+  public void start(String containerName) {
+    ProcessHandler.command(docker, "start", containerName);
+  }
+
+  @Override
+  public void stop(List<String> containerNames, int timeSeconds) {
+    if (timeSeconds < 0) {
+      dockerCmd("stop", containerNames);
+    } else {
+      var args = new ArrayList<String>();
+      args.add("--time");
+      args.add(Integer.toString(timeSeconds));
+      args.addAll(containerNames);
+      dockerCmd("stop", args);
+    }
+  }
+
+  @Override
+  public void remove(List<String> containerNames) {
+    var args = new ArrayList<String>();
+    args.add("-f");
+    args.add("--volumes");
+    args.addAll(containerNames);
+    dockerCmd("rm", args);
+  }
+
+  @Override
+  public boolean rename(String containerName, String newName) {
+    try {
+      query(docker, "rename", containerName, newName);
+      return true;
+    } catch (CommandException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public Map<String, String> runningWithLabel(String label, String valueLabel) {
+    ProcessResult result = query(docker, "ps", "--filter", "label=" + label,
+      "--format", "{{.Names}}\t{{.Label \"" + valueLabel + "\"}}");
+    Map<String, String> containers = new LinkedHashMap<>();
+    for (String line : result.getOutLines()) {
+      String[] cols = line.split("\t", 2);
+      if (!cols[0].isBlank()) {
+        containers.put(cols[0].trim(), cols.length == 2 ? cols[1].trim() : "");
+      }
+    }
+    return containers;
+  }
+
+  @Override
+  public boolean imageExists(String image) {
+    try {
+      query(docker, "image", "inspect", "--format", "{{.Id}}", image);
+      return true;
+    } catch (CommandException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public Set<String> images() {
+    ProcessResult result = query(docker, "image", "ls", "--format", "{{.Repository}}:{{.Tag}}");
+    Set<String> images = new LinkedHashSet<>();
+    for (String line : result.getOutLines()) {
+      String image = line.trim();
+      if (!image.isEmpty() && !image.contains("<none>")) {
+        images.add(image);
+      }
+    }
+    return images;
+  }
+
+  @Override
+  public long pull(String image) {
+    // no deadline as pulling a large image on a slow network can take minutes
+    ProcessHandler.command(docker, "pull", "-q", image);
+    ProcessResult result = query(docker, "image", "inspect", "--format", "{{.Size}}", image);
+    List<String> lines = result.getOutLines();
+    try {
+      return lines.isEmpty() ? 0 : Long.parseLong(lines.get(0).trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  @Override
+  public void commit(String containerName, String image, String label, String labelValue) {
+    ProcessHandler.command(docker, "commit", "--change", "LABEL " + label + "=" + labelValue, containerName, image);
+  }
+
+  @Override
+  public List<ContainerSnapshots.Snapshot> snapshotImages(String label) {
+    ProcessResult result = query(docker, "image", "ls", "--filter", "label=" + label,
+      "--format", "{{.Repository}}:{{.Tag}}\t{{.CreatedAt}}\t{{.Size}}");
+    List<ContainerSnapshots.Snapshot> images = new ArrayList<>();
+    for (String line : result.getOutLines()) {
+      String[] cols = line.split("\t");
+      if (cols.length == 3) {
+        images.add(new ContainerSnapshots.Snapshot(cols[0], cols[1], cols[2]));
+      }
+    }
+    return images;
+  }
+
+  @Override
+  public void removeImage(String image) {
+    ProcessHandler.command(docker, "rmi", image);
+  }
+
+  /**
+   * Run a command that queries docker with a short deadline such that a hung docker does not block.
+   */
+  private static ProcessResult query(String... command) {
+    return ProcessHandler.process(new ProcessBuilder(command), QUERY_TIMEOUT);
+  }
+
+  private void dockerCmd(String first, List<String> args) {
+    final List<String> cmd = new ArrayList<>();
+    cmd.add(docker);
+    cmd.add(first);
+    cmd.addAll(args);
+    ProcessHandler.command(cmd);
+  }
+}
@@ -0,0 +1,183 @@
+package io.ebean.test.containers;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Client used by {@link Commands} to query and control docker containers.
+ * <p>
+ * The default client talks to the Docker Engine API over the docker socket
+ * (or DOCKER_HOST) when that is available and otherwise falls back to forking
+ * the docker CLI.
+ * <p>
+ * The client can be explicitly chosen via system property
+ * <code>ebean.test.containers.dockerClient</code> with values of
+ * <code>auto</code> (the default), <code>api</code> or <code>cli</code>.
+ */
+public interface DockerClient {
+
+  /**
+   * Return the default client for the given docker command.
+   */
+  static DockerClient of(String docker) {
+    DockerClient apiClient = DockerApiClient.defaultClient(docker);
+    return apiClient != null ? apiClient : new DockerCliClient(docker);
+  }
+
+  /**
+   * Return the client that forks the docker CLI for each command.
+   */
+  static DockerClient cli(String docker) {
+    return new DockerCliClient(docker);
+  }
+
+  /**
+   * Return the names of the containers currently running.
+   */
+  List<String> running();
+
+  /**
+   * Return the names of all the containers (running or not).
+   */
+  List<String> registered();
+
+  /**
+   * Return the state of all the containers from a single listing.
+   */
+  ContainerStateSnapshot snapshot();
+
+  /**
+   * Return the mapped ports of the container in the <code>docker port</code> output
+   * format. For example, <code>5432/tcp -> 0.0.0.0:6432</code>.
+   */
+  List<String> ports(String containerName);
+
+  /**
+   * Return null if the container port bindings match the given port or the
+   * container does not exist, otherwise return the existing port bindings.
+   */
+  String registeredPortMatch(String containerName, int matchPort);
+
+  /**
+   * Return the logs of the container.
+   *
+   * @param containerName The container
+   * @param tail          The number of lines to tail with 0 meaning all lines
+   */
+  List<String> logs(String containerName, int tail);
+
+  /**
+   * Return the log lines that contain the match text with lines prior
+   * to the last clearMatch line being discarded.
+   */
+  List<String> logsWithMatch(String containerName, String match, String clearMatch);
+
+  /**
+   * Return true if the logs of the container contain the match text.
+   * <p>
+   * The logs are scanned as bytes for the match and not decoded into lines.
+   */
+  boolean logsContain(String containerName, String match);
+
+  /**
+   * Follow the logs of the container passing each line to the consumer on a background thread.
+   * <p>
+   * Following continues until the returned handle is closed or the container stops at which
+   * point onEnd is run.
+   *
+   * @param containerName The container
+   * @param since         Unix timestamp (seconds) to follow the logs from with 0 meaning all logs
+   * @param lines         Consumer of each log line
+   * @param onEnd         Run when the log stream ends
+   * @return The handle used to stop following the logs
+   */
+  Closeable followLogs(String containerName, long since, Consumer<String> lines, Runnable onEnd);
+
+  /**
+   * Follow the events of the container passing each action to the consumer on a background thread.
+   * <p>
+   * Actions are for example <code>start</code>, <code>health_status: healthy</code> and <code>die</code>.
+   * Following continues until the returned handle is closed or the event stream ends at which point
+   * onEnd is run.
+   *
+   * @param containerName The container
+   * @param actions       Consumer of the action of each event
+   * @param onEnd         Run when the event stream ends
+   * @return The handle used to stop following the events
+   */
+  Closeable followEvents(String containerName, Consumer<String> actions, Runnable onEnd);
+
+  /**
+   * Return the health status of the container (starting, healthy or unhealthy) or null when
+   * the container has no health check or does not exist.
+   */
+  String healthStatus(String containerName);
+
+  /**
+   * Start the container.
+   */
+  void start(String containerName);
+
+  /**
+   * Stop the containers.
+   */
+  default void stop(List<String> containerNames) {
+    stop(containerNames, -1);
+  }
+
+  /**
+   * Stop the containers with the given grace period in seconds (-1 for the docker default).
+   */
+  void stop(List<String> containerNames, int timeSeconds);
+
+  /**
+   * Remove the containers including their volumes.
+   */
+  void remove(List<String> containerNames);
+
+  /**
+   * Rename the container returning false when the container does not exist or the new name is in use.
+   */
+  boolean rename(String containerName, String newName);
+
+  /**
+   * Return the running containers that have the label (<code>name=value</code>) mapped
+   * to the value of their valueLabel.
+   */
+  Map<String, String> runningWithLabel(String label, String valueLabel);
+
+  /**
+   * Return true if the image exists locally.
+   */
+  boolean imageExists(String image);
+
+  /**
+   * Return the repository:tag of all the local images.
+   */
+  Set<String> images();
+
+  /**
+   * Pull the image returning the number of bytes pulled.
+   * <p>
+   * When the number of bytes downloaded is not reported this is the size of the image.
+   */
+  long pull(String image);
+
+  /**
+   * Commit the container as the given image (repository:tag) adding the label.
+   */
+  void commit(String containerName, String image, String label, String labelValue);
+
+  /**
+   * Return the local images that have the given label.
+   */
+  List<ContainerSnapshots.Snapshot> snapshotImages(String label);
+
+  /**
+   * Remove the image.
+   */
+  void removeImage(String image);
+}
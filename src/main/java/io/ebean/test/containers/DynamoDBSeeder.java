@@ -0,0 +1,712 @@
+package io.ebean.test.containers;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.LocalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Seed DynamoDB tables with fixture data from JSON lines or CSV files.
+ * <p>
+ * The files are streamed (not loaded into memory) with the items written using
+ * 25 item <code>BatchWriteItem</code> requests on a bounded number of concurrent async
+ * requests. Unprocessed items are retried with exponential backoff.
+ *
+ * <pre>{@code
+ *
+ *     DynamoDBSeeder seeder = DynamoDBSeeder.of(container.sdk2());
+ *
+ *     // create the table if it does not exist (schema in CreateTable JSON format)
+ *     seeder.createTable(Paths.get("src/test/resources/dynamodb/customer-table.json"));
+ *
+ *     long count = seeder.seedJsonLines("customer", Paths.get("src/test/resources/dynamodb/customer.jsonl"));
+ *
+ * }</pre>
+ *
+ * <h3>JSON lines</h3>
+ * <p>
+ * Each line is a JSON object. By default plain JSON is converted (string, number, boolean,
+ * null, array and object) and with {@link #typedJson(boolean)} each value is instead in the
+ * DynamoDB JSON format like <code>{"id":{"S":"1"},"age":{"N":"42"}}</code>.
+ *
+ * <h3>CSV</h3>
+ * <p>
+ * The first row is the header of attribute names which can be suffixed with the type, for
+ * example <code>id,name,age:N,active:BOOL,tags:SS</code> (the default type being S). The
+ * values of SS and NS are separated by <code>|</code>. Empty values are omitted from the item.
+ */
+public final class DynamoDBSeeder {
+
+  private static final System.Logger log = Commands.log;
+
+  /**
+   * The maximum number of items in a BatchWriteItem request.
+   */
+  private static final int BATCH_SIZE = 25;
+  private static final long BASE_BACKOFF_MILLIS = 25;
+  private static final long MAX_BACKOFF_MILLIS = 2_000;
+  private static final long TABLE_TIMEOUT_SECONDS = 60;
+
+  private final DynamoDbAsyncClient client;
+  private int concurrency = 8;
+  private int maxRetries = 10;
+  private boolean typedJson;
+
+  private DynamoDBSeeder(DynamoDbAsyncClient client) {
+    this.client = client;
+  }
+
+  /**
+   * Create a seeder using the async DynamoDB client of the SDK helper.
+   */
+  public static DynamoDBSeeder of(AwsSDKv2 sdk) {
+    return new DynamoDBSeeder(sdk.dynamoDBAsyncClient());
+  }
+
+  /**
+   * Create a seeder using the given async DynamoDB client.
+   */
+  public static DynamoDBSeeder of(DynamoDbAsyncClient client) {
+    return new DynamoDBSeeder(client);
+  }
+
+  /**
+   * Set the maximum number of concurrent BatchWriteItem requests. Defaults to 8.
+   */
+  public DynamoDBSeeder concurrency(int concurrency) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be at least 1 but was " + concurrency);
+    }
+    this.concurrency = concurrency;
+    return this;
+  }
+
+  /**
+   * Set the maximum number of times unprocessed items of a batch are retried. Defaults to 10.
+   */
+  public DynamoDBSeeder maxRetries(int maxRetries) {
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  /**
+   * Set to true when JSON lines are in the DynamoDB JSON format (values like <code>{"S":"x"}</code>).
+   */
+  public DynamoDBSeeder typedJson(boolean typedJson) {
+    this.typedJson = typedJson;
+    return this;
+  }
+
+  /**
+   * Create the table with a string hash key if it does not exist.
+   *
+   * @return true if the table was created, false if it already exists
+   */
+  public boolean createTable(String tableName, String hashKey) {
+    return createTable(tableRequest(tableName, hashKey, null));
+  }
+
+  /**
+   * Create the table with a string hash key and string range key if it does not exist.
+   *
+   * @return true if the table was created, false if it already exists
+   */
+  public boolean createTable(String tableName, String hashKey, String rangeKey) {
+    return createTable(tableRequest(tableName, hashKey, rangeKey));
+  }
+
+  /**
+   * Create the table if it does not exist given the schema in the CreateTable JSON format
+   * (as used by <code>aws dynamodb create-table --cli-input-json</code>).
+   * <p>
+   * The supported properties are TableName, KeySchema, AttributeDefinitions, BillingMode,
+   * ProvisionedThroughput, GlobalSecondaryIndexes and LocalSecondaryIndexes. The BillingMode
+   * defaults to PAY_PER_REQUEST when ProvisionedThroughput is not specified.
+   *
+   * @return true if the table was created, false if it already exists
+   */
+  public boolean createTable(Path schema) {
+    try {
+      return createTable(tableRequest(Json.parseObject(Files.readString(schema, StandardCharsets.UTF_8))));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read table schema " + schema, e);
+    }
+  }
+
+  /**
+   * Create the table if it does not exist waiting for it to become active.
+   *
+   * @return true if the table was created, false if it already exists
+   */
+  public boolean createTable(CreateTableRequest request) {
+    String tableName = request.tableName();
+    CompletableFuture<Boolean> future = client.describeTable(b -> b.tableName(tableName))
+      .thenApply(response -> false)
+      .exceptionally(e -> {
+        if (unwrap(e) instanceof ResourceNotFoundException) {
+          return true;
+        }
+        throw new CompletionException(unwrap(e));
+      })
+      .thenCompose(create -> !create ? CompletableFuture.completedFuture(false) : client.createTable(request)
+        .thenCompose(r -> client.waiter().waitUntilTableExists(b -> b.tableName(tableName)))
+        .thenApply(r -> true));
+    boolean created = await(future, "creating table " + tableName);
+    log.log(Level.DEBUG, created ? "created table {0}" : "table {0} already exists", tableName);
+    return created;
+  }
+
+  /**
+   * Seed the table from the JSON lines file returning the number of items written.
+   */
+  public long seedJsonLines(String tableName, Path file) {
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return seedJsonLines(tableName, reader);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read " + file, e);
+    }
+  }
+
+  /**
+   * Seed the table from JSON lines returning the number of items written.
+   */
+  public long seedJsonLines(String tableName, Reader reader) {
+    BufferedReader lines = buffered(reader);
+    Writer writer = new Writer(tableName);
+    try {
+      String line;
+      int lineNumber = 0;
+      while ((line = lines.readLine()) != null) {
+        lineNumber++;
+        if (!line.isBlank()) {
+          writer.add(jsonItem(line, lineNumber));
+        }
+      }
+    } catch (IOException e) {
+      writer.abort();
+      throw new UncheckedIOException(e);
+    } catch (RuntimeException e) {
+      writer.abort();
+      throw e;
+    }
+    return writer.finish();
+  }
+
+  /**
+   * Seed the table from the CSV file returning the number of items written.
+   */
+  public long seedCsv(String tableName, Path file) {
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return seedCsv(tableName, reader);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read " + file, e);
+    }
+  }
+
+  /**
+   * Seed the table from CSV content (with header row) returning the number of items written.
+   */
+  public long seedCsv(String tableName, Reader reader) {
+    BufferedReader lines = buffered(reader);
+    Writer writer = new Writer(tableName);
+    try {
+      List<String> header = csvRecord(lines);
+      if (header == null) {
+        return 0;
+      }
+      String[] names = new String[header.size()];
+      String[] types = new String[header.size()];
+      for (int i = 0; i < names.length; i++) {
+        String column = header.get(i).trim();
+        int colon = column.lastIndexOf(':');
+        names[i] = colon > 0 ? column.substring(0, colon) : column;
+        types[i] = colon > 0 ? column.substring(colon + 1).toUpperCase() : "S";
+      }
+      List<String> record;
+      while ((record = csvRecord(lines)) != null) {
+        if (record.size() == 1 && record.get(0).isEmpty()) {
+          continue;
+        }
+        Map<String, AttributeValue> item = new LinkedHashMap<>();
+        for (int i = 0; i < names.length && i < record.size(); i++) {
+          String value = record.get(i);
+          if (!value.isEmpty()) {
+            item.put(names[i], csvValue(types[i], value));
+          }
+        }
+        writer.add(item);
+      }
+    } catch (IOException e) {
+      writer.abort();
+      throw new UncheckedIOException(e);
+    } catch (RuntimeException e) {
+      writer.abort();
+      throw e;
+    }
+    return writer.finish();
+  }
+
+  private static BufferedReader buffered(Reader reader) {
+    return reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+  }
+
+  /**
+   * Writes the items in batches with bounded concurrency.
+   */
+  private final class Writer {
+
+    private final String tableName;
+    private final Semaphore permits = new Semaphore(concurrency);
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private List<WriteRequest> batch = new ArrayList<>(BATCH_SIZE);
+
+    Writer(String tableName) {
+      this.tableName = tableName;
+    }
+
+    void add(Map<String, AttributeValue> item) {
+      batch.add(WriteRequest.builder().putRequest(b -> b.item(item)).build());
+      if (batch.size() == BATCH_SIZE) {
+        flush();
+      }
+    }
+
+    private void flush() {
+      if (batch.isEmpty()) {
+        return;
+      }
+      checkError();
+      acquire(1);
+      List<WriteRequest> requests = batch;
+      batch = new ArrayList<>(BATCH_SIZE);
+      CompletableFuture<Void> future;
+      try {
+        future = write(requests, 0);
+      } catch (RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+      future.whenComplete((v, e) -> {
+        if (e != null) {
+          error.compareAndSet(null, unwrap(e));
+        }
+        permits.release();
+      });
+    }
+
+    private CompletableFuture<Void> write(List<WriteRequest> requests, int attempt) {
+      return client.batchWriteItem(b -> b.requestItems(Map.of(tableName, requests)))
+        .thenCompose(response -> {
+          List<WriteRequest> unprocessed = unprocessed(response);
+          written.addAndGet(requests.size() - unprocessed.size());
+          if (unprocessed.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+          }
+          if (attempt >= maxRetries) {
+            return CompletableFuture.failedFuture(new IllegalStateException(unprocessed.size()
+              + " items remain unprocessed after " + attempt + " retries writing to " + tableName));
+          }
+          long delay = backoff(attempt);
+          return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+            .thenCompose(v -> write(unprocessed, attempt + 1));
+        });
+    }
+
+    private List<WriteRequest> unprocessed(BatchWriteItemResponse response) {
+      List<WriteRequest> unprocessed = response.hasUnprocessedItems() ? response.unprocessedItems().get(tableName) : null;
+      return unprocessed == null ? List.of() : unprocessed;
+    }
+
+    /**
+     * Write the last partial batch and wait for all the requests to complete.
+     */
+    long finish() {
+      flush();
+      acquire(concurrency);
+      permits.release(concurrency);
+      checkError();
+      log.log(Level.DEBUG, "seeded {0} items into {1}", written.get(), tableName);
+      return written.get();
+    }
+
+    /**
+     * Wait for the in flight requests after a failure reading the input.
+     */
+    void abort() {
+      acquire(concurrency);
+      permits.release(concurrency);
+    }
+
+    private void acquire(int count) {
+      try {
+        permits.acquire(count);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted seeding " + tableName, e);
+      }
+    }
+
+    private void checkError() {
+      Throwable e = error.get();
+      if (e != null) {
+        throw new IllegalStateException("Failed seeding " + tableName + " - " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Return the backoff with jitter for the given retry attempt.
+   */
+  static long backoff(int attempt) {
+    long max = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt, 16));
+    return ThreadLocalRandom.current().nextLong(max / 2, max + 1);
+  }
+
+  private static Throwable unwrap(Throwable e) {
+    while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+      e = e.getCause();
+    }
+    return e;
+  }
+
+  private static <T> T await(CompletableFuture<T> future, String description) {
+    try {
+      return future.get(TABLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted " + description, e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed " + description, unwrap(e));
+    } catch (TimeoutException e) {
+      throw new IllegalStateException("Timed out " + description, e);
+    }
+  }
+
+  private Map<String, AttributeValue> jsonItem(String line, int lineNumber) {
+    Map<String, Object> json;
+    try {
+      json = Json.parseObject(line);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid JSON at line " + lineNumber + " - " + e.getMessage(), e);
+    }
+    Map<String, AttributeValue> item = new LinkedHashMap<>();
+    for (Map.Entry<String, Object> entry : json.entrySet()) {
+      item.put(entry.getKey(), typedJson ? typedValue(entry.getValue()) : value(entry.getValue()));
+    }
+    return item;
+  }
+
+  /**
+   * Convert a plain JSON value to an AttributeValue.
+   */
+  @SuppressWarnings("unchecked")
+  static AttributeValue value(Object value) {
+    if (value == null) {
+      return AttributeValue.builder().nul(true).build();
+    }
+    if (value instanceof String) {
+      return AttributeValue.builder().s((String) value).build();
+    }
+    if (value instanceof Number) {
+      return AttributeValue.builder().n(value.toString()).build();
+    }
+    if (value instanceof Boolean) {
+      return AttributeValue.builder().bool((Boolean) value).build();
+    }
+    if (value instanceof List) {
+      List<AttributeValue> list = new ArrayList<>();
+      for (Object element : (List<Object>) value) {
+        list.add(value(element));
+      }
+      return AttributeValue.builder().l(list).build();
+    }
+    Map<String, AttributeValue> map = new LinkedHashMap<>();
+    for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+      map.put(entry.getKey(), value(entry.getValue()));
+    }
+    return AttributeValue.builder().m(map).build();
+  }
+
+  /**
+   * Convert a DynamoDB JSON value (like <code>{"S":"x"}</code>) to an AttributeValue.
+   */
+  @SuppressWarnings("unchecked")
+  static AttributeValue typedValue(Object value) {
+    if (!(value instanceof Map) || ((Map<String, Object>) value).size() != 1) {
+      throw new IllegalArgumentException("Expected DynamoDB JSON value like {\"S\":\"x\"} but got " + value);
+    }
+    Map.Entry<String, Object> entry = ((Map<String, Object>) value).entrySet().iterator().next();
+    Object content = entry.getValue();
+    switch (entry.getKey()) {
+      case "S":
+        return AttributeValue.builder().s(content.toString()).build();
+      case "N":
+        return AttributeValue.builder().n(content.toString()).build();
+      case "BOOL":
+        return AttributeValue.builder().bool(Boolean.valueOf(content.toString())).build();
+      case "NULL":
+        return AttributeValue.builder().nul(true).build();
+      case "B":
+        return AttributeValue.builder().b(SdkBytes.fromByteArray(Base64.getDecoder().decode(content.toString()))).build();
+      case "SS":
+        return AttributeValue.builder().ss(strings(content)).build();
+      case "NS":
+        return AttributeValue.builder().ns(strings(content)).build();
+      case "BS": {
+        List<SdkBytes> bytes = new ArrayList<>();
+        for (String element : strings(content)) {
+          bytes.add(SdkBytes.fromByteArray(Base64.getDecoder().decode(element)));
+        }
+        return AttributeValue.builder().bs(bytes).build();
+      }
+      case "L": {
+        List<AttributeValue> list = new ArrayList<>();
+        for (Object element : (List<Object>) content) {
+          list.add(typedValue(element));
+        }
+        return AttributeValue.builder().l(list).build();
+      }
+      case "M": {
+        Map<String, AttributeValue> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> nested : ((Map<String, Object>) content).entrySet()) {
+          map.put(nested.getKey(), typedValue(nested.getValue()));
+        }
+        return AttributeValue.builder().m(map).build();
+      }
+      default:
+        throw new IllegalArgumentException("Unknown DynamoDB JSON type " + entry.getKey());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String> strings(Object content) {
+    List<String> strings = new ArrayList<>();
+    for (Object element : (List<Object>) content) {
+      strings.add(element.toString());
+    }
+    return strings;
+  }
+
+  private static AttributeValue csvValue(String type, String value) {
+    switch (type) {
+      case "N":
+        return AttributeValue.builder().n(value.trim()).build();
+      case "BOOL":
+        return AttributeValue.builder().bool(Boolean.valueOf(value.trim())).build();
+      case "SS":
+        return AttributeValue.builder().ss(TrimSplit.split(value.replace('|', ','))).build();
+      case "NS":
+        return AttributeValue.builder().ns(TrimSplit.split(value.replace('|', ','))).build();
+      default:
+        return AttributeValue.builder().s(value).build();
+    }
+  }
+
+  /**
+   * Read the next CSV record (which can span lines with quoted values) or null at the end.
+   */
+  static List<String> csvRecord(BufferedReader reader) throws IOException {
+    String line = reader.readLine();
+    if (line == null) {
+      return null;
+    }
+    List<String> values = new ArrayList<>();
+    StringBuilder value = new StringBuilder();
+    boolean quoted = false;
+    int i = 0;
+    while (true) {
+      if (i == line.length()) {
+        if (!quoted) {
+          break;
+        }
+        // quoted value continues on the next line
+        String next = reader.readLine();
+        if (next == null) {
+          throw new IllegalArgumentException("Unterminated quoted CSV value " + value);
+        }
+        value.append('\n');
+        line = next;
+        i = 0;
+        continue;
+      }
+      char ch = line.charAt(i++);
+      if (quoted) {
+        if (ch != '"') {
+          value.append(ch);
+        } else if (i < line.length() && line.charAt(i) == '"') {
+          value.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (ch == '"') {
+        quoted = true;
+      } else if (ch == ',') {
+        values.add(value.toString());
+        value.setLength(0);
+      } else {
+        value.append(ch);
+      }
+    }
+    values.add(value.toString());
+    return values;
+  }
+
+  /**
+   * Return a pay per request CreateTableRequest with string hash key and optional string range key.
+   */
+  static CreateTableRequest tableRequest(String tableName, String hashKey, String rangeKey) {
+    List<AttributeDefinition> attributes = new ArrayList<>();
+    List<KeySchemaElement> keys = new ArrayList<>();
+    attributes.add(AttributeDefinition.builder().attributeName(hashKey).attributeType(ScalarAttributeType.S).build());
+    keys.add(KeySchemaElement.builder().attributeName(hashKey).keyType(KeyType.HASH).build());
+    if (rangeKey != null) {
+      attributes.add(AttributeDefinition.builder().attributeName(rangeKey).attributeType(ScalarAttributeType.S).build());
+      keys.add(KeySchemaElement.builder().attributeName(rangeKey).keyType(KeyType.RANGE).build());
+    }
+    return CreateTableRequest.builder()
+      .tableName(tableName)
+      .attributeDefinitions(attributes)
+      .keySchema(keys)
+      .billingMode(BillingMode.PAY_PER_REQUEST)
+      .build();
+  }
+
+  /**
+   * Return the CreateTableRequest for the schema in CreateTable JSON format.
+   */
+  static CreateTableRequest tableRequest(Map<String, Object> schema) {
+    String tableName = Json.string(schema, "TableName");
+    if (tableName == null) {
+      throw new IllegalArgumentException("Table schema requires TableName");
+    }
+    List<AttributeDefinition> attributes = new ArrayList<>();
+    for (Map<String, Object> attribute : objects(schema, "AttributeDefinitions")) {
+      attributes.add(AttributeDefinition.builder()
+        .attributeName(Json.string(attribute, "AttributeName"))
+        .attributeType(Json.string(attribute, "AttributeType"))
+        .build());
+    }
+    ProvisionedThroughput throughput = throughput(schema);
+    String billingMode = Json.string(schema, "BillingMode");
+    if (billingMode == null) {
+      billingMode = throughput == null ? BillingMode.PAY_PER_REQUEST.toString() : BillingMode.PROVISIONED.toString();
+    }
+    List<GlobalSecondaryIndex> globalIndexes = new ArrayList<>();
+    for (Map<String, Object> index : objects(schema, "GlobalSecondaryIndexes")) {
+      globalIndexes.add(GlobalSecondaryIndex.builder()
+        .indexName(Json.string(index, "IndexName"))
+        .keySchema(keySchema(index))
+        .projection(projection(index))
+        .provisionedThroughput(throughput(index))
+        .build());
+    }
+    List<LocalSecondaryIndex> localIndexes = new ArrayList<>();
+    for (Map<String, Object> index : objects(schema, "LocalSecondaryIndexes")) {
+      localIndexes.add(LocalSecondaryIndex.builder()
+        .indexName(Json.string(index, "IndexName"))
+        .keySchema(keySchema(index))
+        .projection(projection(index))
+        .build());
+    }
+    CreateTableRequest.Builder builder = CreateTableRequest.builder()
+      .tableName(tableName)
+      .attributeDefinitions(attributes)
+      .keySchema(keySchema(schema))
+      .billingMode(billingMode)
+      .provisionedThroughput(throughput);
+    if (!globalIndexes.isEmpty()) {
+      builder.globalSecondaryIndexes(globalIndexes);
+    }
+    if (!localIndexes.isEmpty()) {
+      builder.localSecondaryIndexes(localIndexes);
+    }
+    return builder.build();
+  }
+
+  private static List<KeySchemaElement> keySchema(Map<String, Object> map) {
+    List<KeySchemaElement> keys = new ArrayList<>();
+    for (Map<String, Object> key : objects(map, "KeySchema")) {
+      keys.add(KeySchemaElement.builder()
+        .attributeName(Json.string(key, "AttributeName"))
+        .keyType(Json.string(key, "KeyType"))
+        .build());
+    }
+    if (keys.isEmpty()) {
+      throw new IllegalArgumentException("Table schema requires KeySchema");
+    }
+    return keys;
+  }
+
+  private static Projection projection(Map<String, Object> index) {
+    Map<String, Object> projection = Json.object(index, "Projection");
+    if (projection == null) {
+      return Projection.builder().projectionType("ALL").build();
+    }
+    Projection.Builder builder = Projection.builder().projectionType(Json.string(projection, "ProjectionType"));
+    List<Object> nonKey = Json.array(projection, "NonKeyAttributes");
+    if (nonKey != null) {
+      builder.nonKeyAttributes(strings(nonKey));
+    }
+    return builder.build();
+  }
+
+  private static ProvisionedThroughput throughput(Map<String, Object> map) {
+    Map<String, Object> throughput = Json.object(map, "ProvisionedThroughput");
+    if (throughput == null) {
+      return null;
+    }
+    return ProvisionedThroughput.builder()
+      .readCapacityUnits(Long.valueOf(Json.string(throughput, "ReadCapacityUnits")))
+      .writeCapacityUnits(Long.valueOf(Json.string(throughput, "WriteCapacityUnits")))
+      .build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> objects(Map<String, Object> map, String key) {
+    List<Object> array = Json.array(map, key);
+    List<Map<String, Object>> objects = new ArrayList<>();
+    if (array != null) {
+      for (Object element : array) {
+        objects.add((Map<String, Object>) element);
+      }
+    }
+    return objects;
+  }
+}
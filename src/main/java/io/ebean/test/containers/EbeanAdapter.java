@@ -11,11 +11,16 @@ final class EbeanAdapter implements EbeanSDK {
         this.dbConfig = dbConfig;
     }
 
+    @Override
+    public String jdbcUrl() {
+        return dbConfig.jdbcUrl();
+    }
+
     @Override
     public io.ebean.DatabaseBuilder builder() {
         return io.ebean.Database.builder()
                 .dataSourceBuilder(dataSourceBuilder())
-                .name(dbConfig.getDbName())
+                .name(dbConfig.getBaseDbName())
                 .ddlGenerate(true)
                 .ddlRun(true);
     }
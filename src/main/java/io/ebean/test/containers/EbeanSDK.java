@@ -16,11 +16,17 @@ package io.ebean.test.containers;
  */
 public interface EbeanSDK {
 
+    /**
+     * Return the JDBC url of the database (for the test worker when using shardMode).
+     */
+    String jdbcUrl();
+
     /**
      * Return an ebean Database builder for the underlying database (url, username, password).
      * <p>
      * This defaults to register with Ebean's io.ebean.DB as the default database.
-     * The name of the ebean database will be dbName set for the container.
+     * The name of the ebean database will be dbName set for the container (without
+     * any shard suffix).
      * <p>
      * This builder will have ddlGenerate set to true and ddlRun set to true. Alternatively,
      * set runMigrations(true) to run database migrations on startup.
@@ -1,6 +1,7 @@
 package io.ebean.test.containers;
 
 import java.util.Properties;
+import java.util.StringJoiner;
 
 final class ExtraAttributes implements ExtraBuilder {
 
@@ -40,6 +41,22 @@ final class ExtraAttributes implements ExtraBuilder {
     return seedSqlFile;
   }
 
+  /**
+   * Suffix the database name(s) and user with the shard suffix.
+   */
+  void shard(String suffix) {
+    if (dbName != null && !dbName.trim().isEmpty()) {
+      StringJoiner names = new StringJoiner(",");
+      for (String name : TrimSplit.split(dbName)) {
+        names.add(name + suffix);
+      }
+      dbName = names.toString();
+    }
+    if (username != null) {
+      username = username + suffix;
+    }
+  }
+
   void load(String platform, String prefix, Properties properties) {
     dbName = prop(platform, properties, prefix + ".dbName", prop(platform, properties, prefix, dbName));
     username = prop(platform, properties, prefix + ".username", username);
@@ -46,6 +46,7 @@ public class FlociContainer extends BaseContainer<FlociContainer> {
 
     private String services = "dynamodb";
     private String awsRegion = "ap-southeast-2";
+    private final AwsResources resources = new AwsResources();
     private String healthUri = "_floci/health";
 
     /**
@@ -62,6 +63,8 @@ public class FlociContainer extends BaseContainer<FlociContainer> {
       services = prop(properties, "services", services);
       awsRegion = prop(properties, "awsRegion", awsRegion);
       healthUri = prop(properties, "healthUri", healthUri);
+      resources.parse(prop(properties, "queues", null), prop(properties, "topics", null), prop(properties, "buckets", null),
+        prop(properties, "tables", null), prop(properties, "kmsKeys", null), prop(properties, "streams", null));
     }
 
     /**
@@ -82,6 +85,15 @@ public class FlociContainer extends BaseContainer<FlociContainer> {
       return self();
     }
 
+    /**
+     * Add AWS resources (queues, topics, buckets, tables etc) to create when the container
+     * has started. Resources that already exist are skipped.
+     */
+    public Builder resources(AwsResources resources) {
+      this.resources.addAll(resources);
+      return self();
+    }
+
     /**
      * Set the healthUri option - defaults to _floci/health.
      */
@@ -106,6 +118,8 @@ public class FlociContainer extends BaseContainer<FlociContainer> {
   private final List<String> serviceNames;
   private final String awsRegion;
   private final String healthUri;
+  private final AwsResources resources;
+  private final AwsSdks sdks = new AwsSdks();
 
   /**
    * Create the container using the given config.
@@ -114,6 +128,7 @@ public class FlociContainer extends BaseContainer<FlociContainer> {
     super(builder);
     this.awsRegion = builder.awsRegion;
     this.healthUri = builder.healthUri;
+    this.resources = builder.resources;
     this.serviceNames = TrimSplit.split(builder.services);
   }
 
@@ -134,7 +149,7 @@ public class FlociContainer extends BaseContainer<FlociContainer> {
    * DynamoDB client, SnsClient, SqsClient etc.
    */
   public AwsSDKv2 sdk2() {
-    return new LocalstackSdkV2(awsRegion, endpoint());
+    return sdks.sdk2(awsRegion, endpoint());
   }
 
   /**
@@ -191,6 +206,28 @@ public class FlociContainer extends BaseContainer<FlociContainer> {
     return false;
   }
 
+  @Override
+  protected boolean startWithConnectivity() {
+    if (!super.startWithConnectivity()) {
+      return false;
+    }
+    if (!resources.isEmpty()) {
+      phase("awsResources", () -> resources.apply(sdk2(), startupReport));
+    }
+    return true;
+  }
+
+  @Override
+  void stopIfRunning() {
+    sdks.close();
+    super.stopIfRunning();
+  }
+
+  @Override
+  void addPoolInputs(Checksum checksum) {
+    checksum.add(awsRegion);
+  }
+
   protected ProcessBuilder runProcess() {
     List<String> args = dockerRun();
     if (config.getAdminPort() > 0) {
@@ -305,7 +305,7 @@ public class HanaContainer extends DbContainer<HanaContainer> {
 
   @Override
   protected boolean isDatabaseReady() {
-    return commands.logsContain(config.containerName(), "Startup finished!");
+    return logsContain("Startup finished!", null);
   }
 
   /**
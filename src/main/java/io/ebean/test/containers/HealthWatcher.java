@@ -0,0 +1,91 @@
+package io.ebean.test.containers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Follows the docker events of a container via a single long-lived <code>docker events</code>
+ * (or Docker Engine API event stream) waiting for the HEALTHCHECK to report healthy.
+ * <p>
+ * This is used for readiness rather than polling the container with probes. An unhealthy
+ * status does not end the wait as the container can subsequently become healthy but the
+ * container dying or the event stream ending does.
+ */
+final class HealthWatcher implements AutoCloseable {
+
+  private static final System.Logger log = Commands.log;
+
+  private static final String HEALTH_STATUS = "health_status:";
+
+  private final String containerName;
+  private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+  private volatile Closeable source;
+
+  HealthWatcher(String containerName) {
+    this.containerName = containerName;
+  }
+
+  /**
+   * Start following the events using the given client.
+   */
+  HealthWatcher watch(DockerClient client) {
+    source = client.followEvents(containerName, this::accept, this::end);
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "HealthWatcher " + containerName + " done:" + future.isDone();
+  }
+
+  void accept(String action) {
+    if (action.startsWith(HEALTH_STATUS)) {
+      String status = action.substring(HEALTH_STATUS.length()).trim();
+      log.log(Level.TRACE, "container {0} health_status {1}", containerName, status);
+      if ("healthy".equals(status)) {
+        future.complete(true);
+      }
+    } else if ("die".equals(action) || "destroy".equals(action)) {
+      log.log(Level.DEBUG, "container {0} {1} waiting for healthy", containerName, action);
+      future.complete(false);
+    }
+  }
+
+  void end() {
+    future.complete(false);
+  }
+
+  /**
+   * Wait for the container to report healthy returning false if it does not before the timeout.
+   */
+  boolean await(long timeoutMillis) {
+    try {
+      return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      log.log(Level.DEBUG, "container {0} not healthy after {1}ms", containerName, timeoutMillis);
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void close() {
+    Closeable closeable = source;
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        log.log(Level.TRACE, "Error closing event stream", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,281 @@
+package io.ebean.test.containers;
+
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pulls the images of containers that are missing locally in the background.
+ * <p>
+ * Otherwise <code>docker run</code> pulls a missing image inline such that the pull becomes part of
+ * the run and readiness of the container. With a single <code>docker image ls</code> (or Docker
+ * Engine API call) the missing images are determined and then pulled in parallel while earlier
+ * containers are starting. A container that needs an image that is still being pulled waits for
+ * the pull (as the <code>pull</code> phase of the startup report) before running. When the image
+ * has fallbacks (other registry mirrors and then the image without a mirror) the mirrors are
+ * ordered fastest first via {@link RegistryMirrors} and the images are pulled in turn when pulling
+ * an image fails.
+ * <p>
+ * The pulls are per JVM. A pull that fails is logged and the image is then pulled by
+ * <code>docker run</code> as before. Use system property or property
+ * <code>ebean.test.containers.prefetch=false</code> to not pull in the background.
+ */
+final class ImagePrefetcher {
+
+  private static final System.Logger log = Commands.log;
+
+  private static final AtomicInteger threadCounter = new AtomicInteger();
+
+  private static final ExecutorService executor = Executors.newFixedThreadPool(Integer.getInteger("ebean.test.containers.pullThreads", 4), runnable -> {
+    Thread thread = new Thread(runnable, "image-pull-" + threadCounter.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private static final Map<String, Pull> pulls = new ConcurrentHashMap<>();
+
+  private ImagePrefetcher() {
+  }
+
+  /**
+   * Return true if images should be pulled in the background (the default).
+   */
+  static boolean enabled(Properties properties) {
+    String value = properties == null ? null : properties.getProperty("ebean.test.containers.prefetch");
+    return !"false".equalsIgnoreCase(System.getProperty("ebean.test.containers.prefetch", value));
+  }
+
+  /**
+   * Start pulling the images of the containers that are missing locally.
+   */
+  static void prefetch(List<? extends Container<?>> containers) {
+    Map<String, Commands> images = new LinkedHashMap<>();
+    Map<String, List<String>> fallbacks = new HashMap<>();
+    for (Container<?> container : containers) {
+      if (container instanceof BaseContainer) {
+        BaseContainer<?> baseContainer = (BaseContainer<?>) container;
+        String image = baseContainer.config.image();
+        if (image != null) {
+          images.putIfAbsent(image, baseContainer.commands);
+          fallbacks.putIfAbsent(image, baseContainer.config.imageFallbacks());
+        }
+      }
+    }
+    prefetch(images, fallbacks);
+  }
+
+  /**
+   * Start pulling the images that are missing locally using the associated commands.
+   *
+   * @param images    The images with the commands used to list and pull them
+   * @param fallbacks The images to pull instead when pulling an image fails
+   */
+  static void prefetch(Map<String, Commands> images, Map<String, List<String>> fallbacks) {
+    images.keySet().removeIf(pulls::containsKey);
+    if (images.isEmpty()) {
+      return;
+    }
+    Set<String> local;
+    try {
+      local = images.values().iterator().next().images();
+    } catch (RuntimeException e) {
+      log.log(Level.DEBUG, "Unable to list images, not pulling in the background " + e);
+      return;
+    }
+    images.forEach((image, commands) -> {
+      if (!isLocal(local, image, commands)) {
+        start(image, fallbacks.getOrDefault(image, List.of()), commands);
+      }
+    });
+  }
+
+  /**
+   * Return the pull of the image starting it if the image is missing locally or null if it is local.
+   * <p>
+   * This is used when the image has fallbacks as <code>docker run</code> would only pull the image itself.
+   */
+  static Pull pull(String image, List<String> fallbacks, Commands commands) {
+    Pull pull = pulls.get(image);
+    if (pull == null && !commands.imageExists(image)) {
+      pull = start(image, fallbacks, commands);
+    }
+    return pull;
+  }
+
+  private static Pull start(String image, List<String> fallbacks, Commands commands) {
+    Pull pull = new Pull(image, fallbacks);
+    Pull existing = pulls.putIfAbsent(image, pull);
+    if (existing != null) {
+      return existing;
+    }
+    pull.start(commands);
+    return pull;
+  }
+
+  private static boolean isLocal(Set<String> local, String image, Commands commands) {
+    if (image.contains("@")) {
+      // images listed by repository:tag so check those referenced by digest individually
+      return commands.imageExists(image);
+    }
+    return local.contains(normalise(image));
+  }
+
+  /**
+   * Return the image in the repository:tag form as listed by <code>docker image ls</code>.
+   */
+  static String normalise(String image) {
+    String name = image;
+    if (name.startsWith("docker.io/library/")) {
+      name = name.substring("docker.io/library/".length());
+    } else if (name.startsWith("docker.io/")) {
+      name = name.substring("docker.io/".length());
+    }
+    return name.lastIndexOf(':') > name.lastIndexOf('/') ? name : name + ":latest";
+  }
+
+  /**
+   * Return the background pull of the image or null when the image is not being pulled.
+   * <p>
+   * A completed pull is kept such that the image is not listed or pulled again and such that later
+   * starts use the image that was pulled. Use {@link Pull#report()} to only report the pull once.
+   */
+  static Pull pending(String image) {
+    return pulls.get(image);
+  }
+
+  /**
+   * Clear the pulls (testing only).
+   */
+  static void reset() {
+    pulls.clear();
+  }
+
+  /**
+   * A background pull of an image.
+   */
+  static final class Pull {
+
+    private final String image;
+    private final List<String> fallbacks;
+    private final long startNanos = System.nanoTime();
+    private final CompletableFuture<Long> future = new CompletableFuture<>();
+    private final AtomicBoolean reported = new AtomicBoolean();
+    private volatile String pulled;
+    private volatile long millis;
+
+    Pull(String image, List<String> fallbacks) {
+      this.image = image;
+      this.fallbacks = fallbacks;
+    }
+
+    void start(Commands commands) {
+      executor.execute(() -> {
+        try {
+          long bytes = pullWithFallbacks(commands);
+          millis = (System.nanoTime() - startNanos) / 1_000_000;
+          log.log(Level.DEBUG, "pulled {0} bytes:{1} millis:{2}", pulled, bytes, millis);
+          future.complete(bytes);
+        } catch (Throwable e) {
+          millis = (System.nanoTime() - startNanos) / 1_000_000;
+          // a later prefetch can try again
+          pulls.remove(image, this);
+          future.completeExceptionally(e);
+        }
+      });
+    }
+
+    private long pullWithFallbacks(Commands commands) {
+      List<String> images = new ArrayList<>();
+      images.add(image);
+      images.addAll(fallbacks);
+      // the image is missing locally so order the mirrors now
+      RuntimeException error = null;
+      String failed = null;
+      for (String candidate : RegistryMirrors.order(images)) {
+        if (failed != null) {
+          log.log(Level.WARNING, "Failed to pull " + failed + " trying " + candidate);
+        }
+        try {
+          long bytes = commands.pull(candidate);
+          pulled = candidate;
+          return bytes;
+        } catch (RuntimeException e) {
+          if (error == null) {
+            error = e;
+          } else {
+            error.addSuppressed(e);
+          }
+          failed = candidate;
+        }
+      }
+      throw error;
+    }
+
+    @Override
+    public String toString() {
+      return "Pull " + image + " done:" + future.isDone();
+    }
+
+    /**
+     * Wait for the pull to complete returning false if it failed.
+     */
+    boolean await() {
+      try {
+        future.join();
+        return true;
+      } catch (CompletionException | CancellationException e) {
+        Throwable cause = e.getCause() == null ? e : e.getCause();
+        log.log(Level.WARNING, "Background pull of " + image + " failed, pulling it via docker run " + cause.getMessage());
+        return false;
+      }
+    }
+
+    /**
+     * Return true if the pull has completed (successfully or not).
+     */
+    boolean isDone() {
+      return future.isDone();
+    }
+
+    /**
+     * Return true the first time this is called such that the pull is part of one startup report.
+     */
+    boolean report() {
+      return reported.compareAndSet(false, true);
+    }
+
+    /**
+     * Return the image that was pulled (a fallback when pulling the image failed) or null.
+     */
+    String pulled() {
+      return pulled;
+    }
+
+    /**
+     * Return the bytes pulled (0 when not complete or failed).
+     */
+    long bytes() {
+      return future.isDone() && !future.isCompletedExceptionally() ? future.join() : 0;
+    }
+
+    /**
+     * Return the time the pull took.
+     */
+    long millis() {
+      return millis;
+    }
+  }
+}
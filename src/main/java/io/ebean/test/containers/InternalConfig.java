@@ -1,5 +1,8 @@
 package io.ebean.test.containers;
 
+import java.time.Duration;
+import java.util.List;
+
 interface InternalConfig extends ContainerConfig {
 
   /**
@@ -17,6 +20,21 @@ interface InternalConfig extends ContainerConfig {
    */
   void setAssignedPort(int assignedPort);
 
+  /**
+   * Set the image that was pulled (a fallback when pulling the configured image failed).
+   */
+  void setImage(String pulledImage);
+
+  /**
+   * Return the images to pull when pulling the image fails.
+   */
+  List<String> imageFallbacks();
+
+  /**
+   * Return the (comma separated) registry mirrors.
+   */
+  String mirror();
+
   /**
    * Return true if port == 0 meaning a random port will be assigned.
    */
@@ -38,6 +56,16 @@ interface InternalConfig extends ContainerConfig {
 
   int getMaxReadyAttempts();
 
+  ReadinessPolicy readinessPolicy();
+
+  int poolSize();
+
+  Duration poolTtl();
+
+  boolean healthCheck();
+
+  String healthCmd();
+
   String getDocker();
 
   StopMode shutdownMode();
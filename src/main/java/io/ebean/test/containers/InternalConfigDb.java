@@ -32,6 +32,16 @@ interface InternalConfigDb extends InternalConfig {
 
   boolean isFastStartMode();
 
+  boolean isUseTemplate();
+
+  boolean isSnapshot();
+
+  PerformanceProfile getPerformanceProfile();
+
+  String getShardId();
+
+  String getBaseDbName();
+
   String getCharacterSet();
 
   String getCollation();
@@ -0,0 +1,257 @@
+package io.ebean.test.containers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader for Docker API responses and docker CLI json format output.
+ * <p>
+ * Objects are returned as Map, arrays as List, numbers as Long or Double.
+ */
+final class Json {
+
+  private final String content;
+  private int pos;
+
+  private Json(String content) {
+    this.content = content;
+  }
+
+  /**
+   * Parse the JSON content.
+   */
+  static Object parse(String content) {
+    Json json = new Json(content);
+    json.skipWhitespace();
+    Object value = json.readValue();
+    json.skipWhitespace();
+    if (json.pos < content.length()) {
+      throw json.error("Unexpected trailing content");
+    }
+    return value;
+  }
+
+  /**
+   * Parse the JSON content expecting an object.
+   */
+  @SuppressWarnings("unchecked")
+  static Map<String, Object> parseObject(String content) {
+    Object value = parse(content);
+    if (value instanceof Map) {
+      return (Map<String, Object>) value;
+    }
+    throw new IllegalArgumentException("Expected JSON object but got " + content);
+  }
+
+  /**
+   * Parse the JSON content expecting an array.
+   */
+  @SuppressWarnings("unchecked")
+  static List<Object> parseArray(String content) {
+    Object value = parse(content);
+    if (value instanceof List) {
+      return (List<Object>) value;
+    }
+    throw new IllegalArgumentException("Expected JSON array but got " + content);
+  }
+
+  /**
+   * Return the nested object for the given key or null.
+   */
+  @SuppressWarnings("unchecked")
+  static Map<String, Object> object(Map<String, Object> map, String key) {
+    Object value = map == null ? null : map.get(key);
+    return value instanceof Map ? (Map<String, Object>) value : null;
+  }
+
+  /**
+   * Return the nested array for the given key or null.
+   */
+  @SuppressWarnings("unchecked")
+  static List<Object> array(Map<String, Object> map, String key) {
+    Object value = map == null ? null : map.get(key);
+    return value instanceof List ? (List<Object>) value : null;
+  }
+
+  /**
+   * Return the value for the given key as a String or null.
+   */
+  static String string(Map<String, Object> map, String key) {
+    Object value = map == null ? null : map.get(key);
+    return value == null ? null : value.toString();
+  }
+
+  private Object readValue() {
+    if (pos >= content.length()) {
+      throw error("Unexpected end of content");
+    }
+    char ch = content.charAt(pos);
+    switch (ch) {
+      case '{':
+        return readObject();
+      case '[':
+        return readArray();
+      case '"':
+        return readString();
+      case 't':
+        return readLiteral("true", Boolean.TRUE);
+      case 'f':
+        return readLiteral("false", Boolean.FALSE);
+      case 'n':
+        return readLiteral("null", null);
+      default:
+        return readNumber();
+    }
+  }
+
+  private Map<String, Object> readObject() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    pos++;
+    skipWhitespace();
+    if (peek() == '}') {
+      pos++;
+      return map;
+    }
+    while (true) {
+      skipWhitespace();
+      if (peek() != '"') {
+        throw error("Expected object key");
+      }
+      String key = readString();
+      skipWhitespace();
+      expect(':');
+      skipWhitespace();
+      map.put(key, readValue());
+      skipWhitespace();
+      char ch = next();
+      if (ch == '}') {
+        return map;
+      }
+      if (ch != ',') {
+        throw error("Expected , or }");
+      }
+    }
+  }
+
+  private List<Object> readArray() {
+    List<Object> list = new ArrayList<>();
+    pos++;
+    skipWhitespace();
+    if (peek() == ']') {
+      pos++;
+      return list;
+    }
+    while (true) {
+      skipWhitespace();
+      list.add(readValue());
+      skipWhitespace();
+      char ch = next();
+      if (ch == ']') {
+        return list;
+      }
+      if (ch != ',') {
+        throw error("Expected , or ]");
+      }
+    }
+  }
+
+  private String readString() {
+    pos++;
+    StringBuilder sb = new StringBuilder();
+    while (true) {
+      char ch = next();
+      if (ch == '"') {
+        return sb.toString();
+      }
+      if (ch != '\\') {
+        sb.append(ch);
+        continue;
+      }
+      char escaped = next();
+      switch (escaped) {
+        case 'n':
+          sb.append('\n');
+          break;
+        case 't':
+          sb.append('\t');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        case 'b':
+          sb.append('\b');
+          break;
+        case 'f':
+          sb.append('\f');
+          break;
+        case 'u':
+          if (pos + 4 > content.length()) {
+            throw error("Invalid unicode escape");
+          }
+          sb.append((char) Integer.parseInt(content.substring(pos, pos + 4), 16));
+          pos += 4;
+          break;
+        default:
+          sb.append(escaped);
+      }
+    }
+  }
+
+  private Object readLiteral(String literal, Object value) {
+    if (!content.startsWith(literal, pos)) {
+      throw error("Expected " + literal);
+    }
+    pos += literal.length();
+    return value;
+  }
+
+  private Object readNumber() {
+    int start = pos;
+    boolean decimal = false;
+    while (pos < content.length()) {
+      char ch = content.charAt(pos);
+      if (ch == '.' || ch == 'e' || ch == 'E') {
+        decimal = true;
+      } else if (!(ch == '-' || ch == '+' || Character.isDigit(ch))) {
+        break;
+      }
+      pos++;
+    }
+    if (start == pos) {
+      throw error("Unexpected character");
+    }
+    String number = content.substring(start, pos);
+    return decimal ? (Object) Double.valueOf(number) : (Object) Long.valueOf(number);
+  }
+
+  private void expect(char expected) {
+    if (next() != expected) {
+      throw error("Expected " + expected);
+    }
+  }
+
+  private char peek() {
+    if (pos >= content.length()) {
+      throw error("Unexpected end of content");
+    }
+    return content.charAt(pos);
+  }
+
+  private char next() {
+    char ch = peek();
+    pos++;
+    return ch;
+  }
+
+  private void skipWhitespace() {
+    while (pos < content.length() && Character.isWhitespace(content.charAt(pos))) {
+      pos++;
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(message + " at position " + pos + " in JSON content");
+  }
+}
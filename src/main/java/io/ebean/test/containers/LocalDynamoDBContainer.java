@@ -1,11 +1,8 @@
 package io.ebean.test.containers;
 
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Properties;
 
@@ -101,6 +98,7 @@ public class LocalDynamoDBContainer extends BaseContainer<LocalDynamoDBContainer
   }
 
   private final String awsRegion;
+  private final AwsSdks sdks = new AwsSdks();
 
   public LocalDynamoDBContainer(Builder builder) {
     super(builder);
@@ -120,10 +118,17 @@ public class LocalDynamoDBContainer extends BaseContainer<LocalDynamoDBContainer
    * This should be used AFTER the container is started.
    */
   public AmazonDynamoDB dynamoDB() {
-    return AmazonDynamoDBClientBuilder.standard()
-      .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("localstack", "localstack")))
-      .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpointUrl(), awsRegion))
-      .build();
+    return sdks.sdk1(awsRegion, endpointUrl()).dynamoDB();
+  }
+
+  /**
+   * Return the AWS v2 SDK compatible helper that provides the DynamoDbClient and
+   * DynamoDbAsyncClient (for example to seed tables via {@link DynamoDBSeeder}).
+   * <p>
+   * This should be used AFTER the container is started.
+   */
+  public AwsSDKv2 sdk2() {
+    return sdks.sdk2(awsRegion, URI.create(endpointUrl()));
   }
 
   @Override
@@ -132,6 +137,17 @@ public class LocalDynamoDBContainer extends BaseContainer<LocalDynamoDBContainer
     return true;
   }
 
+  @Override
+  void stopIfRunning() {
+    sdks.close();
+    super.stopIfRunning();
+  }
+
+  @Override
+  void addPoolInputs(Checksum checksum) {
+    checksum.add(awsRegion);
+  }
+
   protected ProcessBuilder runProcess() {
     List<String> args = dockerRun();
     if (notEmpty(awsRegion)) {
@@ -46,6 +46,7 @@ public class Localstack2Container extends BaseContainer<Localstack2Container> {
 
     private String services = "dynamodb";
     private String awsRegion = "ap-southeast-2";
+    private final AwsResources resources = new AwsResources();
     private String healthUri = "_localstack/health";
     private String startWeb;
 
@@ -64,6 +65,8 @@ public class Localstack2Container extends BaseContainer<Localstack2Container> {
       awsRegion = prop(properties, "awsRegion", awsRegion);
       startWeb = prop(properties, "startWeb", startWeb);
       healthUri = prop(properties, "healthUri", healthUri);
+      resources.parse(prop(properties, "queues", null), prop(properties, "topics", null), prop(properties, "buckets", null),
+        prop(properties, "tables", null), prop(properties, "kmsKeys", null), prop(properties, "streams", null));
     }
 
     /**
@@ -92,6 +95,15 @@ public class Localstack2Container extends BaseContainer<Localstack2Container> {
       return self();
     }
 
+    /**
+     * Add AWS resources (queues, topics, buckets, tables etc) to create when the container
+     * has started. Resources that already exist are skipped.
+     */
+    public Builder resources(AwsResources resources) {
+      this.resources.addAll(resources);
+      return self();
+    }
+
     /**
      * Set the healthUri option - defaults to _localstack/health.
      */
@@ -118,6 +130,8 @@ public class Localstack2Container extends BaseContainer<Localstack2Container> {
   private final String awsRegion;
   private final String startWeb;
   private final String healthUri;
+  private final AwsResources resources;
+  private final AwsSdks sdks = new AwsSdks();
 
   /**
    * Create the container using the given config.
@@ -128,6 +142,7 @@ public class Localstack2Container extends BaseContainer<Localstack2Container> {
     this.awsRegion = builder.awsRegion;
     this.startWeb = builder.startWeb;
     this.healthUri = builder.healthUri;
+    this.resources = builder.resources;
     this.serviceNames = TrimSplit.split(services);
   }
 
@@ -148,7 +163,7 @@ public class Localstack2Container extends BaseContainer<Localstack2Container> {
    * DynamoDB client, SNSClient, SQQClient etc.
    */
   public AwsSDKv2 sdk2() {
-    return new LocalstackSdkV2(awsRegion, endpoint());
+    return sdks.sdk2(awsRegion, endpoint());
   }
 
   /**
@@ -156,7 +171,7 @@ public class Localstack2Container extends BaseContainer<Localstack2Container> {
    * AmazonDynamoDB client, AmazonSNS, AmazonSQS etc.
    */
   public AwsSDKv1 sdk1() {
-    return new LocalstackSdkV1(awsRegion, endpointUrl());
+    return sdks.sdk1(awsRegion, endpointUrl());
   }
 
 
@@ -214,6 +229,28 @@ public class Localstack2Container extends BaseContainer<Localstack2Container> {
     return false;
   }
 
+  @Override
+  protected boolean startWithConnectivity() {
+    if (!super.startWithConnectivity()) {
+      return false;
+    }
+    if (!resources.isEmpty()) {
+      phase("awsResources", () -> resources.apply(sdk2(), startupReport));
+    }
+    return true;
+  }
+
+  @Override
+  void stopIfRunning() {
+    sdks.close();
+    super.stopIfRunning();
+  }
+
+  @Override
+  void addPoolInputs(Checksum checksum) {
+    checksum.add(services).add(awsRegion).add(startWeb);
+  }
+
   protected ProcessBuilder runProcess() {
     List<String> args = dockerRun();
     if (config.getAdminPort() > 0) {
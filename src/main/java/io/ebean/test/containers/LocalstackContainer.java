@@ -58,6 +58,7 @@ public class LocalstackContainer extends BaseContainer<LocalstackContainer> {
 
     private String services = "dynamodb";
     private String awsRegion = "ap-southeast-2";
+    private final AwsResources resources = new AwsResources();
     private String healthUri = "_localstack/health";
     private String startWeb;// = "0";
 
@@ -76,6 +77,8 @@ public class LocalstackContainer extends BaseContainer<LocalstackContainer> {
       awsRegion = prop(properties, "awsRegion", awsRegion);
       startWeb = prop(properties, "startWeb", startWeb);
       healthUri = prop(properties, "healthUri", healthUri);
+      resources.parse(prop(properties, "queues", null), prop(properties, "topics", null), prop(properties, "buckets", null),
+        prop(properties, "tables", null), prop(properties, "kmsKeys", null), prop(properties, "streams", null));
     }
 
     /**
@@ -104,6 +107,15 @@ public class LocalstackContainer extends BaseContainer<LocalstackContainer> {
       return self();
     }
 
+    /**
+     * Add AWS resources (queues, topics, buckets, tables etc) to create when the container
+     * has started. Resources that already exist are skipped.
+     */
+    public Builder resources(AwsResources resources) {
+      this.resources.addAll(resources);
+      return self();
+    }
+
     /**
      * Set the healthUri option - defaults to _localstack/health.
      */
@@ -130,6 +142,8 @@ public class LocalstackContainer extends BaseContainer<LocalstackContainer> {
   private final String awsRegion;
   private final String startWeb;
   private final String healthUri;
+  private final AwsResources resources;
+  private final AwsSdks sdks = new AwsSdks();
 
   /**
    * Create the container using the given config.
@@ -140,6 +154,7 @@ public class LocalstackContainer extends BaseContainer<LocalstackContainer> {
     this.awsRegion = builder.awsRegion;
     this.startWeb = builder.startWeb;
     this.healthUri = builder.healthUri;
+    this.resources = builder.resources;
     this.serviceNames = TrimSplit.split(services);
   }
 
@@ -184,7 +199,7 @@ public class LocalstackContainer extends BaseContainer<LocalstackContainer> {
    * DynamoDB client, SNSClient, SQQClient etc.
    */
   public AwsSDKv2 sdk2() {
-    return new LocalstackSdkV2(awsRegion, endpoint());
+    return sdks.sdk2(awsRegion, endpoint());
   }
 
   /**
@@ -192,7 +207,7 @@ public class LocalstackContainer extends BaseContainer<LocalstackContainer> {
    * AmazonDynamoDB client, AmazonSNS, AmazonSQS etc.
    */
   public AwsSDKv1 sdk1() {
-    return new LocalstackSdkV1(awsRegion, endpointUrl());
+    return sdks.sdk1(awsRegion, endpointUrl());
   }
 
   public URI endpoint() {
@@ -240,6 +255,28 @@ public class LocalstackContainer extends BaseContainer<LocalstackContainer> {
     return false;
   }
 
+  @Override
+  protected boolean startWithConnectivity() {
+    if (!super.startWithConnectivity()) {
+      return false;
+    }
+    if (!resources.isEmpty()) {
+      phase("awsResources", () -> resources.apply(sdk2(), startupReport));
+    }
+    return true;
+  }
+
+  @Override
+  void stopIfRunning() {
+    sdks.close();
+    super.stopIfRunning();
+  }
+
+  @Override
+  void addPoolInputs(Checksum checksum) {
+    checksum.add(services).add(awsRegion).add(startWeb);
+  }
+
   protected ProcessBuilder runProcess() {
     List<String> args = dockerRun();
     if (config.getAdminPort() > 0) {
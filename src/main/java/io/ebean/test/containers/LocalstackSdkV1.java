@@ -1,5 +1,6 @@
 package io.ebean.test.containers;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.client.builder.AwsClientBuilder;
@@ -13,51 +14,119 @@ import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.AmazonSQSClientBuilder;
 
 
-final class LocalstackSdkV1 implements AwsSDKv1 {
+final class LocalstackSdkV1 implements AwsSDKv1, AutoCloseable {
+
+  /**
+   * Maximum connections of each client.
+   */
+  private static final int MAX_CONNECTIONS = Integer.getInteger("ebean.test.containers.aws.maxConnections", 64);
 
   private final String awsRegion;
   private final String endpointUri;
+  private final AWSStaticCredentialsProvider credentials = new AWSStaticCredentialsProvider(new BasicAWSCredentials("localstack", "localstack"));
+  private final ClientConfiguration clientConfiguration = new ClientConfiguration()
+    .withMaxConnections(MAX_CONNECTIONS)
+    .withConnectionTimeout(5000);
+
+  private AmazonDynamoDB dynamoDB;
+  private AmazonKinesis kinesis;
+  private AmazonSNS sns;
+  private AmazonSQS sqs;
+  private boolean closed;
 
   LocalstackSdkV1(String awsRegion, String endpointUri) {
     this.awsRegion = awsRegion;
     this.endpointUri = endpointUri;
   }
 
+  /**
+   * Return the endpoint URI.
+   */
+  String endpointUri() {
+    return endpointUri;
+  }
+
   @Override
   public AWSStaticCredentialsProvider credentials() {
-    return new AWSStaticCredentialsProvider(new BasicAWSCredentials("localstack", "localstack"));
+    return credentials;
   }
 
   @Override
-  public AmazonDynamoDB dynamoDB() {
-    return AmazonDynamoDBClientBuilder.standard()
-      .withCredentials(credentials())
-      .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpointUri, awsRegion))
-      .build();
+  public synchronized AmazonDynamoDB dynamoDB() {
+    checkNotClosed();
+    if (dynamoDB == null) {
+      dynamoDB = AmazonDynamoDBClientBuilder.standard()
+        .withCredentials(credentials())
+        .withClientConfiguration(clientConfiguration)
+        .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpointUri, awsRegion))
+        .build();
+    }
+    return dynamoDB;
   }
 
   @Override
-  public AmazonKinesis kinesis() {
-    return AmazonKinesisClientBuilder.standard()
-      .withCredentials(credentials())
-      .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpointUri, awsRegion))
-      .build();
+  public synchronized AmazonKinesis kinesis() {
+    checkNotClosed();
+    if (kinesis == null) {
+      kinesis = AmazonKinesisClientBuilder.standard()
+        .withCredentials(credentials())
+        .withClientConfiguration(clientConfiguration)
+        .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpointUri, awsRegion))
+        .build();
+    }
+    return kinesis;
   }
 
   @Override
-  public AmazonSNS sns() {
-    return AmazonSNSClientBuilder.standard()
-      .withCredentials(credentials())
-      .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpointUri, awsRegion))
-      .build();
+  public synchronized AmazonSNS sns() {
+    checkNotClosed();
+    if (sns == null) {
+      sns = AmazonSNSClientBuilder.standard()
+        .withCredentials(credentials())
+        .withClientConfiguration(clientConfiguration)
+        .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpointUri, awsRegion))
+        .build();
+    }
+    return sns;
+  }
+
+  @Override
+  public synchronized AmazonSQS sqs() {
+    checkNotClosed();
+    if (sqs == null) {
+      sqs = AmazonSQSClientBuilder.standard()
+        .withCredentials(credentials())
+        .withClientConfiguration(clientConfiguration)
+        .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpointUri, awsRegion))
+        .build();
+    }
+    return sqs;
+  }
+
+  private void checkNotClosed() {
+    if (closed) {
+      throw new IllegalStateException("The AWS clients were closed when the container was stopped");
+    }
   }
 
+  /**
+   * Shutdown the clients.
+   */
   @Override
-  public AmazonSQS sqs() {
-    return AmazonSQSClientBuilder.standard()
-      .withCredentials(credentials())
-      .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpointUri, awsRegion))
-      .build();
+  public synchronized void close() {
+    closed = true;
+    if (dynamoDB != null) {
+      dynamoDB.shutdown();
+    }
+    if (kinesis != null) {
+      kinesis.shutdown();
+    }
+    if (sns != null) {
+      sns.shutdown();
+    }
+    if (sqs != null) {
+      sqs.shutdown();
+    }
   }
 
 //  @Override
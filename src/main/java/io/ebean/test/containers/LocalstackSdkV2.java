@@ -2,20 +2,42 @@ package io.ebean.test.containers;
 
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsAsyncClientBuilder;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.awscore.client.builder.AwsSyncClientBuilder;
+import software.amazon.awssdk.core.SdkClient;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
 import software.amazon.awssdk.services.kinesis.KinesisClient;
 import software.amazon.awssdk.services.kms.KmsAsyncClient;
 import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
 import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.System.Logger.Level;
 import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
-final class LocalstackSdkV2 implements AwsSDKv2 {
+final class LocalstackSdkV2 implements AwsSDKv2, AutoCloseable {
+
+  private static final System.Logger log = Commands.log;
 
   static {
     // AWS SDK v2 NPEs in ProfileFile$BuilderImpl.build() when the resolved config/credentials
@@ -40,59 +62,61 @@ final class LocalstackSdkV2 implements AwsSDKv2 {
     }
   }
 
+  /**
+   * Maximum connections of the shared http clients.
+   */
+  private static final int MAX_CONNECTIONS = Integer.getInteger("ebean.test.containers.aws.maxConnections", 64);
+
+  private static final boolean APACHE_CLIENT = present("software.amazon.awssdk.http.apache.ApacheHttpClient");
+  private static final boolean NETTY_CLIENT = present("software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient");
+
   private final String awsRegion;
   private final URI endpoint;
   private final AwsBasicCredentials awsBasicCredentials = AwsBasicCredentials.create("localstack", "localstack");
+  private final Map<Class<?>, SdkClient> clients = new ConcurrentHashMap<>();
+  private SdkHttpClient httpClient;
+  private SdkAsyncHttpClient asyncHttpClient;
+  private volatile boolean closed;
 
   LocalstackSdkV2(String awsRegion, URI endpoint) {
     this.awsRegion = awsRegion;
     this.endpoint = endpoint;
   }
 
+  private static boolean present(String className) {
+    try {
+      Class.forName(className, false, LocalstackSdkV2.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
   @Override
   public DynamoDbClient dynamoDBClient() {
-    return DynamoDbClient.builder()
-      .credentialsProvider(credentialsProvider())
-      .endpointOverride(endpoint)
-      .region(region())
-      .build();
+    return client(DynamoDbClient.class, () -> sync(DynamoDbClient.builder()).build());
   }
 
   @Override
   public KinesisClient kinesisClient() {
-    return KinesisClient.builder()
-      .credentialsProvider(credentialsProvider())
-      .endpointOverride(endpoint)
-      .region(region())
-      .build();
+    return client(KinesisClient.class, () -> sync(KinesisClient.builder()).build());
   }
 
   @Override
   public SnsClient snsClient() {
-    return SnsClient.builder()
-      .credentialsProvider(credentialsProvider())
-      .endpointOverride(endpoint)
-      .region(region())
-      .build();
+    return client(SnsClient.class, () -> sync(SnsClient.builder()).build());
   }
 
   @Override
   public SqsClient sqsClient() {
-    return SqsClient.builder()
-      .credentialsProvider(credentialsProvider())
-      .endpointOverride(endpoint)
-      .region(region())
-      .build();
+    return client(SqsClient.class, () -> sync(SqsClient.builder()).build());
   }
 
   @Override
   public S3Client s3Client() {
-    return S3Client.builder()
-      .credentialsProvider(credentialsProvider())
-      .endpointOverride(endpoint)
-      .region(region())
+    return client(S3Client.class, () -> sync(S3Client.builder())
       .forcePathStyle(true)
-      .build();
+      .build());
   }
 
   @Override
@@ -102,20 +126,39 @@ final class LocalstackSdkV2 implements AwsSDKv2 {
 
   @Override
   public KmsClient kmsClient() {
-    return KmsClient.builder()
-      .credentialsProvider(credentialsProvider())
-      .endpointOverride(endpoint)
-      .region(region())
-      .build();
+    return client(KmsClient.class, () -> sync(KmsClient.builder()).build());
   }
 
   @Override
   public KmsAsyncClient kmsAsyncClient() {
-    return KmsAsyncClient.builder()
-      .credentialsProvider(credentialsProvider())
-      .endpointOverride(endpoint)
-      .region(region())
-      .build();
+    return client(KmsAsyncClient.class, () -> async(KmsAsyncClient.builder()).build());
+  }
+
+  @Override
+  public DynamoDbAsyncClient dynamoDBAsyncClient() {
+    return client(DynamoDbAsyncClient.class, () -> async(DynamoDbAsyncClient.builder()).build());
+  }
+
+  @Override
+  public KinesisAsyncClient kinesisAsyncClient() {
+    return client(KinesisAsyncClient.class, () -> async(KinesisAsyncClient.builder()).build());
+  }
+
+  @Override
+  public SnsAsyncClient snsAsyncClient() {
+    return client(SnsAsyncClient.class, () -> async(SnsAsyncClient.builder()).build());
+  }
+
+  @Override
+  public SqsAsyncClient sqsAsyncClient() {
+    return client(SqsAsyncClient.class, () -> async(SqsAsyncClient.builder()).build());
+  }
+
+  @Override
+  public S3AsyncClient s3AsyncClient() {
+    return client(S3AsyncClient.class, () -> async(S3AsyncClient.builder())
+      .forcePathStyle(true)
+      .build());
   }
 
   @Override
@@ -132,4 +175,91 @@ final class LocalstackSdkV2 implements AwsSDKv2 {
   public AwsBasicCredentials basicCredentials() {
     return awsBasicCredentials;
   }
+
+  /**
+   * Close the clients and the shared http clients.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    for (SdkClient client : clients.values()) {
+      closeQuietly(client);
+    }
+    clients.clear();
+    synchronized (this) {
+      closeQuietly(httpClient);
+      closeQuietly(asyncHttpClient);
+      httpClient = null;
+      asyncHttpClient = null;
+    }
+  }
+
+  private static void closeQuietly(SdkAutoCloseable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (RuntimeException e) {
+        log.log(Level.DEBUG, "Error closing AWS client " + e);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends SdkClient> T client(Class<T> type, Supplier<T> create) {
+    if (closed) {
+      throw new IllegalStateException("The AWS clients were closed when the container was stopped");
+    }
+    return (T) clients.computeIfAbsent(type, k -> create.get());
+  }
+
+  private <B extends AwsClientBuilder<B, ?> & AwsSyncClientBuilder<B, ?>> B sync(B builder) {
+    SdkHttpClient http = httpClient();
+    if (http != null) {
+      builder.httpClient(http);
+    }
+    return configure(builder);
+  }
+
+  private <B extends AwsClientBuilder<B, ?> & AwsAsyncClientBuilder<B, ?>> B async(B builder) {
+    SdkAsyncHttpClient http = asyncHttpClient();
+    if (http != null) {
+      builder.httpClient(http);
+    }
+    return configure(builder);
+  }
+
+  private <B extends AwsClientBuilder<B, ?>> B configure(B builder) {
+    return builder
+      .credentialsProvider(credentialsProvider())
+      .endpointOverride(endpoint)
+      .region(region());
+  }
+
+  /**
+   * Return the http client shared by the sync clients (null to use the SDK default).
+   */
+  private synchronized SdkHttpClient httpClient() {
+    if (httpClient == null && APACHE_CLIENT) {
+      httpClient = ApacheHttpClient.builder()
+        .maxConnections(MAX_CONNECTIONS)
+        .connectionTimeout(Duration.ofSeconds(5))
+        .connectionMaxIdleTime(Duration.ofSeconds(30))
+        .build();
+    }
+    return httpClient;
+  }
+
+  /**
+   * Return the http client shared by the async clients (null to use the SDK default).
+   */
+  private synchronized SdkAsyncHttpClient asyncHttpClient() {
+    if (asyncHttpClient == null && NETTY_CLIENT) {
+      asyncHttpClient = NettyNioAsyncHttpClient.builder()
+        .maxConcurrency(MAX_CONNECTIONS)
+        .connectionTimeout(Duration.ofSeconds(5))
+        .eventLoopGroupBuilder(SdkEventLoopGroup.builder().numberOfThreads(2))
+        .build();
+    }
+    return asyncHttpClient;
+  }
 }
@@ -0,0 +1,112 @@
+package io.ebean.test.containers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Follows the logs of a container via a single long-lived <code>docker logs -f</code>
+ * (or Docker Engine API log stream) scanning each line once for the match text.
+ * <p>
+ * This is used for readiness checks rather than re-reading the full logs on each poll.
+ * Like {@link Commands#logsContain(String, String, String)} a line containing the
+ * clearMatch text clears a prior match such that {@link #isMatched()} is true when
+ * the last match occurs after the last clearMatch.
+ */
+public final class LogFollower implements AutoCloseable {
+
+  private static final System.Logger log = Commands.log;
+
+  private final String containerName;
+  private final String match;
+  private final String clearMatch;
+  private final CompletableFuture<String> future = new CompletableFuture<>();
+  private volatile String matchedLine;
+  private volatile boolean ended;
+  private volatile Closeable source;
+
+  LogFollower(String containerName, String match, String clearMatch) {
+    this.containerName = containerName;
+    this.match = match;
+    this.clearMatch = clearMatch;
+  }
+
+  /**
+   * Start following the logs using the given client.
+   */
+  LogFollower follow(DockerClient client, long since) {
+    source = client.followLogs(containerName, since, this::accept, this::end);
+    if (ended) {
+      close();
+    }
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "LogFollower " + containerName + " match:" + match + " matched:" + isMatched() + " ended:" + ended;
+  }
+
+  void accept(String line) {
+    if (clearMatch != null && line.contains(clearMatch)) {
+      matchedLine = null;
+    } else if (line.contains(match)) {
+      matchedLine = line;
+      future.complete(line);
+    }
+  }
+
+  void end() {
+    ended = true;
+    if (!future.isDone()) {
+      future.completeExceptionally(new IllegalStateException("Logs ended for container " + containerName + " without matching " + match));
+    }
+  }
+
+  /**
+   * Return true if the match text has been found (after any clearMatch).
+   */
+  public boolean isMatched() {
+    return matchedLine != null;
+  }
+
+  /**
+   * Return the matched log line or null.
+   */
+  public String matchedLine() {
+    return matchedLine;
+  }
+
+  /**
+   * Return true if the log stream has ended (container stopped or following was closed).
+   */
+  public boolean isEnded() {
+    return ended;
+  }
+
+  /**
+   * Return the future that completes with the first matching line.
+   * <p>
+   * This completes exceptionally if the log stream ends without a match.
+   * Note that a later clearMatch line does not reset the completed future.
+   */
+  public CompletableFuture<String> future() {
+    return future;
+  }
+
+  /**
+   * Stop following the logs.
+   */
+  @Override
+  public void close() {
+    Closeable closeable = source;
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        log.log(Level.TRACE, "Error closing log follower " + containerName, e);
+      }
+    }
+  }
+}
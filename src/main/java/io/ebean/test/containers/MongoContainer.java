@@ -164,6 +164,11 @@ public class MongoContainer extends BaseContainer<MongoContainer> {
     return logsContain("Waiting for connections", "MongoDB init process complete");
   }
 
+  @Override
+  void addPoolInputs(Checksum checksum) {
+    checksum.add(username).add(password).add(dbName);
+  }
+
   @Override
   protected ProcessBuilder runProcess() {
     List<String> args = dockerRun();
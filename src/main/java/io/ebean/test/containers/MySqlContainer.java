@@ -64,4 +64,10 @@ public class MySqlContainer extends BaseMySqlContainer<MySqlContainer> {
     super(builder);
   }
 
+  @Override
+  String defaultHealthCmd() {
+    // via tcp such that the temporary server used during initialisation is not reported ready
+    return "mysqladmin ping -h 127.0.0.1 --silent";
+  }
+
 }
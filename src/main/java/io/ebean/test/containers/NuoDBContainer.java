@@ -9,6 +9,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class NuoDBContainer extends BaseJdbcContainer<NuoDBContainer> {
 
@@ -125,12 +126,21 @@ public class NuoDBContainer extends BaseJdbcContainer<NuoDBContainer> {
     this.teName = adName + "_" + builder.getTe1();
   }
 
+  @Override
+  ShutdownCoordinator.Registration shutdownRegistration() {
+    // shutdown the database prior to stopping the containers
+    Runnable stop = shutdownMode == StopMode.Remove ? this::stopRemove : this::stopIfRunning;
+    return new ShutdownCoordinator.Registration(config.containerName(), config.docker(), commands, shutdownMode, lease, stop);
+  }
+
   @Override
   public void stopRemove() {
+    // list the networks while stopping the database
+    CompletableFuture<ProcessResult> networks = ProcessHandler.processAsync(procNetworkList());
     if (stopDatabase()) {
       commands.removeContainers(teName, smName, adName);
     }
-    if (networkExists()) {
+    if (stdoutContains(ProcessHandler.join(networks).getOutLines(), network)) {
       removeNetwork();
     }
   }
@@ -185,17 +195,8 @@ public class NuoDBContainer extends BaseJdbcContainer<NuoDBContainer> {
   }
 
   private boolean storageManagerUnableToConnect() {
-    boolean unableToConnect = false;
-
-    final List<String> logs = commands.logs(smName);
-    for (String log : logs) {
-      if (log.contains(SM_UNABLE_TO_CONNECT)) {
-        unableToConnect = true;
-      } else if (log.contains(SM_RUNNING)) {
-        unableToConnect = false;
-      }
-    }
-    return unableToConnect;
+    // unable to connect unless followed by running
+    return commands.logsContain(smName, SM_UNABLE_TO_CONNECT, SM_RUNNING);
   }
 
   private boolean waitForStorageManager() {
@@ -426,7 +427,7 @@ public class NuoDBContainer extends BaseJdbcContainer<NuoDBContainer> {
 
   @Override
   public boolean isDatabaseReady() {
-    return commands.logsContain(config.containerName(), "NuoAdmin Server running");
+    return logsContain("NuoAdmin Server running", null);
   }
 
   @Override
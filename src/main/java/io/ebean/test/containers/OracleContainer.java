@@ -1,5 +1,6 @@
 package io.ebean.test.containers;
 
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
@@ -168,6 +169,7 @@ public class OracleContainer extends BaseJdbcContainer<OracleContainer> {
       sqlRunOracleScript(connection);
       sqlRun(connection, "create user " + dbConfig.getUsername() + " identified by " + dbConfig.getPassword());
       sqlRun(connection, "grant connect, resource,  create view, unlimited tablespace to " + dbConfig.getUsername());
+      databaseCreated = true;
     }
   }
 
@@ -176,6 +178,57 @@ public class OracleContainer extends BaseJdbcContainer<OracleContainer> {
     return sqlHasRow(connection, sql);
   }
 
+  /**
+   * Truncate in a single PL/SQL block with the foreign key constraints disabled.
+   * <p>
+   * Truncate does not reset identity columns or sequences so identity columns are modified to
+   * start with their original start value and sequences are restarted at their minimum value.
+   */
+  @Override
+  List<String> resetDataSql(Connection connection) throws SQLException {
+    List<String> tables = resetTables(sqlRows(connection, "select '\"' || table_name || '\"', table_name from user_tables" +
+      " where temporary = 'N' and nested = 'NO' and secondary = 'N' and dropped = 'NO'"), 1);
+    if (tables.isEmpty()) {
+      return List.of();
+    }
+    List<String[]> constraints = sqlRows(connection, "select '\"' || table_name || '\"', '\"' || constraint_name || '\"'" +
+      " from user_constraints where constraint_type = 'R' and status = 'ENABLED'");
+    StringBuilder sql = new StringBuilder("begin\n");
+    for (String[] constraint : constraints) {
+      sql.append("  execute immediate 'alter table ").append(constraint[0]).append(" disable constraint ").append(constraint[1]).append("';\n");
+    }
+    for (String table : tables) {
+      sql.append("  execute immediate 'truncate table ").append(table).append("';\n");
+    }
+    for (String[] constraint : constraints) {
+      sql.append("  execute immediate 'alter table ").append(constraint[0]).append(" enable constraint ").append(constraint[1]).append("';\n");
+    }
+    for (String[] identity : sqlRows(connection, "select '\"' || c.table_name || '\"', '\"' || c.column_name || '\"'," +
+      " case when t.default_on_null = 'YES' then 'by default on null' when c.generation_type = 'ALWAYS' then 'always' else 'by default' end," +
+      " regexp_substr(c.identity_options, 'START WITH: (-?[0-9]+)', 1, 1, null, 1)" +
+      " from user_tab_identity_cols c join user_tab_columns t on t.table_name = c.table_name and t.column_name = c.column_name")) {
+      if (tables.contains(identity[0]) && identity[3] != null) {
+        sql.append("  execute immediate 'alter table ").append(identity[0]).append(" modify (").append(identity[1])
+          .append(" generated ").append(identity[2]).append(" as identity (start with ").append(identity[3]).append("))';\n");
+      }
+    }
+    for (String[] sequence : sqlRows(connection, "select '\"' || sequence_name || '\"', to_char(min_value) from user_sequences" +
+      " where sequence_name not like 'ISEQ$$%' and increment_by > 0")) {
+      sql.append("  execute immediate 'alter sequence ").append(sequence[0]).append(" restart start with ").append(sequence[1]).append("';\n");
+    }
+    return List.of(sql.append("end;").toString());
+  }
+
+  @Override
+  SqlScriptReader sqlScript(Reader reader) {
+    return new SqlScriptReader(reader, true, false);
+  }
+
+  @Override
+  boolean snapshotSupported() {
+    return true;
+  }
+
   @Override
   protected ProcessBuilder runProcess() {
     List<String> args = dockerRun();
@@ -185,7 +238,7 @@ public class OracleContainer extends BaseJdbcContainer<OracleContainer> {
     }
     args.add("-e");
     args.add("ORACLE_PASSWORD=" + dbConfig.getAdminPassword());
-    args.add(config.getImage());
+    args.add(runImage());
     return createProcessBuilder(args);
   }
 
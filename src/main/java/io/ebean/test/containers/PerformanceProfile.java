@@ -0,0 +1,29 @@
+package io.ebean.test.containers;
+
+/**
+ * The server settings profile used when running a database container.
+ */
+public enum PerformanceProfile {
+
+  /**
+   * The server defaults of the image (durable).
+   */
+  DEFAULT,
+
+  /**
+   * Trade durability for speed as tests do not need crash safety.
+   * <p>
+   * Postgres runs with <code>fsync</code>, <code>synchronous_commit</code> and <code>full_page_writes</code>
+   * off, larger <code>shared_buffers</code> and <code>--shm-size</code>. MySql and MariaDB do not flush
+   * the redo log or binlog on commit and skip the doublewrite buffer. MySql, MariaDB and ClickHouse keep
+   * their data directory in tmpfs. SqlServer databases use forced delayed durability.
+   */
+  TEST_FAST;
+
+  public static PerformanceProfile of(String val) {
+    if ("test_fast".equalsIgnoreCase(val) || "testFast".equalsIgnoreCase(val) || "fast".equalsIgnoreCase(val)) {
+      return TEST_FAST;
+    }
+    return DEFAULT;
+  }
+}
@@ -0,0 +1,125 @@
+package io.ebean.test.containers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * The previously observed ready times per platform/version and readiness check.
+ * <p>
+ * Stored in <code>~/.ebean/readiness.properties</code> (or as set by system property
+ * <code>ebean.test.containers.readinessFile</code>) as a smoothed average of the observed times.
+ * <p>
+ * The file is shared by JVMs running tests in parallel so it is updated holding the
+ * <code>ebean-readiness</code> lock (prefixed like the pool locks such that it does not clash with
+ * the lock of a container named <code>readiness</code>), re-reading the file and replacing it via a temp file.
+ */
+final class ReadinessHistory {
+
+  private static final System.Logger log = Commands.log;
+
+  private static final String LOCK = "ebean-readiness";
+
+  private static Properties properties;
+
+  private ReadinessHistory() {
+  }
+
+  static File file() {
+    String path = System.getProperty("ebean.test.containers.readinessFile", "~/.ebean/readiness.properties");
+    if (path.startsWith("~/")) {
+      return new File(System.getProperty("user.home"), path.substring(2));
+    }
+    return new File(path);
+  }
+
+  /**
+   * Return the expected ready time in millis for the given key or 0 if unknown.
+   */
+  static synchronized long expected(String key) {
+    String value = load().getProperty(key);
+    if (value == null) {
+      return 0;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Record the observed ready time for the given key.
+   */
+  static synchronized void record(String key, long millis) {
+    File file = file();
+    try {
+      ContainerLease.withLock(LOCK, () -> {
+        // re-read to include the times recorded by other JVMs
+        properties = null;
+        long previous = expected(key);
+        // smooth such that a single slow start does not skew the expectation
+        long value = previous == 0 ? millis : (previous * 2 + millis) / 3;
+        Properties props = load();
+        props.setProperty(key, Long.toString(value));
+        store(props, file.toPath());
+        return null;
+      });
+    } catch (UncheckedIOException e) {
+      log.log(Level.DEBUG, "Unable to write readiness file " + file + " " + e);
+    }
+  }
+
+  private static void store(Properties props, Path file) {
+    try {
+      Path dir = file.toAbsolutePath().getParent();
+      Files.createDirectories(dir);
+      Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+      try {
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+          props.store(writer, "ebean-test-containers ready times (millis)");
+        }
+        try {
+          Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Clear the loaded values such that they are reloaded from the file.
+   */
+  static synchronized void reset() {
+    properties = null;
+  }
+
+  private static Properties load() {
+    if (properties == null) {
+      properties = new Properties();
+      File file = file();
+      if (file.exists()) {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+          properties.load(reader);
+        } catch (IOException e) {
+          log.log(Level.DEBUG, "Unable to read readiness file " + file + " " + e);
+        }
+      }
+    }
+    return properties;
+  }
+}
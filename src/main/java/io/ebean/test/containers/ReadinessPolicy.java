@@ -0,0 +1,310 @@
+package io.ebean.test.containers;
+
+import java.lang.System.Logger.Level;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Policy used when polling a container for readiness (connectivity and database ready).
+ * <p>
+ * Polling is bounded by a wall clock deadline and uses jittered exponential backoff with a timeout
+ * for each probe. The time a platform previously took to become ready is recorded in
+ * <code>~/.ebean/readiness.properties</code> and used as the expected ready time such that polling
+ * is sparse well before the expected time and aggressive near it.
+ * <p>
+ * Probes run on a shared pool of daemon threads. The probes themselves are bounded by the probe
+ * timeout (connect and read timeouts for http, the JDBC login timeout) and a probe that is still
+ * running when the probe timeout is reached is waited on by the next poll rather than abandoned
+ * such that at most one probe per container is running at any time.
+ *
+ * <pre>{@code
+ *
+ *   OracleContainer.builder("latest")
+ *     .readinessPolicy(ReadinessPolicy.builder()
+ *       .deadline(Duration.ofMinutes(5))
+ *       .maxDelay(Duration.ofSeconds(1))
+ *       .build())
+ *     .build();
+ *
+ * }</pre>
+ */
+public final class ReadinessPolicy {
+
+  private static final System.Logger log = Commands.log;
+
+  private static final ReadinessPolicy DEFAULT = builder().build();
+
+  private static final AtomicInteger threadCounter = new AtomicInteger();
+
+  private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "readiness-probe-" + threadCounter.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final long deadlineMillis;
+  private final long initialDelayMillis;
+  private final long maxDelayMillis;
+  private final double multiplier;
+  private final double jitter;
+  private final long probeTimeoutMillis;
+  private final boolean learn;
+
+  private ReadinessPolicy(Builder builder) {
+    this.deadlineMillis = builder.deadlineMillis;
+    this.initialDelayMillis = builder.initialDelayMillis;
+    this.maxDelayMillis = builder.maxDelayMillis;
+    this.multiplier = builder.multiplier;
+    this.jitter = builder.jitter;
+    this.probeTimeoutMillis = builder.probeTimeoutMillis;
+    this.learn = builder.learn;
+  }
+
+  /**
+   * Return the default policy (deadline derived from maxReadyAttempts).
+   */
+  public static ReadinessPolicy defaultPolicy() {
+    return DEFAULT;
+  }
+
+  /**
+   * Return a builder for ReadinessPolicy.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public String toString() {
+    return "deadline:" + deadlineMillis + " initialDelay:" + initialDelayMillis + " maxDelay:" + maxDelayMillis
+      + " multiplier:" + multiplier + " jitter:" + jitter + " probeTimeout:" + probeTimeoutMillis + " learn:" + learn;
+  }
+
+  /**
+   * Return the deadline in millis (0 meaning derived from maxReadyAttempts).
+   */
+  public long deadlineMillis() {
+    return deadlineMillis;
+  }
+
+  /**
+   * Return the timeout in millis for each probe (0 for no timeout).
+   */
+  public long probeTimeoutMillis() {
+    return probeTimeoutMillis;
+  }
+
+  /**
+   * Poll the probe until it returns true or the deadline is reached.
+   *
+   * @param name                  The container name (for logging)
+   * @param key                   The key used to record and lookup the expected ready time
+   * @param defaultDeadlineMillis The deadline used when the policy does not define one
+   * @param probe                 The readiness probe
+   * @return true if the probe returned true before the deadline
+   */
+  boolean await(String name, String key, long defaultDeadlineMillis, BooleanSupplier probe) {
+    final long deadline = deadlineMillis > 0 ? deadlineMillis : defaultDeadlineMillis;
+    final long expected = learn ? ReadinessHistory.expected(key) : 0;
+    log.log(Level.DEBUG, "wait {0} {1} deadline:{2}ms expected:{3}ms", key, name, deadline, expected);
+    final long start = System.currentTimeMillis();
+    long nextLog = 10_000;
+    int attempt = 0;
+    int backoffAttempt = 0;
+    Probe running = new Probe(probe);
+    while (true) {
+      if (Thread.currentThread().isInterrupted()) {
+        // cancelled, for example by another container failing to start in parallel
+        return false;
+      }
+      if (running.probe()) {
+        long elapsed = System.currentTimeMillis() - start;
+        if (learn && attempt > 0) {
+          // only record when the container was not already ready
+          ReadinessHistory.record(key, elapsed);
+        }
+        log.log(Level.DEBUG, "ready {0} {1} in {2}ms attempts:{3}", key, name, elapsed, attempt + 1);
+        return true;
+      }
+      attempt++;
+      long elapsed = System.currentTimeMillis() - start;
+      if (elapsed >= deadline) {
+        log.log(Level.DEBUG, "not ready {0} {1} after {2}ms attempts:{3}", key, name, elapsed, attempt);
+        return false;
+      }
+      if (elapsed >= nextLog) {
+        log.log(Level.INFO, "waiting for {0} {1} elapsed {2}ms of {3}ms ... ", key, name, elapsed, deadline);
+        nextLog += 10_000;
+      }
+      boolean beforeExpected = expected > 0 && elapsed < expected;
+      long delay = delay(beforeExpected ? 0 : backoffAttempt++, elapsed, expected, ThreadLocalRandom.current().nextDouble());
+      try {
+        Thread.sleep(Math.max(1, Math.min(delay, deadline - elapsed)));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Return the delay before the next probe.
+   *
+   * @param attempt  The backoff attempt (since passing the expected ready time)
+   * @param elapsed  The elapsed time since polling started
+   * @param expected The expected ready time (0 when unknown)
+   * @param random   Random value between 0 and 1 used for jitter
+   */
+  long delay(int attempt, long elapsed, long expected, double random) {
+    long base;
+    if (expected > 0 && elapsed < expected) {
+      // sparse well before the expected ready time converging on it
+      base = Math.min(maxDelayMillis, Math.max(initialDelayMillis, (expected - elapsed) / 2));
+    } else {
+      base = (long) Math.min(maxDelayMillis, initialDelayMillis * Math.pow(multiplier, attempt));
+    }
+    long jittered = Math.round(base * (1 + jitter * (2 * random - 1)));
+    return Math.max(1, jittered);
+  }
+
+  /**
+   * Runs the probe with the probe timeout keeping track of a probe that has not completed.
+   */
+  private final class Probe {
+
+    private final BooleanSupplier probe;
+    private CompletableFuture<Boolean> future;
+
+    Probe(BooleanSupplier probe) {
+      this.probe = probe;
+    }
+
+    boolean probe() {
+      try {
+        if (probeTimeoutMillis <= 0) {
+          return probe.getAsBoolean();
+        }
+        if (future == null) {
+          future = CompletableFuture.supplyAsync(probe::getAsBoolean, executor);
+        }
+        try {
+          boolean ready = future.get(probeTimeoutMillis, TimeUnit.MILLISECONDS);
+          future = null;
+          return ready;
+        } catch (TimeoutException e) {
+          // keep waiting on this probe with the next poll, it is bounded by its own timeouts
+          log.log(Level.TRACE, "readiness probe timeout after {0}ms", probeTimeoutMillis);
+          return false;
+        } catch (ExecutionException e) {
+          future = null;
+          Throwable cause = e.getCause();
+          if (cause instanceof CommandException) {
+            return false;
+          }
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      } catch (CommandException e) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Builder for ReadinessPolicy.
+   */
+  public static final class Builder {
+
+    private long deadlineMillis;
+    private long initialDelayMillis = 10;
+    private long maxDelayMillis = 500;
+    private double multiplier = 1.5;
+    private double jitter = 0.2;
+    private long probeTimeoutMillis = 10_000;
+    private boolean learn = true;
+
+    private Builder() {
+    }
+
+    /**
+     * Set the overall deadline to wait for readiness.
+     * <p>
+     * When not set this is derived from maxReadyAttempts.
+     */
+    public Builder deadline(Duration deadline) {
+      this.deadlineMillis = deadline.toMillis();
+      return this;
+    }
+
+    /**
+     * Set the initial delay between probes (defaults to 10 millis).
+     */
+    public Builder initialDelay(Duration initialDelay) {
+      this.initialDelayMillis = initialDelay.toMillis();
+      return this;
+    }
+
+    /**
+     * Set the maximum delay between probes (defaults to 500 millis).
+     */
+    public Builder maxDelay(Duration maxDelay) {
+      this.maxDelayMillis = maxDelay.toMillis();
+      return this;
+    }
+
+    /**
+     * Set the backoff multiplier applied to the delay after each probe (defaults to 1.5).
+     */
+    public Builder multiplier(double multiplier) {
+      this.multiplier = multiplier;
+      return this;
+    }
+
+    /**
+     * Set the jitter as a fraction of the delay (defaults to 0.2 meaning +/- 20%).
+     */
+    public Builder jitter(double jitter) {
+      this.jitter = jitter;
+      return this;
+    }
+
+    /**
+     * Set the timeout for each probe (defaults to 10 seconds, zero for no timeout).
+     * <p>
+     * This is also used as the connect and read timeout of http probes and as the JDBC login
+     * timeout (unless one is already set via DriverManager).
+     */
+    public Builder probeTimeout(Duration probeTimeout) {
+      this.probeTimeoutMillis = probeTimeout.toMillis();
+      return this;
+    }
+
+    /**
+     * Set false to not use or record the expected ready times in ~/.ebean (defaults to true).
+     */
+    public Builder learn(boolean learn) {
+      this.learn = learn;
+      return this;
+    }
+
+    /**
+     * Build and return the ReadinessPolicy.
+     */
+    public ReadinessPolicy build() {
+      return new ReadinessPolicy(this);
+    }
+  }
+}
@@ -1,8 +1,6 @@
 package io.ebean.test.containers;
 
-import java.io.OutputStreamWriter;
 import java.util.List;
-import java.util.Locale;
 
 public class RedisContainer extends BaseContainer<RedisContainer> {
 
@@ -47,47 +45,20 @@ public class RedisContainer extends BaseContainer<RedisContainer> {
     }
   }
 
+  private final RedisPing ping = new RedisPing(1000);
+
   private RedisContainer(Builder builder) {
     super(builder);
   }
 
   @Override
   boolean checkConnectivity() {
-    String os = System.getProperty("os.name", "generic").toLowerCase(Locale.ENGLISH);
-    if (os.contains("win")) {
-      return doWindowsCheck();
-    }
-    try {
-      ProcessBuilder pb;
-      if (os.contains("mac")) {
-        pb = new ProcessBuilder("nc", config.getHost(), Integer.toString(config.getPort()));
-      } else {
-        pb = new ProcessBuilder("nc", config.getHost(), Integer.toString(config.getPort()), "-q", "0");
-      }
-      pb.redirectErrorStream(true);
-      Process process = pb.start();
-
-      OutputStreamWriter ow = new OutputStreamWriter(process.getOutputStream());
-      ow.write("PING");
-      ow.flush();
-      ow.close();
-
-      return process.waitFor() == 0;
-
-    } catch (Exception e) {
-      e.printStackTrace();
-      return false;
-    }
+    return ping.ping(config.getHost(), config.getPort());
   }
 
-  private boolean doWindowsCheck() {
-    try {
-      // Oh well ...
-      Thread.sleep(20);
-      return true;
-    } catch (Exception e) {
-      return true;
-    }
+  @Override
+  String defaultHealthCmd() {
+    return "redis-cli ping | grep -q PONG";
   }
 
   protected ProcessBuilder runProcess() {
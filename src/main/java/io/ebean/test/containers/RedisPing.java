@@ -0,0 +1,84 @@
+package io.ebean.test.containers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.System.Logger.Level;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Redis readiness probe sending a RESP <code>PING</code> over a SocketChannel and expecting <code>+PONG</code>.
+ * <p>
+ * The request, response buffer and address are reused across probes such that a failed
+ * probe only allocates the channel.
+ */
+final class RedisPing {
+
+  private static final System.Logger log = Commands.log;
+
+  private static final byte[] PING = "*1\r\n$4\r\nPING\r\n".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] PONG = "+PONG".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] NOAUTH = "-NOAUTH".getBytes(StandardCharsets.US_ASCII);
+
+  private final ByteBuffer request = ByteBuffer.wrap(PING).asReadOnlyBuffer();
+  private final byte[] response = new byte[128];
+  private final int timeoutMillis;
+  private InetSocketAddress address;
+
+  RedisPing(int timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Return true if redis at the given host and port responds to PING.
+   */
+  synchronized boolean ping(String host, int port) {
+    if (address == null || address.getPort() != port || !address.getHostString().equals(host)) {
+      address = new InetSocketAddress(host, port);
+    }
+    request.rewind();
+    try (SocketChannel channel = SocketChannel.open()) {
+      Socket socket = channel.socket();
+      socket.connect(address, timeoutMillis);
+      socket.setSoTimeout(timeoutMillis);
+      while (request.hasRemaining()) {
+        channel.write(request);
+      }
+      return readReply(socket.getInputStream());
+    } catch (IOException e) {
+      log.log(Level.TRACE, "redis ping failed {0}", e.getMessage());
+      return false;
+    }
+  }
+
+  private boolean readReply(InputStream in) throws IOException {
+    int length = 0;
+    while (length < response.length) {
+      int count = in.read(response, length, response.length - length);
+      if (count < 0) {
+        return false;
+      }
+      length += count;
+      if (response[length - 1] == '\n') {
+        // a reply like -LOADING means redis is not ready yet, NOAUTH means ready requiring auth
+        return startsWith(PONG, length) || startsWith(NOAUTH, length);
+      }
+    }
+    return false;
+  }
+
+  private boolean startsWith(byte[] prefix, int length) {
+    if (length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (response[i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
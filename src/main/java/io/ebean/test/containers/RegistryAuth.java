@@ -0,0 +1,132 @@
+package io.ebean.test.containers;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Registry credentials from the docker config (<code>~/.docker/config.json</code> or
+ * <code>$DOCKER_CONFIG/config.json</code>) used to pull images via the Docker Engine API.
+ * <p>
+ * The Engine API does not read the docker config, the client sends the credentials of the
+ * registry in the <code>X-Registry-Auth</code> header. Credentials stored inline (via
+ * <code>docker login</code> without a credential store) are sent in that header. Credentials
+ * held by a credential helper (for example <code>docker-credential-ecr-login</code> or the
+ * desktop keychain) can only be obtained by the docker CLI so those images are pulled via the CLI.
+ */
+final class RegistryAuth {
+
+  private static final System.Logger log = Commands.log;
+
+  static final String DOCKER_HUB = "https://index.docker.io/v1/";
+
+  private final Map<String, Object> config;
+
+  RegistryAuth(Map<String, Object> config) {
+    this.config = config;
+  }
+
+  /**
+   * Read the docker config returning empty credentials when there is none.
+   */
+  static RegistryAuth read() {
+    String dir = System.getenv("DOCKER_CONFIG");
+    File file = dir == null || dir.isBlank() ? new File(System.getProperty("user.home"), ".docker/config.json") : new File(dir, "config.json");
+    if (!file.exists()) {
+      return new RegistryAuth(Map.of());
+    }
+    try {
+      return new RegistryAuth(Json.parseObject(Files.readString(file.toPath(), StandardCharsets.UTF_8)));
+    } catch (IOException | IllegalArgumentException e) {
+      log.log(Level.DEBUG, "Unable to read docker config " + file + " " + e);
+      return new RegistryAuth(Map.of());
+    }
+  }
+
+  /**
+   * Return the registry of the image as used as the key of the docker config auths.
+   */
+  static String registry(String image) {
+    int slash = image.indexOf('/');
+    if (slash > -1) {
+      String first = image.substring(0, slash);
+      if (first.contains(".") || first.contains(":") || first.equals("localhost")) {
+        return first;
+      }
+    }
+    return DOCKER_HUB;
+  }
+
+  /**
+   * Return true if the credentials of the registry are held by a credential helper.
+   */
+  boolean credentialHelper(String registry) {
+    if (Json.string(Json.object(config, "credHelpers"), registry) != null) {
+      return true;
+    }
+    String store = Json.string(config, "credsStore");
+    return store != null && !store.isBlank() && auth(registry) == null;
+  }
+
+  /**
+   * Return the value of the X-Registry-Auth header for the registry or null to pull anonymously.
+   */
+  String header(String registry) {
+    Map<String, Object> auth = auth(registry);
+    if (auth == null) {
+      return null;
+    }
+    String json;
+    String token = Json.string(auth, "identitytoken");
+    String encoded = Json.string(auth, "auth");
+    if (token != null && !token.isBlank()) {
+      json = "{\"identitytoken\":" + quote(token) + ",\"serveraddress\":" + quote(registry) + "}";
+    } else if (encoded != null && !encoded.isBlank()) {
+      String credentials = new String(Base64.getDecoder().decode(encoded.trim()), StandardCharsets.UTF_8);
+      int colon = credentials.indexOf(':');
+      if (colon == -1) {
+        return null;
+      }
+      json = "{\"username\":" + quote(credentials.substring(0, colon)) + ",\"password\":" + quote(credentials.substring(colon + 1))
+        + ",\"serveraddress\":" + quote(registry) + "}";
+    } else {
+      return null;
+    }
+    return Base64.getUrlEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Map<String, Object> auth(String registry) {
+    Map<String, Object> auths = Json.object(config, "auths");
+    if (auths == null) {
+      return null;
+    }
+    Map<String, Object> auth = Json.object(auths, registry);
+    if (auth == null) {
+      auth = Json.object(auths, "https://" + registry);
+    }
+    if (auth == null || (Json.string(auth, "auth") == null && Json.string(auth, "identitytoken") == null)) {
+      // an empty entry means the credentials are in the credential store
+      return null;
+    }
+    return auth;
+  }
+
+  private static String quote(String value) {
+    StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        sb.append('\\').append(ch);
+      } else if (ch < 0x20) {
+        sb.append(String.format("\\u%04x", (int) ch));
+      } else {
+        sb.append(ch);
+      }
+    }
+    return sb.append('"').toString();
+  }
+}
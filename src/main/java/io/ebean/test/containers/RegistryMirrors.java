@@ -0,0 +1,249 @@
+package io.ebean.test.containers;
+
+import java.lang.System.Logger.Level;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Orders the registry mirrors to pull an image from when more than one mirror is configured.
+ * <p>
+ * The order is determined when the image is about to be pulled (it is missing locally). Each
+ * mirror is probed concurrently with a HEAD request on the manifest endpoint of the image
+ * (<code>/v2/{name}/manifests/{reference}</code>) with a short timeout. The mirrors that respond
+ * are ordered fastest first and those that fail, time out or do not have the image (404) are
+ * dropped (unless none respond). The image without a mirror (typically Docker Hub) is the last
+ * fallback.
+ * <p>
+ * The response time of each registry host is kept per JVM such that the mirrors of other images
+ * are ordered without probing again. As that is only latency, mirrors are not dropped for not
+ * having the image when using it, a pull that fails uses the next mirror.
+ */
+final class RegistryMirrors {
+
+  private static final System.Logger log = Commands.log;
+
+  private static final Duration PROBE_TIMEOUT = Duration.ofMillis(Long.getLong("ebean.test.containers.mirrorProbeMillis", 2000));
+
+  private static final String MANIFEST_TYPES = "application/vnd.oci.image.index.v1+json,"
+    + " application/vnd.oci.image.manifest.v1+json,"
+    + " application/vnd.docker.distribution.manifest.list.v2+json,"
+    + " application/vnd.docker.distribution.manifest.v2+json";
+
+  /**
+   * The response time in millis by registry host, -1 when it did not respond.
+   */
+  private static final Map<String, Long> latency = new ConcurrentHashMap<>();
+
+  private RegistryMirrors() {
+  }
+
+  /**
+   * Return the images to try in the configured order, the image via each mirror and then the image itself.
+   */
+  static List<String> images(List<String> mirrors, String image) {
+    Set<String> images = new LinkedHashSet<>();
+    for (String mirror : mirrors) {
+      images.add(BaseBuilder.imageWithMirror(mirror, image));
+    }
+    images.add(image);
+    return new ArrayList<>(images);
+  }
+
+  /**
+   * Return the images to pull in order given the images via each mirror followed by the image without a mirror.
+   * <p>
+   * With more than one mirror they are ordered fastest first, probing the mirrors unless the
+   * response times of their registries are already known.
+   */
+  static List<String> order(List<String> images) {
+    if (images.size() < 3) {
+      return images;
+    }
+    List<String> mirrored = images.subList(0, images.size() - 1);
+    List<String> order = latencyKnown(mirrored) ? orderByLatency(mirrored) : probe(mirrored);
+    List<String> result = new ArrayList<>(order);
+    result.add(images.get(images.size() - 1));
+    return result;
+  }
+
+  /**
+   * Return the mirror the image is pulled from or null if it is not from one of the mirrors.
+   */
+  static String mirrorOf(String mirrors, String image) {
+    for (String mirror : TrimSplit.split(mirrors)) {
+      String prefix = mirror.endsWith("/") ? mirror : mirror + "/";
+      if (image.startsWith(prefix)) {
+        return mirror;
+      }
+    }
+    return null;
+  }
+
+  private static boolean latencyKnown(List<String> images) {
+    for (String image : images) {
+      if (!latency.containsKey(registry(image))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return the images ordered by the known response time of their registry dropping those not responding.
+   */
+  private static List<String> orderByLatency(List<String> images) {
+    List<String> order = new ArrayList<>();
+    images.stream()
+      .filter(image -> latency.get(registry(image)) >= 0)
+      .sorted(Comparator.comparingLong(image -> latency.get(registry(image))))
+      .forEach(order::add);
+    return order.isEmpty() ? images : order;
+  }
+
+  /**
+   * Probe the mirrors of the image concurrently returning the images of those that responded fastest first.
+   */
+  private static List<String> probe(List<String> images) {
+    HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(PROBE_TIMEOUT)
+      .followRedirects(HttpClient.Redirect.NORMAL)
+      .build();
+    List<CompletableFuture<Probe>> futures = new ArrayList<>();
+    for (String image : images) {
+      futures.add(probe(client, image));
+    }
+    List<Probe> probes = new ArrayList<>();
+    for (CompletableFuture<Probe> future : futures) {
+      Probe probe = future.join();
+      latency.put(registry(probe.image), probe.responded() ? probe.millis : -1);
+      probes.add(probe);
+    }
+    List<String> order = fastest(probes);
+    if (order.isEmpty()) {
+      log.log(Level.WARNING, "No registry mirror responded " + probes + " using them in the configured order");
+      return images;
+    }
+    log.log(Level.INFO, "Using registry mirror {0} probes {1}", order.get(0), probes);
+    return order;
+  }
+
+  /**
+   * Return the images of the mirrors that responded ordered fastest first.
+   */
+  static List<String> fastest(List<Probe> probes) {
+    List<String> order = new ArrayList<>();
+    probes.stream()
+      .filter(Probe::healthy)
+      .sorted(Comparator.comparingLong(Probe::millis))
+      .forEach(probe -> order.add(probe.image));
+    return order;
+  }
+
+  private static CompletableFuture<Probe> probe(HttpClient client, String image) {
+    long start = System.nanoTime();
+    try {
+      HttpRequest request = HttpRequest.newBuilder(manifestUri(image))
+        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+        .header("Accept", MANIFEST_TYPES)
+        .timeout(PROBE_TIMEOUT)
+        .build();
+      return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+        .handle((response, e) -> new Probe(image, response == null ? 0 : response.statusCode(), (System.nanoTime() - start) / 1_000_000));
+    } catch (IllegalArgumentException e) {
+      log.log(Level.DEBUG, "Invalid registry mirror image " + image + " " + e);
+      return CompletableFuture.completedFuture(new Probe(image, 0, 0));
+    }
+  }
+
+  /**
+   * Return the registry host (and port) of the image.
+   */
+  static String registry(String image) {
+    int slash = image.indexOf('/');
+    return slash == -1 ? image : image.substring(0, slash);
+  }
+
+  /**
+   * Return the URI of the manifest endpoint of the image (registry/name[:tag|@digest]).
+   */
+  static URI manifestUri(String image) {
+    int slash = image.indexOf('/');
+    if (slash == -1) {
+      throw new IllegalArgumentException("No registry in image " + image);
+    }
+    String registry = image.substring(0, slash);
+    String name = image.substring(slash + 1);
+    String reference = "latest";
+    int at = name.indexOf('@');
+    if (at > -1) {
+      reference = name.substring(at + 1);
+      name = name.substring(0, at);
+    } else {
+      int colon = name.lastIndexOf(':');
+      if (colon > name.lastIndexOf('/')) {
+        reference = name.substring(colon + 1);
+        name = name.substring(0, colon);
+      }
+    }
+    // like docker, a registry on localhost is plain http
+    String scheme = registry.startsWith("localhost") || registry.startsWith("127.0.0.1") ? "http" : "https";
+    return URI.create(scheme + "://" + registry + "/v2/" + name + "/manifests/" + reference);
+  }
+
+  /**
+   * Clear the known response times (testing only).
+   */
+  static void reset() {
+    latency.clear();
+  }
+
+  /**
+   * The result of probing a mirror.
+   */
+  static final class Probe {
+
+    private final String image;
+    private final int status;
+    private final long millis;
+
+    Probe(String image, int status, long millis) {
+      this.image = image;
+      this.status = status;
+      this.millis = millis;
+    }
+
+    @Override
+    public String toString() {
+      return image + " status:" + status + " millis:" + millis;
+    }
+
+    /**
+     * Return true if the registry responded (with or without the image).
+     */
+    boolean responded() {
+      return status > 0 && status < 500;
+    }
+
+    /**
+     * Return true if the registry responded and has the image (401 and 403 without credentials are expected).
+     */
+    boolean healthy() {
+      return responded() && status != 404;
+    }
+
+    long millis() {
+      return millis;
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package io.ebean.test.containers;
+
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single JVM shutdown hook that stops/removes all the registered containers.
+ * <p>
+ * Rather than a shutdown hook per container each stopping its container in turn, the containers
+ * are stopped using one batched <code>docker stop --time</code> and removed using one batched
+ * <code>docker rm -f</code> per docker command, with any containers that have custom stop
+ * logic stopped in parallel. The overall shutdown is bounded by a deadline.
+ * <p>
+ * Containers that are kept (StopMode.Stop) get docker's default grace period such that the
+ * database can shut down cleanly and be started again. This is a trade-off, a kept container
+ * that does not stop within the grace period adds it to the JVM shutdown while killing it risks
+ * an unclean restart. Containers that are also removed, including random port containers that
+ * are run with <code>--rm</code>, are discarded so they are killed without a grace period by
+ * <code>docker rm -f</code>.
+ * <p>
+ * System properties:
+ * <ul>
+ *   <li><code>ebean.test.containers.stopTime</code> - grace period in seconds before docker kills a stopped container (default 10)</li>
+ *   <li><code>ebean.test.containers.shutdownTimeoutMillis</code> - overall deadline to stop all containers (default stopTime plus 5 seconds)</li>
+ * </ul>
+ */
+final class ShutdownCoordinator {
+
+  private static final System.Logger log = Commands.log;
+
+  private static final ShutdownCoordinator INSTANCE = new ShutdownCoordinator(true);
+
+  private static final AtomicInteger threadCounter = new AtomicInteger();
+
+  private final boolean addHook;
+  private final List<Registration> registrations = new ArrayList<>();
+  private final int stopTimeSeconds;
+  private final long timeoutMillis;
+  private boolean hookAdded;
+
+  ShutdownCoordinator(boolean addHook) {
+    this(addHook, Integer.getInteger("ebean.test.containers.stopTime", 10));
+  }
+
+  private ShutdownCoordinator(boolean addHook, int stopTimeSeconds) {
+    this(addHook, stopTimeSeconds, Long.getLong("ebean.test.containers.shutdownTimeoutMillis", stopTimeSeconds * 1000L + 5_000));
+  }
+
+  ShutdownCoordinator(boolean addHook, int stopTimeSeconds, long timeoutMillis) {
+    this.addHook = addHook;
+    this.stopTimeSeconds = stopTimeSeconds;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Register the container to be stopped on JVM shutdown.
+   */
+  static void register(Registration registration) {
+    INSTANCE.add(registration);
+  }
+
+  synchronized void add(Registration registration) {
+    for (Registration existing : registrations) {
+      if (existing.containerName.equals(registration.containerName) && existing.docker.equals(registration.docker)) {
+        // already registered
+        return;
+      }
+    }
+    registrations.add(registration);
+    if (addHook && !hookAdded) {
+      hookAdded = true;
+      Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "ebean-containers-shutdown"));
+    }
+  }
+
+  private synchronized List<Registration> registrations() {
+    return new ArrayList<>(registrations);
+  }
+
+  /**
+   * Stop all the registered containers waiting up to the deadline.
+   *
+   * @return true if all the containers were stopped within the deadline
+   */
+  boolean shutdown() {
+    List<Registration> list = registrations();
+    if (list.isEmpty()) {
+      return true;
+    }
+    long start = System.currentTimeMillis();
+    CompletableFuture<Void> future = CompletableFuture.runAsync(() -> stopAll(list), ShutdownCoordinator::daemonThread);
+    try {
+      future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+      log.log(Level.DEBUG, "Stopped {0} containers in {1}ms", list.size(), System.currentTimeMillis() - start);
+      return true;
+    } catch (TimeoutException e) {
+      log.log(Level.INFO, "Stopping containers exceeded shutdown timeout of {0}ms", timeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      log.log(Level.ERROR, "Error stopping containers", e.getCause());
+    }
+    return false;
+  }
+
+  private static void daemonThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "ebean-containers-stop-" + threadCounter.incrementAndGet());
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void stopAll(List<Registration> list) {
+    List<String> leased = new ArrayList<>();
+    for (Registration registration : list) {
+      if (registration.lease != null) {
+        leased.add(registration.containerName);
+      }
+    }
+    // stop holding the container locks such that another JVM does not start them concurrently
+    ContainerLease.withLocks(leased, () -> {
+      stopUnleased(list);
+      return null;
+    });
+  }
+
+  private void stopUnleased(List<Registration> list) {
+    String ignoreFile = SkipShutdown.isSkip() ? "" : ", No marker file: " + SkipShutdown.ignoreMarkerFile();
+    Map<String, Batch> batches = new LinkedHashMap<>();
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (Registration registration : list) {
+      if (registration.lease != null) {
+        int others = registration.lease.release();
+        if (others > 0) {
+          log.log(Level.INFO, "Not stopping container {0} as still used by {1} other JVM(s)", registration.containerName, others);
+          continue;
+        }
+      }
+      if (registration.customStop != null) {
+        futures.add(CompletableFuture.runAsync(registration.customStop, ShutdownCoordinator::daemonThread));
+      } else {
+        batches.computeIfAbsent(registration.docker, docker -> new Batch(registration.commands)).add(registration);
+      }
+    }
+    for (Batch batch : batches.values()) {
+      if (!batch.stop.isEmpty()) {
+        log.log(Level.INFO, "Stop containers {0}{1}", batch.stop, ignoreFile);
+        futures.add(CompletableFuture.runAsync(() -> batch.commands.stopContainers(stopTimeSeconds, batch.stop), ShutdownCoordinator::daemonThread));
+      }
+      if (!batch.remove.isEmpty()) {
+        // rm -f kills and removes so no prior stop is needed
+        log.log(Level.INFO, "Stop remove containers {0}{1}", batch.remove, ignoreFile);
+        futures.add(CompletableFuture.runAsync(() -> batch.commands.removeContainers(batch.remove.toArray(new String[0])), ShutdownCoordinator::daemonThread));
+      }
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+  }
+
+  /**
+   * The containers to stop and remove for a given docker command.
+   */
+  private static final class Batch {
+
+    final Commands commands;
+    final List<String> stop = new ArrayList<>();
+    final List<String> remove = new ArrayList<>();
+
+    Batch(Commands commands) {
+      this.commands = commands;
+    }
+
+    void add(Registration registration) {
+      if (registration.mode == StopMode.Remove) {
+        remove.add(registration.containerName);
+      } else {
+        stop.add(registration.containerName);
+      }
+    }
+  }
+
+  /**
+   * A container to stop on shutdown.
+   */
+  static final class Registration {
+
+    final String containerName;
+    final String docker;
+    final Commands commands;
+    final StopMode mode;
+    final ContainerLease lease;
+    final Runnable customStop;
+
+    /**
+     * Create with the container name (or id) and mode, with a customStop when the container
+     * can not be stopped by a batched docker stop/rm.
+     */
+    Registration(String containerName, String docker, Commands commands, StopMode mode, ContainerLease lease, Runnable customStop) {
+      this.containerName = containerName;
+      this.docker = docker;
+      this.commands = commands;
+      this.mode = mode;
+      this.lease = lease;
+      this.customStop = customStop;
+    }
+  }
+}
@@ -0,0 +1,276 @@
+package io.ebean.test.containers;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the statements of a SQL script incrementally such that large scripts are not loaded into memory.
+ * <p>
+ * Statements are separated by the delimiter (default <code>;</code>) ignoring delimiters in comments,
+ * quoted strings and identifiers, and Postgres dollar quoted strings. A line containing only
+ * <code>/</code> or <code>GO</code> also ends the statement. The delimiter can be changed via
+ * <code>DELIMITER //</code> (MySQL) or <code>--#SET TERMINATOR @</code> (DB2).
+ * <p>
+ * With blocks enabled (Oracle, DB2, SqlServer) statements that start a procedural block like
+ * <code>BEGIN</code>, <code>DECLARE</code> or <code>CREATE PROCEDURE</code> include the delimiters
+ * in their body and end at a <code>/</code> or <code>GO</code> line (or an explicitly set delimiter).
+ */
+final class SqlScriptReader implements Closeable {
+
+  private static final Pattern SEPARATOR_LINE = Pattern.compile("(?i)(/|GO(\\s+\\d+)?)");
+  private static final Pattern BLOCK_START = Pattern.compile(
+    "(?is)(BEGIN(?!\\s+TRAN)|DECLARE|CREATE\\s+(OR\\s+(REPLACE|ALTER)\\s+)?((NON)?EDITIONABLE\\s+)?(PROC|PROCEDURE|FUNCTION|PACKAGE|TRIGGER|TYPE\\s+BODY))\\b.*");
+
+  private final BufferedReader reader;
+  private final boolean blocks;
+  private final boolean backslashEscapes;
+  private final StringBuilder sb = new StringBuilder(256);
+  private final Deque<String> statements = new ArrayDeque<>();
+  private final Deque<Integer> statementLines = new ArrayDeque<>();
+  private String delimiter = ";";
+  private int lineNumber;
+  private int startLine;
+  private int lastLine;
+  private boolean eof;
+
+  // scan state carried across lines
+  private char quote;
+  private boolean escapes;
+  private String dollarTag;
+  private int commentDepth;
+  private boolean keepComment;
+  private boolean block;
+
+  /**
+   * Create with blocks (Oracle, DB2, SqlServer) and backslash escapes in strings (MySQL) as supported by the platform.
+   */
+  SqlScriptReader(Reader reader, boolean blocks, boolean backslashEscapes) {
+    this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    this.blocks = blocks;
+    this.backslashEscapes = backslashEscapes;
+  }
+
+  /**
+   * Return the next statement without the delimiter or null at the end of the script.
+   */
+  String next() throws IOException {
+    while (statements.isEmpty() && !eof) {
+      String line = reader.readLine();
+      if (line == null) {
+        eof = true;
+        complete();
+      } else {
+        lineNumber++;
+        scanLine(line);
+      }
+    }
+    if (statements.isEmpty()) {
+      return null;
+    }
+    lastLine = statementLines.removeFirst();
+    return statements.removeFirst();
+  }
+
+  /**
+   * Return the line number the last statement returned by {@link #next()} started on.
+   */
+  int lineNumber() {
+    return lastLine;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private boolean inText() {
+    return quote != 0 || dollarTag != null || commentDepth > 0;
+  }
+
+  private void scanLine(String line) {
+    if (!inText()) {
+      String trimmed = line.trim();
+      if (SEPARATOR_LINE.matcher(trimmed).matches()) {
+        complete();
+        return;
+      }
+      if (sb.length() == 0 && setDelimiter(trimmed)) {
+        return;
+      }
+    }
+    final int length = line.length();
+    int i = 0;
+    while (i < length) {
+      char ch = line.charAt(i);
+      char next = i + 1 < length ? line.charAt(i + 1) : 0;
+      if (commentDepth > 0) {
+        i = scanComment(ch, next, i);
+      } else if (dollarTag != null) {
+        if (line.startsWith(dollarTag, i)) {
+          append(dollarTag);
+          i += dollarTag.length();
+          dollarTag = null;
+        } else {
+          append(ch);
+          i++;
+        }
+      } else if (quote != 0) {
+        append(ch);
+        if (escapes && ch == '\\' && next != 0) {
+          append(next);
+          i += 2;
+        } else if (ch == quote && next == quote) {
+          append(next);
+          i += 2;
+        } else {
+          if (ch == quote) {
+            quote = 0;
+          }
+          i++;
+        }
+      } else if (ch == '-' && next == '-') {
+        // line comment
+        break;
+      } else if (ch == '/' && next == '*') {
+        // keep optimizer hints and MySQL conditional comments
+        char marker = i + 2 < length ? line.charAt(i + 2) : 0;
+        keepComment = marker == '+' || marker == '!';
+        commentDepth = 1;
+        if (keepComment) {
+          append("/*");
+        }
+        i += 2;
+      } else if (ch == '\'' || ch == '"' || ch == '`') {
+        escapes = (backslashEscapes && ch != '`') || (ch == '\'' && escapeString(line, i));
+        quote = ch;
+        append(ch);
+        i++;
+      } else if (ch == '$' && (dollarTag = dollarTag(line, i)) != null) {
+        append(dollarTag);
+        i += dollarTag.length();
+      } else if (line.startsWith(delimiter, i)) {
+        if (blocks && !block && ";".equals(delimiter) && BLOCK_START.matcher(sb).matches()) {
+          block = true;
+        }
+        if (block) {
+          append(delimiter);
+        } else {
+          complete();
+        }
+        i += delimiter.length();
+      } else {
+        append(ch);
+        i++;
+      }
+    }
+    if (sb.length() > 0) {
+      sb.append('\n');
+    }
+  }
+
+  private int scanComment(char ch, char next, int i) {
+    if (ch == '*' && next == '/') {
+      if (keepComment) {
+        append("*/");
+      }
+      if (--commentDepth == 0) {
+        keepComment = false;
+      }
+      return i + 2;
+    }
+    if (ch == '/' && next == '*') {
+      // Postgres supports nested comments
+      commentDepth++;
+      return i + 2;
+    }
+    if (keepComment) {
+      append(ch);
+    }
+    return i + 1;
+  }
+
+  private boolean setDelimiter(String trimmed) {
+    String upper = trimmed.toUpperCase(Locale.ROOT);
+    if (upper.startsWith("DELIMITER ")) {
+      delimiter = trimmed.substring(10).trim();
+      return true;
+    }
+    if (upper.startsWith("--#SET TERMINATOR ")) {
+      delimiter = trimmed.substring(18).trim();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Return true for a Postgres E'...' string that supports backslash escapes.
+   */
+  private static boolean escapeString(String line, int quotePos) {
+    if (quotePos == 0) {
+      return false;
+    }
+    char prefix = line.charAt(quotePos - 1);
+    return (prefix == 'E' || prefix == 'e') && (quotePos == 1 || !identifierChar(line.charAt(quotePos - 2)));
+  }
+
+  /**
+   * Return the dollar quote tag (like <code>$$</code> or <code>$body$</code>) starting at the position or null.
+   */
+  static String dollarTag(String line, int start) {
+    if (start > 0 && identifierChar(line.charAt(start - 1))) {
+      // part of an identifier like v$session
+      return null;
+    }
+    int end = start + 1;
+    while (end < line.length()) {
+      char ch = line.charAt(end);
+      if (ch == '$') {
+        return line.substring(start, end + 1);
+      }
+      boolean valid = end == start + 1 ? Character.isLetter(ch) || ch == '_' : identifierChar(ch);
+      if (!valid) {
+        // for example a $1 parameter
+        return null;
+      }
+      end++;
+    }
+    return null;
+  }
+
+  private static boolean identifierChar(char ch) {
+    return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$';
+  }
+
+  private void append(char ch) {
+    if (sb.length() == 0) {
+      if (Character.isWhitespace(ch)) {
+        return;
+      }
+      startLine = lineNumber;
+    }
+    sb.append(ch);
+  }
+
+  private void append(String text) {
+    if (sb.length() == 0) {
+      startLine = lineNumber;
+    }
+    sb.append(text);
+  }
+
+  private void complete() {
+    String statement = sb.toString().trim();
+    sb.setLength(0);
+    block = false;
+    if (!statement.isEmpty()) {
+      statements.add(statement);
+      statementLines.add(startLine);
+    }
+  }
+}
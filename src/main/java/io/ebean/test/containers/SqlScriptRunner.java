@@ -0,0 +1,162 @@
+package io.ebean.test.containers;
+
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Runs the statements of a SQL script over JDBC.
+ * <p>
+ * Consecutive insert, update and delete statements are executed using JDBC batches such that
+ * large seed scripts take few round trips. Like <code>psql -f</code> a failing statement is
+ * logged and the script continues with the next statement.
+ * <p>
+ * Drivers differ in what a failing batch applies (Postgres rolls back the whole batch while
+ * MySQL, SQL Server and Oracle stop at the failed statement). With autocommit each batch is
+ * executed in a transaction that is rolled back when the batch fails and the statements of
+ * the batch are then executed one at a time such that each failing statement is reported
+ * and the others are applied.
+ */
+final class SqlScriptRunner {
+
+  private static final System.Logger log = Commands.log;
+
+  private final String name;
+  private final int batchSize;
+  private final int[] batchLines;
+  private final String[] batchSql;
+  private int batchCount;
+  private int statementCount;
+  private int errorCount;
+
+  SqlScriptRunner(String name, int batchSize) {
+    this.name = name;
+    this.batchSize = batchSize;
+    this.batchLines = new int[batchSize];
+    this.batchSql = new String[batchSize];
+  }
+
+  /**
+   * Run the script returning the number of statements that failed.
+   */
+  int run(Connection connection, SqlScriptReader script) throws SQLException, IOException {
+    try (Statement statement = connection.createStatement()) {
+      String sql;
+      while ((sql = script.next()) != null) {
+        statementCount++;
+        if (isBatchable(sql)) {
+          statement.addBatch(sql);
+          batchSql[batchCount] = sql;
+          batchLines[batchCount++] = script.lineNumber();
+          if (batchCount == batchSize) {
+            executeBatch(connection, statement);
+          }
+        } else {
+          executeBatch(connection, statement);
+          execute(statement, sql, script.lineNumber());
+        }
+      }
+      executeBatch(connection, statement);
+    }
+    log.log(Level.DEBUG, "executed {0} statements of {1} with {2} errors", statementCount, name, errorCount);
+    return errorCount;
+  }
+
+  /**
+   * Return the number of statements executed.
+   */
+  int statementCount() {
+    return statementCount;
+  }
+
+  /**
+   * Return true for plain DML that can be executed in a batch.
+   */
+  static boolean isBatchable(String sql) {
+    int end = 0;
+    while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+      end++;
+    }
+    switch (sql.substring(0, end).toLowerCase(Locale.ROOT)) {
+      case "insert":
+      case "update":
+      case "delete":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private void execute(Statement statement, String sql, int lineNumber) {
+    try {
+      statement.execute(sql);
+    } catch (SQLException e) {
+      error(lineNumber, e);
+    }
+  }
+
+  private void executeBatch(Connection connection, Statement statement) throws SQLException {
+    if (batchCount == 0) {
+      return;
+    }
+    final boolean autoCommit = connection.getAutoCommit();
+    try {
+      if (autoCommit) {
+        connection.setAutoCommit(false);
+      }
+      statement.executeBatch();
+      if (autoCommit) {
+        connection.commit();
+      }
+    } catch (BatchUpdateException e) {
+      statement.clearBatch();
+      if (autoCommit) {
+        // nothing of the batch is applied, execute the statements one at a time
+        connection.rollback();
+        connection.setAutoCommit(true);
+        executeEach(statement, 0);
+      } else {
+        // the driver may have applied the statements before the failed one
+        int failed = failedIndex(e.getUpdateCounts());
+        error(batchLines[failed], e);
+        executeEach(statement, failed + 1);
+      }
+    } finally {
+      statement.clearBatch();
+      if (autoCommit && !connection.getAutoCommit()) {
+        connection.setAutoCommit(true);
+      }
+      batchCount = 0;
+    }
+  }
+
+  private void executeEach(Statement statement, int from) {
+    for (int i = from; i < batchCount; i++) {
+      execute(statement, batchSql[i], batchLines[i]);
+    }
+  }
+
+  /**
+   * Return the index of the failed statement, drivers either stop at the failed statement or mark it as failed.
+   */
+  private int failedIndex(int[] updateCounts) {
+    if (updateCounts == null) {
+      return 0;
+    }
+    for (int i = 0; i < updateCounts.length; i++) {
+      if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+        return i;
+      }
+    }
+    return Math.min(updateCounts.length, batchCount - 1);
+  }
+
+  private void error(int lineNumber, SQLException e) {
+    errorCount++;
+    log.log(Level.ERROR, "Error executing sql file " + name + " statement at line " + lineNumber + " - " + e.getMessage());
+  }
+}
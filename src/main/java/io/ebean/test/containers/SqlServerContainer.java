@@ -1,9 +1,12 @@
 package io.ebean.test.containers;
 
+import java.io.Reader;
 import java.lang.System.Logger.Level;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Commands for controlling a SqlServer docker container.
@@ -162,6 +165,7 @@ public class SqlServerContainer extends BaseJdbcContainer<SqlServerContainer> {
   private void createDatabase(Connection connection) {
     if (!databaseExists(connection, dbConfig.getDbName())) {
       createDatabase(connection, dbConfig.getDbName());
+      databaseCreated = true;
     }
   }
 
@@ -179,6 +183,10 @@ public class SqlServerContainer extends BaseJdbcContainer<SqlServerContainer> {
 
   private void createDatabase(Connection connection, String dbName) {
     sqlRun(connection, "create database " + dbName);
+    if (testFast()) {
+      // commits return before the log is flushed, tests do not need crash safety
+      sqlRun(connection, "alter database " + dbName + " set delayed_durability = forced");
+    }
   }
 
   private void createLogin(Connection connection, String login, String pass) {
@@ -229,6 +237,62 @@ public class SqlServerContainer extends BaseJdbcContainer<SqlServerContainer> {
     return sqlHasRow(connection, "select 1 from sys.databases where name='" + dbName + "'");
   }
 
+  /**
+   * Truncate is not allowed on tables referenced by foreign keys so those are deleted in foreign key order.
+   * <p>
+   * Delete does not reset identity columns (as truncate does) so those tables are reseeded with
+   * <code>DBCC CHECKIDENT</code> such that the next identity is the seed. Tables that have never had
+   * rows inserted are not reseeded as they already start at the seed.
+   */
+  @Override
+  List<String> resetDataSql(Connection connection) throws SQLException {
+    List<String> tables = resetTables(sqlRows(connection, "select quotename(s.name) + '.' + quotename(t.name), t.name" +
+      " from sys.tables t join sys.schemas s on s.schema_id = t.schema_id where t.is_ms_shipped = 0"), 1);
+    if (tables.isEmpty()) {
+      return List.of();
+    }
+    TableOrder order = new TableOrder(tables);
+    for (String[] reference : sqlRows(connection, "select quotename(cs.name) + '.' + quotename(c.name), quotename(ps.name) + '.' + quotename(p.name)" +
+      " from sys.foreign_keys fk" +
+      " join sys.tables c on c.object_id = fk.parent_object_id join sys.schemas cs on cs.schema_id = c.schema_id" +
+      " join sys.tables p on p.object_id = fk.referenced_object_id join sys.schemas ps on ps.schema_id = p.schema_id")) {
+      order.reference(reference[0], reference[1]);
+    }
+    Map<String, String> reseed = new HashMap<>();
+    for (String[] identity : sqlRows(connection, "select quotename(s.name) + '.' + quotename(t.name)," +
+      " cast(cast(ic.seed_value as bigint) - cast(ic.increment_value as bigint) as varchar(20))" +
+      " from sys.identity_columns ic" +
+      " join sys.tables t on t.object_id = ic.object_id join sys.schemas s on s.schema_id = t.schema_id")) {
+      reseed.put(identity[0], identity[1]);
+    }
+    StringBuilder sql = new StringBuilder();
+    for (String table : order.childrenFirst()) {
+      if (!order.isReferenced(table)) {
+        sql.append("truncate table ").append(table).append(";\n");
+      } else {
+        sql.append("delete from ").append(table).append(";\n");
+        String value = reseed.get(table);
+        if (value != null) {
+          String name = table.replace("'", "''");
+          sql.append("if exists (select 1 from sys.identity_columns where object_id = object_id(N'").append(name)
+            .append("') and last_value is not null) dbcc checkident (N'").append(name).append("', reseed, ").append(value).append(") with no_infomsgs;\n");
+        }
+      }
+    }
+    // a single batch executed in one round trip
+    return List.of(sql.toString());
+  }
+
+  @Override
+  SqlScriptReader sqlScript(Reader reader) {
+    return new SqlScriptReader(reader, true, false);
+  }
+
+  @Override
+  boolean snapshotSupported() {
+    return true;
+  }
+
   @Override
   protected ProcessBuilder runProcess() {
 
@@ -248,7 +312,7 @@ public class SqlServerContainer extends BaseJdbcContainer<SqlServerContainer> {
       args.add("-e");
       args.add("MSSQL_COLLATION=Latin1_General_100_BIN2");
     }
-    args.add(config.getImage());
+    args.add(runImage());
     return createProcessBuilder(args);
   }
 
@@ -0,0 +1,163 @@
+package io.ebean.test.containers;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The combined result of starting multiple containers with per-container timings.
+ */
+public final class StartResult {
+
+  private final List<Timing> timings;
+  private final long totalMillis;
+
+  StartResult(List<Timing> timings, long totalMillis) {
+    this.timings = Collections.unmodifiableList(timings);
+    this.totalMillis = totalMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "success:" + isSuccess() + " totalMillis:" + totalMillis + " " + timings;
+  }
+
+  /**
+   * Return true if all the containers started successfully.
+   */
+  public boolean isSuccess() {
+    for (Timing timing : timings) {
+      if (timing.state != State.STARTED) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return the total elapsed time to start all the containers.
+   */
+  public long totalMillis() {
+    return totalMillis;
+  }
+
+  /**
+   * Return the timings for each container.
+   */
+  public List<Timing> timings() {
+    return timings;
+  }
+
+  /**
+   * Return the timing for the given platform or null.
+   */
+  public Timing timing(String platform) {
+    for (Timing timing : timings) {
+      if (timing.platform.equalsIgnoreCase(platform)) {
+        return timing;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return the timing of the container that failed to start or null if all containers started.
+   */
+  public Timing failure() {
+    for (Timing timing : timings) {
+      if (timing.state == State.FAILED) {
+        return timing;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The outcome of starting a container.
+   */
+  public enum State {
+
+    /**
+     * The container started successfully.
+     */
+    STARTED,
+
+    /**
+     * The container failed to start.
+     */
+    FAILED,
+
+    /**
+     * The container start was cancelled (or not attempted) due to another container failing.
+     */
+    CANCELLED
+  }
+
+  /**
+   * The timing and outcome of starting a container.
+   */
+  public static final class Timing {
+
+    private final String platform;
+    private final String containerName;
+    private final State state;
+    private final long waitMillis;
+    private final long startMillis;
+    private final Throwable error;
+
+    Timing(String platform, String containerName, State state, long waitMillis, long startMillis, Throwable error) {
+      this.platform = platform;
+      this.containerName = containerName;
+      this.state = state;
+      this.waitMillis = waitMillis;
+      this.startMillis = startMillis;
+      this.error = error;
+    }
+
+    @Override
+    public String toString() {
+      return platform + ":" + state + " wait:" + waitMillis + " start:" + startMillis + (error == null ? "" : " error:" + error);
+    }
+
+    /**
+     * Return the container platform.
+     */
+    public String platform() {
+      return platform;
+    }
+
+    /**
+     * Return the container name.
+     */
+    public String containerName() {
+      return containerName;
+    }
+
+    /**
+     * Return the outcome of starting the container.
+     */
+    public State state() {
+      return state;
+    }
+
+    /**
+     * Return the time spent waiting for dependencies to start.
+     */
+    public long waitMillis() {
+      return waitMillis;
+    }
+
+    /**
+     * Return the time taken to start the container (including waiting for it to be ready).
+     */
+    public long startMillis() {
+      return startMillis;
+    }
+
+    /**
+     * Return the error thrown starting the container or null.
+     */
+    public Throwable error() {
+      return error;
+    }
+  }
+}
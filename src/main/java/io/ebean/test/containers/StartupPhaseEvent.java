@@ -0,0 +1,45 @@
+package io.ebean.test.containers;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event for a phase of starting a container.
+ * <p>
+ * Only used when the jdk.jfr module is available (see {@link StartupReport}).
+ */
+@Name("io.ebean.test.containers.StartupPhase")
+@Label("Container Startup Phase")
+@Category({"Ebean", "Test Containers"})
+@Description("A phase of starting a test container (run, readiness, create database etc)")
+final class StartupPhaseEvent extends Event {
+
+  @Label("Platform")
+  String platform;
+
+  @Label("Container Name")
+  String containerName;
+
+  @Label("Phase")
+  String phase;
+
+  static Object start() {
+    StartupPhaseEvent event = new StartupPhaseEvent();
+    event.begin();
+    return event;
+  }
+
+  static void complete(Object value, String platform, String containerName, String phase) {
+    StartupPhaseEvent event = (StartupPhaseEvent) value;
+    event.end();
+    if (event.shouldCommit()) {
+      event.platform = platform;
+      event.containerName = containerName;
+      event.phase = phase;
+      event.commit();
+    }
+  }
+}
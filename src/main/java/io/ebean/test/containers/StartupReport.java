@@ -0,0 +1,334 @@
+package io.ebean.test.containers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The timing of the phases of starting a container (run, readiness, create database, extensions, init sql etc).
+ * <p>
+ * Each phase is also emitted as a JDK Flight Recorder event <code>io.ebean.test.containers.StartupPhase</code>.
+ * When system property <code>ebean.test.containers.startupReportDir</code> is set (e.g. to <code>target</code>)
+ * the report is written as JSON into that directory.
+ */
+public final class StartupReport {
+
+  private static final System.Logger log = Commands.log;
+
+  private static final boolean JFR = jfrAvailable();
+
+  private final String platform;
+  private final Instant startedAt = Instant.now();
+  private final long startNanos = System.nanoTime();
+  private final List<Phase> phases = new ArrayList<>();
+  private String containerName;
+  private long totalMillis;
+  private boolean success;
+  private volatile String image;
+  private volatile String mirror;
+  private volatile long pullBytes;
+  private volatile long pullMillis;
+
+  StartupReport(String platform, String containerName) {
+    this.platform = platform;
+    this.containerName = containerName;
+  }
+
+  private static boolean jfrAvailable() {
+    try {
+      return ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+    } catch (Throwable e) {
+      return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    String pull = pullMillis > 0 ? " pullBytes:" + pullBytes + " pullMillis:" + pullMillis : "";
+    String from = mirror != null ? " mirror:" + mirror : "";
+    return platform + " " + containerName + " success:" + success + " totalMillis:" + totalMillis + from + pull + " " + phases();
+  }
+
+  /**
+   * Return the container platform.
+   */
+  public String platform() {
+    return platform;
+  }
+
+  /**
+   * Return the container name.
+   */
+  public String containerName() {
+    return containerName;
+  }
+
+  /**
+   * Return when the start began.
+   */
+  public Instant startedAt() {
+    return startedAt;
+  }
+
+  /**
+   * Return true if the container started successfully.
+   */
+  public boolean isSuccess() {
+    return success;
+  }
+
+  /**
+   * Return the total time taken to start the container.
+   */
+  public long totalMillis() {
+    return totalMillis;
+  }
+
+  /**
+   * Return the image the container was run with (null when the container was already running).
+   */
+  public String image() {
+    return image;
+  }
+
+  /**
+   * Return the registry mirror the image is from or null when not using a mirror.
+   */
+  public String mirror() {
+    return mirror;
+  }
+
+  /**
+   * Record the image the container is run with and the registry mirror it is from.
+   */
+  void image(String image, String mirror) {
+    this.image = image;
+    this.mirror = mirror;
+  }
+
+  /**
+   * Return the bytes pulled for the image when it was pulled before docker run (otherwise 0).
+   */
+  public long pullBytes() {
+    return pullBytes;
+  }
+
+  /**
+   * Return the time taken to pull the image when it was pulled before docker run (otherwise 0).
+   * <p>
+   * The pull typically starts before this container starts, the time this start waited
+   * for it is the <code>pull</code> phase.
+   */
+  public long pullMillis() {
+    return pullMillis;
+  }
+
+  /**
+   * Record the image pull.
+   */
+  void pulled(long bytes, long millis) {
+    this.pullBytes = bytes;
+    this.pullMillis = millis;
+  }
+
+  /**
+   * Return the phases in the order they started.
+   * <p>
+   * Phases can be nested, for example <code>createDatabase</code> includes <code>extensions</code>.
+   */
+  public synchronized List<Phase> phases() {
+    return Collections.unmodifiableList(new ArrayList<>(phases));
+  }
+
+  /**
+   * Return the first phase with the given name or null.
+   */
+  public synchronized Phase phase(String name) {
+    for (Phase phase : phases) {
+      if (phase.name.equals(name)) {
+        return phase;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Time the given phase.
+   */
+  void time(String name, Runnable action) {
+    time(name, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Time the given phase returning the result of the action.
+   */
+  <T> T time(String name, Supplier<T> action) {
+    Phase phase = begin(name);
+    try {
+      return action.get();
+    } finally {
+      end(phase);
+    }
+  }
+
+  /**
+   * Begin a phase that is ended via {@link #end(Phase)}, typically by another thread.
+   */
+  Phase begin(String name) {
+    Phase phase = new Phase(name, elapsedMillis());
+    synchronized (this) {
+      phases.add(phase);
+    }
+    phase.event = JFR ? StartupPhaseEvent.start() : null;
+    phase.startNanos = System.nanoTime();
+    return phase;
+  }
+
+  /**
+   * End the phase recording the time taken.
+   */
+  void end(Phase phase) {
+    phase.millis = (System.nanoTime() - phase.startNanos) / 1_000_000;
+    if (phase.event != null) {
+      StartupPhaseEvent.complete(phase.event, platform, containerName, phase.name);
+    }
+  }
+
+  /**
+   * Mark the start as complete writing the JSON report if configured.
+   */
+  void finish(String containerName, boolean success) {
+    if (containerName != null) {
+      this.containerName = containerName;
+    }
+    this.success = success;
+    this.totalMillis = elapsedMillis();
+    log.log(Level.DEBUG, "startup {0}", this);
+    String dir = System.getProperty("ebean.test.containers.startupReportDir");
+    if (dir != null && !dir.isBlank()) {
+      write(new File(dir));
+    }
+  }
+
+  private long elapsedMillis() {
+    return (System.nanoTime() - startNanos) / 1_000_000;
+  }
+
+  /**
+   * Write the report as JSON into the given directory.
+   */
+  void write(File dir) {
+    File file = new File(dir, "ebean-containers-startup-" + platform + (containerName == null ? "" : "-" + containerName) + ".json");
+    try {
+      if (!dir.exists() && !dir.mkdirs()) {
+        log.log(Level.DEBUG, "Unable to create directory " + dir);
+        return;
+      }
+      try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+        writer.write(toJson());
+      }
+    } catch (IOException e) {
+      log.log(Level.DEBUG, "Unable to write startup report " + file + " " + e);
+    }
+  }
+
+  /**
+   * Return the report as JSON.
+   */
+  public String toJson() {
+    StringBuilder sb = new StringBuilder(200);
+    sb.append("{\"platform\":").append(quote(platform))
+      .append(",\"containerName\":").append(quote(containerName))
+      .append(",\"startedAt\":").append(quote(startedAt.toString()))
+      .append(",\"success\":").append(success)
+      .append(",\"totalMillis\":").append(totalMillis)
+      .append(",\"image\":").append(quote(image))
+      .append(",\"mirror\":").append(quote(mirror))
+      .append(",\"pullBytes\":").append(pullBytes)
+      .append(",\"pullMillis\":").append(pullMillis)
+      .append(",\"phases\":[");
+    List<Phase> list = phases();
+    for (int i = 0; i < list.size(); i++) {
+      Phase phase = list.get(i);
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append("{\"name\":").append(quote(phase.name))
+        .append(",\"offsetMillis\":").append(phase.offsetMillis)
+        .append(",\"millis\":").append(phase.millis)
+        .append('}');
+    }
+    return sb.append("]}").toString();
+  }
+
+  private static String quote(String value) {
+    if (value == null) {
+      return "null";
+    }
+    StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+    for (char ch : value.toCharArray()) {
+      if (ch == '"' || ch == '\\') {
+        sb.append('\\').append(ch);
+      } else if (ch < 0x20) {
+        sb.append(String.format("\\u%04x", (int) ch));
+      } else {
+        sb.append(ch);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  /**
+   * A timed phase of starting the container.
+   */
+  public static final class Phase {
+
+    private final String name;
+    private final long offsetMillis;
+    private volatile long millis;
+    private long startNanos;
+    private Object event;
+
+    Phase(String name, long offsetMillis) {
+      this.name = name;
+      this.offsetMillis = offsetMillis;
+    }
+
+    @Override
+    public String toString() {
+      return name + ":" + millis;
+    }
+
+    /**
+     * Return the phase name (for example run, connectivity, createDatabase, extensions, initSql).
+     */
+    public String name() {
+      return name;
+    }
+
+    /**
+     * Return the time the phase started relative to the start.
+     */
+    public long offsetMillis() {
+      return offsetMillis;
+    }
+
+    /**
+     * Return the time taken by the phase.
+     */
+    public long millis() {
+      return millis;
+    }
+  }
+}
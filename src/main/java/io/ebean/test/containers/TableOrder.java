@@ -0,0 +1,75 @@
+package io.ebean.test.containers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Orders tables such that tables referencing other tables via foreign keys come first.
+ * <p>
+ * Deleting rows in this order does not violate foreign keys. Tables in a reference cycle
+ * are added in their original order.
+ */
+final class TableOrder {
+
+  private final Map<String, Set<String>> referencedBy = new HashMap<>();
+  private final Set<String> tables = new LinkedHashSet<>();
+
+  TableOrder(Collection<String> tables) {
+    this.tables.addAll(tables);
+  }
+
+  /**
+   * Add a foreign key from the child table to the parent table.
+   */
+  TableOrder reference(String child, String parent) {
+    if (!child.equals(parent)) {
+      referencedBy.computeIfAbsent(parent, k -> new LinkedHashSet<>()).add(child);
+    }
+    return this;
+  }
+
+  /**
+   * Return true if the table is referenced by a foreign key of another table.
+   */
+  boolean isReferenced(String table) {
+    Set<String> children = referencedBy.get(table);
+    return children != null && !children.isEmpty();
+  }
+
+  /**
+   * Return the tables with child tables before their parent tables.
+   */
+  List<String> childrenFirst() {
+    List<String> ordered = new ArrayList<>(tables.size());
+    Set<String> visited = new HashSet<>();
+    Set<String> path = new HashSet<>();
+    for (String table : tables) {
+      visit(table, visited, path, ordered);
+    }
+    return ordered;
+  }
+
+  private void visit(String table, Set<String> visited, Set<String> path, List<String> ordered) {
+    if (visited.contains(table) || !path.add(table)) {
+      // already ordered or a cycle
+      return;
+    }
+    Set<String> children = referencedBy.get(table);
+    if (children != null) {
+      for (String child : children) {
+        if (tables.contains(child)) {
+          visit(child, visited, path, ordered);
+        }
+      }
+    }
+    path.remove(table);
+    visited.add(table);
+    ordered.add(table);
+  }
+}
@@ -0,0 +1,67 @@
+package io.ebean.test.containers.process;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Scans bytes for a (UTF-8) match without decoding them into strings.
+ * <p>
+ * The bytes can be passed in chunks with a match spanning chunks being found.
+ */
+public final class ByteMatcher {
+
+  private final byte[] pattern;
+  private final int[] fallback;
+  private int state;
+  private boolean matched;
+
+  /**
+   * Create for the given match text.
+   */
+  public ByteMatcher(String match) {
+    this.pattern = match.getBytes(StandardCharsets.UTF_8);
+    this.fallback = fallback(pattern);
+    this.matched = pattern.length == 0;
+  }
+
+  /**
+   * Scan the bytes returning true if the match has been found.
+   */
+  public boolean update(byte[] buffer, int offset, int length) {
+    int end = offset + length;
+    for (int i = offset; i < end && !matched; i++) {
+      byte b = buffer[i];
+      while (state > 0 && pattern[state] != b) {
+        state = fallback[state - 1];
+      }
+      if (pattern[state] == b && ++state == pattern.length) {
+        matched = true;
+      }
+    }
+    return matched;
+  }
+
+  /**
+   * Return true if the match has been found.
+   */
+  public boolean matched() {
+    return matched;
+  }
+
+  /**
+   * Return the Knuth-Morris-Pratt prefix table for the pattern.
+   */
+  private static int[] fallback(byte[] pattern) {
+    int[] table = new int[pattern.length];
+    int k = 0;
+    for (int i = 1; i < pattern.length; i++) {
+      while (k > 0 && pattern[i] != pattern[k]) {
+        k = table[k - 1];
+      }
+      if (pattern[i] == pattern[k]) {
+        k++;
+      }
+      table[i] = k;
+    }
+    return table;
+  }
+}
@@ -4,29 +4,49 @@ import io.ebean.test.containers.CommandException;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Handle the external process response (exit code, std out, std err).
+ * <p>
+ * Commands run asynchronously with the output read by a shared reader pool (virtual threads
+ * when available) and complete via {@link Process#onExit()}. Each command has a deadline after
+ * which the process and its descendants are killed. The default deadline is 30 minutes and can
+ * be set via system property <code>ebean.test.containers.processTimeoutSeconds</code>.
  */
 public class ProcessHandler {
 
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(Long.getLong("ebean.test.containers.processTimeoutSeconds", 1800));
+
+  private static final ExecutorService readers = readerExecutor();
+
+  private static final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(daemon("ebean-process-deadline"));
+
   private final ProcessBuilder builder;
   private Process process;
   /**
-   * Both stdErr and stdOut merged.
+   * Captures both stdErr and stdOut merged.
    */
-  private List<String> out = new ArrayList<>();
-  private String match;
-  private String clearMatch;
-
+  private final Output out;
 
-  private ProcessHandler(ProcessBuilder builder, String match, String clearMatch) {
+  private ProcessHandler(ProcessBuilder builder, Output out) {
     this.builder = builder;
-    this.match = match;
-    this.clearMatch = clearMatch;
+    this.out = out;
   }
 
   public static ProcessResult matchCommand(String match, String clearMatch, String... command) {
@@ -48,55 +68,301 @@ public class ProcessHandler {
     return process(pb, null, null);
   }
 
+  /**
+   * Process a command killing it if it has not completed by the timeout.
+   */
+  public static ProcessResult process(ProcessBuilder pb, Duration timeout) {
+    return join(processAsync(pb, new Lines(null, null), timeout));
+  }
+
+  /**
+   * Process a basic command asynchronously.
+   */
+  public static CompletableFuture<ProcessResult> commandAsync(String... command) {
+    return processAsync(new ProcessBuilder(command));
+  }
+
+  /**
+   * Process a command asynchronously.
+   * <p>
+   * The future completes exceptionally with a {@link CommandException} when the
+   * command fails or does not complete by the default timeout.
+   */
+  public static CompletableFuture<ProcessResult> processAsync(ProcessBuilder pb) {
+    return processAsync(pb, new Lines(null, null), DEFAULT_TIMEOUT);
+  }
+
+  /**
+   * Process a command asynchronously killing it if it has not completed by the timeout.
+   */
+  public static CompletableFuture<ProcessResult> processAsync(ProcessBuilder pb, Duration timeout) {
+    return processAsync(pb, new Lines(null, null), timeout);
+  }
+
+  /**
+   * Process a command keeping only the last maxLines lines of output.
+   */
+  public static ProcessResult processTail(ProcessBuilder pb, int maxLines) {
+    return join(processAsync(pb, new Tail(maxLines), DEFAULT_TIMEOUT));
+  }
+
+  /**
+   * Process a command passing each line of output to the consumer rather than keeping it.
+   * <p>
+   * The lines are passed to the consumer by a reader thread.
+   */
+  public static ProcessResult processLines(ProcessBuilder pb, Consumer<String> consumer) {
+    return join(processAsync(pb, new Streaming(consumer), DEFAULT_TIMEOUT));
+  }
+
+  /**
+   * Process a command returning true if the output contains the match text.
+   * <p>
+   * The output is scanned as bytes for the match and not decoded into lines.
+   */
+  public static boolean processContains(ProcessBuilder pb, String match) {
+    return !join(processAsync(pb, new Match(match), DEFAULT_TIMEOUT)).getOutLines().isEmpty();
+  }
+
+  /**
+   * Wait for the result of an asynchronous command throwing the {@link CommandException} if it failed.
+   */
+  public static ProcessResult join(CompletableFuture<ProcessResult> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
   /**
    * Process a command.
    */
   private static ProcessResult process(ProcessBuilder pb, String match, String clearMatch) {
+    return join(processAsync(pb, new Lines(match, clearMatch), DEFAULT_TIMEOUT));
+  }
+
+  private static CompletableFuture<ProcessResult> processAsync(ProcessBuilder pb, Output out, Duration timeout) {
     try {
-      ProcessHandler handler = new ProcessHandler(pb, match, clearMatch);
-      handler.start();
-      ProcessResult result = handler.read();
-      if (!result.success()) {
-        throw new CommandException("command failed: " + result.getOutLines(), result);
-      }
-      return result;
+      return new ProcessHandler(pb, out).start(timeout);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
-  private void start() throws IOException {
+  private CompletableFuture<ProcessResult> start(Duration timeout) throws IOException {
     // merge input and error streams
     builder.redirectErrorStream(true);
     process = builder.start();
+
+    CompletableFuture<ProcessResult> future = new CompletableFuture<>();
+    CompletableFuture.runAsync(this::read, readers)
+      .thenCombine(process.onExit(), (read, exited) -> exited.exitValue())
+      .whenComplete((exitValue, error) -> {
+        if (error != null) {
+          future.completeExceptionally(error);
+        } else {
+          ProcessResult result = new ProcessResult(exitValue, lines());
+          if (result.success()) {
+            future.complete(result);
+          } else {
+            future.completeExceptionally(new CommandException("command failed: " + result.getOutLines(), result));
+          }
+        }
+      });
+
+    if (timeout != null && !timeout.isZero() && !timeout.isNegative()) {
+      ScheduledFuture<?> deadline = deadlines.schedule(() -> timeout(future, timeout), timeout.toMillis(), TimeUnit.MILLISECONDS);
+      future.whenComplete((result, error) -> deadline.cancel(false));
+    }
+    return future;
   }
 
-  private ProcessResult read() {
-    try {
-      BufferedReader stdInput = new BufferedReader(new InputStreamReader(process.getInputStream()));
-      String s;
-      while ((s = stdInput.readLine()) != null) {
-        processLine(s, out);
-      }
-      int result = process.waitFor();
-      return new ProcessResult(result, out);
-    } catch (Exception e) {
-      throw new RuntimeException(e);
+  private void timeout(CompletableFuture<ProcessResult> future, Duration timeout) {
+    ProcessResult result = new ProcessResult(-1, lines());
+    if (future.completeExceptionally(new CommandException("command timed out after " + timeout.toMillis() + "ms " + builder.command() + " " + result.getOutLines(), result))) {
+      // kill the process tree which also ends the reading of its output
+      process.descendants().forEach(ProcessHandle::destroyForcibly);
+      process.destroyForcibly();
     }
   }
 
-  private void processLine(String lineContent, List<String> lines) {
-    if (clearMatch != null && lineContent.contains(clearMatch)) {
-      out.clear();
-    } else {
-      if (match != null) {
-        if (lineContent.contains(match)) {
-          out.add(lineContent);
-        }
+  private void read() {
+    try (InputStream in = process.getInputStream()) {
+      if (out instanceof Match) {
+        readBytes(in, (Match) out);
       } else {
-        lines.add(lineContent);
+        readLines(in);
       }
+    } catch (IOException e) {
+      if (process.isAlive()) {
+        throw new UncheckedIOException(e);
+      }
+      // stream closed as the process was killed
     }
   }
 
+  private void readLines(InputStream in) throws IOException {
+    BufferedReader stdInput = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    String s;
+    while ((s = stdInput.readLine()) != null) {
+      out.line(s);
+    }
+  }
+
+  private static void readBytes(InputStream in, Match match) throws IOException {
+    byte[] buffer = new byte[8192];
+    int len;
+    while ((len = in.read(buffer)) != -1) {
+      // after matching keep reading such that the process does not block writing
+      match.bytes(buffer, len);
+    }
+  }
+
+  private List<String> lines() {
+    return out.lines();
+  }
+
+  /**
+   * Captures the output of the process.
+   */
+  private interface Output {
+
+    void line(String line);
+
+    List<String> lines();
+  }
+
+  /**
+   * All the lines, or only those containing the match with lines prior to a clearMatch line discarded.
+   */
+  private static final class Lines implements Output {
+
+    private final List<String> lines = new ArrayList<>();
+    private final String match;
+    private final String clearMatch;
+
+    Lines(String match, String clearMatch) {
+      this.match = match;
+      this.clearMatch = clearMatch;
+    }
+
+    @Override
+    public synchronized void line(String line) {
+      if (clearMatch != null && line.contains(clearMatch)) {
+        lines.clear();
+      } else if (match == null || line.contains(match)) {
+        lines.add(line);
+      }
+    }
+
+    @Override
+    public synchronized List<String> lines() {
+      return new ArrayList<>(lines);
+    }
+  }
+
+  /**
+   * The last maxLines lines (ring buffer).
+   */
+  private static final class Tail implements Output {
+
+    private final String[] ring;
+    private int count;
+
+    Tail(int maxLines) {
+      this.ring = new String[Math.max(1, maxLines)];
+    }
+
+    @Override
+    public synchronized void line(String line) {
+      ring[count++ % ring.length] = line;
+    }
+
+    @Override
+    public synchronized List<String> lines() {
+      int size = Math.min(count, ring.length);
+      List<String> lines = new ArrayList<>(size);
+      for (int i = count - size; i < count; i++) {
+        lines.add(ring[i % ring.length]);
+      }
+      return lines;
+    }
+  }
+
+  /**
+   * Each line passed to the consumer and not kept.
+   */
+  private static final class Streaming implements Output {
+
+    private final Consumer<String> consumer;
+
+    Streaming(Consumer<String> consumer) {
+      this.consumer = consumer;
+    }
+
+    @Override
+    public void line(String line) {
+      consumer.accept(line);
+    }
+
+    @Override
+    public List<String> lines() {
+      return new ArrayList<>();
+    }
+  }
+
+  /**
+   * Scans the output bytes for the match with the lines containing just the match when found.
+   */
+  private static final class Match implements Output {
+
+    private final String match;
+    private final ByteMatcher matcher;
+
+    Match(String match) {
+      this.match = match;
+      this.matcher = new ByteMatcher(match);
+    }
+
+    synchronized void bytes(byte[] buffer, int length) {
+      if (!matcher.matched()) {
+        matcher.update(buffer, 0, length);
+      }
+    }
+
+    @Override
+    public void line(String line) {
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public synchronized List<String> lines() {
+      List<String> lines = new ArrayList<>(1);
+      if (matcher.matched()) {
+        lines.add(match);
+      }
+      return lines;
+    }
+  }
+
+  private static ExecutorService readerExecutor() {
+    try {
+      // virtual threads when available (Java 21+)
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(daemon("ebean-process-reader"));
+    }
+  }
+
+  private static ThreadFactory daemon(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
 }
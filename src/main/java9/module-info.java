@@ -4,6 +4,8 @@ open module io.ebean.test.containers {
   exports io.ebean.test.containers.process;
 
   requires transitive java.sql;
+  requires java.net.http;
+  requires static jdk.jfr;
 
 //  requires static aws.java.sdk.core;
 //  requires static aws.java.sdk.dynamodb;
@@ -0,0 +1,227 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
+import software.amazon.awssdk.services.kinesis.KinesisClient;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.AliasListEntry;
+import software.amazon.awssdk.services.kms.model.CreateAliasRequest;
+import software.amazon.awssdk.services.kms.model.CreateAliasResponse;
+import software.amazon.awssdk.services.kms.model.CreateKeyRequest;
+import software.amazon.awssdk.services.kms.model.CreateKeyResponse;
+import software.amazon.awssdk.services.kms.model.KeyMetadata;
+import software.amazon.awssdk.services.kms.model.ListAliasesRequest;
+import software.amazon.awssdk.services.kms.model.ListAliasesResponse;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.CreateQueueRequest;
+import software.amazon.awssdk.services.sqs.model.CreateQueueResponse;
+import software.amazon.awssdk.services.sqs.model.ListQueuesRequest;
+import software.amazon.awssdk.services.sqs.model.ListQueuesResponse;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AwsResourcesTest {
+
+  private final List<String> created = new CopyOnWriteArrayList<>();
+
+  @Test
+  void isEmpty() {
+    assertThat(new AwsResources().isEmpty()).isTrue();
+    assertThat(new AwsResources().queue("a").isEmpty()).isFalse();
+  }
+
+  @Test
+  void parse() {
+    AwsResources resources = new AwsResources();
+    resources.parse(null, null, null, "customer:id, order:customerId:orderId", null, "clicks:2,views");
+    assertThat(resources.isEmpty()).isFalse();
+    assertThrows(IllegalArgumentException.class, () -> new AwsResources().parse(null, null, null, "customer", null, null));
+  }
+
+  @Test
+  void apply_createsMissingOnly() {
+    AwsResources resources = new AwsResources()
+      .queue("orders", "payments")
+      .kmsKey("alias/existing", "signing");
+
+    StartupReport report = new StartupReport("localstack", "ut_localstack");
+    resources.apply(new FakeSdk(), report);
+
+    assertThat(created).containsExactlyInAnyOrder("sqs:payments", "kms:alias/signing");
+    assertThat(report.phase("sqs:payments")).isNotNull();
+    assertThat(report.phase("kms:signing")).isNotNull();
+    assertThat(report.phase("sqs:orders")).isNull();
+    assertThat(report.phase("kms:existing")).isNull();
+  }
+
+  @Test
+  void apply_failure() {
+    AwsResources resources = new AwsResources().queue("broken");
+    StartupReport report = new StartupReport("localstack", "ut_localstack");
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> resources.apply(new FakeSdk(), report));
+    assertThat(e.getMessage()).contains("Failed to create AWS resources");
+    assertThat(report.phase("sqs:broken")).isNotNull();
+  }
+
+  private class FakeSqs implements SqsAsyncClient {
+
+    @Override
+    public CompletableFuture<ListQueuesResponse> listQueues(ListQueuesRequest request) {
+      return CompletableFuture.completedFuture(ListQueuesResponse.builder()
+        .queueUrls("http://localhost:4566/000000000000/orders")
+        .build());
+    }
+
+    @Override
+    public CompletableFuture<CreateQueueResponse> createQueue(CreateQueueRequest request) {
+      if (request.queueName().equals("broken")) {
+        return CompletableFuture.failedFuture(new IllegalArgumentException("broken"));
+      }
+      return CompletableFuture.supplyAsync(() -> {
+        created.add("sqs:" + request.queueName());
+        return CreateQueueResponse.builder().build();
+      });
+    }
+
+    @Override
+    public String serviceName() {
+      return "sqs";
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private class FakeKms implements KmsAsyncClient {
+
+    @Override
+    public CompletableFuture<ListAliasesResponse> listAliases(ListAliasesRequest request) {
+      return CompletableFuture.completedFuture(ListAliasesResponse.builder()
+        .aliases(AliasListEntry.builder().aliasName("alias/existing").build())
+        .build());
+    }
+
+    @Override
+    public CompletableFuture<CreateKeyResponse> createKey(CreateKeyRequest request) {
+      return CompletableFuture.completedFuture(CreateKeyResponse.builder()
+        .keyMetadata(KeyMetadata.builder().keyId("key-" + request.description()).build())
+        .build());
+    }
+
+    @Override
+    public CompletableFuture<CreateAliasResponse> createAlias(CreateAliasRequest request) {
+      created.add("kms:" + request.aliasName());
+      return CompletableFuture.completedFuture(CreateAliasResponse.builder().build());
+    }
+
+    @Override
+    public String serviceName() {
+      return "kms";
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private class FakeSdk implements AwsSDKv2 {
+
+    @Override
+    public URI endpoint() {
+      return URI.create("http://localhost:4566/");
+    }
+
+    @Override
+    public SqsAsyncClient sqsAsyncClient() {
+      return new FakeSqs();
+    }
+
+    @Override
+    public KmsAsyncClient kmsAsyncClient() {
+      return new FakeKms();
+    }
+
+    @Override
+    public Region region() {
+      return Region.AP_SOUTHEAST_2;
+    }
+
+    @Override
+    public DynamoDbClient dynamoDBClient() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public KinesisClient kinesisClient() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SnsClient snsClient() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SqsClient sqsClient() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public S3Client s3Client() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public KmsClient kmsClient() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DynamoDbAsyncClient dynamoDBAsyncClient() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public KinesisAsyncClient kinesisAsyncClient() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SnsAsyncClient snsAsyncClient() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public S3AsyncClient s3AsyncClient() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AwsCredentialsProvider credentialsProvider() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AwsBasicCredentials basicCredentials() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
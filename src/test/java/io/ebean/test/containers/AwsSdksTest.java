@@ -0,0 +1,51 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AwsSdksTest {
+
+  private static final URI ENDPOINT = URI.create("http://localhost:4566/");
+
+  @Test
+  void sdk2_cachedClients() {
+    AwsSdks sdks = new AwsSdks();
+    AwsSDKv2 sdk = sdks.sdk2("us-east-1", ENDPOINT);
+    assertThat(sdks.sdk2("us-east-1", ENDPOINT)).isSameAs(sdk);
+
+    DynamoDbClient client = sdk.dynamoDBClient();
+    assertThat(sdk.dynamoDBClient()).isSameAs(client);
+    assertThat(sdk.kmsAsyncClient()).isSameAs(sdk.kmsAsyncClient());
+
+    sdks.close();
+    assertThrows(IllegalStateException.class, sdk::dynamoDBClient);
+    assertThat(sdks.sdk2("us-east-1", ENDPOINT)).isNotSameAs(sdk);
+    sdks.close();
+  }
+
+  @Test
+  void sdk2_endpointChanged() {
+    AwsSdks sdks = new AwsSdks();
+    AwsSDKv2 sdk = sdks.sdk2("us-east-1", ENDPOINT);
+    AwsSDKv2 other = sdks.sdk2("us-east-1", URI.create("http://localhost:4567/"));
+    assertThat(other).isNotSameAs(sdk);
+    assertThrows(IllegalStateException.class, sdk::kinesisClient);
+    sdks.close();
+  }
+
+  @Test
+  void sdk1_cachedClients() {
+    AwsSdks sdks = new AwsSdks();
+    AwsSDKv1 sdk = sdks.sdk1("us-east-1", "http://localhost:4566/");
+    assertThat(sdks.sdk1("us-east-1", "http://localhost:4566/")).isSameAs(sdk);
+    assertThat(sdk.dynamoDB()).isSameAs(sdk.dynamoDB());
+
+    sdks.close();
+    assertThrows(IllegalStateException.class, sdk::sqs);
+  }
+}
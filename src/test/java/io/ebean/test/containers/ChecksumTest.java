@@ -0,0 +1,38 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChecksumTest {
+
+  @Test
+  void hex() {
+    assertThat(new Checksum().hex()).isEqualTo("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+    assertThat(new Checksum().add("a").hex()).hasSize(64);
+  }
+
+  @Test
+  void add_separatesValues() {
+    assertThat(new Checksum().add("ab").add("c").hex()).isNotEqualTo(new Checksum().add("a").add("bc").hex());
+    assertThat(new Checksum().add((String) null).hex()).isEqualTo(new Checksum().add("").hex());
+  }
+
+  @Test
+  void add_fileStreamed() throws IOException {
+    // larger than the read buffer such that the content is digested in chunks
+    String content = "insert into t values (1);\n".repeat(1000);
+    Path file = Files.createTempFile("checksum", ".sql");
+    try {
+      Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+      assertThat(new Checksum().add(file.toFile()).hex()).isEqualTo(new Checksum().add(content).hex());
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
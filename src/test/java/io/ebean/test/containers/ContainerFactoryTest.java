@@ -3,12 +3,17 @@ package io.ebean.test.containers;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assumptions.assumeThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ContainerFactoryTest {
 
@@ -180,4 +185,139 @@ class ContainerFactoryTest {
     factory.stopContainers();
   }
 
+  @Test
+  void startContainersParallel() {
+    List<String> events = new CopyOnWriteArrayList<>();
+    ContainerFactory factory = new ContainerFactory(new Properties(), "")
+      .add(new FakeContainer("localstack", 200, true, events))
+      .add(new FakeContainer("redis", 50, true, events))
+      .add(new FakeContainer("postgres", 10, true, events))
+      .dependsOn("postgres", "localstack", "notInFactory");
+
+    StartResult result = factory.startContainersParallel();
+
+    assertThat(result.isSuccess()).isTrue();
+    assertThat(result.failure()).isNull();
+    assertThat(result.timings()).hasSize(3);
+    assertThat(result.timing("postgres").waitMillis()).isGreaterThan(150L);
+    assertThat(result.timing("localstack").startMillis()).isGreaterThan(150L);
+    assertThat(result.totalMillis()).isLessThan(1000L);
+    assertThat(events).containsExactly("start:redis", "start:localstack", "start:postgres");
+    // default empty report of containers that do not time their start
+    assertThat(factory.container("redis").startupReport().toJson()).startsWith("{\"platform\":\"redis\"");
+  }
+
+  @Test
+  void startContainersParallel_failureCancelsOthers() {
+    List<String> events = new CopyOnWriteArrayList<>();
+    ContainerFactory factory = new ContainerFactory(new Properties(), "")
+      .add(new FakeContainer("elastic", 60_000, true, events))
+      .add(new FakeContainer("redis", 20, false, events))
+      .add(new FakeContainer("postgres", 10, true, events))
+      .dependsOn("postgres", "elastic");
+
+    StartResult result = factory.startContainersParallel();
+
+    assertThat(result.isSuccess()).isFalse();
+    assertThat(result.failure().platform()).isEqualTo("redis");
+    assertThat(result.timing("elastic").state()).isEqualTo(StartResult.State.CANCELLED);
+    assertThat(result.timing("postgres").state()).isEqualTo(StartResult.State.CANCELLED);
+    assertThat(result.totalMillis()).isLessThan(10_000L);
+    assertThat(events).doesNotContain("start:postgres");
+  }
+
+  @Test
+  void startOrder_dependsOnProperty() {
+    Properties properties = new Properties();
+    properties.setProperty("postgres.dependsOn", "redis");
+    properties.setProperty("redis.dependsOn", "postgres");
+
+    ContainerFactory factory = new ContainerFactory(properties, "")
+      .add(new FakeContainer("postgres", 0, true, List.of()))
+      .add(new FakeContainer("redis", 0, true, List.of()));
+
+    assertThrows(IllegalStateException.class, factory::startOrder);
+  }
+
+  @Test
+  void startContainersParallel_samePlatform() {
+    List<String> events = new CopyOnWriteArrayList<>();
+    ContainerFactory factory = new ContainerFactory(new Properties(), "")
+      .add(new FakeContainer("postgres", 10, true, events))
+      .add(new FakeContainer("localstack", 100, true, events))
+      .add(new FakeContainer("localstack", 150, true, events))
+      .dependsOn("postgres", "localstack");
+
+    assertThat(factory.startOrder()).hasSize(3);
+    StartResult result = factory.startContainersParallel();
+
+    assertThat(result.isSuccess()).isTrue();
+    assertThat(result.timings()).hasSize(3);
+    assertThat(result.timing("postgres").waitMillis()).isGreaterThan(100L);
+    assertThat(events).containsExactly("start:localstack", "start:localstack", "start:postgres");
+  }
+
+  static final class FakeContainer implements Container<FakeContainer> {
+
+    private final ContainerConfig config;
+    private final long startMillis;
+    private final boolean startResult;
+    private final List<String> events;
+
+    FakeContainer(String platform, long startMillis, boolean startResult, List<String> events) {
+      this.config = (ContainerConfig) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ContainerConfig.class},
+        (proxy, method, args) -> method.getName().equals("platform") ? platform : "ut_" + platform);
+      this.startMillis = startMillis;
+      this.startResult = startResult;
+      this.events = events;
+    }
+
+    @Override
+    public ContainerConfig config() {
+      return config;
+    }
+
+    @Override
+    public boolean startMaybe() {
+      try {
+        Thread.sleep(startMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      events.add("start:" + config.platform());
+      return startResult;
+    }
+
+    @Override
+    public FakeContainer start() {
+      startOrThrow();
+      return this;
+    }
+
+    @Override
+    public void startOrThrow() {
+      if (!startMaybe()) {
+        throw new IllegalStateException();
+      }
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public void stopRemove() {
+    }
+
+    @Override
+    public boolean isRunning() {
+      return false;
+    }
+
+    @Override
+    public int port() {
+      return 0;
+    }
+  }
 }
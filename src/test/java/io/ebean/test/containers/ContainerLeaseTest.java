@@ -0,0 +1,92 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContainerLeaseTest {
+
+  private Path dir;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    dir = Files.createTempDirectory("ebean-lease");
+    System.setProperty("ebean.test.containers.lockDir", dir.toString());
+  }
+
+  @AfterEach
+  void tearDown() {
+    System.clearProperty("ebean.test.containers.lockDir");
+  }
+
+  @Test
+  void lockDir_default() {
+    System.clearProperty("ebean.test.containers.lockDir");
+    assertThat(ContainerLease.lockDir()).isEqualTo(Path.of(System.getProperty("user.home"), ".ebean", "containers"));
+  }
+
+  @Test
+  void release_lastLeaseStops() {
+    ContainerLease first = ContainerLease.acquire("lease_test");
+    ContainerLease second = ContainerLease.acquire("lease_test");
+    assertThat(first).isNotNull();
+    assertThat(second).isNotNull();
+
+    Path leaseFile = dir.resolve("lease_test.leases");
+    assertThat(Files.exists(leaseFile)).isTrue();
+    assertThat(ContainerLease.withLock("lease_test", first::release)).isEqualTo(1);
+    assertThat(ContainerLease.withLock("lease_test", second::release)).isEqualTo(0);
+    assertThat(Files.exists(leaseFile)).isFalse();
+  }
+
+  @Test
+  void acquire_removesDeadProcessEntries() throws IOException {
+    Path leaseFile = dir.resolve("lease_dead.leases");
+    Files.write(leaseFile, List.of(Long.MAX_VALUE + " 1", "junk"));
+
+    ContainerLease lease = ContainerLease.acquire("lease_dead");
+    assertThat(Files.readAllLines(leaseFile)).hasSize(1);
+    assertThat(lease.release()).isEqualTo(0);
+  }
+
+  @Test
+  void withLock_reentrant() {
+    String result = ContainerLease.withLock("lease_nested", () -> ContainerLease.withLock("lease_nested", () -> "inner"));
+    assertThat(result).isEqualTo("inner");
+    assertThat(Files.exists(dir.resolve("lease_nested.lock"))).isTrue();
+  }
+
+  @Test
+  void leaseIfRunning_sharedRunningContainer() {
+    // two JVMs finding the same container already running
+    PostgresContainer first = PostgresContainer.builder("15").containerName("lease_shared").port(6432).shutdownMode(StopMode.Stop).build();
+    PostgresContainer second = PostgresContainer.builder("15").containerName("lease_shared").port(6432).shutdownMode(StopMode.Stop).build();
+    first.setDefaultContainerName();
+    second.setDefaultContainerName();
+
+    assertThat(first.leaseIfRunning(() -> true)).isTrue();
+    assertThat(second.leaseIfRunning(() -> true)).isTrue();
+    assertThat(first.lease).isNotNull();
+    assertThat(second.lease).isNotNull();
+
+    // the first to shut down does not stop the container still used by the other
+    assertThat(second.lease.release()).isEqualTo(1);
+    assertThat(first.lease.release()).isEqualTo(0);
+  }
+
+  @Test
+  void leaseIfRunning_notRunning_noLease() {
+    PostgresContainer container = PostgresContainer.builder("15").containerName("lease_none").port(6432).shutdownMode(StopMode.Stop).build();
+    container.setDefaultContainerName();
+
+    assertThat(container.leaseIfRunning(() -> false)).isFalse();
+    assertThat(container.lease).isNull();
+  }
+}
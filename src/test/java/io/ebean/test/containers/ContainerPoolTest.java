@@ -0,0 +1,128 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContainerPoolTest {
+
+  private static final String KEY = "postgres-17-0123456789ab";
+
+  private static final String FILTER = "/containers/json?filters="
+    + URLEncoder.encode("{\"label\":[\"io.ebean.test.pool=" + KEY + "\"]}", StandardCharsets.UTF_8);
+
+  private static String containers(long idleCreated) {
+    return "[" + container("ebean-pool-" + KEY + "-aaaa0001-used", 1) + ","
+      + container("ebean-pool-" + KEY + "-aaaa0002-idle", 1) + ","
+      + container("ebean-pool-" + KEY + "-aaaa0003-idle", idleCreated) + ","
+      + container("ebean-pool-" + KEY + "-aaaa0004-fill", idleCreated) + "]";
+  }
+
+  private static String container(String name, long created) {
+    return "{\"Id\":\"" + name.hashCode() + "\",\"Names\":[\"/" + name + "\"],\"State\":\"running\","
+      + "\"Labels\":{\"io.ebean.test.pool\":\"" + KEY + "\",\"io.ebean.test.pool.created\":\"" + created + "\"}}";
+  }
+
+  private static ContainerPool pool(FakeDockerDaemon daemon, int size) {
+    return new ContainerPool(KEY, size, Duration.ofMinutes(10), new Commands(daemon.client()), () -> {
+      throw new IllegalStateException("not expected to start containers");
+    });
+  }
+
+  @Test
+  void key() {
+    assertThat(ContainerPool.key("postgres", "17", "0123456789abcdef")).isEqualTo(KEY);
+    assertThat(ContainerPool.key("mysql", "8.0/x:y", "0123456789abcdef")).isEqualTo("mysql-8.0_x_y-0123456789ab");
+  }
+
+  @Test
+  void builderCopy() {
+    PostgresContainer.Builder builder = PostgresContainer.builder("17").port(0).pool(2);
+    PostgresContainer.Builder copy = builder.copy();
+    builder.port(6432);
+
+    assertThat(copy.internalConfig().randomPort()).isTrue();
+    assertThat(copy.internalConfig().poolSize()).isEqualTo(2);
+    assertThat(builder.internalConfig().randomPort()).isFalse();
+  }
+
+  @Test
+  void poolChecksum() {
+    PostgresContainer container = PostgresContainer.builder("17").port(0).pool(2).dbName("one").build();
+    String checksum = container.poolChecksum();
+
+    assertThat(PostgresContainer.builder("17").port(0).pool(2).dbName("one").build().poolChecksum()).isEqualTo(checksum);
+    assertThat(PostgresContainer.builder("17").port(0).pool(2).dbName("two").build().poolChecksum()).isNotEqualTo(checksum);
+    assertThat(PostgresContainer.builder("17").port(0).pool(2).dbName("one").inMemory(true).build().poolChecksum()).isNotEqualTo(checksum);
+    // derived from the configuration without building the run args
+    assertThat(container.usingRandomPort).isFalse();
+    assertThat(container.removeOnExit).isFalse();
+  }
+
+  @Test
+  void claim() throws IOException {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET " + FILTER, 200, containers(System.currentTimeMillis()));
+      daemon.reply("POST /containers/ebean-pool-" + KEY + "-aaaa0003-idle/rename?name=ebean-pool-" + KEY + "-aaaa0003-used", 204, "");
+
+      // the expired idle container is skipped
+      assertThat(pool(daemon, 1).claim()).isEqualTo("ebean-pool-" + KEY + "-aaaa0003-used");
+    }
+  }
+
+  @Test
+  void claim_evictsExpired() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET " + FILTER, 200, containers(System.currentTimeMillis()));
+      daemon.reply("POST /containers/ebean-pool-" + KEY + "-aaaa0003-idle/rename?name=ebean-pool-" + KEY + "-aaaa0003-used", 204, "");
+      daemon.reply("POST /containers/ebean-pool-" + KEY + "-aaaa0002-idle/rename?name=ebean-pool-" + KEY + "-aaaa0002-used", 204, "");
+      daemon.reply("POST /containers/ebean-pool-" + KEY + "-aaaa0002-used/stop", 204, "");
+
+      assertThat(pool(daemon, 1).claim()).isEqualTo("ebean-pool-" + KEY + "-aaaa0003-used");
+      // the expired idle container is evicted in the background
+      String stop = "POST /containers/ebean-pool-" + KEY + "-aaaa0002-used/stop";
+      for (int i = 0; i < 100 && !daemon.requests.contains(stop); i++) {
+        Thread.sleep(20);
+      }
+      assertThat(daemon.requests).contains(stop);
+    }
+  }
+
+  @Test
+  void claim_whenClaimedByAnother_expectNull() throws IOException {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET " + FILTER, 200, containers(System.currentTimeMillis()));
+      // rename replies 404 as another process renamed it first
+      assertThat(pool(daemon, 1).claim()).isNull();
+    }
+  }
+
+  @Test
+  void fill_evictsExpired() throws IOException {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET " + FILTER, 200, containers(System.currentTimeMillis()));
+      daemon.reply("POST /containers/ebean-pool-" + KEY + "-aaaa0002-idle/rename?name=ebean-pool-" + KEY + "-aaaa0002-used", 204, "");
+      daemon.reply("POST /containers/ebean-pool-" + KEY + "-aaaa0002-used/stop", 204, "");
+
+      // one idle and one filling container are available
+      assertThat(pool(daemon, 2).fill()).isEqualTo(0);
+      assertThat(daemon.requests).contains("POST /containers/ebean-pool-" + KEY + "-aaaa0002-used/stop");
+    }
+  }
+
+  @Test
+  void expired() throws IOException {
+    try (var daemon = new FakeDockerDaemon()) {
+      ContainerPool pool = pool(daemon, 1);
+      long now = System.currentTimeMillis();
+      assertThat(pool.expired(String.valueOf(now), now)).isFalse();
+      assertThat(pool.expired(String.valueOf(now - Duration.ofMinutes(11).toMillis()), now)).isTrue();
+      assertThat(pool.expired("", now)).isTrue();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContainerSnapshotsTest {
+
+  private static final String IMAGES = "[" +
+    "{\"Id\":\"sha256:a1\",\"RepoTags\":[\"ebean-snapshot/oracle:0123456789abcdef\"],\"Created\":1700000000,\"Size\":1000}," +
+    "{\"Id\":\"sha256:b2\",\"RepoTags\":[\"ebean-snapshot/sqlserver:fedcba9876543210\"],\"Created\":1700000100,\"Size\":2000}" +
+    "]";
+
+  private static final String FILTER = "/images/json?filters=%7B%22label%22%3A%5B%22io.ebean.test.snapshot%22%5D%7D";
+
+  @Test
+  void imageName() {
+    assertThat(ContainerSnapshots.imageName("Oracle", "0123456789abcdef0123")).isEqualTo("ebean-snapshot/oracle:0123456789abcdef");
+  }
+
+  @Test
+  void list() throws IOException {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET " + FILTER, 200, IMAGES);
+      ContainerSnapshots snapshots = new ContainerSnapshots(daemon.client());
+
+      List<ContainerSnapshots.Snapshot> all = snapshots.list();
+      assertThat(all).hasSize(2);
+      assertThat(all.get(0).image()).isEqualTo("ebean-snapshot/oracle:0123456789abcdef");
+      assertThat(all.get(0).platform()).isEqualTo("oracle");
+      assertThat(all.get(0).size()).isEqualTo("1000");
+
+      List<ContainerSnapshots.Snapshot> sqlServer = snapshots.list("sqlserver");
+      assertThat(sqlServer).hasSize(1);
+      assertThat(sqlServer.get(0).image()).isEqualTo("ebean-snapshot/sqlserver:fedcba9876543210");
+    }
+  }
+
+  @Test
+  void prune() throws IOException {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET " + FILTER, 200, IMAGES);
+      daemon.reply("DELETE /images/ebean-snapshot/oracle:0123456789abcdef", 200, "[]");
+      ContainerSnapshots snapshots = new ContainerSnapshots(daemon.client());
+
+      assertThat(snapshots.prune("oracle")).isEqualTo(1);
+      assertThat(daemon.requests).contains("DELETE /images/ebean-snapshot/oracle:0123456789abcdef");
+      assertThat(daemon.requests).doesNotContain("DELETE /images/ebean-snapshot/sqlserver:fedcba9876543210");
+    }
+  }
+
+  @Test
+  void imageExists_and_commit() throws IOException {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET /images/ebean-snapshot/oracle:0123456789abcdef/json", 200, "{}");
+      daemon.reply("POST /commit?container=ut_oracle&repo=ebean-snapshot%2Foracle&tag=0123456789abcdef&changes=LABEL+io.ebean.test.snapshot%3Dabc", 201, "{\"Id\":\"sha256:c3\"}");
+      DockerApiClient client = daemon.client();
+
+      assertThat(client.imageExists("ebean-snapshot/oracle:0123456789abcdef")).isTrue();
+      assertThat(client.imageExists("ebean-snapshot/oracle:ffffffffffffffff")).isFalse();
+      client.commit("ut_oracle", "ebean-snapshot/oracle:0123456789abcdef", ContainerSnapshots.LABEL, "abc");
+    }
+  }
+
+  @Test
+  void snapshotChecksum_changesWithConfig() {
+    String base = SqlServerContainer.builder("2022-latest").dbName("one").build().snapshotChecksum();
+    String same = SqlServerContainer.builder("2022-latest").dbName("one").port(2433).build().snapshotChecksum();
+    String otherDb = SqlServerContainer.builder("2022-latest").dbName("two").build().snapshotChecksum();
+    String otherVersion = SqlServerContainer.builder("2019-latest").dbName("one").build().snapshotChecksum();
+
+    assertThat(same).isEqualTo(base);
+    assertThat(otherDb).isNotEqualTo(base);
+    assertThat(otherVersion).isNotEqualTo(base);
+  }
+}
@@ -0,0 +1,51 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContainerStateSnapshotTest {
+
+  @Test
+  void parseCli() {
+    List<String> lines = List.of(
+      "{\"Command\":\"\\\"docker-entrypoint.s…\\\"\",\"ID\":\"a1b2c3\",\"Image\":\"postgres:17\",\"Names\":\"ut_postgres\",\"Ports\":\"0.0.0.0:6432->5432/tcp, :::6432->5432/tcp\",\"State\":\"running\",\"Status\":\"Up 2 hours\"}",
+      "{\"ID\":\"d4e5f6\",\"Image\":\"redis\",\"Names\":\"ut_redis\",\"Ports\":\"\",\"State\":\"exited\",\"Status\":\"Exited (0) 3 days ago\"}",
+      "");
+
+    ContainerStateSnapshot snapshot = ContainerStateSnapshot.parseCli(lines);
+    assertThat(snapshot.entries()).hasSize(2);
+    assertThat(snapshot.isRunning("ut_postgres")).isTrue();
+    assertThat(snapshot.isRunning("a1b2c3")).isTrue();
+    assertThat(snapshot.isRunning("ut_redis")).isFalse();
+    assertThat(snapshot.isRegistered("ut_redis")).isTrue();
+    assertThat(snapshot.isRegistered("ut_mysql")).isFalse();
+    assertThat(snapshot.entry("ut_postgres").ports()).containsExactly("5432/tcp -> 0.0.0.0:6432", "5432/tcp -> [::]:6432");
+    assertThat(snapshot.entry("ut_redis").image()).isEqualTo("redis");
+  }
+
+  @Test
+  void parseCli_noState() {
+    List<String> lines = List.of("{\"ID\":\"a1\",\"Image\":\"mysql\",\"Names\":\"ut_mysql\",\"Ports\":\"\",\"Status\":\"Up 5 seconds\"}");
+
+    ContainerStateSnapshot snapshot = ContainerStateSnapshot.parseCli(lines);
+    assertThat(snapshot.entry("ut_mysql").state()).isEqualTo("running");
+  }
+
+  @Test
+  void cliPorts() {
+    assertThat(ContainerStateSnapshot.cliPorts("0.0.0.0:6432->5432/tcp")).containsExactly("5432/tcp -> 0.0.0.0:6432");
+    assertThat(ContainerStateSnapshot.cliPorts("[::]:32768->6379/tcp")).containsExactly("6379/tcp -> [::]:32768");
+    assertThat(ContainerStateSnapshot.cliPorts("6379/tcp")).isEmpty();
+    assertThat(ContainerStateSnapshot.cliPorts(null)).isEmpty();
+  }
+
+  @Test
+  void expired() {
+    var snapshot = new ContainerStateSnapshot(List.of(), System.currentTimeMillis() - 5000);
+    assertThat(snapshot.expired(2000)).isTrue();
+    assertThat(snapshot.expired(10000)).isFalse();
+  }
+}
@@ -0,0 +1,336 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DockerApiClientTest {
+
+  private static final String CONTAINERS = "[{\"Id\":\"a1\",\"Names\":[\"/ut_postgres\"],\"State\":\"running\"},"
+    + "{\"Id\":\"b2\",\"Names\":[\"/ut_redis\",\"/ut_postgres/redis\"],\"State\":\"running\"}]";
+
+  private static final String ALL_CONTAINERS = "[{\"Id\":\"a1\",\"Names\":[\"/ut_postgres\"],\"Image\":\"postgres:17\",\"State\":\"running\","
+    + "\"Ports\":[{\"IP\":\"0.0.0.0\",\"PrivatePort\":5432,\"PublicPort\":6432,\"Type\":\"tcp\"},{\"IP\":\"::\",\"PrivatePort\":5432,\"PublicPort\":6432,\"Type\":\"tcp\"}]},"
+    + "{\"Id\":\"b2\",\"Names\":[\"/ut_redis\"],\"Image\":\"redis\",\"State\":\"exited\",\"Ports\":[{\"PrivatePort\":6379,\"Type\":\"tcp\"}]}]";
+
+  private static final String INSPECT = "{\"Id\":\"a1\",\"Name\":\"/ut_postgres\","
+    + "\"HostConfig\":{\"PortBindings\":{\"5432/tcp\":[{\"HostIp\":\"\",\"HostPort\":\"6432\"}]}},"
+    + "\"NetworkSettings\":{\"Ports\":{\"5432/tcp\":[{\"HostIp\":\"0.0.0.0\",\"HostPort\":\"6432\"},{\"HostIp\":\"::\",\"HostPort\":\"6432\"}]}}}";
+
+  @Test
+  void ping() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      assertThat(daemon.client().ping()).isTrue();
+    }
+  }
+
+  @Test
+  void ping_notAvailable() {
+    assertThat(DockerApiClient.tcp("localhost", 1).ping()).isFalse();
+  }
+
+  @Test
+  void running() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.replyChunked("GET /containers/json", 200, CONTAINERS);
+      daemon.reply("GET /containers/json?all=1", 200, "[]");
+
+      DockerApiClient client = daemon.client();
+      assertThat(client.running()).containsExactly("ut_postgres", "ut_redis");
+      assertThat(client.registered()).isEmpty();
+    }
+  }
+
+  @Test
+  void snapshot() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.replyChunked("GET /containers/json?all=1", 200, ALL_CONTAINERS);
+
+      ContainerStateSnapshot snapshot = daemon.client().snapshot();
+      assertThat(snapshot.entries()).hasSize(2);
+      assertThat(snapshot.isRunning("ut_postgres")).isTrue();
+      assertThat(snapshot.isRunning("a1")).isTrue();
+      assertThat(snapshot.isRunning("ut_redis")).isFalse();
+      assertThat(snapshot.isRegistered("ut_redis")).isTrue();
+      assertThat(snapshot.entry("ut_postgres").image()).isEqualTo("postgres:17");
+      assertThat(snapshot.entry("ut_postgres").ports()).containsExactly("5432/tcp -> 0.0.0.0:6432", "5432/tcp -> [::]:6432");
+      assertThat(snapshot.entry("ut_redis").ports()).isEmpty();
+    }
+  }
+
+  @Test
+  void commands_useSingleSnapshot() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET /containers/json?all=1", 200, ALL_CONTAINERS);
+      daemon.reply("POST /containers/ut_redis/start", 204, "");
+
+      var commands = new Commands(daemon.client());
+      assertThat(commands.isRunning("ut_postgres")).isTrue();
+      assertThat(commands.isRunning("ut_redis")).isFalse();
+      assertThat(commands.isRegistered("ut_redis")).isTrue();
+      assertThat(commands.isRegistered("redis")).isFalse();
+      assertThat(commands.port("ut_postgres")).isEqualTo(6432);
+      assertThat(daemon.requests).hasSize(1);
+
+      commands.start("ut_redis");
+      assertThat(commands.isRunning("ut_postgres")).isTrue();
+      assertThat(daemon.requests).containsExactly("GET /containers/json?all=1", "POST /containers/ut_redis/start", "GET /containers/json?all=1");
+    }
+  }
+
+  @Test
+  void port() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET /containers/ut_postgres/json", 200, INSPECT);
+      daemon.reply("GET /containers/json?all=1", 200, "[]");
+
+      DockerApiClient client = daemon.client();
+      assertThat(client.ports("ut_postgres")).containsExactly("5432/tcp -> 0.0.0.0:6432", "5432/tcp -> [::]:6432");
+      assertThat(new Commands(client).port("ut_postgres")).isEqualTo(6432);
+    }
+  }
+
+  @Test
+  void registeredPortMatch() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET /containers/ut_postgres/json", 200, INSPECT);
+
+      DockerApiClient client = daemon.client();
+      assertThat(client.registeredPortMatch("ut_postgres", 6432)).isNull();
+      assertThat(client.registeredPortMatch("ut_postgres", 7432)).isEqualTo("5432/tcp -> 6432");
+      assertThat(client.registeredPortMatch("doesNotExist", 7432)).isNull();
+    }
+  }
+
+  @Test
+  void logs_multiplexed() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      byte[] logs = FakeDockerDaemon.multiplexed("starting", "ready to accept connections", "restarting", "ready to accept connections", "done");
+      daemon.reply("GET /containers/ut_postgres/logs?stdout=1&stderr=1&tail=all", 200, logs, false);
+      daemon.reply("GET /containers/ut_postgres/logs?stdout=1&stderr=1&tail=2", 200, FakeDockerDaemon.multiplexed("ready", "done"), true);
+      daemon.reply("GET /containers/ut_postgres/logs?stdout=1&stderr=1", 200, logs, true);
+
+      var commands = new Commands(daemon.client());
+      assertThat(commands.logs("ut_postgres")).hasSize(5);
+      assertThat(commands.logs("ut_postgres", 2)).containsExactly("ready", "done");
+      assertThat(commands.logsWithMatch("ut_postgres", "ready", "restarting")).containsExactly("ready to accept connections");
+      assertThat(commands.logsContain("ut_postgres", "ready to accept", "done")).isFalse();
+      assertThat(commands.logsContain("ut_postgres", "restarting")).isTrue();
+      assertThat(commands.logsContain("ut_postgres", "shutdown")).isFalse();
+    }
+  }
+
+  @Test
+  void logsContain_frameSpanningMatch() throws Exception {
+    var logs = new ByteArrayOutputStream();
+    logs.write(frame(1, "database system is re"));
+    logs.write(frame(2, "ady\n"));
+    assertThat(DockerApiClient.logsContain(logs.toByteArray(), "system is ready")).isTrue();
+    // the frame header is not part of the match
+    assertThat(DockerApiClient.logsContain(logs.toByteArray(), "re\u0002")).isFalse();
+    assertThat(DockerApiClient.logsContain("one\ntwo".getBytes(StandardCharsets.UTF_8), "e\ntw")).isTrue();
+  }
+
+  @Test
+  void followLogs() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      byte[] logs = FakeDockerDaemon.multiplexed("starting", "Waiting for connections", "MongoDB init process complete", "Waiting for connections 0.0.0.0");
+      daemon.reply("GET /containers/ut_mongo/logs?stdout=1&stderr=1&follow=1", 200, logs, true);
+
+      LogFollower follower = new Commands(daemon.client()).followLogs("ut_mongo", "Waiting for connections", "MongoDB init process complete");
+      assertThat(follower.future().get(10, TimeUnit.SECONDS)).isEqualTo("Waiting for connections");
+      for (int i = 0; i < 100 && !follower.isEnded(); i++) {
+        Thread.sleep(20);
+      }
+      assertThat(follower.isEnded()).isTrue();
+      assertThat(follower.matchedLine()).isEqualTo("Waiting for connections 0.0.0.0");
+    }
+  }
+
+  @Test
+  void followLogs_noSuchContainer() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      CommandException e = assertThrows(CommandException.class, () -> new Commands(daemon.client()).followLogs("missing", "ready", null));
+      assertThat(e.getMessage()).contains("No such container");
+    }
+  }
+
+  @Test
+  void followEvents_awaitHealthy() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      String events = "{\"status\":\"start\",\"Action\":\"start\"}\n"
+        + "{\"status\":\"health_status: starting\",\"Action\":\"health_status: starting\"}\n"
+        + "{\"status\":\"health_status: healthy\",\"Action\":\"health_status: healthy\"}\n";
+      daemon.replyChunked("GET /events?filters=%7B%22container%22%3A%5B%22ut_postgres%22%5D%7D", 200, events);
+
+      try (HealthWatcher watcher = new Commands(daemon.client()).watchHealth("ut_postgres")) {
+        assertThat(watcher.await(10_000)).isTrue();
+      }
+    }
+  }
+
+  @Test
+  void eventAction() {
+    assertThat(DockerApiClient.eventAction("{\"Type\":\"container\",\"Action\":\"die\"}")).isEqualTo("die");
+    assertThat(DockerApiClient.eventAction("{\"status\":\"health_status: healthy\"}")).isEqualTo("health_status: healthy");
+    assertThat(DockerApiClient.eventAction(" ")).isNull();
+  }
+
+  @Test
+  void timedChannel_readTimeout() throws Exception {
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      // accepts the connection (backlog) but never responds
+      InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+      try (var channel = DockerApiClient.TimedChannel.connect(SocketChannel.open(), address, 2_000, 200)) {
+        channel.out.write("GET /_ping HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        long start = System.currentTimeMillis();
+        assertThrows(SocketTimeoutException.class, () -> channel.in.read(new byte[10]));
+        assertThat(System.currentTimeMillis() - start).isBetween(150L, 5_000L);
+      }
+    }
+  }
+
+  @Test
+  void timedChannel_closeWakesRead() throws Exception {
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+      var channel = DockerApiClient.TimedChannel.connect(SocketChannel.open(), address, 2_000, 0);
+      CompletableFuture<Throwable> result = CompletableFuture.supplyAsync(() -> {
+        try {
+          channel.in.read(new byte[10]);
+          return null;
+        } catch (IOException e) {
+          return e;
+        }
+      });
+      Thread.sleep(100);
+      channel.close();
+      assertThat(result.get(5, TimeUnit.SECONDS)).isInstanceOf(IOException.class);
+    }
+  }
+
+  @Test
+  void pull_sendsRegistryAuth() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.replyChunked("POST /images/create?fromImage=my.harbor%2Fmirror%2Fredis&tag=7", 200,
+        "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":7,\"total\":7},\"id\":\"a1\"}\n");
+      String auth = Base64.getEncoder().encodeToString("robot:secret".getBytes(StandardCharsets.UTF_8));
+      RegistryAuth registryAuth = new RegistryAuth(Json.parseObject("{\"auths\":{\"my.harbor\":{\"auth\":\"" + auth + "\"}}}"));
+
+      assertThat(daemon.client().pull("my.harbor/mirror/redis:7", registryAuth)).isEqualTo(7);
+      assertThat(daemon.headers.stream().anyMatch(header -> header.startsWith("X-Registry-Auth: "))).isTrue();
+    }
+  }
+
+  @Test
+  void pullBytes() {
+    String progress = "{\"status\":\"Pulling fs layer\",\"progressDetail\":{},\"id\":\"a1\"}\n"
+      + "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":1,\"total\":1000},\"id\":\"a1\"}\n"
+      + "{\"status\":\"Extracting\",\"progressDetail\":{\"current\":900,\"total\":4000},\"id\":\"a1\"}\n"
+      + "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":2,\"total\":24},\"id\":\"b2\"}\n";
+    assertThat(DockerApiClient.pullBytes(progress)).isEqualTo(1024);
+    assertThat(DockerApiClient.pullBytes("")).isEqualTo(0);
+
+    CommandException e = assertThrows(CommandException.class, () -> DockerApiClient.pullBytes("{\"error\":\"pull access denied\"}"));
+    assertThat(e.getMessage()).contains("pull access denied");
+  }
+
+  @Test
+  void healthStatus() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET /containers/ut_postgres/json", 200, "{\"State\":{\"Status\":\"running\",\"Health\":{\"Status\":\"starting\"}}}");
+      daemon.reply("GET /containers/ut_redis/json", 200, "{\"State\":{\"Status\":\"running\"}}");
+      DockerApiClient client = daemon.client();
+      assertThat(client.healthStatus("ut_postgres")).isEqualTo("starting");
+      assertThat(client.healthStatus("ut_redis")).isNull();
+      assertThat(client.healthStatus("missing")).isNull();
+    }
+  }
+
+  @Test
+  void readLogLines_frameSpanningLines() throws Exception {
+    var logs = new ByteArrayOutputStream();
+    logs.write(frame(1, "one\ntw"));
+    logs.write(frame(2, "o\r\nthree"));
+    List<String> lines = new ArrayList<>();
+    DockerApiClient.readLogLines(new ByteArrayInputStream(logs.toByteArray()), lines::add);
+    assertThat(lines).containsExactly("one", "two", "three");
+  }
+
+  private static byte[] frame(int stream, String content) {
+    byte[] payload = content.getBytes(StandardCharsets.UTF_8);
+    byte[] frame = new byte[8 + payload.length];
+    frame[0] = (byte) stream;
+    frame[7] = (byte) payload.length;
+    System.arraycopy(payload, 0, frame, 8, payload.length);
+    return frame;
+  }
+
+  @Test
+  void logs_tty() {
+    byte[] raw = "one\r\ntwo\nthree".getBytes();
+    assertThat(DockerApiClient.logLines(raw, null, null)).containsExactly("one", "two", "three");
+  }
+
+  @Test
+  void stop_noSuchContainer() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("POST /containers/ut_redis/stop", 304, "");
+
+      DockerApiClient client = daemon.client();
+      client.stop(List.of("ut_redis"));
+
+      CommandException e = assertThrows(CommandException.class, () -> client.stop(List.of("ut_redis", "missing")));
+      assertThat(e.getMessage()).contains("No such container");
+
+      // logged and not thrown
+      new Commands(client).stop("missing");
+      assertThat(daemon.requests).contains("POST /containers/missing/stop");
+    }
+  }
+
+  @Test
+  void startRemove() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("POST /containers/ut_redis/start", 204, "");
+      daemon.reply("DELETE /containers/ut_redis?force=1&v=1", 204, "");
+
+      var commands = new Commands(daemon.client());
+      commands.start("ut_redis");
+      commands.remove("ut_redis");
+      commands.removeContainers("ut_redis", "missing");
+      assertThat(daemon.requests).contains("POST /containers/ut_redis/start", "DELETE /containers/missing?force=1&v=1");
+    }
+  }
+
+  @Test
+  void endpoint() {
+    assertThat(DockerApiClient.endpoint("unix:///tmp/docker.sock")).isEqualTo("unix:///tmp/docker.sock");
+    assertThat(DockerApiClient.endpoint("npipe:////./pipe/docker_engine")).isNull();
+    assertThat(DockerApiClient.of("tcp://10.1.2.3:2376").toString()).isEqualTo("tcp://10.1.2.3:2376");
+    assertThat(DockerApiClient.of("unix:///tmp/docker.sock").toString()).isEqualTo("unix:///tmp/docker.sock");
+  }
+
+  @Test
+  void isDockerCommand() {
+    assertThat(DockerApiClient.isDockerCommand("docker")).isTrue();
+    assertThat(DockerApiClient.isDockerCommand("/usr/local/bin/docker")).isTrue();
+    assertThat(DockerApiClient.isDockerCommand("podman")).isFalse();
+  }
+}
@@ -0,0 +1,221 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.waiters.WaiterResponse;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbAsyncWaiter;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DynamoDBSeederTest {
+
+  @Test
+  void seedJsonLines_batchesWithRetryOfUnprocessed() {
+    FakeDynamo dynamo = new FakeDynamo();
+    dynamo.unprocessedOnFirstAttempt = 3;
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < 60; i++) {
+      lines.append("{\"id\":\"").append(i).append("\",\"age\":").append(i).append("}\n");
+      if (i == 10) {
+        lines.append('\n');
+      }
+    }
+    long count = DynamoDBSeeder.of(dynamo).concurrency(2).seedJsonLines("customer", new StringReader(lines.toString()));
+
+    assertThat(count).isEqualTo(60);
+    assertThat(dynamo.ids).hasSize(60);
+    assertThat(dynamo.batchSizes.get(0)).isEqualTo(25);
+    assertThat(dynamo.batchSizes).contains(3);
+    assertThat(dynamo.maxInFlight.get()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  void seedJsonLines_maxRetries() {
+    FakeDynamo dynamo = new FakeDynamo();
+    dynamo.unprocessedAlways = true;
+    IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+      DynamoDBSeeder.of(dynamo).maxRetries(2).seedJsonLines("customer", new StringReader("{\"id\":\"1\"}\n{\"id\":\"2\"}")));
+    assertThat(e.getMessage()).contains("unprocessed after 2 retries");
+  }
+
+  @Test
+  void seedJsonLines_invalidJson() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+      DynamoDBSeeder.of(new FakeDynamo()).seedJsonLines("customer", new StringReader("{\"id\":\"1\"}\n{oops")));
+    assertThat(e.getMessage()).contains("line 2");
+  }
+
+  @Test
+  void seedCsv() {
+    FakeDynamo dynamo = new FakeDynamo();
+    String csv = "id,name,age:N,active:BOOL,tags:SS\n" +
+      "1,\"Smith, Jo\",42,true,a|b\n" +
+      "2,\"multi\nline \"\"quoted\"\"\",,false,\n";
+    long count = DynamoDBSeeder.of(dynamo).seedCsv("customer", new StringReader(csv));
+
+    assertThat(count).isEqualTo(2);
+    Map<String, AttributeValue> first = dynamo.items.get("1");
+    assertThat(first.get("name").s()).isEqualTo("Smith, Jo");
+    assertThat(first.get("age").n()).isEqualTo("42");
+    assertThat(first.get("active").bool()).isTrue();
+    assertThat(first.get("tags").ss()).containsExactly("a", "b");
+    Map<String, AttributeValue> second = dynamo.items.get("2");
+    assertThat(second.get("name").s()).isEqualTo("multi\nline \"quoted\"");
+    assertThat(second.containsKey("age")).isFalse();
+    assertThat(second.containsKey("tags")).isFalse();
+  }
+
+  @Test
+  void csvRecord() throws Exception {
+    BufferedReader reader = new BufferedReader(new StringReader("a,,\"c,d\"\n\"\"\n"));
+    assertThat(DynamoDBSeeder.csvRecord(reader)).containsExactly("a", "", "c,d");
+    assertThat(DynamoDBSeeder.csvRecord(reader)).containsExactly("");
+    assertThat(DynamoDBSeeder.csvRecord(reader)).isNull();
+  }
+
+  @Test
+  void value() {
+    AttributeValue value = DynamoDBSeeder.value(Json.parse("{\"a\":[1,2.5,null],\"b\":{\"c\":false}}"));
+    assertThat(value.m().get("a").l().get(0).n()).isEqualTo("1");
+    assertThat(value.m().get("a").l().get(1).n()).isEqualTo("2.5");
+    assertThat(value.m().get("a").l().get(2).nul()).isTrue();
+    assertThat(value.m().get("b").m().get("c").bool()).isFalse();
+  }
+
+  @Test
+  void typedValue() {
+    AttributeValue value = DynamoDBSeeder.typedValue(Json.parse("{\"M\":{\"n\":{\"N\":\"42\"},\"ss\":{\"SS\":[\"x\",\"y\"]},\"l\":{\"L\":[{\"S\":\"s\"}]}}}"));
+    assertThat(value.m().get("n").n()).isEqualTo("42");
+    assertThat(value.m().get("ss").ss()).containsExactly("x", "y");
+    assertThat(value.m().get("l").l().get(0).s()).isEqualTo("s");
+    assertThrows(IllegalArgumentException.class, () -> DynamoDBSeeder.typedValue(Json.parse("{\"X\":\"1\"}")));
+  }
+
+  @Test
+  void tableRequest_schema() {
+    CreateTableRequest request = DynamoDBSeeder.tableRequest(Json.parseObject("{\"TableName\":\"order\"," +
+      "\"AttributeDefinitions\":[{\"AttributeName\":\"customerId\",\"AttributeType\":\"S\"},{\"AttributeName\":\"orderId\",\"AttributeType\":\"N\"}]," +
+      "\"KeySchema\":[{\"AttributeName\":\"customerId\",\"KeyType\":\"HASH\"},{\"AttributeName\":\"orderId\",\"KeyType\":\"RANGE\"}]," +
+      "\"GlobalSecondaryIndexes\":[{\"IndexName\":\"byOrder\",\"KeySchema\":[{\"AttributeName\":\"orderId\",\"KeyType\":\"HASH\"}]," +
+      "\"Projection\":{\"ProjectionType\":\"KEYS_ONLY\"}}]}"));
+
+    assertThat(request.tableName()).isEqualTo("order");
+    assertThat(request.billingMode()).isEqualTo(BillingMode.PAY_PER_REQUEST);
+    assertThat(request.keySchema()).hasSize(2);
+    assertThat(request.attributeDefinitions().get(1).attributeTypeAsString()).isEqualTo("N");
+    assertThat(request.globalSecondaryIndexes().get(0).projection().projectionTypeAsString()).isEqualTo("KEYS_ONLY");
+    assertThrows(IllegalArgumentException.class, () -> DynamoDBSeeder.tableRequest(Json.parseObject("{\"TableName\":\"x\"}")));
+  }
+
+  @Test
+  void createTable() {
+    FakeDynamo dynamo = new FakeDynamo();
+    DynamoDBSeeder seeder = DynamoDBSeeder.of(dynamo);
+    assertThat(seeder.createTable("customer", "id")).isTrue();
+    assertThat(seeder.createTable("customer", "id")).isFalse();
+    assertThat(dynamo.tables).containsExactly("customer");
+  }
+
+  @Test
+  void backoff() {
+    assertThat(DynamoDBSeeder.backoff(0)).isBetween(12L, 25L);
+    assertThat(DynamoDBSeeder.backoff(30)).isBetween(1000L, 2000L);
+  }
+
+  private static final class FakeDynamo implements DynamoDbAsyncClient {
+
+    final Map<String, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+    final Set<String> ids = ConcurrentHashMap.newKeySet();
+    final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    final List<String> tables = new CopyOnWriteArrayList<>();
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    int unprocessedOnFirstAttempt;
+    boolean unprocessedAlways;
+
+    @Override
+    public CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request) {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      List<WriteRequest> writes = request.requestItems().get("customer");
+      batchSizes.add(writes.size());
+      return CompletableFuture.supplyAsync(() -> {
+        try {
+          Thread.sleep(5);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        int unprocessed = unprocessedAlways ? writes.size() : writes.size() == 25 ? unprocessedOnFirstAttempt : 0;
+        List<WriteRequest> processed = writes.subList(0, writes.size() - unprocessed);
+        for (WriteRequest write : processed) {
+          Map<String, AttributeValue> item = write.putRequest().item();
+          ids.add(item.get("id").s());
+          items.put(item.get("id").s(), item);
+        }
+        inFlight.decrementAndGet();
+        BatchWriteItemResponse.Builder response = BatchWriteItemResponse.builder();
+        if (unprocessed > 0) {
+          response.unprocessedItems(Map.of("customer", writes.subList(writes.size() - unprocessed, writes.size())));
+        }
+        return response.build();
+      });
+    }
+
+    @Override
+    public CompletableFuture<DescribeTableResponse> describeTable(DescribeTableRequest request) {
+      if (tables.contains(request.tableName())) {
+        return CompletableFuture.completedFuture(DescribeTableResponse.builder().build());
+      }
+      return CompletableFuture.failedFuture(ResourceNotFoundException.builder().message("not found").build());
+    }
+
+    @Override
+    public CompletableFuture<CreateTableResponse> createTable(CreateTableRequest request) {
+      tables.add(request.tableName());
+      return CompletableFuture.completedFuture(CreateTableResponse.builder().build());
+    }
+
+    @Override
+    public DynamoDbAsyncWaiter waiter() {
+      return new DynamoDbAsyncWaiter() {
+        @Override
+        public CompletableFuture<WaiterResponse<DescribeTableResponse>> waitUntilTableExists(DescribeTableRequest request) {
+          return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+        }
+      };
+    }
+
+    @Override
+    public String serviceName() {
+      return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package io.ebean.test.containers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fake Docker daemon serving canned Docker Engine API responses over a local socket.
+ */
+class FakeDockerDaemon implements AutoCloseable {
+
+  private final ServerSocket serverSocket;
+  private final Map<String, Reply> replies = new ConcurrentHashMap<>();
+  final List<String> requests = new CopyOnWriteArrayList<>();
+  final List<String> headers = new CopyOnWriteArrayList<>();
+
+  FakeDockerDaemon() throws IOException {
+    this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread thread = new Thread(this::acceptLoop, "fake-docker");
+    thread.setDaemon(true);
+    thread.start();
+    reply("GET /_ping", 200, "OK");
+  }
+
+  int port() {
+    return serverSocket.getLocalPort();
+  }
+
+  DockerApiClient client() {
+    return DockerApiClient.tcp("localhost", port());
+  }
+
+  FakeDockerDaemon reply(String request, int status, String body) {
+    return reply(request, status, body.getBytes(StandardCharsets.UTF_8), false);
+  }
+
+  FakeDockerDaemon replyChunked(String request, int status, String body) {
+    return reply(request, status, body.getBytes(StandardCharsets.UTF_8), true);
+  }
+
+  FakeDockerDaemon reply(String request, int status, byte[] body, boolean chunked) {
+    replies.put(request, new Reply(status, body, chunked));
+    return this;
+  }
+
+  /**
+   * Return log content framed as a multiplexed (non-TTY) log stream.
+   */
+  static byte[] multiplexed(String... lines) {
+    var out = new java.io.ByteArrayOutputStream();
+    for (int i = 0; i < lines.length; i++) {
+      byte[] payload = (lines[i] + "\n").getBytes(StandardCharsets.UTF_8);
+      out.write(i % 2 == 0 ? 1 : 2);
+      out.write(new byte[]{0, 0, 0}, 0, 3);
+      out.write(payload.length >>> 24);
+      out.write(payload.length >>> 16);
+      out.write(payload.length >>> 8);
+      out.write(payload.length);
+      out.write(payload, 0, payload.length);
+    }
+    return out.toByteArray();
+  }
+
+  private void acceptLoop() {
+    while (!serverSocket.isClosed()) {
+      try (Socket socket = serverSocket.accept()) {
+        handle(socket);
+      } catch (IOException e) {
+        // closed
+      }
+    }
+  }
+
+  private void handle(Socket socket) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+    String requestLine = reader.readLine();
+    String line;
+    while ((line = reader.readLine()) != null && !line.isEmpty()) {
+      headers.add(line);
+    }
+    String[] parts = requestLine.split(" ");
+    String request = parts[0] + " " + parts[1];
+    requests.add(request);
+    Reply reply = replies.get(request);
+    if (reply == null) {
+      reply = new Reply(404, "{\"message\":\"No such container: fake\"}".getBytes(StandardCharsets.UTF_8), false);
+    }
+    OutputStream out = socket.getOutputStream();
+    StringBuilder head = new StringBuilder("HTTP/1.1 ").append(reply.status).append(" X\r\n");
+    if (reply.chunked) {
+      head.append("Transfer-Encoding: chunked\r\n\r\n");
+      out.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+      int half = reply.body.length / 2;
+      writeChunk(out, reply.body, 0, half);
+      writeChunk(out, reply.body, half, reply.body.length - half);
+      out.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+    } else {
+      head.append("Content-Length: ").append(reply.body.length).append("\r\n\r\n");
+      out.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+      out.write(reply.body);
+    }
+    out.flush();
+  }
+
+  private static void writeChunk(OutputStream out, byte[] body, int offset, int length) throws IOException {
+    if (length > 0) {
+      out.write((Integer.toHexString(length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+      out.write(body, offset, length);
+      out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+  }
+
+  private static final class Reply {
+
+    final int status;
+    final byte[] body;
+    final boolean chunked;
+
+    Reply(int status, byte[] body, boolean chunked) {
+      this.status = status;
+      this.body = body;
+      this.chunked = chunked;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HealthWatcherTest {
+
+  @Test
+  void accept_healthy() {
+    var watcher = new HealthWatcher("ut_postgres");
+    watcher.accept("start");
+    watcher.accept("health_status: starting");
+    watcher.accept("health_status: unhealthy");
+    watcher.accept("health_status: healthy");
+    assertThat(watcher.await(10)).isTrue();
+  }
+
+  @Test
+  void accept_die() {
+    var watcher = new HealthWatcher("ut_postgres");
+    watcher.accept("health_status: starting");
+    watcher.accept("die");
+    assertThat(watcher.await(1000)).isFalse();
+  }
+
+  @Test
+  void end() {
+    var watcher = new HealthWatcher("ut_postgres");
+    watcher.end();
+    assertThat(watcher.await(1000)).isFalse();
+  }
+
+  @Test
+  void await_timeout() {
+    var watcher = new HealthWatcher("ut_postgres");
+    watcher.accept("health_status: starting");
+    long start = System.currentTimeMillis();
+    assertThat(watcher.await(50)).isFalse();
+    assertThat(System.currentTimeMillis() - start).isLessThan(1000);
+  }
+
+  @Test
+  void runProcess_healthCmd() {
+    List<String> command = PostgresContainer.builder("17")
+      .healthCheck(true)
+      .build().runProcess().command();
+
+    int pos = command.indexOf("--health-cmd");
+    assertThat(pos).isGreaterThan(0);
+    assertThat(command.get(pos + 1)).isEqualTo("pg_isready -q -h 127.0.0.1");
+    assertThat(command.indexOf("--health-cmd")).isLessThan(command.indexOf("postgres:17"));
+  }
+
+  @Test
+  void runProcess_customHealthCmd() {
+    List<String> command = RedisContainer.builder("latest")
+      .healthCmd("redis-cli -p 6379 ping")
+      .build().runProcess().command();
+
+    assertThat(command.get(command.indexOf("--health-cmd") + 1)).isEqualTo("redis-cli -p 6379 ping");
+  }
+
+  @Test
+  void runProcess_withoutHealthCheck() {
+    assertThat(PostgresContainer.builder("17").build().runProcess().command()).doesNotContain("--health-cmd");
+    // platform without a health command uses the HEALTHCHECK of the image if any
+    assertThat(ElasticContainer.builder("8").healthCheck(true).build().runProcess().command()).doesNotContain("--health-cmd");
+  }
+
+  @Test
+  void properties() {
+    Properties properties = new Properties();
+    properties.setProperty("mysql.healthCheck", "true");
+    InternalConfig config = MySqlContainer.builder("8.0").properties(properties).internalConfig();
+    assertThat(config.healthCheck()).isTrue();
+    assertThat(config.healthCmd()).isNull();
+
+    properties.setProperty("mysql.healthCheck", "false");
+    properties.setProperty("mysql.healthCmd", "mysqladmin ping");
+    config = MySqlContainer.builder("8.0").properties(properties).internalConfig();
+    assertThat(config.healthCheck()).isTrue();
+    assertThat(config.healthCmd()).isEqualTo("mysqladmin ping");
+  }
+}
@@ -0,0 +1,129 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImagePrefetcherTest {
+
+  private static final String MIRRORED = "my.ecr/mirror/docker.io/library/postgres:18";
+
+  @AfterEach
+  void reset() {
+    ImagePrefetcher.reset();
+  }
+
+  @Test
+  void normalise() {
+    assertThat(ImagePrefetcher.normalise("redis")).isEqualTo("redis:latest");
+    assertThat(ImagePrefetcher.normalise("docker.io/library/redis:7")).isEqualTo("redis:7");
+    assertThat(ImagePrefetcher.normalise("docker.io/bitnami/redis:7")).isEqualTo("bitnami/redis:7");
+    assertThat(ImagePrefetcher.normalise("localhost:5000/redis")).isEqualTo("localhost:5000/redis:latest");
+    assertThat(ImagePrefetcher.normalise(MIRRORED)).isEqualTo(MIRRORED);
+  }
+
+  @Test
+  void enabled() {
+    Properties properties = new Properties();
+    assertThat(ImagePrefetcher.enabled(null)).isTrue();
+    assertThat(ImagePrefetcher.enabled(properties)).isTrue();
+    properties.setProperty("ebean.test.containers.prefetch", "false");
+    assertThat(ImagePrefetcher.enabled(properties)).isFalse();
+  }
+
+  @Test
+  void prefetch_pullsMissingOnly() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET /images/json", 200, "[{\"RepoTags\":[\"redis:7\",\"postgres:17\"]},{\"RepoTags\":[\"<none>:<none>\"]}]");
+      daemon.replyChunked("POST /images/create?fromImage=my.ecr%2Fmirror%2Fdocker.io%2Flibrary%2Fpostgres&tag=18", 200,
+        "{\"status\":\"Pulling from library/postgres\",\"id\":\"18\"}\n"
+          + "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":10,\"total\":300},\"id\":\"a1\"}\n"
+          + "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":300,\"total\":300},\"id\":\"a1\"}\n"
+          + "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":5,\"total\":50},\"id\":\"b2\"}\n"
+          + "{\"status\":\"Status: Downloaded newer image for " + MIRRORED + "\"}\n");
+
+      Commands commands = new Commands(daemon.client());
+      Map<String, Commands> images = new LinkedHashMap<>();
+      images.put("redis:7", commands);
+      images.put("docker.io/library/postgres:17", commands);
+      images.put(MIRRORED, commands);
+      ImagePrefetcher.prefetch(images, Map.of());
+
+      assertThat(ImagePrefetcher.pending("redis:7")).isNull();
+      assertThat(ImagePrefetcher.pending("docker.io/library/postgres:17")).isNull();
+      ImagePrefetcher.Pull pull = ImagePrefetcher.pending(MIRRORED);
+      assertThat(pull).isNotNull();
+      assertThat(pull.await()).isTrue();
+      assertThat(pull.bytes()).isEqualTo(350);
+      assertThat(pull.pulled()).isEqualTo(MIRRORED);
+      assertThat(pull.isDone()).isTrue();
+      // only the first start that uses the pull reports it
+      assertThat(pull.report()).isTrue();
+      assertThat(pull.report()).isFalse();
+
+      // already pulled (or being pulled) in this JVM so not listed or pulled again
+      int requests = daemon.requests.size();
+      ImagePrefetcher.prefetch(new LinkedHashMap<>(Map.of(MIRRORED, commands)), Map.of());
+      assertThat(daemon.requests).hasSize(requests);
+      assertThat(ImagePrefetcher.pending(MIRRORED)).isSameAs(pull);
+    }
+  }
+
+  @Test
+  void prefetch_failedPull() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET /images/json", 200, "[]");
+      daemon.replyChunked("POST /images/create?fromImage=my.ecr%2Fmirror%2Fdocker.io%2Flibrary%2Fpostgres&tag=18", 200,
+        "{\"status\":\"Pulling from library/postgres\",\"id\":\"18\"}\n"
+          + "{\"errorDetail\":{\"message\":\"manifest unknown\"},\"error\":\"manifest unknown\"}\n");
+
+      ImagePrefetcher.prefetch(new LinkedHashMap<>(Map.of(MIRRORED, new Commands(daemon.client()))), Map.of());
+      ImagePrefetcher.Pull pull = ImagePrefetcher.pending(MIRRORED);
+      assertThat(pull).isNotNull();
+      assertThat(pull.await()).isFalse();
+      assertThat(pull.bytes()).isEqualTo(0);
+      // removed such that docker run pulls the image
+      assertThat(ImagePrefetcher.pending(MIRRORED)).isNull();
+    }
+  }
+
+  @Test
+  void pull_fallback() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      // not local and the pull via the mirror fails (no reply) so the image without the mirror is pulled
+      daemon.replyChunked("POST /images/create?fromImage=postgres&tag=18", 200,
+        "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":5,\"total\":70},\"id\":\"a1\"}\n");
+
+      ImagePrefetcher.Pull pull = ImagePrefetcher.pull(MIRRORED, List.of("postgres:18"), new Commands(daemon.client()));
+      assertThat(pull).isNotNull();
+      assertThat(pull.await()).isTrue();
+      assertThat(pull.pulled()).isEqualTo("postgres:18");
+      assertThat(pull.bytes()).isEqualTo(70);
+      assertThat(daemon.requests.stream().anyMatch(request -> request.contains("fromImage=my.ecr"))).isTrue();
+    }
+  }
+
+  @Test
+  void pull_whenLocal() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET /images/" + MIRRORED + "/json", 200, "{}");
+      assertThat(ImagePrefetcher.pull(MIRRORED, List.of("postgres:18"), new Commands(daemon.client()))).isNull();
+    }
+  }
+
+  @Test
+  void prefetch_dockerUnavailable() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("GET /images/json", 500, "{\"message\":\"daemon unavailable\"}");
+
+      ImagePrefetcher.prefetch(new LinkedHashMap<>(Map.of(MIRRORED, new Commands(daemon.client()))), Map.of());
+      assertThat(ImagePrefetcher.pending(MIRRORED)).isNull();
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+
+  @Test
+  void parseObject() {
+    Map<String, Object> map = Json.parseObject("{\"a\":\"x\\\"y\\u0041\", \"b\": 42, \"c\": -1.5, \"d\": [true, false, null], \"e\": {}}");
+    assertThat(map.get("a")).isEqualTo("x\"yA");
+    assertThat(map.get("b")).isEqualTo(42L);
+    assertThat(map.get("c")).isEqualTo(-1.5d);
+    assertThat(Json.array(map, "d")).hasSize(3);
+    assertThat(Json.object(map, "e")).isEmpty();
+    assertThat(Json.object(map, "missing")).isNull();
+    assertThat(Json.string(map, "b")).isEqualTo("42");
+  }
+
+  @Test
+  void parseArray() {
+    List<Object> list = Json.parseArray(" [ {\"Names\":[\"/foo\"]} , [] ] ");
+    assertThat(list).hasSize(2);
+  }
+
+  @Test
+  void parse_invalid() {
+    assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\":1"));
+    assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\":1} x"));
+    assertThrows(IllegalArgumentException.class, () -> Json.parseObject("[]"));
+  }
+}
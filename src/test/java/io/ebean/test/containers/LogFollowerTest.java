@@ -0,0 +1,48 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogFollowerTest {
+
+  @Test
+  void accept_match() throws Exception {
+    var follower = new LogFollower("ut_hana", "Startup finished!", null);
+    follower.accept("starting");
+    assertThat(follower.isMatched()).isFalse();
+    assertThat(follower.future().isDone()).isFalse();
+
+    follower.accept("Startup finished! took 120s");
+    assertThat(follower.isMatched()).isTrue();
+    assertThat(follower.matchedLine()).isEqualTo("Startup finished! took 120s");
+    assertThat(follower.future().get()).isEqualTo("Startup finished! took 120s");
+  }
+
+  @Test
+  void accept_clearMatch() {
+    var follower = new LogFollower("ut_mongo", "Waiting for connections", "MongoDB init process complete");
+    follower.accept("Waiting for connections 127.0.0.1");
+    assertThat(follower.isMatched()).isTrue();
+
+    follower.accept("MongoDB init process complete; ready for start up.");
+    assertThat(follower.isMatched()).isFalse();
+
+    follower.accept("Waiting for connections 0.0.0.0");
+    assertThat(follower.matchedLine()).isEqualTo("Waiting for connections 0.0.0.0");
+  }
+
+  @Test
+  void end_withoutMatch() {
+    var follower = new LogFollower("ut_nuodb", "NuoAdmin Server running", null);
+    follower.accept("other");
+    follower.end();
+
+    assertThat(follower.isEnded()).isTrue();
+    assertThat(follower.isMatched()).isFalse();
+    assertThrows(ExecutionException.class, () -> follower.future().get());
+  }
+}
@@ -0,0 +1,62 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerformanceProfileTest {
+
+  @Test
+  void of() {
+    assertThat(PerformanceProfile.of("TEST_FAST")).isSameAs(PerformanceProfile.TEST_FAST);
+    assertThat(PerformanceProfile.of("testFast")).isSameAs(PerformanceProfile.TEST_FAST);
+    assertThat(PerformanceProfile.of("default")).isSameAs(PerformanceProfile.DEFAULT);
+    assertThat(PerformanceProfile.of(null)).isSameAs(PerformanceProfile.DEFAULT);
+  }
+
+  @Test
+  void properties() {
+    Properties properties = new Properties();
+    properties.setProperty("mysql.performanceProfile", "test_fast");
+    assertThat(MySqlContainer.builder("8.0").properties(properties).internalConfig().getPerformanceProfile()).isSameAs(PerformanceProfile.TEST_FAST);
+  }
+
+  @Test
+  void postgres_testFast() {
+    List<String> command = PostgresContainer.builder("17")
+      .performanceProfile(PerformanceProfile.TEST_FAST)
+      .build().runProcess().command();
+
+    assertThat(command).contains("--shm-size=256m", "fsync=off", "synchronous_commit=off", "full_page_writes=off");
+    assertThat(command.indexOf("--shm-size=256m")).isLessThan(command.indexOf("postgres:17"));
+    assertThat(command.indexOf("fsync=off")).isGreaterThan(command.indexOf("postgres:17"));
+  }
+
+  @Test
+  void postgres_default() {
+    List<String> command = PostgresContainer.builder("17").build().runProcess().command();
+    assertThat(command).doesNotContain("fsync=off", "--shm-size=256m");
+  }
+
+  @Test
+  void mysql_testFast() {
+    List<String> command = MySqlContainer.builder("8.0")
+      .performanceProfile(PerformanceProfile.TEST_FAST)
+      .build().runProcess().command();
+
+    assertThat(command).contains("--tmpfs", "/var/lib/mysql:rw", "--innodb-flush-log-at-trx-commit=0",
+      "--innodb-doublewrite=OFF", "--sync-binlog=0", "--innodb-flush-method=fsync");
+  }
+
+  @Test
+  void clickHouse_testFast() {
+    List<String> command = ClickHouseContainer.builder("latest")
+      .performanceProfile(PerformanceProfile.TEST_FAST)
+      .build().runProcess().command();
+
+    assertThat(command).contains("--tmpfs", "/var/lib/clickhouse:rw");
+  }
+}
@@ -2,6 +2,9 @@ package io.ebean.test.containers;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
 import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -108,4 +111,110 @@ class PostgresConfigTest {
     assertFalse(config.isInMemory());
   }
 
+  @Test
+  void useTemplate() {
+    Properties properties = new Properties();
+    assertFalse(PostgresContainer.builder("15").properties(properties).internalConfig().isUseTemplate());
+
+    properties.setProperty("postgres.useTemplate", "true");
+    assertTrue(PostgresContainer.builder("15").properties(properties).internalConfig().isUseTemplate());
+  }
+
+  @Test
+  void templateChecksum() throws Exception {
+    Path initSql = Files.createTempFile("init", ".sql");
+    try {
+      Files.writeString(initSql, "create table foo (id int);");
+      PostgresContainer container = PostgresContainer.builder("15")
+        .useTemplate(true)
+        .extensions("hstore")
+        .initSqlFile(initSql.toString())
+        .seedSqlFile("seed-main-database.sql")
+        .build();
+
+      String checksum = container.templateChecksum();
+      assertEquals(64, checksum.length());
+      assertEquals(checksum, container.templateChecksum());
+
+      Files.writeString(initSql, "create table foo (id bigint);");
+      assertNotEquals(checksum, container.templateChecksum());
+    } finally {
+      Files.delete(initSql);
+    }
+  }
+
+  @Test
+  void databaseChecksum() {
+    PostgresContainer container = PostgresContainer.builder("15").build();
+
+    String main = container.databaseChecksum("main_user", "hstore", "init-main-database.sql", "seed-main-database.sql");
+    assertEquals(main, container.databaseChecksum("main_user", "hstore", "init-main-database.sql", "seed-main-database.sql"));
+    assertNotEquals(main, container.databaseChecksum("main_user", "hstore,pgcrypto", "init-main-database.sql", "seed-main-database.sql"));
+    assertNotEquals(main, container.databaseChecksum("main_user", "hstore", "init-extra-database.sql", "seed-main-database.sql"));
+    assertNotEquals(main, container.databaseChecksum("main_user", "hstore", "init-main-database.sql", null));
+  }
+
+  @Test
+  void provisionLockKey_perDatabase() {
+    PostgresContainer container = PostgresContainer.builder("15").containerName("ut_pg").dbName("my_app").build();
+    PostgresContainer other = PostgresContainer.builder("15").containerName("ut_pg").dbName("other_app").build();
+
+    assertEquals("ut_pg.my_app", container.provisionLockKey());
+    assertEquals("ut_pg.other_app", other.provisionLockKey());
+  }
+
+  @Test
+  void checkConnectivity_restoresLoginTimeout() {
+    PostgresContainer container = PostgresContainer.builder("15").port(1).build();
+    assertEquals(0, DriverManager.getLoginTimeout());
+    try {
+      assertFalse(container.checkConnectivity(true));
+    } catch (RuntimeException e) {
+      // no JDBC driver on the classpath
+    }
+    assertEquals(0, DriverManager.getLoginTimeout());
+  }
+
+  @Test
+  void shardId_explicit() {
+    Properties properties = new Properties();
+    properties.setProperty("postgres.dbName", "my_app");
+    properties.setProperty("postgres.shardId", "3");
+    properties.setProperty("postgres.extra.dbName", "extra1");
+
+    InternalConfigDb config = PostgresContainer.builder("15").properties(properties).internalConfig();
+    assertEquals("3", config.getShardId());
+    assertEquals("my_app_3", config.getDbName());
+    assertEquals("my_app_3", config.getUsername());
+    assertEquals("my_app", config.getBaseDbName());
+    assertEquals("extra1_3", config.extra().dbName());
+    assertTrue(config.jdbcUrl().endsWith("/my_app_3"));
+  }
+
+  @Test
+  void shardMode_surefireForkNumber() {
+    System.setProperty("surefire.forkNumber", "2");
+    try {
+      var builder = PostgresContainer.builder("15").dbName("my_app").user("app").shardMode(true);
+      InternalConfigDb config = builder.internalConfig();
+      assertEquals("my_app_2", config.getDbName());
+      assertEquals("app_2", config.getUsername());
+      // applied once
+      assertEquals("my_app_2", builder.internalConfig().getDbName());
+
+      InternalConfigDb notSharded = PostgresContainer.builder("15").dbName("my_app").internalConfig();
+      assertNull(notSharded.getShardId());
+      assertEquals("my_app", notSharded.getDbName());
+    } finally {
+      System.clearProperty("surefire.forkNumber");
+    }
+  }
+
+  @Test
+  void resolveShardId() {
+    assertNull(BaseDbBuilder.resolveShardId(null, false));
+    assertNull(BaseDbBuilder.resolveShardId(null, true));
+    assertEquals("gradle_test_worker_7", BaseDbBuilder.resolveShardId("Gradle Test-Worker-7", false));
+  }
+
 }
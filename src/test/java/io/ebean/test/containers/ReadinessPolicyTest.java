@@ -0,0 +1,164 @@
+package io.ebean.test.containers;
+
+import io.ebean.test.containers.process.ProcessResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadinessPolicyTest {
+
+  private Path dir;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    dir = Files.createTempDirectory("ebean-ready");
+    System.setProperty("ebean.test.containers.readinessFile", dir.resolve("readiness.properties").toString());
+    System.setProperty("ebean.test.containers.lockDir", dir.resolve("locks").toString());
+    ReadinessHistory.reset();
+  }
+
+  @AfterEach
+  void tearDown() {
+    System.clearProperty("ebean.test.containers.readinessFile");
+    System.clearProperty("ebean.test.containers.lockDir");
+    ReadinessHistory.reset();
+  }
+
+  @Test
+  void delay_exponentialBackoff() {
+    ReadinessPolicy policy = ReadinessPolicy.builder().jitter(0).build();
+    assertThat(policy.delay(0, 0, 0, 0.5)).isEqualTo(10);
+    assertThat(policy.delay(1, 0, 0, 0.5)).isEqualTo(15);
+    assertThat(policy.delay(2, 0, 0, 0.5)).isEqualTo(22);
+    assertThat(policy.delay(50, 0, 0, 0.5)).isEqualTo(500);
+  }
+
+  @Test
+  void delay_jitter() {
+    ReadinessPolicy policy = ReadinessPolicy.builder().initialDelay(Duration.ofMillis(100)).jitter(0.2).build();
+    assertThat(policy.delay(0, 0, 0, 0)).isEqualTo(80);
+    assertThat(policy.delay(0, 0, 0, 1)).isEqualTo(120);
+  }
+
+  @Test
+  void delay_sparseBeforeExpected() {
+    ReadinessPolicy policy = ReadinessPolicy.builder().jitter(0).build();
+    // well before expected uses the max delay
+    assertThat(policy.delay(0, 0, 20_000, 0.5)).isEqualTo(500);
+    // converges on the expected ready time
+    assertThat(policy.delay(0, 19_600, 20_000, 0.5)).isEqualTo(200);
+    assertThat(policy.delay(0, 19_990, 20_000, 0.5)).isEqualTo(10);
+    // past expected backs off again
+    assertThat(policy.delay(0, 20_100, 20_000, 0.5)).isEqualTo(10);
+  }
+
+  @Test
+  void await_readyAndRecorded() {
+    AtomicInteger count = new AtomicInteger();
+    ReadinessPolicy policy = ReadinessPolicy.builder().build();
+    assertThat(policy.await("ut", "ut-1.ready", 5_000, () -> count.incrementAndGet() >= 3)).isTrue();
+    assertThat(count.get()).isEqualTo(3);
+    assertThat(ReadinessHistory.expected("ut-1.ready")).isGreaterThan(0);
+
+    ReadinessHistory.reset();
+    assertThat(ReadinessHistory.expected("ut-1.ready")).isGreaterThan(0);
+  }
+
+  @Test
+  void await_alreadyReady_notRecorded() {
+    ReadinessPolicy policy = ReadinessPolicy.builder().build();
+    assertThat(policy.await("ut", "ut-2.ready", 5_000, () -> true)).isTrue();
+    assertThat(ReadinessHistory.expected("ut-2.ready")).isEqualTo(0);
+  }
+
+  @Test
+  void await_deadline() {
+    ReadinessPolicy policy = ReadinessPolicy.builder().deadline(Duration.ofMillis(200)).learn(false).build();
+    long start = System.currentTimeMillis();
+    assertThat(policy.await("ut", "ut-3.ready", 60_000, () -> false)).isFalse();
+    assertThat(System.currentTimeMillis() - start).isLessThan(2_000);
+  }
+
+  @Test
+  void await_probeTimeout() {
+    ReadinessPolicy policy = ReadinessPolicy.builder()
+      .deadline(Duration.ofMillis(300))
+      .probeTimeout(Duration.ofMillis(50))
+      .learn(false)
+      .build();
+
+    long start = System.currentTimeMillis();
+    assertThat(policy.await("ut", "ut-4.ready", 0, () -> sleep(5_000))).isFalse();
+    assertThat(System.currentTimeMillis() - start).isLessThan(2_000);
+  }
+
+  @Test
+  void await_probeTimeout_waitsOnRunningProbe() {
+    AtomicInteger count = new AtomicInteger();
+    ReadinessPolicy policy = ReadinessPolicy.builder()
+      .deadline(Duration.ofSeconds(5))
+      .probeTimeout(Duration.ofMillis(50))
+      .learn(false)
+      .build();
+
+    // the slow probe is not abandoned and run again, later polls wait for it to complete
+    assertThat(policy.await("ut", "ut-4.ready", 0, () -> {
+      count.incrementAndGet();
+      sleep(300);
+      return true;
+    })).isTrue();
+    assertThat(count.get()).isEqualTo(1);
+  }
+
+  @Test
+  void await_commandException_notReady() {
+    AtomicInteger count = new AtomicInteger();
+    ReadinessPolicy policy = ReadinessPolicy.builder().learn(false).build();
+    assertThat(policy.await("ut", "ut-5.ready", 5_000, () -> {
+      if (count.incrementAndGet() < 2) {
+        throw new CommandException("not yet", new ProcessResult(1, List.of("not yet")));
+      }
+      return true;
+    })).isTrue();
+  }
+
+  @Test
+  void history_smoothed() {
+    ReadinessHistory.record("ut-6.ready", 3000);
+    ReadinessHistory.record("ut-6.ready", 6000);
+    assertThat(ReadinessHistory.expected("ut-6.ready")).isEqualTo(4000);
+  }
+
+  @Test
+  void history_keepsTimesRecordedByOtherJvm() throws IOException {
+    ReadinessHistory.record("ut-7.ready", 3000);
+    // another JVM records a time after this one loaded the file
+    Path file = dir.resolve("readiness.properties");
+    Files.write(file, List.of("ut-7.ready=6000", "ut-8.ready=1500"));
+
+    ReadinessHistory.record("ut-7.ready", 3000);
+    assertThat(ReadinessHistory.expected("ut-7.ready")).isEqualTo(5000);
+    assertThat(ReadinessHistory.expected("ut-8.ready")).isEqualTo(1500);
+    try (var files = Files.list(dir)) {
+      assertThat(files.noneMatch(path -> path.toString().endsWith(".tmp"))).isTrue();
+    }
+  }
+
+  private static boolean sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+}
@@ -0,0 +1,109 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisPingTest {
+
+  @Test
+  void ping_pong() throws IOException {
+    try (var server = new FakeRedis("+PONG\r\n")) {
+      RedisPing ping = new RedisPing(1000);
+      assertThat(ping.ping("localhost", server.port())).isTrue();
+      assertThat(ping.ping("localhost", server.port())).isTrue();
+      assertThat(server.requests).contains("*1\r\n$4\r\nPING\r\n");
+    }
+  }
+
+  @Test
+  void ping_loading_notReady() throws IOException {
+    try (var server = new FakeRedis("-LOADING Redis is loading the dataset in memory\r\n")) {
+      assertThat(new RedisPing(1000).ping("localhost", server.port())).isFalse();
+    }
+  }
+
+  @Test
+  void ping_noAuth_ready() throws IOException {
+    try (var server = new FakeRedis("-NOAUTH Authentication required.\r\n")) {
+      assertThat(new RedisPing(1000).ping("localhost", server.port())).isTrue();
+    }
+  }
+
+  @Test
+  void ping_noResponse_timeout() throws IOException {
+    try (var server = new FakeRedis(null)) {
+      long start = System.currentTimeMillis();
+      assertThat(new RedisPing(200).ping("localhost", server.port())).isFalse();
+      assertThat(System.currentTimeMillis() - start).isLessThan(2_000);
+    }
+  }
+
+  @Test
+  void ping_notListening() throws IOException {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    assertThat(new RedisPing(200).ping("localhost", port)).isFalse();
+  }
+
+  /**
+   * Accepts connections reading the PING and replying with the given response (null for no reply).
+   */
+  static final class FakeRedis implements AutoCloseable {
+
+    final ServerSocket serverSocket;
+    final List<String> requests = new CopyOnWriteArrayList<>();
+
+    FakeRedis(String reply) throws IOException {
+      this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+      Thread thread = new Thread(() -> acceptLoop(reply), "fake-redis");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    int port() {
+      return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop(String reply) {
+      while (!serverSocket.isClosed()) {
+        try (Socket socket = serverSocket.accept()) {
+          InputStream in = socket.getInputStream();
+          byte[] buffer = new byte[14];
+          int length = 0;
+          while (length < buffer.length) {
+            int count = in.read(buffer, length, buffer.length - length);
+            if (count < 0) {
+              break;
+            }
+            length += count;
+          }
+          requests.add(new String(buffer, 0, length, StandardCharsets.US_ASCII));
+          if (reply != null) {
+            socket.getOutputStream().write(reply.getBytes(StandardCharsets.US_ASCII));
+          } else {
+            in.read();
+          }
+        } catch (IOException e) {
+          // closed
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      serverSocket.close();
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegistryAuthTest {
+
+  private static final String CONFIG = "{\"auths\":{"
+    + "\"my.harbor\":{\"auth\":\"" + Base64.getEncoder().encodeToString("robot:s3cr\"t".getBytes(StandardCharsets.UTF_8)) + "\"},"
+    + "\"https://index.docker.io/v1/\":{\"identitytoken\":\"tok\"},"
+    + "\"desktop.registry\":{}},"
+    + "\"credHelpers\":{\"123.dkr.ecr.eu-west-1.amazonaws.com\":\"ecr-login\"}}";
+
+  @Test
+  void registry() {
+    assertThat(RegistryAuth.registry("redis:7")).isEqualTo(RegistryAuth.DOCKER_HUB);
+    assertThat(RegistryAuth.registry("bitnami/redis:7")).isEqualTo(RegistryAuth.DOCKER_HUB);
+    assertThat(RegistryAuth.registry("my.ecr/mirror/docker.io/redis:7")).isEqualTo("my.ecr");
+    assertThat(RegistryAuth.registry("localhost:5000/redis")).isEqualTo("localhost:5000");
+  }
+
+  @Test
+  void header_inlineAuth() {
+    RegistryAuth auth = new RegistryAuth(Json.parseObject(CONFIG));
+    String json = new String(Base64.getUrlDecoder().decode(auth.header("my.harbor")), StandardCharsets.UTF_8);
+
+    Map<String, Object> header = Json.parseObject(json);
+    assertThat(header.get("username")).isEqualTo("robot");
+    assertThat(header.get("password")).isEqualTo("s3cr\"t");
+    assertThat(header.get("serveraddress")).isEqualTo("my.harbor");
+    assertThat(auth.credentialHelper("my.harbor")).isFalse();
+  }
+
+  @Test
+  void header_identityToken() {
+    RegistryAuth auth = new RegistryAuth(Json.parseObject(CONFIG));
+    String json = new String(Base64.getUrlDecoder().decode(auth.header(RegistryAuth.DOCKER_HUB)), StandardCharsets.UTF_8);
+    assertThat(Json.parseObject(json).get("identitytoken")).isEqualTo("tok");
+  }
+
+  @Test
+  void credentialHelper() {
+    RegistryAuth auth = new RegistryAuth(Json.parseObject(CONFIG));
+    assertThat(auth.credentialHelper("123.dkr.ecr.eu-west-1.amazonaws.com")).isTrue();
+    assertThat(auth.header("desktop.registry")).isNull();
+    assertThat(auth.credentialHelper("desktop.registry")).isFalse();
+
+    RegistryAuth store = new RegistryAuth(Json.parseObject("{\"auths\":{\"desktop.registry\":{}},\"credsStore\":\"desktop\"}"));
+    assertThat(store.credentialHelper("desktop.registry")).isTrue();
+  }
+
+  @Test
+  void anonymous() {
+    RegistryAuth auth = new RegistryAuth(Map.of());
+    assertThat(auth.header("my.harbor")).isNull();
+    assertThat(auth.credentialHelper("my.harbor")).isFalse();
+  }
+}
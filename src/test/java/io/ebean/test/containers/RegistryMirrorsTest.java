@@ -0,0 +1,151 @@
+package io.ebean.test.containers;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegistryMirrorsTest {
+
+  @AfterEach
+  void reset() {
+    RegistryMirrors.reset();
+  }
+
+  @Test
+  void manifestUri() {
+    assertThat(RegistryMirrors.manifestUri("my.ecr/mirror/docker.io/library/redis:7"))
+      .isEqualTo(URI.create("https://my.ecr/v2/mirror/docker.io/library/redis/manifests/7"));
+    assertThat(RegistryMirrors.manifestUri("my.ecr/mirror/docker.io/redis"))
+      .isEqualTo(URI.create("https://my.ecr/v2/mirror/docker.io/redis/manifests/latest"));
+    assertThat(RegistryMirrors.manifestUri("localhost:5000/mirror/redis@sha256:abc"))
+      .isEqualTo(URI.create("http://localhost:5000/v2/mirror/redis/manifests/sha256:abc"));
+  }
+
+  @Test
+  void mirrorOf() {
+    assertThat(RegistryMirrors.mirrorOf("a.ecr/mirror, b.ecr/mirror/", "b.ecr/mirror/docker.io/redis:7")).isEqualTo("b.ecr/mirror/");
+    assertThat(RegistryMirrors.mirrorOf("a.ecr/mirror", "redis:7")).isNull();
+    assertThat(RegistryMirrors.mirrorOf(null, "redis:7")).isNull();
+  }
+
+  @Test
+  void fastest() {
+    List<String> order = RegistryMirrors.fastest(List.of(
+      new RegistryMirrors.Probe("slow", 200, 300),
+      new RegistryMirrors.Probe("down", 503, 5),
+      new RegistryMirrors.Probe("timeout", 0, 2000),
+      new RegistryMirrors.Probe("missing", 404, 10),
+      new RegistryMirrors.Probe("auth", 401, 20)));
+
+    assertThat(order).containsExactly("auth", "slow");
+  }
+
+  @Test
+  void images_configuredOrder_noProbe() {
+    assertThat(RegistryMirrors.images(List.of("my.ecr/mirror"), "redis:7"))
+      .containsExactly("my.ecr/mirror/docker.io/redis:7", "redis:7");
+    assertThat(RegistryMirrors.images(List.of("a.ecr/mirror", "b.ecr/mirror"), "redis:7"))
+      .containsExactly("a.ecr/mirror/docker.io/redis:7", "b.ecr/mirror/docker.io/redis:7", "redis:7");
+  }
+
+  @Test
+  void order_singleMirror_noProbe() {
+    List<String> images = List.of("my.ecr/mirror/docker.io/redis:7", "redis:7");
+    assertThat(RegistryMirrors.order(images)).isSameAs(images);
+  }
+
+  @Test
+  void order_probeFastestFirst() throws Exception {
+    List<String> probed = new CopyOnWriteArrayList<>();
+    ExecutorService executor = Executors.newCachedThreadPool();
+    HttpServer slow = registry(executor, probed, 200, 300);
+    HttpServer down = registry(executor, probed, 503, 0);
+    HttpServer fast = registry(executor, probed, 200, 0);
+    try {
+      String slowMirror = "localhost:" + slow.getAddress().getPort() + "/mirror";
+      String downMirror = "localhost:" + down.getAddress().getPort() + "/mirror";
+      String fastMirror = "localhost:" + fast.getAddress().getPort() + "/mirror";
+      List<String> mirrors = List.of(slowMirror, downMirror, fastMirror);
+
+      List<String> images = RegistryMirrors.order(RegistryMirrors.images(mirrors, "postgres:17"));
+      assertThat(images).containsExactly(
+        fastMirror + "/docker.io/postgres:17",
+        slowMirror + "/docker.io/postgres:17",
+        "postgres:17");
+      assertThat(probed).contains("HEAD /v2/mirror/docker.io/postgres/manifests/17");
+      assertThat(probed).hasSize(3);
+
+      // the response times are kept per JVM so the mirrors of other images are not probed again
+      assertThat(RegistryMirrors.order(RegistryMirrors.images(mirrors, "redis:7"))).containsExactly(
+        fastMirror + "/docker.io/redis:7",
+        slowMirror + "/docker.io/redis:7",
+        "redis:7");
+      assertThat(probed).hasSize(3);
+    } finally {
+      slow.stop(0);
+      down.stop(0);
+      fast.stop(0);
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void order_missingImage_onlyDroppedForThatImage() throws Exception {
+    List<String> probed = new CopyOnWriteArrayList<>();
+    ExecutorService executor = Executors.newCachedThreadPool();
+    HttpServer missing = registry(executor, probed, 404, 0);
+    HttpServer slow = registry(executor, probed, 200, 200);
+    try {
+      String missingMirror = "localhost:" + missing.getAddress().getPort() + "/mirror";
+      String slowMirror = "localhost:" + slow.getAddress().getPort() + "/mirror";
+      List<String> mirrors = List.of(missingMirror, slowMirror);
+
+      assertThat(RegistryMirrors.order(RegistryMirrors.images(mirrors, "postgres:17"))).containsExactly(
+        slowMirror + "/docker.io/postgres:17",
+        "postgres:17");
+
+      // the registry responded so it is used for other images, fastest first
+      assertThat(RegistryMirrors.order(RegistryMirrors.images(mirrors, "redis:7"))).containsExactly(
+        missingMirror + "/docker.io/redis:7",
+        slowMirror + "/docker.io/redis:7",
+        "redis:7");
+      assertThat(probed).hasSize(2);
+    } finally {
+      missing.stop(0);
+      slow.stop(0);
+      executor.shutdownNow();
+    }
+  }
+
+  private static HttpServer registry(ExecutorService executor, List<String> probed, int status, long delayMillis) throws IOException {
+    HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.setExecutor(executor);
+    server.createContext("/", exchange -> {
+      probed.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+      sleep(delayMillis);
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+    });
+    server.start();
+    return server;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
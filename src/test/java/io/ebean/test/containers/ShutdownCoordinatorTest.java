@@ -0,0 +1,85 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShutdownCoordinatorTest {
+
+  @Test
+  void shutdown_batchesStopAndRemove() throws Exception {
+    try (var daemon = new FakeDockerDaemon()) {
+      daemon.reply("POST /containers/ut_a/stop?t=1", 204, "");
+      daemon.reply("POST /containers/ut_b/stop?t=1", 304, "");
+      daemon.reply("DELETE /containers/ut_c?force=1&v=1", 204, "");
+
+      var commands = new Commands(daemon.client());
+      var custom = new AtomicBoolean();
+      var coordinator = new ShutdownCoordinator(false, 1, 5_000);
+      coordinator.add(registration("ut_a", commands, StopMode.Stop));
+      coordinator.add(registration("ut_b", commands, StopMode.Stop));
+      coordinator.add(registration("ut_a", commands, StopMode.Stop));
+      coordinator.add(registration("ut_c", commands, StopMode.Remove));
+      coordinator.add(new ShutdownCoordinator.Registration("ut_nuo", "docker", commands, StopMode.Remove, null, () -> custom.set(true)));
+
+      assertThat(coordinator.shutdown()).isTrue();
+      assertThat(custom.get()).isTrue();
+      assertThat(daemon.requests).contains("POST /containers/ut_a/stop?t=1", "POST /containers/ut_b/stop?t=1", "DELETE /containers/ut_c?force=1&v=1");
+      assertThat(daemon.requests).hasSize(3);
+    }
+  }
+
+  @Test
+  void shutdownRegistration_randomPortRemoved() {
+    RedisContainer random = RedisContainer.builder("7").port(0).shutdownMode(StopMode.Stop).build();
+    random.setDefaultContainerName();
+    random.dockerRun();
+    assertThat(random.shutdownRegistration().mode).isEqualTo(StopMode.Remove);
+
+    RedisContainer kept = RedisContainer.builder("7").port(6380).containerName("ut_kept").shutdownMode(StopMode.Stop).build();
+    kept.setDefaultContainerName();
+    kept.dockerRun();
+    assertThat(kept.shutdownRegistration().mode).isEqualTo(StopMode.Stop);
+  }
+
+  @Test
+  void shutdown_deadline() {
+    var coordinator = new ShutdownCoordinator(false, 1, 100);
+    coordinator.add(new ShutdownCoordinator.Registration("ut_slow", "docker", null, StopMode.Stop, null, () -> sleep(2_000)));
+    long start = System.currentTimeMillis();
+    assertThat(coordinator.shutdown()).isFalse();
+    assertThat(System.currentTimeMillis() - start).isLessThan(1_500);
+  }
+
+  @Test
+  void shutdown_skipWhenLeasedByOthers() throws Exception {
+    System.setProperty("ebean.test.containers.lockDir", Files.createTempDirectory("ebean-lease").toString());
+    try (var daemon = new FakeDockerDaemon()) {
+      ContainerLease other = ContainerLease.acquire("ut_leased");
+      ContainerLease lease = ContainerLease.acquire("ut_leased");
+
+      var coordinator = new ShutdownCoordinator(false, 1, 5_000);
+      coordinator.add(new ShutdownCoordinator.Registration("ut_leased", "docker", new Commands(daemon.client()), StopMode.Stop, lease, null));
+      assertThat(coordinator.shutdown()).isTrue();
+      assertThat(daemon.requests).isEmpty();
+      assertThat(other.release()).isEqualTo(0);
+    } finally {
+      System.clearProperty("ebean.test.containers.lockDir");
+    }
+  }
+
+  private static ShutdownCoordinator.Registration registration(String name, Commands commands, StopMode mode) {
+    return new ShutdownCoordinator.Registration(name, "docker", commands, mode, null, null);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
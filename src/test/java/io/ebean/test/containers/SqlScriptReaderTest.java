@@ -0,0 +1,122 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlScriptReaderTest {
+
+  private static List<String> read(String script, boolean blocks, boolean backslashEscapes) throws IOException {
+    List<String> statements = new ArrayList<>();
+    try (SqlScriptReader reader = new SqlScriptReader(new StringReader(script), blocks, backslashEscapes)) {
+      String sql;
+      while ((sql = reader.next()) != null) {
+        statements.add(sql);
+      }
+    }
+    return statements;
+  }
+
+  private static List<String> read(String script) throws IOException {
+    return read(script, false, false);
+  }
+
+  @Test
+  void statements_withComments() throws IOException {
+    List<String> statements = read("-- comment;\ncreate table foo (id integer); /* a; b */ insert into foo values (1);\n\ninsert into foo\n  values (2)");
+    assertThat(statements).containsExactly("create table foo (id integer)", "insert into foo values (1)", "insert into foo\n  values (2)");
+  }
+
+  @Test
+  void quotes_containingDelimiters() throws IOException {
+    List<String> statements = read("insert into foo values ('a;b', 'it''s;');\nselect \"odd;name\" from foo;");
+    assertThat(statements).containsExactly("insert into foo values ('a;b', 'it''s;')", "select \"odd;name\" from foo");
+  }
+
+  @Test
+  void quotes_multiLine() throws IOException {
+    List<String> statements = read("insert into foo values ('line1;\nline2');\nselect 1;");
+    assertThat(statements).containsExactly("insert into foo values ('line1;\nline2')", "select 1");
+  }
+
+  @Test
+  void dollarQuoting() throws IOException {
+    String function = "create function f() returns integer as $body$\nbegin\n  return 1; -- $$ not the end\nend;\n$body$ language plpgsql";
+    List<String> statements = read(function + ";\ndo $$ begin perform 1; end $$;\nselect $1, v$x from t;");
+    assertThat(statements).containsExactly(function, "do $$ begin perform 1; end $$", "select $1, v$x from t");
+  }
+
+  @Test
+  void escapeString_postgres() throws IOException {
+    assertThat(read("select E'a\\';b';\nselect 'c\\';select 2;")).containsExactly("select E'a\\';b'", "select 'c\\'", "select 2");
+  }
+
+  @Test
+  void backslashEscapes_mysql() throws IOException {
+    assertThat(read("insert into t values ('it\\'s;');\nselect 2;", false, true)).containsExactly("insert into t values ('it\\'s;')", "select 2");
+  }
+
+  @Test
+  void nestedComment_and_hints() throws IOException {
+    List<String> statements = read("/* outer /* inner; */ still comment; */ select /*+ index(t) */ 1 from t;\n/*!40101 SET NAMES utf8 */;");
+    assertThat(statements).containsExactly("select /*+ index(t) */ 1 from t", "/*!40101 SET NAMES utf8 */");
+  }
+
+  @Test
+  void delimiter_mysql() throws IOException {
+    String proc = "create procedure p()\nbegin\n  select 1;\n  select 2;\nend";
+    List<String> statements = read("DELIMITER //\n" + proc + "//\nDELIMITER ;\nselect 3;", false, true);
+    assertThat(statements).containsExactly(proc, "select 3");
+  }
+
+  @Test
+  void terminator_db2() throws IOException {
+    String proc = "create procedure p()\nbegin\n  declare x int;\n  set x = 1;\nend";
+    List<String> statements = read("--#SET TERMINATOR @\n" + proc + "@\nselect 3 from sysibm.sysdummy1@", true, false);
+    assertThat(statements).containsExactly(proc, "select 3 from sysibm.sysdummy1");
+  }
+
+  @Test
+  void plsqlBlocks() throws IOException {
+    String proc = "create or replace procedure p as\nbegin\n  insert into t values (1);\n  commit;\nend;";
+    String anonymous = "begin\n  p;\nend;";
+    List<String> statements = read("create table t (id number);\n" + proc + "\n/\n" + anonymous + "\n/\ninsert into t values (2);\n/\n", true, false);
+    assertThat(statements).containsExactly("create table t (id number)", proc, anonymous, "insert into t values (2)");
+  }
+
+  @Test
+  void goSeparator_sqlServer() throws IOException {
+    String proc = "create procedure p as\n  set nocount on;\n  select 1;";
+    List<String> statements = read("begin transaction;\ninsert into t values (1);\nGO\n" + proc + "\ngo\nselect 2\nGO 2\n", true, false);
+    assertThat(statements).containsExactly("begin transaction", "insert into t values (1)", proc, "select 2");
+  }
+
+  @Test
+  void blocksDisabled_splitsOnDelimiter() throws IOException {
+    assertThat(read("begin;\ninsert into t values (1);\ncommit;")).containsExactly("begin", "insert into t values (1)", "commit");
+  }
+
+  @Test
+  void lineNumber() throws IOException {
+    try (SqlScriptReader reader = new SqlScriptReader(new StringReader("-- header\n\nselect 1;\n\n  select\n 2;"), false, false)) {
+      assertThat(reader.next()).isEqualTo("select 1");
+      assertThat(reader.lineNumber()).isEqualTo(3);
+      assertThat(reader.next()).isEqualTo("select\n 2");
+      assertThat(reader.lineNumber()).isEqualTo(5);
+      assertThat(reader.next()).isNull();
+    }
+  }
+
+  @Test
+  void dollarTag() {
+    assertThat(SqlScriptReader.dollarTag("$$ x", 0)).isEqualTo("$$");
+    assertThat(SqlScriptReader.dollarTag("as $fn_1$ x", 3)).isEqualTo("$fn_1$");
+    assertThat(SqlScriptReader.dollarTag("$1 and $2", 0)).isNull();
+    assertThat(SqlScriptReader.dollarTag("v$session", 1)).isNull();
+  }
+}
@@ -0,0 +1,149 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlScriptRunnerTest {
+
+  @Test
+  void isBatchable() {
+    assertThat(SqlScriptRunner.isBatchable("insert into t values (1)")).isTrue();
+    assertThat(SqlScriptRunner.isBatchable("UPDATE t set a = 1")).isTrue();
+    assertThat(SqlScriptRunner.isBatchable("delete from t")).isTrue();
+    assertThat(SqlScriptRunner.isBatchable("create table t (id int)")).isFalse();
+    assertThat(SqlScriptRunner.isBatchable("inserted")).isFalse();
+  }
+
+  @Test
+  void run_batchesDml() throws SQLException, IOException {
+    var fake = new FakeStatement(null);
+    String script = "create table t (id int);\n" +
+      "insert into t values (1);\ninsert into t values (2);\ninsert into t values (3);\n" +
+      "create index ix on t (id);\n" +
+      "update t set id = 4;";
+
+    SqlScriptRunner runner = new SqlScriptRunner("test.sql", 2);
+    int errors = runner.run(fake.connection(), new SqlScriptReader(new StringReader(script), false, false));
+
+    assertThat(errors).isEqualTo(0);
+    assertThat(runner.statementCount()).isEqualTo(6);
+    assertThat(fake.calls).containsExactly(
+      "execute:create table t (id int)",
+      "batch:[insert into t values (1), insert into t values (2)]",
+      "batch:[insert into t values (3)]",
+      "execute:create index ix on t (id)",
+      "batch:[update t set id = 4]");
+  }
+
+  @Test
+  void run_continuesAfterErrors() throws SQLException, IOException {
+    var fake = new FakeStatement("bad");
+    String script = "create bad;\ninsert into t values (1);\ninsert into bad values (2);\nselect 1;";
+
+    int errors = new SqlScriptRunner("test.sql", 10).run(fake.connection(), new SqlScriptReader(new StringReader(script), false, false));
+
+    assertThat(errors).isEqualTo(2);
+    assertThat(fake.calls).contains("execute:select 1");
+  }
+
+  @Test
+  void run_badRowInBatch_otherRowsApplied() throws SQLException, IOException {
+    var fake = new FakeStatement("bad");
+    String script = "insert into t values (1);\ninsert into t values (2);\ninsert into t values ('bad');\n"
+      + "insert into t values (4);\ninsert into t values (5);\ninsert into t values (6);";
+
+    int errors = new SqlScriptRunner("test.sql", 5).run(fake.connection(), new SqlScriptReader(new StringReader(script), false, false));
+
+    assertThat(errors).isEqualTo(1);
+    assertThat(fake.calls).contains("rollback");
+    assertThat(fake.rows).containsExactly(
+      "insert into t values (1)", "insert into t values (2)", "insert into t values (4)",
+      "insert into t values (5)", "insert into t values (6)");
+  }
+
+  /**
+   * Statement recording execute and executeBatch calls failing statements containing the failure text.
+   */
+  static final class FakeStatement {
+
+    final List<String> calls = new ArrayList<>();
+    final List<String> batch = new ArrayList<>();
+    final List<String> rows = new ArrayList<>();
+    final List<String> pending = new ArrayList<>();
+    final String failure;
+    boolean autoCommit = true;
+
+    FakeStatement(String failure) {
+      this.failure = failure;
+    }
+
+    Connection connection() {
+      Statement statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "execute":
+            calls.add("execute:" + args[0]);
+            if (failure != null && ((String) args[0]).contains(failure)) {
+              throw new SQLException("failed " + args[0]);
+            }
+            apply((String) args[0]);
+            return false;
+          case "addBatch":
+            batch.add((String) args[0]);
+            return null;
+          case "executeBatch":
+            calls.add("batch:" + batch);
+            for (int i = 0; i < batch.size(); i++) {
+              if (failure != null && batch.get(i).contains(failure)) {
+                throw new BatchUpdateException("failed " + batch.get(i), new int[i]);
+              }
+              apply(batch.get(i));
+            }
+            return new int[batch.size()];
+          case "clearBatch":
+            batch.clear();
+            return null;
+          default:
+            return null;
+        }
+      });
+      return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "createStatement":
+            return statement;
+          case "getAutoCommit":
+            return autoCommit;
+          case "setAutoCommit":
+            autoCommit = (Boolean) args[0];
+            return null;
+          case "commit":
+            rows.addAll(pending);
+            pending.clear();
+            return null;
+          case "rollback":
+            calls.add("rollback");
+            pending.clear();
+            return null;
+          default:
+            return null;
+        }
+      });
+    }
+
+    private void apply(String sql) {
+      if (sql.startsWith("insert")) {
+        (autoCommit ? rows : pending).add(sql);
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package io.ebean.test.containers;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupReportTest {
+
+  @Test
+  void time_phases() {
+    StartupReport report = new StartupReport("postgres", null);
+    String result = report.time("createDatabase", () -> {
+      report.time("extensions", () -> sleep(20));
+      return "done";
+    });
+    report.finish("ut_pg", true);
+
+    assertThat(result).isEqualTo("done");
+    assertThat(report.containerName()).isEqualTo("ut_pg");
+    assertThat(report.isSuccess()).isTrue();
+    assertThat(report.phases()).hasSize(2);
+    assertThat(report.phase("createDatabase").millis()).isGreaterThanOrEqualTo(report.phase("extensions").millis());
+    assertThat(report.phase("extensions").millis()).isGreaterThanOrEqualTo(20);
+    assertThat(report.totalMillis()).isGreaterThanOrEqualTo(20);
+    assertThat(report.phase("run")).isNull();
+  }
+
+  @Test
+  void time_whenError_recorded() {
+    StartupReport report = new StartupReport("redis", "ut_redis");
+    try {
+      report.time("run", () -> {
+        throw new IllegalStateException("failed");
+      });
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    report.finish(null, false);
+    assertThat(report.isSuccess()).isFalse();
+    assertThat(report.containerName()).isEqualTo("ut_redis");
+    assertThat(report.phase("run")).isNotNull();
+  }
+
+  @Test
+  void toJson() {
+    StartupReport report = new StartupReport("postgres", "ut_\"pg");
+    report.time("run", () -> { });
+    report.finish(null, true);
+
+    String json = report.toJson();
+    assertThat(json).startsWith("{\"platform\":\"postgres\",\"containerName\":\"ut_\\\"pg\",\"startedAt\":");
+    assertThat(json).contains("\"success\":true");
+    assertThat(json).contains("\"phases\":[{\"name\":\"run\",\"offsetMillis\":");
+    assertThat(Json.parseObject(json)).containsKey("totalMillis");
+  }
+
+  @Test
+  void pulled() {
+    StartupReport report = new StartupReport("postgres", "ut_pg");
+    report.time("pull", () -> { });
+    report.pulled(2048, 1500);
+    report.image("b.ecr/mirror/docker.io/postgres:17", "b.ecr/mirror");
+    report.finish(null, true);
+
+    assertThat(report.pullBytes()).isEqualTo(2048);
+    assertThat(report.pullMillis()).isEqualTo(1500);
+    assertThat(report.mirror()).isEqualTo("b.ecr/mirror");
+    assertThat(report.toString()).contains("mirror:b.ecr/mirror pullBytes:2048 pullMillis:1500");
+    assertThat(report.toJson()).contains("\"image\":\"b.ecr/mirror/docker.io/postgres:17\",\"mirror\":\"b.ecr/mirror\"");
+    assertThat(report.toJson()).contains("\"pullBytes\":2048,\"pullMillis\":1500");
+  }
+
+  @Test
+  void write() throws IOException {
+    Path dir = Files.createTempDirectory("ebean-startup");
+    StartupReport report = new StartupReport("postgres", "ut_pg");
+    report.time("run", () -> { });
+    report.write(dir.toFile());
+
+    Path file = dir.resolve("ebean-containers-startup-postgres-ut_pg.json");
+    assertThat(Files.readString(file)).isEqualTo(report.toJson());
+  }
+
+  @Test
+  void jfrEvent() throws IOException {
+    Path dump = Files.createTempFile("ebean-startup", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("io.ebean.test.containers.StartupPhase");
+      recording.start();
+      StartupReport report = new StartupReport("postgres", "ut_pg");
+      report.time("createDatabase", () -> sleep(5));
+      recording.stop();
+      recording.dump(dump);
+    }
+    List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+    assertThat(events).hasSize(1);
+    RecordedEvent event = events.get(0);
+    assertThat(event.getString("phase")).isEqualTo("createDatabase");
+    assertThat(event.getString("platform")).isEqualTo("postgres");
+    assertThat(event.getString("containerName")).isEqualTo("ut_pg");
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
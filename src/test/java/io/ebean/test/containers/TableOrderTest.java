@@ -0,0 +1,51 @@
+package io.ebean.test.containers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TableOrderTest {
+
+  @Test
+  void childrenFirst() {
+    TableOrder order = new TableOrder(List.of("customer", "order_line", "orders", "product", "audit_log"))
+      .reference("orders", "customer")
+      .reference("order_line", "orders")
+      .reference("order_line", "product");
+
+    List<String> tables = order.childrenFirst();
+    assertThat(tables).hasSize(5);
+    assertThat(tables.indexOf("order_line")).isLessThan(tables.indexOf("orders"));
+    assertThat(tables.indexOf("orders")).isLessThan(tables.indexOf("customer"));
+    assertThat(tables.indexOf("order_line")).isLessThan(tables.indexOf("product"));
+
+    assertThat(order.isReferenced("customer")).isTrue();
+    assertThat(order.isReferenced("order_line")).isFalse();
+    assertThat(order.isReferenced("audit_log")).isFalse();
+  }
+
+  @Test
+  void childrenFirst_selfReferenceAndCycle() {
+    TableOrder order = new TableOrder(List.of("a", "b", "c"))
+      .reference("a", "a")
+      .reference("a", "b")
+      .reference("b", "a")
+      .reference("c", "b");
+
+    List<String> tables = order.childrenFirst();
+    assertThat(tables).containsExactlyInAnyOrder("a", "b", "c");
+    assertThat(tables.indexOf("c")).isLessThan(tables.indexOf("b"));
+  }
+
+  @Test
+  void resetTables_excludesMigrationTables() {
+    List<String[]> rows = List.of(
+      new String[]{"\"public\".\"customer\"", "customer"},
+      new String[]{"\"public\".\"db_migration\"", "db_migration"},
+      new String[]{"\"FLYWAY_SCHEMA_HISTORY\"", "FLYWAY_SCHEMA_HISTORY"});
+
+    assertThat(DbContainer.resetTables(rows, 1)).containsExactly("\"public\".\"customer\"");
+  }
+}
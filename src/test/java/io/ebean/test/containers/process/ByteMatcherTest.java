@@ -0,0 +1,46 @@
+package io.ebean.test.containers.process;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteMatcherTest {
+
+  private static byte[] bytes(String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void update() {
+    byte[] content = bytes("LOG:  database system is ready to accept connections");
+    assertThat(new ByteMatcher("ready to accept").update(content, 0, content.length)).isTrue();
+    assertThat(new ByteMatcher("ready to reject").update(content, 0, content.length)).isFalse();
+  }
+
+  @Test
+  void update_spanningChunks() {
+    ByteMatcher matcher = new ByteMatcher("abcabd");
+    byte[] first = bytes("xxabcab");
+    byte[] second = bytes("cabdyy");
+    assertThat(matcher.update(first, 0, first.length)).isFalse();
+    assertThat(matcher.update(second, 0, second.length)).isTrue();
+    assertThat(matcher.matched()).isTrue();
+  }
+
+  @Test
+  void update_partialPrefixRestart() {
+    // the match starts within a failed partial match
+    byte[] content = bytes("aaab");
+    assertThat(new ByteMatcher("aab").update(content, 0, content.length)).isTrue();
+  }
+
+  @Test
+  void update_offsetAndMultibyte() {
+    byte[] content = bytes("zzzgrüße");
+    ByteMatcher matcher = new ByteMatcher("grüße");
+    assertThat(matcher.update(content, 3, content.length - 3)).isTrue();
+    assertThat(new ByteMatcher("zzz").update(content, 1, 3)).isFalse();
+  }
+}
@@ -0,0 +1,78 @@
+package io.ebean.test.containers.process;
+
+import io.ebean.test.containers.CommandException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProcessHandlerTest {
+
+  @Test
+  void command() {
+    ProcessResult result = ProcessHandler.command("sh", "-c", "echo one; echo two >&2");
+    assertThat(result.success()).isTrue();
+    assertThat(result.getOutLines()).containsExactly("one", "two");
+  }
+
+  @Test
+  void command_failed() {
+    CommandException e = assertThrows(CommandException.class, () -> ProcessHandler.command("sh", "-c", "echo oops; exit 3"));
+    assertThat(e.getResult().success()).isFalse();
+    assertThat(e.getResult().getOutLines()).containsExactly("oops");
+  }
+
+  @Test
+  void matchCommand() {
+    ProcessResult result = ProcessHandler.matchCommand("ready", "reset", "sh", "-c", "echo ready 1; echo reset; echo not; echo ready 2");
+    assertThat(result.getOutLines()).containsExactly("ready 2");
+  }
+
+  @Test
+  void processTail() {
+    ProcessResult result = ProcessHandler.processTail(new ProcessBuilder("sh", "-c", "for i in 1 2 3 4 5 6; do echo line$i; done"), 3);
+    assertThat(result.getOutLines()).containsExactly("line4", "line5", "line6");
+  }
+
+  @Test
+  void processLines() {
+    List<String> lines = new ArrayList<>();
+    ProcessResult result = ProcessHandler.processLines(new ProcessBuilder("sh", "-c", "echo a; echo b"), lines::add);
+    assertThat(lines).containsExactly("a", "b");
+    assertThat(result.getOutLines()).isEmpty();
+  }
+
+  @Test
+  void processContains() {
+    ProcessBuilder pb = new ProcessBuilder("sh", "-c", "for i in $(seq 1 5000); do echo filler line $i; done; echo database ready; echo done");
+    assertThat(ProcessHandler.processContains(pb, "database ready")).isTrue();
+    assertThat(ProcessHandler.processContains(new ProcessBuilder("sh", "-c", "echo database starting"), "database ready")).isFalse();
+  }
+
+  @Test
+  void processAsync_concurrently() {
+    long start = System.nanoTime();
+    CompletableFuture<ProcessResult> first = ProcessHandler.processAsync(new ProcessBuilder("sh", "-c", "sleep 0.5; echo a"));
+    CompletableFuture<ProcessResult> second = ProcessHandler.processAsync(new ProcessBuilder("sh", "-c", "sleep 0.5; echo b"));
+
+    assertThat(ProcessHandler.join(first).getOutLines()).containsExactly("a");
+    assertThat(ProcessHandler.join(second).getOutLines()).containsExactly("b");
+    assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis()).isLessThan(950);
+  }
+
+  @Test
+  void process_timeout_killsProcessTree() {
+    long start = System.nanoTime();
+    CommandException e = assertThrows(CommandException.class, () ->
+      ProcessHandler.process(new ProcessBuilder("sh", "-c", "echo started; sleep 30 & wait"), Duration.ofMillis(300)));
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis()).isLessThan(5000);
+    assertThat(e.getMessage()).contains("timed out");
+    assertThat(e.getResult().getOutLines()).containsExactly("started");
+  }
+}